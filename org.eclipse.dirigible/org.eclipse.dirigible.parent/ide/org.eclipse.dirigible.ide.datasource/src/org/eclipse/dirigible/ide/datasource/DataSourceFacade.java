@@ -82,7 +82,7 @@ public class DataSourceFacade {
 			System.getProperties().put(LOCAL_DB_NAME, localDataSource);
 		}
 		logger.warn(EMBEDDED_DATA_SOURCE_IS_USED);
-		WrappedDataSource wrappedDataSource = new WrappedDataSource(localDataSource); 
+		WrappedDataSource wrappedDataSource = new WrappedDataSource(localDataSource, true);
 		return wrappedDataSource;
 	}
 	
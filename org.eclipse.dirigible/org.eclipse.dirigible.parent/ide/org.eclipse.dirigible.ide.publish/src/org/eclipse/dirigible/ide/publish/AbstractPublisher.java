@@ -30,6 +30,7 @@ import org.eclipse.dirigible.ide.repository.RepositoryFacade;
 import org.eclipse.dirigible.repository.api.ICollection;
 import org.eclipse.dirigible.repository.api.ICommonConstants;
 import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.ITreeCopier;
 import org.eclipse.dirigible.repository.logging.Logger;
 
 public abstract class AbstractPublisher implements IPublisher {
@@ -84,6 +85,16 @@ public abstract class AbstractPublisher implements IPublisher {
 
 		String user = getUser();
 
+		IRepository repository = target.getRepository();
+		if (repository instanceof ITreeCopier) {
+			// the whole tree at once - only the files differing in the target are written
+			if (checkOverridePermissionsForFolder(source.getName(), user, target)) {
+				((ITreeCopier) repository).copyTree(source.getWorkspace().getRoot().getRawLocation()
+						+ source.getFullPath().toString(), target.getPath());
+			}
+			return;
+		}
+
 		// #177
 //		synchronizeRepositoryWithWorkspace(source, target);
 
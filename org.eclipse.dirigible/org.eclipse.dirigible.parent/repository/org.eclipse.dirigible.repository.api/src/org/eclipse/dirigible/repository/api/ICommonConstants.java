@@ -56,6 +56,7 @@ public interface ICommonConstants {
 		public static final String GROOVY = "groovy"; //$NON-NLS-1$
 		public static final String COMMAND = "command"; //$NON-NLS-1$
 		public static final String CONDITION = "condition"; //$NON-NLS-1$
+		public static final String PARALLEL = "parallel"; //$NON-NLS-1$
 		public static final String FLOW = "flow"; //$NON-NLS-1$
 		public static final String OUTPUT = "output"; //$NON-NLS-1$
 		public static final String JOB = "job"; //$NON-NLS-1$
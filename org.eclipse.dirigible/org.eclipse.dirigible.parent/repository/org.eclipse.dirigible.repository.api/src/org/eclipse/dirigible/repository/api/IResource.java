@@ -12,6 +12,8 @@
 package org.eclipse.dirigible.repository.api;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -46,6 +48,59 @@ public interface IResource extends IEntity {
 	public void setContent(byte[] content, boolean isBinary, String contentType)
 			throws IOException;
 
+	/**
+	 * Opens a stream for reading the content of the resource without loading
+	 * it in memory. The caller is responsible for closing the stream.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public InputStream openInputStream() throws IOException;
+
+	/**
+	 * Opens a stream for reading a range of the content of the resource. The
+	 * stream ends after <code>length</code> bytes or at the end of the
+	 * content, whichever comes first.
+	 * 
+	 * @param offset
+	 *            the position of the first byte to be read
+	 * @param length
+	 *            the maximum number of bytes to be read
+	 * @return
+	 * @throws IOException
+	 */
+	public InputStream openInputStream(long offset, long length)
+			throws IOException;
+
+	/**
+	 * Returns the length of the content in bytes
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public long getContentLength() throws IOException;
+
+	/**
+	 * Opens a stream for replacing the content of the resource. The new
+	 * content is stored on close of the stream.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public OutputStream openOutputStream() throws IOException;
+
+	/**
+	 * Opens a stream for replacing the content of the resource. The new
+	 * content is stored on close of the stream.
+	 * 
+	 * @param isBinary
+	 * @param contentType
+	 * @return
+	 * @throws IOException
+	 */
+	public OutputStream openOutputStream(boolean isBinary, String contentType)
+			throws IOException;
+
 	/**
 	 * Getter for binary flag
 	 * 
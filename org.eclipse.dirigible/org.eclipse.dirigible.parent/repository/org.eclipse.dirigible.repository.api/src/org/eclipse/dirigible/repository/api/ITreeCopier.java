@@ -0,0 +1,35 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.api;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Implemented by the repositories able to copy a whole tree at once, e.g. on
+ * publish. Only the resources missing in the target or having a different
+ * content are written, the ones existing in the target only are kept.
+ */
+public interface ITreeCopier {
+
+	/**
+	 * Copies the resources and the collections under the source path to the
+	 * same relative paths under the target path
+	 * 
+	 * @param sourcePath
+	 * @param targetPath
+	 * @return the paths of the written resources
+	 * @throws IOException
+	 */
+	public List<String> copyTree(String sourcePath, String targetPath) throws IOException;
+
+}
@@ -12,6 +12,7 @@
 package org.eclipse.dirigible.repository.db.init;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -39,6 +40,10 @@ public class DBRepositoryInitializer {
 
 	private static final String INITIALIZING_SCRIPT_VERSION_S_FROM_S_ABOUT_S = Messages.getString("DBRepositoryInitializer.INITIALIZING_SCRIPT_VERSION_S_FROM_S_ABOUT_S"); //$NON-NLS-1$
 
+	private static final String SINGLE_ROW_DOCUMENTS_MIGRATED = Messages.getString("DBRepositoryInitializer.SINGLE_ROW_DOCUMENTS_MIGRATED"); //$NON-NLS-1$
+
+	private static final String SINGLE_ROW_DOCUMENTS = Messages.getString("DBRepositoryInitializer.SINGLE_ROW_DOCUMENTS"); //$NON-NLS-1$
+
 	private static final String SECURITY_FEATURES = Messages.getString("DBRepositoryInitializer.SECURITY_FEATURES"); //$NON-NLS-1$
 
 	private static final String FILE_VERSIONS_SUPPORT = Messages.getString("DBRepositoryInitializer.FILE_VERSIONS_SUPPORT"); //$NON-NLS-1$
@@ -53,6 +58,24 @@ public class DBRepositoryInitializer {
 
 	private static final String TABLE_NAME_DGB_SCHEMA_VERSIONS = "DGB_SCHEMA_VERSIONS"; //$NON-NLS-1$
 	private static final String TABLE_COLUMN_SCHV_VERSION = "SCHV_VERSION"; //$NON-NLS-1$
+	private static final String TABLE_COLUMN_DOC_FILE_PATH = "DOC_FILE_PATH"; //$NON-NLS-1$
+	private static final String TABLE_COLUMN_DOC_CONTENT = "DOC_CONTENT"; //$NON-NLS-1$
+
+	/**
+	 * The version recorded once the text files stored in chunks are moved to
+	 * the single row layout
+	 */
+	private static final int SINGLE_ROW_DOCUMENTS_MIGRATED_VERSION = 8;
+
+	/**
+	 * The number of documents moved to the single row layout per batch
+	 */
+	private static final int MIGRATION_BATCH_SIZE = 100;
+
+	/**
+	 * The encoding of the text content, which the stored length counts
+	 */
+	private static final Charset TEXT_CHARSET = Charset.forName("UTF-8"); //$NON-NLS-1$
 
 	private DBUtils dbUtils;
 	private Connection connection;
@@ -90,6 +113,10 @@ public class DBRepositoryInitializer {
 				DBScriptsMap.SCRIPT_CREATE_SCHEMA_5));
 		scriptDescriptors.add(new ScriptDescriptor(6, EXTENSION_POINTS,
 				DBScriptsMap.SCRIPT_CREATE_SCHEMA_6));
+		scriptDescriptors.add(new ScriptDescriptor(7, SINGLE_ROW_DOCUMENTS,
+				DBScriptsMap.SCRIPT_CREATE_SCHEMA_7));
+		scriptDescriptors.add(new ScriptDescriptor(SINGLE_ROW_DOCUMENTS_MIGRATED_VERSION,
+				SINGLE_ROW_DOCUMENTS_MIGRATED, DBScriptsMap.SCRIPT_CREATE_SCHEMA_8));
 		
 		
 	}
@@ -135,6 +162,10 @@ public class DBRepositoryInitializer {
 					INITIALIZING_SCRIPT_VERSION_S_FROM_S_ABOUT_S,
 					scriptDescriptor.version, scriptDescriptor.location,
 					scriptDescriptor.description));
+			if (!migrate(scriptDescriptor)) {
+				result = false;
+				break;
+			}
 			String script = null;
 			try {
 				script = this.dbUtils.readScript(connection,
@@ -187,6 +218,9 @@ public class DBRepositoryInitializer {
 											scriptDescriptor.version,
 											scriptDescriptor.location,
 											scriptDescriptor.description));
+							if (!migrate(scriptDescriptor)) {
+								break;
+							}
 							script = this.dbUtils.readScript(
 									connection, scriptDescriptor.location,
 									this.getClass());
@@ -221,6 +255,111 @@ public class DBRepositoryInitializer {
 		return true;
 	}
 
+	/**
+	 * Runs the migration of the data the given version depends on. The
+	 * version is recorded only after the migration has succeeded, so a failed
+	 * one is repeated on the next start, while the migrated schema is not
+	 * scanned again.
+	 * 
+	 * @param scriptDescriptor
+	 * @return false if the migration failed
+	 */
+	private boolean migrate(ScriptDescriptor scriptDescriptor) {
+		if (scriptDescriptor.version == SINGLE_ROW_DOCUMENTS_MIGRATED_VERSION) {
+			return migrateChunkedDocuments();
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the content of the text files stored in chunks by the schema
+	 * versions before 7 to a single row per file. The rows are inserted in
+	 * batches and the chunks are removed in the same transaction.
+	 * 
+	 * @return false if the migration failed
+	 */
+	private boolean migrateChunkedDocuments() {
+		logger.debug("entering migrateChunkedDocuments"); //$NON-NLS-1$
+
+		Connection connection = null;
+		PreparedStatement selectStatement = null;
+		PreparedStatement removeStatement = null;
+		PreparedStatement insertStatement = null;
+		try {
+			connection = this.dbUtils.getConnection();
+			String script = this.dbUtils.readScript(connection,
+					DBScriptsMap.SCRIPT_GET_CHUNKED_DOCUMENTS, this.getClass());
+			selectStatement = this.dbUtils.getPreparedStatement(connection, script);
+			ResultSet resultSet = selectStatement.executeQuery();
+			if (!resultSet.next()) {
+				return true;
+			}
+
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				script = this.dbUtils.readScript(connection,
+						DBScriptsMap.SCRIPT_REMOVE_TEXT, this.getClass());
+				removeStatement = this.dbUtils.getPreparedStatement(connection, script);
+				script = this.dbUtils.readScript(connection,
+						DBScriptsMap.SCRIPT_INSERT_TEXT, this.getClass());
+				insertStatement = this.dbUtils.getPreparedStatement(connection, script);
+
+				int count = 0;
+				boolean hasNext = true;
+				while (hasNext) {
+					String path = resultSet.getString(TABLE_COLUMN_DOC_FILE_PATH);
+					StringBuilder content = new StringBuilder();
+					do {
+						String chunk = resultSet.getString(TABLE_COLUMN_DOC_CONTENT);
+						if (chunk != null) {
+							content.append(chunk);
+						}
+						hasNext = resultSet.next();
+					} while (hasNext && path.equals(resultSet.getString(TABLE_COLUMN_DOC_FILE_PATH)));
+
+					removeStatement.setString(1, path);
+					removeStatement.addBatch();
+					insertStatement.setString(1, path);
+					String text = content.toString();
+					insertStatement.setString(2, text);
+					insertStatement.setInt(3, text.getBytes(TEXT_CHARSET).length);
+					insertStatement.addBatch();
+					if (++count % MIGRATION_BATCH_SIZE == 0) {
+						removeStatement.executeBatch();
+						insertStatement.executeBatch();
+					}
+				}
+				removeStatement.executeBatch();
+				insertStatement.executeBatch();
+
+				script = this.dbUtils.readScript(connection,
+						DBScriptsMap.SCRIPT_REMOVE_CHUNKED_DOCUMENTS, this.getClass());
+				this.dbUtils.executeUpdate(connection, script);
+				connection.commit();
+				logger.info(String.format("Text files migrated to the single row layout: %d", count)); //$NON-NLS-1$
+				return true;
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage(), e);
+			return false;
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			return false;
+		} finally {
+			this.dbUtils.closeStatement(insertStatement);
+			this.dbUtils.closeStatement(removeStatement);
+			this.dbUtils.closeStatement(selectStatement);
+			this.dbUtils.closeConnection(connection);
+			logger.debug("exiting migrateChunkedDocuments"); //$NON-NLS-1$
+		}
+	}
+
 	private boolean versionExists() throws SQLException {
 		boolean result = false;
 		DatabaseMetaData databaseMetaData = this.connection.getMetaData();
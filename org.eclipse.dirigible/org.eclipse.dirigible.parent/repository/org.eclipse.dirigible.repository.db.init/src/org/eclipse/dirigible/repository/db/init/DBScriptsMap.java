@@ -26,9 +26,18 @@ public class DBScriptsMap {
 	public static final String SCRIPT_CREATE_SCHEMA_4 = "/org/eclipse/dirigible/repository/db/sql/create_schema_4.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_CREATE_SCHEMA_5 = "/org/eclipse/dirigible/repository/db/sql/create_schema_5.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_CREATE_SCHEMA_6 = "/org/eclipse/dirigible/repository/db/sql/create_schema_6.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_CREATE_SCHEMA_7 = "/org/eclipse/dirigible/repository/db/sql/create_schema_7.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_CREATE_SCHEMA_8 = "/org/eclipse/dirigible/repository/db/sql/create_schema_8.sql"; //$NON-NLS-1$
+
+	public static final String SCRIPT_GET_CHUNKED_DOCUMENTS = "/org/eclipse/dirigible/repository/db/sql/get_chunked_documents.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_REMOVE_CHUNKED_DOCUMENTS = "/org/eclipse/dirigible/repository/db/sql/remove_chunked_documents.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_INSERT_TEXT = "/org/eclipse/dirigible/repository/db/sql/insert_text.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_REMOVE_TEXT = "/org/eclipse/dirigible/repository/db/sql/remove_text.sql"; //$NON-NLS-1$
 
 	public static final String SCRIPT_GET_BINARY = "/org/eclipse/dirigible/repository/db/sql/get_binary.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_GET_BINARY_LENGTH = "/org/eclipse/dirigible/repository/db/sql/get_binary_length.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_GET_DOCUMENT = "/org/eclipse/dirigible/repository/db/sql/get_document.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_GET_DOCUMENT_LENGTH = "/org/eclipse/dirigible/repository/db/sql/get_document_length.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_GET_FILES_BY_PATH = "/org/eclipse/dirigible/repository/db/sql/get_files_by_path.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_GET_FILE_BY_PATH = "/org/eclipse/dirigible/repository/db/sql/get_file_by_path.sql"; //$NON-NLS-1$
 
@@ -51,21 +60,28 @@ public class DBScriptsMap {
 	public static final String SCRIPT_SEARCH_NAME_UNDER_ROOT = "/org/eclipse/dirigible/repository/db/sql/search_name_under_root.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_SEARCH_NAME_UNDER_ROOT_SENSE = "/org/eclipse/dirigible/repository/db/sql/search_name_under_root_sense.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_SEARCH_TEXT = "/org/eclipse/dirigible/repository/db/sql/search_text.sql"; //$NON-NLS-1$
-	public static final String SCRIPT_SEARCH_TEXT_SENSE = "/org/eclipse/dirigible/repository/db/sql/search_text_sense.sql"; //$NON-NLS-1$
 
 	public static final String SCRIPT_GET_FILE_VERSION_BY_PATH = "/org/eclipse/dirigible/repository/db/sql/get_file_version_by_path.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_GET_FILE_VERSIONS_BY_PATH = "/org/eclipse/dirigible/repository/db/sql/get_file_versions_by_path.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_GET_NEXT_FILE_VERSION_BY_PATH = "/org/eclipse/dirigible/repository/db/sql/get_next_file_version_by_path.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_GET_LAST_FILE_VERSIONS_BY_PATH_CASCADE = "/org/eclipse/dirigible/repository/db/sql/get_last_file_versions_by_path_cascade.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_INSERT_FILE_VERSION = "/org/eclipse/dirigible/repository/db/sql/insert_file_version.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_REMOVE_ALL_FILE_VERSIONS = "/org/eclipse/dirigible/repository/db/sql/remove_all_file_versions_by_path.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_REMOVE_ALL_FILE_VERSIONS_BEFORE_DATE = "/org/eclipse/dirigible/repository/db/sql/remove_all_file_versions_before_date.sql"; //$NON-NLS-1$
 
 	public static final String SCRIPT_GET_FILES_BY_PATH_CASCADE = "/org/eclipse/dirigible/repository/db/sql/get_files_by_path_cascade.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_GET_DOCUMENTS_BY_PATH_CASCADE = "/org/eclipse/dirigible/repository/db/sql/get_documents_by_path_cascade.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_GET_DOCUMENT_LENGTHS_BY_PATH_CASCADE = "/org/eclipse/dirigible/repository/db/sql/get_document_lengths_by_path_cascade.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_RENAME_FILE = "/org/eclipse/dirigible/repository/db/sql/rename_file.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_GET_BINARIES_BY_PATH_CASCADE = "/org/eclipse/dirigible/repository/db/sql/get_binaries_by_path_cascade.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_GET_BINARY_LENGTHS_BY_PATH_CASCADE = "/org/eclipse/dirigible/repository/db/sql/get_binary_lengths_by_path_cascade.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_COPY_BINARY = "/org/eclipse/dirigible/repository/db/sql/copy_binary.sql"; //$NON-NLS-1$
+	public static final String SCRIPT_COPY_DOCUMENT = "/org/eclipse/dirigible/repository/db/sql/copy_document.sql"; //$NON-NLS-1$
 	public static final String SCRIPT_RENAME_DOCUMENT = "/org/eclipse/dirigible/repository/db/sql/rename_document.sql"; //$NON-NLS-1$
 
 	public static final String SCRIPT_SET_MODIFIED = "/org/eclipse/dirigible/repository/db/sql/set_modified.sql"; //$NON-NLS-1$
 
 	public static final String SCRIPT_UPDATE_FILE = "/org/eclipse/dirigible/repository/db/sql/update_file.sql"; //$NON-NLS-1$
+
+	public static final String SCRIPT_UPDATE_FILE_CONTENT = "/org/eclipse/dirigible/repository/db/sql/update_file_content.sql"; //$NON-NLS-1$
 }
@@ -0,0 +1,11 @@
+DELETE FROM DGB_SCHEMA_VERSIONS;
+INSERT INTO DGB_SCHEMA_VERSIONS (
+	SCHV_VERSION, SCHV_DESCRIPTION)
+	VALUES (7, 'Single Row Documents');
+
+CREATE TABLE DGB_TEXTS ( -- the whole content of text files in a single row
+	TXT_FILE_PATH VARCHAR(1000) NOT NULL,
+	TXT_CONTENT $CLOB$,
+	TXT_LENGTH INTEGER, -- the length of the content in bytes
+	PRIMARY KEY (TXT_FILE_PATH)
+);
@@ -0,0 +1,4 @@
+DELETE FROM DGB_SCHEMA_VERSIONS;
+INSERT INTO DGB_SCHEMA_VERSIONS (
+	SCHV_VERSION, SCHV_DESCRIPTION)
+	VALUES (8, 'Single Row Documents Migrated');
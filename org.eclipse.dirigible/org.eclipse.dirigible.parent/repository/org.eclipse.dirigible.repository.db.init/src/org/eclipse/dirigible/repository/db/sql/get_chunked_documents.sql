@@ -0,0 +1 @@
+SELECT DOC_FILE_PATH, DOC_CONTENT FROM DGB_DOCUMENTS ORDER BY DOC_FILE_PATH, DOC_ORDER
\ No newline at end of file
@@ -0,0 +1,3 @@
+INSERT INTO DGB_TEXTS (
+	TXT_FILE_PATH, TXT_CONTENT, TXT_LENGTH)
+	VALUES (?, ?, ?)
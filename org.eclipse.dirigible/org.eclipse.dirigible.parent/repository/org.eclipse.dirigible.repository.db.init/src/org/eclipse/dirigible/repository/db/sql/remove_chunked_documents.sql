@@ -0,0 +1 @@
+DELETE FROM DGB_DOCUMENTS
\ No newline at end of file
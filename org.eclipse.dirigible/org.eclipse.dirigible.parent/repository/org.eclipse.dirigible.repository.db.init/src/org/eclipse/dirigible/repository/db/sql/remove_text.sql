@@ -0,0 +1 @@
+DELETE FROM DGB_TEXTS WHERE TXT_FILE_PATH = ?
\ No newline at end of file
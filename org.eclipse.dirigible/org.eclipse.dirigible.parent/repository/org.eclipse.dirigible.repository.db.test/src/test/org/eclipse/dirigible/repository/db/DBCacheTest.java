@@ -11,19 +11,25 @@
 
 package test.org.eclipse.dirigible.repository.db;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
 
 import javax.sql.DataSource;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import org.eclipse.dirigible.repository.api.IEntity;
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.db.DBCacheManager;
 import org.eclipse.dirigible.repository.db.DBRepository;
 
 public class DBCacheTest {
@@ -73,5 +79,96 @@ public class DBCacheTest {
 			}
 		}
 	}
-	
+
+	@Test
+	public void testContentServedFromCache() throws IOException {
+		DBCacheManager cacheManager = ((DBRepository) repository).getCacheManager();
+		try {
+			repository.createResource("/testCollection/cachedContent.txt", "cached content".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+			IResource resource = repository.getResource("/testCollection/cachedContent.txt"); //$NON-NLS-1$
+			resource.getContent();
+
+			long hits = cacheManager.getHits();
+			assertArrayEquals("cached content".getBytes(), resource.getContent()); //$NON-NLS-1$
+			assertTrue(cacheManager.getHits() > hits);
+
+			// a write invalidates the content
+			resource.setContent("changed content".getBytes()); //$NON-NLS-1$
+			assertArrayEquals("changed content".getBytes(), //$NON-NLS-1$
+					repository.getResource("/testCollection/cachedContent.txt").getContent()); //$NON-NLS-1$
+		} finally {
+			repository.removeResource("/testCollection/cachedContent.txt"); //$NON-NLS-1$
+		}
+		assertFalse(repository.getResource("/testCollection/cachedContent.txt").exists()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testRenameInvalidatesTree() throws IOException {
+		try {
+			repository.createResource("/testCollectionCached/folder/renamed.txt", "renamed".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue(repository.getResource("/testCollectionCached/folder/renamed.txt").exists()); //$NON-NLS-1$
+
+			repository.getCollection("/testCollectionCached/folder").renameTo("folder2"); //$NON-NLS-1$ //$NON-NLS-2$
+
+			assertFalse(repository.getResource("/testCollectionCached/folder/renamed.txt").exists()); //$NON-NLS-1$
+			assertArrayEquals("renamed".getBytes(), //$NON-NLS-1$
+					repository.getResource("/testCollectionCached/folder2/renamed.txt").getContent()); //$NON-NLS-1$
+		} finally {
+			repository.removeCollection("/testCollectionCached"); //$NON-NLS-1$
+		}
+	}
+
+	@Test
+	public void testSearchResultsAreCached() throws IOException {
+		DBCacheManager cacheManager = ((DBRepository) repository).getCacheManager();
+		try {
+			repository.createResource("/testCollectionSearched/first.job", "first".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+			repository.createResource("/testCollectionSearched/folder/second.job", "second".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+			cacheManager.clear();
+			long misses = cacheManager.getMisses();
+
+			List<IEntity> found = repository.searchName("/testCollectionSearched/", ".job", false); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals(2, found.size());
+
+			// neither the found entities nor their information need another query
+			for (IEntity entity : found) {
+				assertNotNull(entity.getInformation().getModifiedAt());
+			}
+			assertEquals(misses, cacheManager.getMisses());
+		} finally {
+			repository.removeCollection("/testCollectionSearched"); //$NON-NLS-1$
+		}
+	}
+
+	@Test
+	public void testSizeBound() {
+		System.setProperty(DBCacheManager.CACHE_SIZE_PROPERTY, "16384"); //$NON-NLS-1$
+		DBCacheManager cacheManager;
+		try {
+			cacheManager = new DBCacheManager(false);
+		} finally {
+			System.clearProperty(DBCacheManager.CACHE_SIZE_PROPERTY);
+		}
+		for (int i = 0; i < 100; i++) {
+			cacheManager.putContent("/cached/" + i, new byte[512], cacheManager.stamp()); //$NON-NLS-1$
+			// keep the first one in use
+			assertNotNull(cacheManager.getContent("/cached/0")); //$NON-NLS-1$
+		}
+		assertTrue(cacheManager.getWeight() <= 16384);
+		assertTrue(cacheManager.getEvictions() > 0);
+		assertNull(cacheManager.getContent("/cached/1")); //$NON-NLS-1$
+		assertNotNull(cacheManager.getContent("/cached/99")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testStaleReadIsNotCached() {
+		DBCacheManager cacheManager = new DBCacheManager(false);
+		long stamp = cacheManager.stamp();
+		// a write happens while the old content is being read
+		cacheManager.clear("/cached/stale"); //$NON-NLS-1$
+		cacheManager.putContent("/cached/stale", new byte[] { 1 }, stamp); //$NON-NLS-1$
+		assertNull(cacheManager.getContent("/cached/stale")); //$NON-NLS-1$
+		assertEquals(0, cacheManager.size());
+	}
+
 }
@@ -0,0 +1,269 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.api.IEntity;
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.db.DBRepository;
+
+public class DBDocumentsMigrationTest {
+
+	private static final String LEGACY_PATH = "/testCollection/legacyChunks.txt"; //$NON-NLS-1$
+
+	@Test
+	public void testChunkedDocumentsAreMigrated() throws Exception {
+		DataSource dataSource = DBRepositoryTest.createLocal();
+		IRepository repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		repository.createResource(LEGACY_PATH, new byte[] {}, false, "text/plain"); //$NON-NLS-1$
+
+		// simulate the content written in chunks before schema version 7
+		StringBuilder expected = new StringBuilder();
+		Connection connection = dataSource.getConnection();
+		try {
+			execute(connection, "DELETE FROM DGB_TEXTS WHERE TXT_FILE_PATH = '" + LEGACY_PATH + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+			PreparedStatement insert = connection
+					.prepareStatement("INSERT INTO DGB_DOCUMENTS (DOC_FILE_PATH, DOC_CONTENT, DOC_ORDER) VALUES (?, ?, ?)"); //$NON-NLS-1$
+			try {
+				// inserted in reverse order on purpose
+				for (int i = 4; i >= 0; i--) {
+					insert.setString(1, LEGACY_PATH);
+					insert.setString(2, "chunk" + i + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+					insert.setInt(3, i);
+					insert.executeUpdate();
+				}
+			} finally {
+				insert.close();
+			}
+		} finally {
+			connection.close();
+		}
+		for (int i = 0; i < 5; i++) {
+			expected.append("chunk" + i + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		// not migrated yet
+		setSchemaVersion(dataSource, 7);
+
+		try {
+			// the initialization migrates the chunks
+			repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+			IResource resource = repository.getResource(LEGACY_PATH);
+			assertEquals(expected.toString(), new String(resource.getContent()));
+			assertFalse(hasChunks(dataSource));
+			assertEquals(8, getSchemaVersion(dataSource));
+		} finally {
+			repository.removeResource(LEGACY_PATH);
+		}
+	}
+
+	@Test
+	public void testMigratedSchemaIsNotScanned() throws Exception {
+		DataSource dataSource = DBRepositoryTest.createLocal();
+		new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		Connection connection = dataSource.getConnection();
+		try {
+			execute(connection, "INSERT INTO DGB_DOCUMENTS (DOC_FILE_PATH, DOC_CONTENT, DOC_ORDER) " //$NON-NLS-1$
+					+ "VALUES ('" + LEGACY_PATH + "', 'chunk', 0)"); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			connection.close();
+		}
+		try {
+			new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+			// the migration runs once only
+			assertTrue(hasChunks(dataSource));
+		} finally {
+			connection = dataSource.getConnection();
+			try {
+				execute(connection, "DELETE FROM DGB_DOCUMENTS"); //$NON-NLS-1$
+			} finally {
+				connection.close();
+			}
+		}
+	}
+
+	@Test
+	public void testFailedWriteKeepsTheContent() throws Exception {
+		final boolean[] failing = new boolean[1];
+		final DataSource dataSource = DBRepositoryTest.createLocal();
+		// fails the insert of the text content on request
+		DataSource failingDataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { DataSource.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						Object result = invokeTarget(dataSource, method, args);
+						if (!(result instanceof Connection)) {
+							return result;
+						}
+						final Connection connection = (Connection) result;
+						return Proxy.newProxyInstance(getClass().getClassLoader(),
+								new Class<?>[] { Connection.class }, new InvocationHandler() {
+									@Override
+									public Object invoke(Object proxy, Method method, Object[] args)
+											throws Throwable {
+										if (failing[0] && "prepareStatement".equals(method.getName()) //$NON-NLS-1$
+												&& ((String) args[0]).contains("INSERT INTO DGB_TEXTS")) { //$NON-NLS-1$
+											throw new SQLException("failing"); //$NON-NLS-1$
+										}
+										return invokeTarget(connection, method, args);
+									}
+								});
+					}
+				});
+		IRepository repository = new DBRepository(failingDataSource, "guest", false, false); //$NON-NLS-1$
+		String path = "/testCollection/failedWrite.txt"; //$NON-NLS-1$
+		try {
+			IResource resource = repository.createResource(path, "first".getBytes(), false, "text/plain"); //$NON-NLS-1$ //$NON-NLS-2$
+			failing[0] = true;
+			try {
+				resource.setContent("second".getBytes()); //$NON-NLS-1$
+				fail("The failed insert is not reported"); //$NON-NLS-1$
+			} catch (IOException e) {
+				// expected
+			}
+			failing[0] = false;
+			// the delete of the old content is rolled back with the insert
+			assertEquals("first", new String(new DBRepository(dataSource, "guest", false, false) //$NON-NLS-1$ //$NON-NLS-2$
+					.getResource(path).getContent()));
+		} finally {
+			failing[0] = false;
+			repository.removeResource(path);
+		}
+	}
+
+	@Test
+	public void testSearchInLargeText() throws Exception {
+		DataSource dataSource = DBRepositoryTest.createLocal();
+		IRepository repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		String path = "/testCollection/largeText.txt"; //$NON-NLS-1$
+		StringBuilder content = new StringBuilder();
+		// beyond the 32K limit of the string functions on a CLOB in Derby
+		while (content.length() < 40000) {
+			content.append("filler text "); //$NON-NLS-1$
+		}
+		// across the boundary of the search buffer
+		content.insert(8190, "NeedLe"); //$NON-NLS-1$
+		try {
+			repository.createResource(path, content.toString().getBytes(), false, "text/plain"); //$NON-NLS-1$
+			assertTrue(containsPath(repository.searchText("needle", true), path)); //$NON-NLS-1$
+			assertTrue(containsPath(repository.searchText("NeedLe", false), path)); //$NON-NLS-1$
+			assertFalse(containsPath(repository.searchText("needle", false), path)); //$NON-NLS-1$
+			assertTrue(containsPath(repository.searchText("LARGETEXT", true), path)); //$NON-NLS-1$
+		} finally {
+			repository.removeResource(path);
+		}
+	}
+
+	private static boolean containsPath(List<IEntity> entities, String path) {
+		for (IEntity entity : entities) {
+			if (path.equals(entity.getPath())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static void setSchemaVersion(DataSource dataSource, int version) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			execute(connection, "UPDATE DGB_SCHEMA_VERSIONS SET SCHV_VERSION = " + version); //$NON-NLS-1$
+		} finally {
+			connection.close();
+		}
+	}
+
+	private static int getSchemaVersion(DataSource dataSource) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				ResultSet resultSet = statement.executeQuery("SELECT SCHV_VERSION FROM DGB_SCHEMA_VERSIONS"); //$NON-NLS-1$
+				resultSet.next();
+				return resultSet.getInt(1);
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Test
+	public void testSingleRowIsReplaced() throws Exception {
+		DataSource dataSource = DBRepositoryTest.createLocal();
+		IRepository repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		String path = "/testCollection/singleRow.txt"; //$NON-NLS-1$
+		try {
+			IResource resource = repository.createResource(path, "first".getBytes(), false, "text/plain"); //$NON-NLS-1$ //$NON-NLS-2$
+			resource.setContent("second".getBytes()); //$NON-NLS-1$
+			assertEquals("second", new String(repository.getResource(path).getContent())); //$NON-NLS-1$
+			assertTrue(repository.searchText("SECO", true).size() > 0); //$NON-NLS-1$
+		} finally {
+			repository.removeResource(path);
+		}
+	}
+
+	private static boolean hasChunks(DataSource dataSource) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM DGB_DOCUMENTS"); //$NON-NLS-1$
+				resultSet.next();
+				return resultSet.getInt(1) > 0;
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		Statement statement = connection.createStatement();
+		try {
+			statement.execute(sql);
+		} finally {
+			statement.close();
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.db.DBRepository;
+
+public class DBStreamingTest {
+
+	private static final String BINARY_PATH = "/testCollection/streamed.bin"; //$NON-NLS-1$
+
+	private static final String TEXT_PATH = "/testCollection/streamed.txt"; //$NON-NLS-1$
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private static IRepository repository;
+
+	@Before
+	public void setUp() {
+		DataSource dataSource = DBRepositoryTest.createLocal();
+		try {
+			repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		} catch (Exception e) {
+			assertTrue(e.getMessage(), false);
+			e.printStackTrace();
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (repository.hasResource(BINARY_PATH)) {
+			repository.removeResource(BINARY_PATH);
+		}
+		if (repository.hasResource(TEXT_PATH)) {
+			repository.removeResource(TEXT_PATH);
+		}
+	}
+
+	@Test
+	public void testStreamBinaryAboveFormerLimit() throws IOException {
+		// bigger than both the former 2MB limit and the in-memory threshold
+		byte[] content = new byte[3 * 1024 * 1024];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		IResource resource = repository.getResource(BINARY_PATH);
+		OutputStream out = resource.openOutputStream(true, "application/bin"); //$NON-NLS-1$
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+
+		resource = repository.getResource(BINARY_PATH);
+		assertTrue(resource.exists());
+		assertTrue(resource.isBinary());
+		assertEquals(content.length, resource.getContentLength());
+		InputStream in = resource.openInputStream();
+		try {
+			assertArrayEquals(content, IOUtils.toByteArray(in));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testRangeOfBinary() throws IOException {
+		byte[] content = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+		repository.createResource(BINARY_PATH, content, true, "application/bin"); //$NON-NLS-1$
+		IResource resource = repository.getResource(BINARY_PATH);
+
+		InputStream in = resource.openInputStream(3, 4);
+		try {
+			assertArrayEquals(Arrays.copyOfRange(content, 3, 7), IOUtils.toByteArray(in));
+		} finally {
+			in.close();
+		}
+
+		// a range beyond the end is cut
+		in = resource.openInputStream(8, 100);
+		try {
+			assertArrayEquals(new byte[] { 8, 9 }, IOUtils.toByteArray(in));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testStreamText() throws IOException {
+		String text = "streamed text \u00e4\u00f6\u00fc"; //$NON-NLS-1$
+		byte[] content = text.getBytes(UTF_8);
+		IResource resource = repository.getResource(TEXT_PATH);
+		OutputStream out = resource.openOutputStream(false, IResource.CONTENT_TYPE_DEFAULT);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+
+		resource = repository.getResource(TEXT_PATH);
+		assertTrue(resource.exists());
+		assertArrayEquals(content, resource.getContent());
+		assertEquals(content.length, resource.getContentLength());
+		InputStream in = resource.openInputStream(9, 4);
+		try {
+			assertArrayEquals(Arrays.copyOfRange(content, 9, 13), IOUtils.toByteArray(in));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testLengthOfTextBeforeReading() throws IOException {
+		byte[] content = "length \u00e4\u00f6\u00fc".getBytes(UTF_8); //$NON-NLS-1$
+		repository.createResource(TEXT_PATH, content, false, IResource.CONTENT_TYPE_DEFAULT);
+
+		IResource resource = repository.getResource(TEXT_PATH);
+		assertEquals(content.length, resource.getContentLength());
+		InputStream in = resource.openInputStream();
+		try {
+			assertArrayEquals(content, IOUtils.toByteArray(in));
+		} finally {
+			in.close();
+		}
+
+		// the length follows the updates
+		byte[] updated = "updated length".getBytes(UTF_8); //$NON-NLS-1$
+		resource.setContent(updated);
+		assertEquals(updated.length, repository.getResource(TEXT_PATH).getContentLength());
+	}
+
+	@Test
+	public void testLengthOfTextWithoutCache() throws IOException {
+		IRepository uncached = new DBRepository(DBRepositoryTest.createLocal(), "guest", false, false); //$NON-NLS-1$
+		byte[] content = "uncached \u00e4\u00f6\u00fc".getBytes(UTF_8); //$NON-NLS-1$
+		uncached.createResource(TEXT_PATH, content, false, IResource.CONTENT_TYPE_DEFAULT);
+
+		// taken from the stored length, not from the content
+		assertEquals(content.length, uncached.getResource(TEXT_PATH).getContentLength());
+	}
+
+}
@@ -0,0 +1,151 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResourceVersion;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.repository.ext.events.IRepositoryTreeListener;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
+
+public class DBTreeCopyTest {
+
+	private static final String SOURCE = "/testTreeSource"; //$NON-NLS-1$
+
+	private static final String TARGET = "/testTreeTarget"; //$NON-NLS-1$
+
+	private DBRepository repository;
+
+	private PublishedListener listener;
+
+	@Before
+	public void setUp() throws IOException {
+		DataSource dataSource = DBRepositoryTest.createLocal();
+		repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		listener = new PublishedListener();
+		RepositoryListeners.addListener(listener);
+
+		repository.createResource(SOURCE + "/same.txt", "same".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+		repository.createResource(SOURCE + "/sub/new.txt", "new".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+		repository.createResource(SOURCE + "/sub/new.bin", new byte[] { 0, 1, 1, 0 }, true, //$NON-NLS-1$
+				"application/bin"); //$NON-NLS-1$
+		repository.createResource(TARGET + "/same.txt", "same".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+		repository.createResource(TARGET + "/kept.txt", "kept".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		RepositoryListeners.removeListener(listener);
+		repository.removeCollection(SOURCE);
+		repository.removeCollection(TARGET);
+	}
+
+	@Test
+	public void testOnlyChangedFilesAreWritten() throws IOException {
+		List<String> written = repository.copyTree(SOURCE, TARGET);
+		assertEquals(Arrays.asList(TARGET + "/sub/new.bin", TARGET + "/sub/new.txt"), written); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(repository.hasCollection(TARGET + "/sub")); //$NON-NLS-1$
+		assertEquals("new", new String(repository.getResource(TARGET + "/sub/new.txt").getContent())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(repository.getResource(TARGET + "/sub/new.bin").isBinary()); //$NON-NLS-1$
+		assertTrue(Arrays.equals(new byte[] { 0, 1, 1, 0 },
+				repository.getResource(TARGET + "/sub/new.bin").getContent())); //$NON-NLS-1$
+		// existing in the target only
+		assertTrue(repository.hasResource(TARGET + "/kept.txt")); //$NON-NLS-1$
+
+		// a single event for the whole tree
+		assertEquals(1, listener.published.size());
+		assertEquals(written, listener.published.get(0));
+
+		// nothing to write the second time
+		assertTrue(repository.copyTree(SOURCE, TARGET).isEmpty());
+		assertEquals(1, listener.published.size());
+	}
+
+	@Test
+	public void testChangedFileIsVersioned() throws IOException {
+		repository.copyTree(SOURCE, TARGET);
+		repository.getResource(SOURCE + "/same.txt").setContent("changed".getBytes()); //$NON-NLS-1$ //$NON-NLS-2$
+
+		List<String> written = repository.copyTree(SOURCE + IRepository.SEPARATOR, TARGET);
+		assertEquals(Arrays.asList(TARGET + "/same.txt"), written); //$NON-NLS-1$
+		assertEquals("changed", new String(repository.getResource(TARGET + "/same.txt").getContent())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(2, repository.getResourceVersions(TARGET + "/same.txt").size()); //$NON-NLS-1$
+		assertFalse(repository.getResource(TARGET + "/same.txt").isBinary()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testBinaryOfTheSameSizeIsCompared() throws IOException {
+		repository.copyTree(SOURCE, TARGET);
+		repository.getResource(SOURCE + "/sub/new.bin").setContent(new byte[] { 1, 0, 0, 1 }); //$NON-NLS-1$
+
+		List<String> written = repository.copyTree(SOURCE, TARGET);
+		assertEquals(Arrays.asList(TARGET + "/sub/new.bin"), written); //$NON-NLS-1$
+		assertTrue(Arrays.equals(new byte[] { 1, 0, 0, 1 },
+				repository.getResource(TARGET + "/sub/new.bin").getContent())); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testTextOfTheSameSizeIsCompared() throws IOException {
+		repository.copyTree(SOURCE, TARGET);
+		byte[] content = "s\u00e4me".getBytes("UTF-8"); //$NON-NLS-1$ //$NON-NLS-2$
+		repository.getResource(SOURCE + "/sub/new.txt").setContent(content); //$NON-NLS-1$
+
+		List<String> written = repository.copyTree(SOURCE, TARGET);
+		assertEquals(Arrays.asList(TARGET + "/sub/new.txt"), written); //$NON-NLS-1$
+		assertTrue(Arrays.equals(content, repository.getResource(TARGET + "/sub/new.txt").getContent())); //$NON-NLS-1$
+		List<IResourceVersion> versions = repository.getResourceVersions(TARGET + "/sub/new.txt"); //$NON-NLS-1$
+		// the versions outlive the removal of the file, so the last one counts
+		IResourceVersion last = versions.get(0);
+		for (IResourceVersion version : versions) {
+			if (version.getVersion() > last.getVersion()) {
+				last = version;
+			}
+		}
+		assertEquals(versions.size(), last.getVersion());
+		assertTrue(Arrays.equals(content, last.getContent()));
+	}
+
+	private static class PublishedListener implements IRepositoryTreeListener {
+
+		private final List<List<String>> published = new ArrayList<List<String>>();
+
+		@Override
+		public void changed(IRepository repository, String path) {
+		}
+
+		@Override
+		public void removed(IRepository repository, String path) {
+		}
+
+		@Override
+		public void published(IRepository repository, String root, List<String> paths) {
+			published.add(paths);
+		}
+
+	}
+
+}
@@ -0,0 +1,364 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Cache of the repository objects and of their content, shared by all the
+ * repository instances working on the same data source. The size of the cache
+ * is bounded in bytes and the least recently used entries are evicted above
+ * it. Reads do not lock - the writes to the repository invalidate the affected
+ * paths only. The entries expire after a configurable time as well, which
+ * bounds the staleness when other nodes write to the same database.
+ */
+public class DBCacheManager {
+
+	private static final Logger logger = Logger.getLogger(DBCacheManager.class);
+
+	/**
+	 * System property for the maximum size of the cache in bytes
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "dirigible.repository.cache.size"; //$NON-NLS-1$
+
+	/**
+	 * System property for the time in milliseconds after which an entry
+	 * expires, 0 for never
+	 */
+	public static final String CACHE_TTL_PROPERTY = "dirigible.repository.cache.ttl"; //$NON-NLS-1$
+
+	private static final long DEFAULT_CACHE_SIZE = 32 * 1024 * 1024;
+
+	private static final long DEFAULT_CACHE_TTL = 60000;
+
+	/**
+	 * Estimated size of a cached object and of the entry itself
+	 */
+	private static final int OBJECT_WEIGHT = 256;
+
+	private static final int ENTRY_WEIGHT = 64;
+
+	/**
+	 * Contents bigger than this part of the cache size are not cached
+	 */
+	private static final int MAX_CONTENT_PART = 16;
+
+	/**
+	 * The eviction frees some space below the maximum size, so that it is not
+	 * triggered by every put
+	 */
+	private static final double EVICTION_TARGET = 0.9;
+
+	private static final Map<DataSource, DBCacheManager> instances = new WeakHashMap<DataSource, DBCacheManager>();
+
+	private final ConcurrentMap<String, CacheEntry> objects = new ConcurrentHashMap<String, CacheEntry>();
+
+	private final ConcurrentMap<String, CacheEntry> contents = new ConcurrentHashMap<String, CacheEntry>();
+
+	private final AtomicLong weight = new AtomicLong();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final long maxWeight;
+
+	private final long ttl;
+
+	private volatile boolean disabled;
+
+	/**
+	 * The cache shared by the repositories of the given data source
+	 * 
+	 * @param dataSource
+	 * @return
+	 */
+	public static DBCacheManager getInstance(DataSource dataSource) {
+		synchronized (instances) {
+			DBCacheManager cacheManager = instances.get(dataSource);
+			if (cacheManager == null) {
+				cacheManager = new DBCacheManager(false);
+				instances.put(dataSource, cacheManager);
+			}
+			return cacheManager;
+		}
+	}
+
+	public DBCacheManager(boolean disabled) {
+		this(disabled, getConfiguredValue(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE),
+				getConfiguredValue(CACHE_TTL_PROPERTY, DEFAULT_CACHE_TTL));
+	}
+
+	DBCacheManager(boolean disabled, long maxWeight, long ttl) {
+		this.disabled = disabled;
+		this.maxWeight = maxWeight;
+		this.ttl = ttl;
+	}
+
+	private static long getConfiguredValue(String property, long defaultValue) {
+		String value = System.getProperty(property);
+		if (value != null) {
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+		return defaultValue;
+	}
+
+	public boolean isDisabled() {
+		return disabled;
+	}
+
+	public void setDisabled(boolean disabled) {
+		this.disabled = disabled;
+		if (disabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * Marks the start of a database read, which result is going to be cached.
+	 * The result is cached only if there were no invalidations in the meantime,
+	 * so that a concurrent write is never overridden by an older value.
+	 * 
+	 * @return
+	 */
+	public long stamp() {
+		return invalidations.get();
+	}
+
+	public Object get(String path) {
+		return getValue(objects, path);
+	}
+
+	public void put(String path, Object value, long stamp) {
+		putValue(objects, path, value, OBJECT_WEIGHT + 2 * path.length(), stamp);
+	}
+
+	/**
+	 * The cached content of the resource at the given path. The array is
+	 * shared and must not be modified.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public byte[] getContent(String path) {
+		return (byte[]) getValue(contents, path);
+	}
+
+	public void putContent(String path, byte[] content, long stamp) {
+		if (content != null && content.length <= maxWeight / MAX_CONTENT_PART) {
+			putValue(contents, path, content, content.length + 2 * path.length(), stamp);
+		}
+	}
+
+	/**
+	 * Invalidates the object and the content at the given path
+	 * 
+	 * @param path
+	 */
+	public void clear(String path) {
+		invalidations.incrementAndGet();
+		remove(objects, path);
+		remove(contents, path);
+	}
+
+	/**
+	 * Invalidates all the objects and contents, which paths start with the
+	 * given one, e.g. after a rename or a removal of a folder
+	 * 
+	 * @param pathPrefix
+	 */
+	public void clearTree(String pathPrefix) {
+		invalidations.incrementAndGet();
+		removeTree(objects, pathPrefix);
+		removeTree(contents, pathPrefix);
+	}
+
+	public void clear() {
+		invalidations.incrementAndGet();
+		removeTree(objects, ""); //$NON-NLS-1$
+		removeTree(contents, ""); //$NON-NLS-1$
+	}
+
+	public int size() {
+		return objects.size() + contents.size();
+	}
+
+	/**
+	 * The estimated size of the cached entries in bytes
+	 * 
+	 * @return
+	 */
+	public long getWeight() {
+		return weight.get();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	private Object getValue(ConcurrentMap<String, CacheEntry> map, String path) {
+		if (disabled) {
+			return null;
+		}
+		CacheEntry entry = map.get(path);
+		if (entry != null) {
+			long now = System.currentTimeMillis();
+			if (ttl <= 0 || (now - entry.created) < ttl) {
+				entry.lastAccess = System.nanoTime();
+				hits.incrementAndGet();
+				return entry.value;
+			}
+			logger.debug("cache expired for: " + path); //$NON-NLS-1$
+			if (map.remove(path, entry)) {
+				weight.addAndGet(-entry.weight);
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	private void putValue(ConcurrentMap<String, CacheEntry> map, String path, Object value,
+			long valueWeight, long stamp) {
+		if (disabled || value == null || stamp != invalidations.get()) {
+			return;
+		}
+		CacheEntry entry = new CacheEntry(value, ENTRY_WEIGHT + valueWeight);
+		CacheEntry previous = map.put(path, entry);
+		weight.addAndGet(entry.weight - (previous != null ? previous.weight : 0));
+		if (stamp != invalidations.get()) {
+			// invalidated while putting
+			remove(map, path);
+		}
+		if (weight.get() > maxWeight) {
+			evict();
+		}
+	}
+
+	private void remove(ConcurrentMap<String, CacheEntry> map, String path) {
+		CacheEntry entry = map.remove(path);
+		if (entry != null) {
+			weight.addAndGet(-entry.weight);
+		}
+	}
+
+	private void removeTree(ConcurrentMap<String, CacheEntry> map, String pathPrefix) {
+		for (Iterator<Map.Entry<String, CacheEntry>> iterator = map.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, CacheEntry> next = iterator.next();
+			if (next.getKey().startsWith(pathPrefix) && map.remove(next.getKey(), next.getValue())) {
+				weight.addAndGet(-next.getValue().weight);
+			}
+		}
+	}
+
+	/**
+	 * Removes the least recently used entries until the size of the cache gets
+	 * below the eviction target
+	 */
+	private synchronized void evict() {
+		if (weight.get() <= maxWeight) {
+			// already done by a concurrent put
+			return;
+		}
+		List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(size());
+		addCandidates(candidates, objects);
+		addCandidates(candidates, contents);
+		Collections.sort(candidates);
+		long target = (long) (maxWeight * EVICTION_TARGET);
+		for (EvictionCandidate candidate : candidates) {
+			if (weight.get() <= target) {
+				break;
+			}
+			if (candidate.map.remove(candidate.path, candidate.entry)) {
+				weight.addAndGet(-candidate.entry.weight);
+				evictions.incrementAndGet();
+			}
+		}
+		logger.debug("cache evicted down to: " + weight.get()); //$NON-NLS-1$
+	}
+
+	private static void addCandidates(List<EvictionCandidate> candidates, ConcurrentMap<String, CacheEntry> map) {
+		for (Map.Entry<String, CacheEntry> next : map.entrySet()) {
+			candidates.add(new EvictionCandidate(map, next.getKey(), next.getValue()));
+		}
+	}
+
+	private static class CacheEntry {
+
+		private final Object value;
+
+		private final long weight;
+
+		private final long created;
+
+		private volatile long lastAccess;
+
+		CacheEntry(Object value, long weight) {
+			this.value = value;
+			this.weight = weight;
+			this.created = System.currentTimeMillis();
+			this.lastAccess = System.nanoTime();
+		}
+	}
+
+	private static class EvictionCandidate implements Comparable<EvictionCandidate> {
+
+		private final ConcurrentMap<String, CacheEntry> map;
+
+		private final String path;
+
+		private final CacheEntry entry;
+
+		// taken once, as the access time changes during the sorting
+		private final long lastAccess;
+
+		EvictionCandidate(ConcurrentMap<String, CacheEntry> map, String path, CacheEntry entry) {
+			this.map = map;
+			this.path = path;
+			this.entry = entry;
+			this.lastAccess = entry.lastAccess;
+		}
+
+		@Override
+		public int compareTo(EvictionCandidate other) {
+			return (lastAccess < other.lastAccess) ? -1 : ((lastAccess == other.lastAccess) ? 0 : 1);
+		}
+	}
+
+}
@@ -24,6 +24,7 @@ import org.eclipse.dirigible.repository.api.IEntity;
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.api.IResource;
 import org.eclipse.dirigible.repository.api.IResourceVersion;
+import org.eclipse.dirigible.repository.api.ITreeCopier;
 import org.eclipse.dirigible.repository.api.RepositoryPath;
 import org.eclipse.dirigible.repository.db.dao.DBRepositoryDAO;
 import org.eclipse.dirigible.repository.ext.db.DBUtils;
@@ -35,7 +36,7 @@ import org.eclipse.dirigible.repository.zip.ZipImporter;
  * The DB implementation of {@link IRepository}
  * 
  */
-public class DBRepository implements IRepository {
+public class DBRepository implements IRepository, ITreeCopier {
 
 	private static final String PROVIDED_ZIP_DATA_CANNOT_BE_NULL = Messages.getString("DBRepository.PROVIDED_ZIP_DATA_CANNOT_BE_NULL"); //$NON-NLS-1$
 
@@ -57,7 +58,7 @@ public class DBRepository implements IRepository {
 	
 	private boolean cacheEnabled;
 	
-	private SimpleCacheManager cacheManager;
+	private DBCacheManager cacheManager;
 	
 	public DBRepository(DataSource dataSource, String user,
 			boolean forceRecreate) throws DBBaseException {
@@ -73,7 +74,8 @@ public class DBRepository implements IRepository {
 			this.dbUtils = new DBUtils(dataSource);
 			this.user = user;
 			this.cacheEnabled = cacheEnabled;
-			this.cacheManager = new SimpleCacheManager(!this.cacheEnabled);
+			this.cacheManager = this.cacheEnabled ? DBCacheManager.getInstance(dataSource)
+					: new DBCacheManager(true);
 			this.repositoryDAO = new DBRepositoryDAO(this);
 			this.repositoryDAO.initialize(forceRecreate);
 		} catch (SQLException e) {
@@ -86,7 +88,7 @@ public class DBRepository implements IRepository {
 		return cacheEnabled;
 	}
 	
-	public SimpleCacheManager getCacheManager() {
+	public DBCacheManager getCacheManager() {
 		return cacheManager;
 	}
 
@@ -311,4 +313,13 @@ public class DBRepository implements IRepository {
 		repositoryDAO.cleanupOldVersions();
 	}
 
+	@Override
+	public List<String> copyTree(String sourcePath, String targetPath) throws IOException {
+		try {
+			return repositoryDAO.copyTree(sourcePath, targetPath);
+		} catch (DBBaseException e) {
+			throw new IOException(e);
+		}
+	}
+
 }
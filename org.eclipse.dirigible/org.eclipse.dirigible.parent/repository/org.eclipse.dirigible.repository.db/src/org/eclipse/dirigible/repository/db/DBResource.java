@@ -13,9 +13,16 @@ package org.eclipse.dirigible.repository.db;
 
 import static java.text.MessageFormat.format;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.eclipse.dirigible.repository.api.IResource;
 import org.eclipse.dirigible.repository.api.IResourceVersion;
 import org.eclipse.dirigible.repository.api.RepositoryPath;
@@ -38,6 +45,14 @@ public class DBResource extends DBEntity implements IResource {
 
 	private static final Logger logger = Logger.getLogger(DBResource.class);
 
+	/**
+	 * The content written to an output stream is kept in memory up to this
+	 * size and in a temporary file above it, until the stream is closed
+	 */
+	private static final int OUTPUT_MEMORY_THRESHOLD = 1024 * 1024;
+
+	private static final String OUTPUT_TEMP_FILE_PREFIX = "dirigible_content_"; //$NON-NLS-1$
+
 	private boolean binary = false;
 
 	private String contentType;
@@ -139,6 +154,83 @@ public class DBResource extends DBEntity implements IResource {
 		}
 	}
 
+	/**
+	 * The returned stream holds a pooled connection until it is closed, so it
+	 * has to be closed by the caller as soon as the content is read
+	 */
+	@Override
+	public InputStream openInputStream() throws IOException {
+		final DBFile document = getDocumentSafe();
+		try {
+			return document.getDataStream();
+		} catch (DBBaseException ex) {
+			throw new IOException(COULD_NOT_READ_RESOURCE_CONTENT, ex);
+		}
+	}
+
+	/**
+	 * The content before the offset is skipped on the stream, i.e. it is still
+	 * transferred from the database, but it is not kept in memory
+	 */
+	@Override
+	public InputStream openInputStream(long offset, long length)
+			throws IOException {
+		InputStream in = openInputStream();
+		try {
+			IOUtils.skip(in, offset);
+		} catch (IOException e) {
+			IOUtils.closeQuietly(in);
+			throw e;
+		}
+		return new BoundedInputStream(in, length);
+	}
+
+	@Override
+	public long getContentLength() throws IOException {
+		final DBFile document = getDocumentSafe();
+		try {
+			return document.getDataLength();
+		} catch (DBBaseException ex) {
+			throw new IOException(COULD_NOT_READ_RESOURCE_CONTENT, ex);
+		}
+	}
+
+	@Override
+	public OutputStream openOutputStream() throws IOException {
+		return openOutputStream(this.binary, this.contentType);
+	}
+
+	@Override
+	public OutputStream openOutputStream(boolean isBinary, String contentType)
+			throws IOException {
+		return new ContentOutputStream(isBinary, contentType);
+	}
+
+	private void setContent(DeferredFileOutputStream content,
+			boolean isBinary, String contentType) throws IOException {
+
+		this.binary = isBinary;
+		this.contentType = contentType;
+		if (this.contentType == null || "".equals(this.contentType)) { //$NON-NLS-1$
+			this.contentType = IResource.CONTENT_TYPE_DEFAULT;
+		}
+
+		if (!exists()) {
+			getParent().createResource(getName(), null, this.binary, this.contentType);
+		}
+
+		final DBFile document = getDocumentSafe();
+		InputStream in = content.isInMemory() ? new ByteArrayInputStream(
+				content.getData()) : new FileInputStream(content.getFile());
+		try {
+			document.setData(in, content.getByteCount());
+		} catch (DBBaseException ex) {
+			throw new IOException(COULD_NOT_UPDATE_DOCUMENT, ex);
+		} finally {
+			in.close();
+		}
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == null) {
@@ -238,4 +330,38 @@ public class DBResource extends DBEntity implements IResource {
 				getPath()), version);
 	}
 
+	/**
+	 * Buffers the written content and stores it on close
+	 */
+	private class ContentOutputStream extends DeferredFileOutputStream {
+
+		private final boolean isBinary;
+
+		private final String contentType;
+
+		private boolean closed;
+
+		ContentOutputStream(boolean isBinary, String contentType) {
+			super(OUTPUT_MEMORY_THRESHOLD, OUTPUT_TEMP_FILE_PREFIX, null, null);
+			this.isBinary = isBinary;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			super.close();
+			try {
+				setContent(this, isBinary, contentType);
+			} finally {
+				if (!isInMemory()) {
+					getFile().delete();
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,59 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.db.dao;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.eclipse.dirigible.repository.ext.db.DBUtils;
+
+/**
+ * Stream over the content column of a query result. The statement and the
+ * connection stay open while the content is read and are released on close of
+ * the stream.
+ */
+class DBContentInputStream extends FilterInputStream {
+
+	private final DBUtils dbUtils;
+
+	private final Connection connection;
+
+	private final Statement statement;
+
+	private boolean closed;
+
+	DBContentInputStream(InputStream in, DBUtils dbUtils,
+			Connection connection, Statement statement) {
+		super(in);
+		this.dbUtils = dbUtils;
+		this.connection = connection;
+		this.statement = statement;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			super.close();
+		} finally {
+			dbUtils.closeStatement(statement);
+			dbUtils.closeConnection(connection);
+		}
+	}
+
+}
@@ -11,8 +11,11 @@
 
 package org.eclipse.dirigible.repository.db.dao;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.dirigible.repository.db.DBBaseException;
 import org.eclipse.dirigible.repository.db.DBRepository;
 
@@ -65,6 +68,54 @@ public class DBFile extends DBObject {
 		}
 	}
 
+	/**
+	 * Opens a stream over the content, which has to be closed by the caller
+	 * 
+	 * @return
+	 * @throws DBBaseException
+	 */
+	public InputStream getDataStream() throws DBBaseException {
+		if (isBinary()) {
+			return getRepository().getRepositoryDAO().getBinaryStream(this);
+		} else {
+			return getRepository().getRepositoryDAO().getDocumentStream(this);
+		}
+	}
+
+	/**
+	 * The length of the content in bytes
+	 * 
+	 * @return
+	 * @throws DBBaseException
+	 */
+	public long getDataLength() throws DBBaseException {
+		if (isBinary()) {
+			return getRepository().getRepositoryDAO().getBinaryLength(this);
+		}
+		return getRepository().getRepositoryDAO().getDocumentLength(this);
+	}
+
+	/**
+	 * Replaces the content with the one read from the given stream. Only the
+	 * binary content is streamed to the database - a text is read in memory,
+	 * as its versions are kept as well.
+	 * 
+	 * @param in
+	 * @param length
+	 * @throws DBBaseException
+	 */
+	public void setData(InputStream in, long length) throws DBBaseException {
+		if (isBinary()) {
+			getRepository().getRepositoryDAO().setBinary(this, in, length);
+		} else {
+			try {
+				setData(IOUtils.toByteArray(in));
+			} catch (IOException e) {
+				throw new DBBaseException(e);
+			}
+		}
+	}
+
 	public boolean isBinary() {
 		return binary;
 	}
@@ -12,36 +12,43 @@
 package org.eclipse.dirigible.repository.db.dao;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.Arrays;
 import java.util.GregorianCalendar;
 
+import org.apache.commons.io.input.ReaderInputStream;
 import org.eclipse.dirigible.repository.api.RepositoryPath;
 import org.eclipse.dirigible.repository.db.DBBaseException;
 import org.eclipse.dirigible.repository.db.DBRepository;
 import org.eclipse.dirigible.repository.db.init.DBScriptsMap;
+import org.eclipse.dirigible.repository.ext.db.DBUtils;
 import org.eclipse.dirigible.repository.logging.Logger;
 
 public class DBFileDAO extends DBObjectDAO {
 
-	private static final String MAX_SIZE_OF_BINARY_RESOURCE_IS = Messages.getString("DBFileDAO.MAX_SIZE_OF_BINARY_RESOURCE_IS"); //$NON-NLS-1$
+	private static final String BIN_CONTENT = "BIN_CONTENT"; //$NON-NLS-1$
 
-	private static final String SINGLE_RESOURCES_BIGGER_THAN_4K_NOT_SUPPORTED = Messages.getString("DBFileDAO.SINGLE_RESOURCES_BIGGER_THAN_4K_NOT_SUPPORTED"); //$NON-NLS-1$
+	private static final String TXT_CONTENT = "TXT_CONTENT"; //$NON-NLS-1$
 
-	private static final String BIN_CONTENT = "BIN_CONTENT"; //$NON-NLS-1$
+	private static final String TXT_FILE_PATH = "TXT_FILE_PATH"; //$NON-NLS-1$
 
-	private static Logger logger = Logger.getLogger(DBFileDAO.class);
+	private static final String BIN_LENGTH = "BIN_LENGTH"; //$NON-NLS-1$
+
+	private static final String TXT_LENGTH = "TXT_LENGTH"; //$NON-NLS-1$
 
-	private static int DOC_CHUNK_SIZE = 2000;
+	/**
+	 * The encoding of the text content
+	 */
+	static final Charset TEXT_CHARSET = Charset.forName("UTF-8"); //$NON-NLS-1$
 
-	private static int BIN_MAX_SIZE = 2097152;
+	private static Logger logger = Logger.getLogger(DBFileDAO.class);
 
 	DBFileDAO(DBRepositoryDAO dbRepositoryDAO) {
 		super(dbRepositoryDAO);
@@ -137,6 +144,7 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeStatement(preparedStatement);
 			getRepository().getDbUtils().closeConnection(connection);
 		}
+		getRepository().getCacheManager().clear(path);
 		logger.debug("exiting insertFile"); //$NON-NLS-1$
 	}
 
@@ -184,6 +192,7 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeStatement(preparedStatement);
 			getRepository().getDbUtils().closeConnection(connection);
 		}
+		getRepository().getCacheManager().clear(path);
 		logger.debug("exiting updateFile"); //$NON-NLS-1$
 	}
 
@@ -217,6 +226,8 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeStatement(preparedStatement);
 			getRepository().getDbUtils().closeConnection(connection);
 		}
+
+		getRepository().getCacheManager().clearTree(path + DBRepository.PATH_DELIMITER);
 	}
 
 	/**
@@ -270,12 +281,13 @@ public class DBFileDAO extends DBObjectDAO {
 						isBinary ? DBMapper.OBJECT_TYPE_BINARY
 								: DBMapper.OBJECT_TYPE_DOCUMENT, override);
 				resource = getFileByPath(path);
-				removeDocument(resource);
-				removeBinary(resource);
 				if (isBinary) {
+					removeDocument(resource);
+					removeBinary(resource);
 					insertBinary(resource, bytes);
 				} else {
-					insertDocument(resource, bytes);
+					removeBinary(resource);
+					writeDocument(resource, bytes, false);
 				}
 			}
 
@@ -285,13 +297,15 @@ public class DBFileDAO extends DBObjectDAO {
 	}
 
 	/**
-	 * Create chunks of content for a given text file
+	 * Replace the content of a given text file with a single row, optionally
+	 * updating its modification details in the same transaction
 	 * 
 	 * @param resource
 	 * @param bytes
+	 * @param modified
 	 * @throws DBBaseException
 	 */
-	private void insertDocument(DBFile resource, byte[] bytes)
+	private void writeDocument(DBFile resource, byte[] bytes, boolean modified)
 			throws DBBaseException {
 
 		checkInitialized();
@@ -300,78 +314,151 @@ public class DBFileDAO extends DBObjectDAO {
 			bytes = new byte[] {};
 		}
 
-		if (bytes.length > DOC_CHUNK_SIZE) {
-			byte[][] chunks = divideArray(bytes, DOC_CHUNK_SIZE);
-			for (int i = 0; i < chunks.length - 1; i++) {
-				insertDocumentSingle(resource, chunks[i], i);
+		Connection connection = null;
+		PreparedStatement preparedStatement = null;
+		try {
+			connection = getRepository().getDbUtils().getConnection();
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				// the old content is deleted only together with the insert of
+				// the new one
+				String script = getRepository().getDbUtils().readScript(connection,
+						DBScriptsMap.SCRIPT_REMOVE_DOCUMENT, this.getClass());
+				preparedStatement = getRepository().getDbUtils()
+						.getPreparedStatement(connection, script);
+				preparedStatement.setString(1, resource.getPath());
+				preparedStatement.executeUpdate();
+				getRepository().getDbUtils().closeStatement(preparedStatement);
+
+				script = getRepository().getDbUtils().readScript(connection,
+						DBScriptsMap.SCRIPT_INSERT_DOCUMENT, this.getClass());
+				preparedStatement = getRepository().getDbUtils()
+						.getPreparedStatement(connection, script);
+				String content = new String(bytes, TEXT_CHARSET);
+				preparedStatement.setString(1, resource.getPath());
+				preparedStatement.setString(2, content);
+				// the length of the content as read back
+				preparedStatement.setInt(3,
+						content.getBytes(TEXT_CHARSET).length);
+				preparedStatement.executeUpdate();
+
+				if (modified) {
+					getRepository().getDbUtils().closeStatement(preparedStatement);
+					script = getRepository().getDbUtils().readScript(connection,
+							DBScriptsMap.SCRIPT_SET_MODIFIED, this.getClass());
+					preparedStatement = getRepository().getDbUtils()
+							.getPreparedStatement(connection, script);
+					preparedStatement.setString(1, getRepository().getUser());
+					preparedStatement.setTimestamp(2, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
+					preparedStatement.setString(3, resource.getPath());
+					preparedStatement.executeUpdate();
+				}
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} catch (IOException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
 			}
-			insertDocumentSingle(resource, chunks[chunks.length - 1], chunks.length - 1);
-		} else {
-			insertDocumentSingle(resource, bytes, 0);
+		} catch (SQLException e) {
+			throw new DBBaseException(e);
+		} catch (IOException e) {
+			throw new DBBaseException(e);
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+			getRepository().getDbUtils().closeConnection(connection);
 		}
 
+		getRepository().getCacheManager().clear(resource.getPath());
 	}
 
 	/**
-	 * Utility method for splitting byte array by chunks
+	 * Create the document content
 	 * 
-	 * @param source
-	 * @param chuncksize
-	 * @return
+	 * @param resource
+	 * @param bytes
+	 * @throws DBBaseException
 	 */
-	private byte[][] divideArray(byte[] source, int chuncksize) {
+	void setDocument(DBFile resource, byte[] bytes) throws DBBaseException {
 
-		int chunksCount = (int) Math.ceil(source.length
-				/ (double) chuncksize); 
-		byte[][] ret = new byte[chunksCount][chuncksize];
+		checkInitialized();
+		
+		writeDocument(resource, bytes, true);
+	}
 
-		int start = 0;
+	void setModified(DBFile resource) {
+		
+		checkInitialized();
 
-		for (int i = 0; i < ret.length-1; i++) {
-			ret[i] = Arrays.copyOfRange(source, start, start + chuncksize);
-			start += chuncksize;
-		}
-		int lastChunkLength = source.length - (ret.length-1) * chuncksize;
-		byte[] lastChunk = new byte[lastChunkLength];
-		lastChunk = Arrays.copyOfRange(source, start, start + lastChunkLength);
-		ret[ret.length-1] = lastChunk; 
+		Connection connection = null;
+		PreparedStatement preparedStatement = null;
+		try {
+			connection = getRepository().getDbUtils().getConnection();
+			String script = getRepository().getDbUtils().readScript(connection,
+					DBScriptsMap.SCRIPT_SET_MODIFIED, this.getClass());
 
-		return ret;
+			preparedStatement = getRepository().getDbUtils()
+					.getPreparedStatement(connection, script);
+			preparedStatement.setString(1, getRepository().getUser());
+			preparedStatement.setTimestamp(2, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
+			preparedStatement.setString(3, resource.getPath());
+			preparedStatement.executeUpdate();
+		} catch (SQLException e) {
+			throw new DBBaseException(e);
+		} catch (IOException e) {
+			throw new DBBaseException(e);
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+			getRepository().getDbUtils().closeConnection(connection);
+		}
+		
+		getRepository().getCacheManager().clear(resource.getPath());
 	}
 
 	/**
-	 * Create single chunk of content for a given text file
+	 * Retrieve the document content
 	 * 
 	 * @param resource
-	 * @param bytes
-	 * @param order
+	 * @return
 	 * @throws DBBaseException
 	 */
-	private void insertDocumentSingle(DBFile resource, byte[] bytes, int order)
-			throws DBBaseException {
+	byte[] getDocument(DBFile resource) throws DBBaseException {
 
 		checkInitialized();
 
-		if (bytes.length > DOC_CHUNK_SIZE) {
-			// TODO refactor API - methods to throws typed exceptions
-			throw new RuntimeException(
-					SINGLE_RESOURCES_BIGGER_THAN_4K_NOT_SUPPORTED);
+		if (resource == null) {
+			return null;
+		}
+
+		byte[] cached = getRepository().getCacheManager().getContent(resource.getPath());
+		if (cached != null) {
+			return cached;
 		}
 
+		long stamp = getRepository().getCacheManager().stamp();
 		Connection connection = null;
 		PreparedStatement preparedStatement = null;
 		try {
 			connection = getRepository().getDbUtils().getConnection();
 			String script = getRepository().getDbUtils().readScript(connection,
-					DBScriptsMap.SCRIPT_INSERT_DOCUMENT, this.getClass());
-
+					DBScriptsMap.SCRIPT_GET_DOCUMENT, this.getClass());
 			preparedStatement = getRepository().getDbUtils()
 					.getPreparedStatement(connection, script);
 			preparedStatement.setString(1, resource.getPath());
-			preparedStatement.setString(2,
-					new String(bytes, Charset.defaultCharset()));
-			preparedStatement.setInt(3, order);
-			preparedStatement.executeUpdate();
+			ResultSet resultSet = preparedStatement.executeQuery();
+			byte[] bytes = new byte[] {};
+			if (resultSet.next()) {
+				String content = resultSet.getString(TXT_CONTENT);
+				if (content != null) {
+					bytes = content.getBytes(TEXT_CHARSET);
+				}
+			}
+			getRepository().getCacheManager().putContent(resource.getPath(), bytes, stamp);
+			return bytes;
 		} catch (SQLException e) {
 			throw new DBBaseException(e);
 		} catch (IOException e) {
@@ -380,43 +467,42 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeStatement(preparedStatement);
 			getRepository().getDbUtils().closeConnection(connection);
 		}
-
 	}
 
 	/**
-	 * Create the document (content chunks)
+	 * Retrieve the length of the document content in bytes, without reading
+	 * the content itself
 	 * 
 	 * @param resource
-	 * @param bytes
+	 * @return
 	 * @throws DBBaseException
 	 */
-	void setDocument(DBFile resource, byte[] bytes) throws DBBaseException {
+	long getDocumentLength(DBFile resource) throws DBBaseException {
 
 		checkInitialized();
-		
-		removeDocument(resource);
-		insertDocument(resource, bytes);
-		
-		setModified(resource);
-	}
 
-	void setModified(DBFile resource) {
-		
-		checkInitialized();
+		byte[] cached = getRepository().getCacheManager().getContent(resource.getPath());
+		if (cached != null) {
+			return cached.length;
+		}
 
 		Connection connection = null;
 		PreparedStatement preparedStatement = null;
 		try {
 			connection = getRepository().getDbUtils().getConnection();
 			String script = getRepository().getDbUtils().readScript(connection,
-					DBScriptsMap.SCRIPT_SET_MODIFIED, this.getClass());
-
+					DBScriptsMap.SCRIPT_GET_DOCUMENT_LENGTH, this.getClass());
 			preparedStatement = getRepository().getDbUtils()
 					.getPreparedStatement(connection, script);
-			preparedStatement.setString(1, getRepository().getUser());
-			preparedStatement.setTimestamp(2, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
-			preparedStatement.setString(3, resource.getPath());
-			preparedStatement.executeUpdate();
+			preparedStatement.setString(1, resource.getPath());
+			ResultSet resultSet = preparedStatement.executeQuery();
+			if (!resultSet.next()) {
+				return 0;
+			}
+			long length = resultSet.getLong(TXT_LENGTH);
+			if (!resultSet.wasNull()) {
+				return length;
+			}
 		} catch (SQLException e) {
 			throw new DBBaseException(e);
 		} catch (IOException e) {
@@ -425,18 +511,19 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeStatement(preparedStatement);
 			getRepository().getDbUtils().closeConnection(connection);
 		}
-		
-		getRepository().getCacheManager().clear(resource.getPath());
+		// a row written without its length
+		return getDocument(resource).length;
 	}
 
 	/**
-	 * Retrieve the document content - combine the chunks
+	 * Open a stream over the document content. The connection is released on
+	 * close of the stream.
 	 * 
 	 * @param resource
 	 * @return
 	 * @throws DBBaseException
 	 */
-	byte[] getDocument(DBFile resource) throws DBBaseException {
+	InputStream getDocumentStream(DBFile resource) throws DBBaseException {
 
 		checkInitialized();
 
@@ -444,6 +531,11 @@ public class DBFileDAO extends DBObjectDAO {
 			return null;
 		}
 
+		byte[] cached = getRepository().getCacheManager().getContent(resource.getPath());
+		if (cached != null) {
+			return new ByteArrayInputStream(cached);
+		}
+
 		Connection connection = null;
 		PreparedStatement preparedStatement = null;
 		try {
@@ -454,13 +546,22 @@ public class DBFileDAO extends DBObjectDAO {
 					.getPreparedStatement(connection, script);
 			preparedStatement.setString(1, resource.getPath());
 			ResultSet resultSet = preparedStatement.executeQuery();
-			byte[] bytes = null;
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			while (resultSet.next()) {
-				bytes = DBMapper.dbToData(resultSet);
-				baos.write(bytes);
+			InputStream in = null;
+			if (resultSet.next()) {
+				Reader reader = resultSet.getCharacterStream(TXT_CONTENT);
+				if (reader != null) {
+					in = new ReaderInputStream(reader, TEXT_CHARSET);
+				}
 			}
-			return baos.toByteArray();
+			if (in == null) {
+				in = new ByteArrayInputStream(new byte[] {});
+			}
+			InputStream stream = new DBContentInputStream(in, getRepository()
+					.getDbUtils(), connection, preparedStatement);
+			// released by the stream from now on
+			connection = null;
+			preparedStatement = null;
+			return stream;
 		} catch (SQLException e) {
 			throw new DBBaseException(e);
 		} catch (IOException e) {
@@ -507,7 +608,7 @@ public class DBFileDAO extends DBObjectDAO {
 	}
 
 	/**
-	 * Delete the content (all the chunks) for a given file
+	 * Delete the content for a given text file
 	 * 
 	 * @param resource
 	 * @throws DBBaseException
@@ -534,6 +635,8 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeStatement(preparedStatement);
 			getRepository().getDbUtils().closeConnection(connection);
 		}
+
+		getRepository().getCacheManager().clear(resource.getPath());
 	}
 
 	/**
@@ -551,6 +654,12 @@ public class DBFileDAO extends DBObjectDAO {
 			return null;
 		}
 
+		byte[] cached = getRepository().getCacheManager().getContent(resource.getPath());
+		if (cached != null) {
+			return cached;
+		}
+
+		long stamp = getRepository().getCacheManager().stamp();
 		Connection connection = null;
 		PreparedStatement preparedStatement = null;
 		try {
@@ -561,14 +670,109 @@ public class DBFileDAO extends DBObjectDAO {
 					.getPreparedStatement(connection, script);
 			preparedStatement.setString(1, resource.getPath());
 			ResultSet resultSet = preparedStatement.executeQuery();
-			byte[] bytes = null;
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] bytes = new byte[] {};
 			if (resultSet.next()) {
 				bytes = DBMapper.dbToDataBinary(connection, resultSet,
 						BIN_CONTENT);
-				baos.write(bytes);
 			}
-			return baos.toByteArray();
+			getRepository().getCacheManager().putContent(resource.getPath(), bytes, stamp);
+			return bytes;
+		} catch (SQLException e) {
+			throw new DBBaseException(e);
+		} catch (IOException e) {
+			throw new DBBaseException(e);
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+			getRepository().getDbUtils().closeConnection(connection);
+		}
+	}
+
+	/**
+	 * Open a stream over the binary content of a file. The connection is
+	 * released on close of the stream.
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws DBBaseException
+	 */
+	InputStream getBinaryStream(DBFile resource) throws DBBaseException {
+
+		checkInitialized();
+
+		if (resource == null) {
+			return null;
+		}
+
+		byte[] cached = getRepository().getCacheManager().getContent(resource.getPath());
+		if (cached != null) {
+			return new ByteArrayInputStream(cached);
+		}
+
+		Connection connection = null;
+		PreparedStatement preparedStatement = null;
+		try {
+			connection = getRepository().getDbUtils().getConnection();
+			String script = getRepository().getDbUtils().readScript(connection,
+					DBScriptsMap.SCRIPT_GET_BINARY, this.getClass());
+			preparedStatement = getRepository().getDbUtils()
+					.getPreparedStatement(connection, script);
+			preparedStatement.setString(1, resource.getPath());
+			ResultSet resultSet = preparedStatement.executeQuery();
+			InputStream in = null;
+			if (resultSet.next()) {
+				in = DBUtils.getDialectSpecifier(
+						DBUtils.getDatabaseProductName(connection))
+						.getBinaryStream(resultSet, BIN_CONTENT);
+			}
+			if (in == null) {
+				in = new ByteArrayInputStream(new byte[] {});
+			}
+			InputStream stream = new DBContentInputStream(in, getRepository()
+					.getDbUtils(), connection, preparedStatement);
+			// released by the stream from now on
+			connection = null;
+			preparedStatement = null;
+			return stream;
+		} catch (SQLException e) {
+			throw new DBBaseException(e);
+		} catch (IOException e) {
+			throw new DBBaseException(e);
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+			getRepository().getDbUtils().closeConnection(connection);
+		}
+	}
+
+	/**
+	 * Retrieve the length of the binary content of a file without reading it
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws DBBaseException
+	 */
+	long getBinaryLength(DBFile resource) throws DBBaseException {
+
+		checkInitialized();
+
+		byte[] cached = getRepository().getCacheManager().getContent(resource.getPath());
+		if (cached != null) {
+			return cached.length;
+		}
+
+		Connection connection = null;
+		PreparedStatement preparedStatement = null;
+		try {
+			connection = getRepository().getDbUtils().getConnection();
+			String script = getRepository().getDbUtils().readScript(connection,
+					DBScriptsMap.SCRIPT_GET_BINARY_LENGTH, this.getClass());
+			preparedStatement = getRepository().getDbUtils()
+					.getPreparedStatement(connection, script);
+			preparedStatement.setString(1, resource.getPath());
+			ResultSet resultSet = preparedStatement.executeQuery();
+			if (resultSet.next()) {
+				return resultSet.getLong(BIN_LENGTH);
+			}
+			return 0;
 		} catch (SQLException e) {
 			throw new DBBaseException(e);
 		} catch (IOException e) {
@@ -599,6 +803,26 @@ public class DBFileDAO extends DBObjectDAO {
 		setModified(resource);
 	}
 
+	/**
+	 * Create the binary content of for a given file, as before this clean the
+	 * content if any. The content is streamed to the database.
+	 * 
+	 * @param resource
+	 * @param in
+	 * @param length
+	 * @throws DBBaseException
+	 */
+	void setBinary(DBFile resource, InputStream in, long length)
+			throws DBBaseException {
+
+		checkInitialized();
+
+		removeBinary(resource);
+		insertBinary(resource, in, length);
+
+		setModified(resource);
+	}
+
 	/**
 	 * Create the binary content of for a given file
 	 * 
@@ -609,40 +833,54 @@ public class DBFileDAO extends DBObjectDAO {
 	private void insertBinary(DBFile resource, byte[] bytes)
 			throws DBBaseException {
 
-		checkInitialized();
-
 		if (bytes == null) {
 			bytes = new byte[] {};
 		}
 
-		if (bytes.length > BIN_MAX_SIZE) {
-			throw new DBBaseException(MAX_SIZE_OF_BINARY_RESOURCE_IS
-					+ BIN_MAX_SIZE);
-		} else {
+		insertBinary(resource, new ByteArrayInputStream(bytes), bytes.length);
+	}
 
-			Connection connection = null;
-			PreparedStatement preparedStatement = null;
-			try {
-				connection = getRepository().getDbUtils().getConnection();
-				String script = getRepository().getDbUtils().readScript(
-						connection, DBScriptsMap.SCRIPT_INSERT_BINARY,
-						this.getClass());
-				preparedStatement = getRepository().getDbUtils()
-						.getPreparedStatement(connection, script);
-				preparedStatement.setString(1, resource.getPath());
-				preparedStatement.setBinaryStream(2, new ByteArrayInputStream(
-						bytes), bytes.length);
-				preparedStatement.executeUpdate();
-			} catch (SQLException e) {
-				throw new DBBaseException(e);
-			} catch (IOException e) {
-				throw new DBBaseException(e);
-			} finally {
-				getRepository().getDbUtils().closeStatement(preparedStatement);
-				getRepository().getDbUtils().closeConnection(connection);
+	/**
+	 * Create the binary content of for a given file from a stream of the given
+	 * length
+	 * 
+	 * @param resource
+	 * @param in
+	 * @param length
+	 * @throws DBBaseException
+	 */
+	private void insertBinary(DBFile resource, InputStream in, long length)
+			throws DBBaseException {
+
+		checkInitialized();
+
+		Connection connection = null;
+		PreparedStatement preparedStatement = null;
+		try {
+			connection = getRepository().getDbUtils().getConnection();
+			String script = getRepository().getDbUtils().readScript(
+					connection, DBScriptsMap.SCRIPT_INSERT_BINARY,
+					this.getClass());
+			preparedStatement = getRepository().getDbUtils()
+					.getPreparedStatement(connection, script);
+			preparedStatement.setString(1, resource.getPath());
+			if (length <= Integer.MAX_VALUE) {
+				// the JDBC 3 variant is the one supported by all the drivers
+				preparedStatement.setBinaryStream(2, in, (int) length);
+			} else {
+				preparedStatement.setBinaryStream(2, in, length);
 			}
+			preparedStatement.executeUpdate();
+		} catch (SQLException e) {
+			throw new DBBaseException(e);
+		} catch (IOException e) {
+			throw new DBBaseException(e);
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+			getRepository().getDbUtils().closeConnection(connection);
 		}
 
+		getRepository().getCacheManager().clear(resource.getPath());
 	}
 
 	/**
@@ -674,6 +912,7 @@ public class DBFileDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeConnection(connection);
 		}
 
+		getRepository().getCacheManager().clear(resource.getPath());
 	}
 	
 	public void renameFileByPath(String path, String newPath)
@@ -718,7 +957,8 @@ public class DBFileDAO extends DBObjectDAO {
 				getRepository().getDbUtils().closeConnection(connection);
 			}
 
-			getRepository().getCacheManager().clear();
+			getRepository().getCacheManager().clearTree(path);
+			getRepository().getCacheManager().clearTree(newPath);
 
 	}
 	
@@ -734,7 +974,7 @@ public class DBFileDAO extends DBObjectDAO {
 				preparedStatement.setString(1, path + "%");
 				ResultSet resultSet = preparedStatement.executeQuery();
 				while (resultSet.next()) {
-					String oldFilePath = resultSet.getString("DOC_FILE_PATH");
+					String oldFilePath = resultSet.getString(TXT_FILE_PATH);
 					String newFilePath = oldFilePath.replace(path, newPath);
 					try {
 						script = getRepository().getDbUtils().readScript(connection,
@@ -755,8 +995,6 @@ public class DBFileDAO extends DBObjectDAO {
 			} finally {
 				getRepository().getDbUtils().closeStatement(preparedStatement);
 			}
-		
-			getRepository().getCacheManager().clear();
 
 	}
 
@@ -155,7 +155,7 @@ public class DBFolderDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeConnection(connection);
 		}
 		
-		getRepository().getCacheManager().clear(path);
+		getRepository().getCacheManager().clearTree(path);
 	}
 
 	/**
@@ -190,7 +190,7 @@ public class DBFolderDAO extends DBObjectDAO {
 			getRepository().getDbUtils().closeConnection(connection);
 		}
 		
-		getRepository().getCacheManager().clear();
+		getRepository().getCacheManager().clearTree(path);
 	}
 
 	/**
@@ -84,6 +84,36 @@ public class DBMapper {
 		return dbObject;
 	}
 
+	/**
+	 * Copy of the given object bound to the given repository, e.g. for an
+	 * object cached by another repository instance, as the objects work with
+	 * the user of their repository
+	 * 
+	 * @param repository
+	 * @param dbObject
+	 * @return
+	 */
+	static DBObject copyObject(DBRepository repository, DBObject dbObject) {
+
+		DBObject copy = null;
+		if (dbObject instanceof DBFile) {
+			DBFile dbFile = (DBFile) dbObject;
+			copy = new DBFile(repository, dbFile.isBinary(), dbFile.getContentType());
+		} else {
+			copy = new DBFolder(repository);
+		}
+
+		copy.setName(dbObject.getName());
+		copy.setPath(dbObject.getPath());
+		copy.setPermissions(dbObject.getPermissions());
+		copy.setCreatedBy(dbObject.getCreatedBy());
+		copy.setCreatedAt(dbObject.getCreatedAt());
+		copy.setModifiedBy(dbObject.getModifiedBy());
+		copy.setModifiedAt(dbObject.getModifiedAt());
+
+		return copy;
+	}
+
 	/**
 	 * ResultSet current row to Content transformation
 	 * 
@@ -82,8 +82,13 @@ public class DBObjectDAO {
 		Object cached = getRepository().getCacheManager().get(path);
 		if (cached != null && cached instanceof DBObject) {
 			dbObject = (DBObject) cached;
+			if (dbObject.getRepository() != getRepository()) {
+				// the cache is shared by the repositories of the data source
+				dbObject = DBMapper.copyObject(getRepository(), dbObject);
+			}
 		} else {
 			// not cached - get from db
+			long stamp = getRepository().getCacheManager().stamp();
 			Connection connection = null;
 			PreparedStatement preparedStatement = null;
 			try {
@@ -117,7 +122,7 @@ public class DBObjectDAO {
 				getRepository().getDbUtils().closeStatement(preparedStatement);
 				getRepository().getDbUtils().closeConnection(connection);
 			}
-			getRepository().getCacheManager().put(path, dbObject);
+			getRepository().getCacheManager().put(path, dbObject, stamp);
 		}
 		
 		logger.debug("exiting getObjectByPath"); //$NON-NLS-1$
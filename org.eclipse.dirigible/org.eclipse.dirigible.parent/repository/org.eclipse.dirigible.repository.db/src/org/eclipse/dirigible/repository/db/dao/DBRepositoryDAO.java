@@ -11,6 +11,7 @@
 
 package org.eclipse.dirigible.repository.db.dao;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -26,6 +27,7 @@ import org.eclipse.dirigible.repository.db.DBBaseException;
 import org.eclipse.dirigible.repository.db.DBRepository;
 import org.eclipse.dirigible.repository.db.DBResourceVersion;
 import org.eclipse.dirigible.repository.db.init.DBRepositoryInitializer;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
 import org.eclipse.dirigible.repository.logging.Logger;
 
 /**
@@ -33,8 +35,8 @@ import org.eclipse.dirigible.repository.logging.Logger;
  * 
  * Base tables:
  * 
- * DGB_FILES - the files and folder registry DGB_DOCUMENTS - the content of text
- * files separated by chunks DGB_BINARIES - the content of binary files
+ * DGB_FILES - the files and folder registry DGB_TEXTS - the content of text
+ * files, a single row per file DGB_BINARIES - the content of binary files
  * DGB_SCHEMA_VERSIONS - the version of the current repository schema
  * 
  */
@@ -59,6 +61,8 @@ public class DBRepositoryDAO {
 
 	private DBFileVersionDAO dbFileVersionDAO;
 
+	private DBTreeDAO dbTreeDAO;
+
 	public DBRepositoryDAO(DBRepository repository) {
 		logger.debug("entering constructor"); //$NON-NLS-1$
 
@@ -69,6 +73,7 @@ public class DBRepositoryDAO {
 		this.dbFileDAO = new DBFileDAO(this);
 		this.dbSearchDAO = new DBSearchDAO(this);
 		this.dbFileVersionDAO = new DBFileVersionDAO(this);
+		this.dbTreeDAO = new DBTreeDAO(this);
 
 		logger.debug("exiting constructor"); //$NON-NLS-1$
 	}
@@ -225,6 +230,7 @@ public class DBRepositoryDAO {
 	 */
 	public void removeFolderByPath(String path) throws DBBaseException {
 		this.dbFolderDAO.removeFolderByPath(path);
+		RepositoryListeners.fireRemoved(getRepository(), path);
 	}
 
 	/**
@@ -257,6 +263,7 @@ public class DBRepositoryDAO {
 			throws DBBaseException {
 		DBFile dbFile = this.dbFileDAO.createFile(path, bytes, isBinary, contentType, override);
 		this.dbFileVersionDAO.createFileVersion(path, bytes, isBinary, contentType);
+		RepositoryListeners.fireChanged(getRepository(), path);
 		return dbFile;
 	}
 
@@ -271,6 +278,7 @@ public class DBRepositoryDAO {
 		this.dbFileDAO.setDocument(resource, bytes);
 		this.dbFileVersionDAO.createFileVersion(resource.getPath(), bytes, resource.isBinary(),
 				resource.getContentType());
+		RepositoryListeners.fireChanged(getRepository(), resource.getPath());
 	}
 
 	/**
@@ -293,6 +301,25 @@ public class DBRepositoryDAO {
 	public void removeFileByPath(String path) throws DBBaseException {
 		this.dbFileDAO.removeFileByPath(path);
 		this.dbFileVersionDAO.removeAllFileVersions(path);
+		RepositoryListeners.fireRemoved(getRepository(), path);
+	}
+
+	/**
+	 * Copy the files under the source path, which are missing or differ under
+	 * the target path, in a single transaction - fires a single event for all
+	 * of the written files
+	 * 
+	 * @param sourcePath
+	 * @param targetPath
+	 * @return the paths of the written files
+	 * @throws DBBaseException
+	 */
+	public List<String> copyTree(String sourcePath, String targetPath) throws DBBaseException {
+		List<String> written = this.dbTreeDAO.copyTree(sourcePath, targetPath);
+		if (!written.isEmpty()) {
+			RepositoryListeners.firePublished(getRepository(), targetPath, written);
+		}
+		return written;
 	}
 
 	public void cleanupOldVersions() throws DBBaseException {
@@ -337,6 +364,65 @@ public class DBRepositoryDAO {
 	 */
 	public void setBinary(DBFile resource, byte[] bytes, String contentType) throws DBBaseException {
 		this.dbFileDAO.setBinary(resource, bytes, contentType);
+		RepositoryListeners.fireChanged(getRepository(), resource.getPath());
+	}
+
+	/**
+	 * Create the binary content of for a given file from a stream of the given
+	 * length
+	 * 
+	 * @param resource
+	 * @param in
+	 * @param length
+	 * @throws DBBaseException
+	 */
+	public void setBinary(DBFile resource, InputStream in, long length) throws DBBaseException {
+		this.dbFileDAO.setBinary(resource, in, length);
+		RepositoryListeners.fireChanged(getRepository(), resource.getPath());
+	}
+
+	/**
+	 * Open a stream over the binary content of a file
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws DBBaseException
+	 */
+	public InputStream getBinaryStream(DBFile resource) throws DBBaseException {
+		return this.dbFileDAO.getBinaryStream(resource);
+	}
+
+	/**
+	 * Retrieve the length of the document content of a file in bytes
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws DBBaseException
+	 */
+	public long getDocumentLength(DBFile resource) throws DBBaseException {
+		return this.dbFileDAO.getDocumentLength(resource);
+	}
+
+	/**
+	 * Retrieve the length of the binary content of a file
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws DBBaseException
+	 */
+	public long getBinaryLength(DBFile resource) throws DBBaseException {
+		return this.dbFileDAO.getBinaryLength(resource);
+	}
+
+	/**
+	 * Open a stream over the document content
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws DBBaseException
+	 */
+	public InputStream getDocumentStream(DBFile resource) throws DBBaseException {
+		return this.dbFileDAO.getDocumentStream(resource);
 	}
 
 	/**
@@ -405,10 +491,14 @@ public class DBRepositoryDAO {
 
 	public void renameFolder(String path, String newPath) {
 		this.dbFolderDAO.renameFolderByPath(path, newPath);
+		RepositoryListeners.fireRemoved(getRepository(), path);
+		RepositoryListeners.fireChanged(getRepository(), newPath);
 	}
 
 	public void renameFile(String path, String newPath) {
 		this.dbFileDAO.renameFileByPath(path, newPath);
+		RepositoryListeners.fireRemoved(getRepository(), path);
+		RepositoryListeners.fireChanged(getRepository(), newPath);
 	}
 
 	// public void renameFileByPath(String path, String newPath)
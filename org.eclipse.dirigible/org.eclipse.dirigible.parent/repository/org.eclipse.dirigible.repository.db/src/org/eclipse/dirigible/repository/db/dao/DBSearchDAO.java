@@ -12,6 +12,7 @@
 package org.eclipse.dirigible.repository.db.dao;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -33,6 +34,8 @@ public class DBSearchDAO extends DBObjectDAO {
 
 	private static Logger logger = Logger.getLogger(DBSearchDAO.class);
 
+	private static final int SEARCH_BUFFER_SIZE = 8192;
+
 	DBSearchDAO(DBRepositoryDAO dbRepositoryDAO) {
 		super(dbRepositoryDAO);
 	}
@@ -77,7 +80,7 @@ public class DBSearchDAO extends DBObjectDAO {
 		return search(parameters, getSearchNameSQLFile(caseInsensitive));
 	}
 
-	private String getParameter(String parameter, boolean caseInsensitive) {
+	private static String getParameter(String parameter, boolean caseInsensitive) {
 		return caseInsensitive ? parameter.toUpperCase() : parameter;
 	}
 
@@ -100,6 +103,8 @@ public class DBSearchDAO extends DBObjectDAO {
 			return null;
 		}
 
+		// the rows are complete objects, the entities read them from the cache
+		long stamp = getRepository().getCacheManager().stamp();
 		Connection connection = null;
 		PreparedStatement preparedStatement = null;
 		try {
@@ -112,7 +117,7 @@ public class DBSearchDAO extends DBObjectDAO {
 			for (int i = 0; i < parameters.size(); i++) {
 				preparedStatement.setString(i + 1, parameters.get(i));
 			}
-			return getEntityList(preparedStatement);
+			return getEntityList(preparedStatement, stamp);
 		} catch (SQLException e) {
 			throw new DBBaseException(e);
 		} catch (IOException e) {
@@ -124,11 +129,13 @@ public class DBSearchDAO extends DBObjectDAO {
 		}
 	}
 
-	private List<IEntity> getEntityList(PreparedStatement preparedStatement) throws SQLException {
+	private List<IEntity> getEntityList(PreparedStatement preparedStatement, long stamp)
+			throws SQLException {
 		List<IEntity> result = new ArrayList<IEntity>();
 		ResultSet resultSet = preparedStatement.executeQuery();
 		while (resultSet.next()) {
 			DBObject dbObject = DBMapper.dbToObject(getRepository(), resultSet);
+			getRepository().getCacheManager().put(dbObject.getPath(), dbObject, stamp);
 			if (dbObject instanceof DBFolder) {
 				ICollection collection = new DBCollection(getRepository(), new RepositoryPath(
 						dbObject.getPath()));
@@ -142,6 +149,18 @@ public class DBSearchDAO extends DBObjectDAO {
 		return result;
 	}
 
+	/**
+	 * Search for text files containing the parameter in their path or content.
+	 * The content is matched while it is streamed, as the functions and the
+	 * LIKE predicate are limited or not supported for the CLOB columns on some
+	 * of the databases - a search for a part of the content would not use an
+	 * index anyway.
+	 * 
+	 * @param parameter
+	 * @param caseInsensitive
+	 * @return
+	 * @throws DBBaseException
+	 */
 	public List<IEntity> searchInPathAndText(String parameter, boolean caseInsensitive)
 			throws DBBaseException {
 		logger.debug("entering searchInPathAndText"); //$NON-NLS-1$
@@ -152,7 +171,7 @@ public class DBSearchDAO extends DBObjectDAO {
 			return null;
 		}
 
-		parameter = "%" + parameter + "%"; //$NON-NLS-1$ //$NON-NLS-2$
+		parameter = getParameter(parameter, caseInsensitive);
 
 		List<IEntity> result = new ArrayList<IEntity>();
 
@@ -160,24 +179,18 @@ public class DBSearchDAO extends DBObjectDAO {
 		PreparedStatement preparedStatement = null;
 		try {
 			connection = getRepository().getDbUtils().getConnection();
-			String script;
-			if (caseInsensitive) {
-				parameter = parameter.toUpperCase();
-				script = getRepository().getDbUtils().readScript(connection,
-						DBScriptsMap.SCRIPT_SEARCH_TEXT, this.getClass());
-			} else {
-				script = getRepository().getDbUtils().readScript(connection,
-						DBScriptsMap.SCRIPT_SEARCH_TEXT_SENSE, this.getClass());
-			}
+			String script = getRepository().getDbUtils().readScript(connection,
+					DBScriptsMap.SCRIPT_SEARCH_TEXT, this.getClass());
 			preparedStatement = getRepository().getDbUtils().getPreparedStatement(connection,
 					script);
-			preparedStatement.setString(1, parameter);
-			preparedStatement.setString(2, parameter);
 			ResultSet resultSet = preparedStatement.executeQuery();
 			while (resultSet.next()) {
 				String path = resultSet.getString(1);
-				IResource resource = getRepository().getResource(path);
-				result.add(resource);
+				if (contains(path, parameter, caseInsensitive)
+						|| contains(resultSet.getCharacterStream(2), parameter, caseInsensitive)) {
+					IResource resource = getRepository().getResource(path);
+					result.add(resource);
+				}
 			}
 			return result;
 		} catch (SQLException e) {
@@ -190,4 +203,35 @@ public class DBSearchDAO extends DBObjectDAO {
 			logger.debug("exiting searchInPathAndText"); //$NON-NLS-1$
 		}
 	}
+
+	private static boolean contains(String text, String parameter, boolean caseInsensitive) {
+		return getParameter(text, caseInsensitive).contains(parameter);
+	}
+
+	/**
+	 * Whether the streamed text contains the parameter, keeping in memory a
+	 * buffer of the text only
+	 */
+	private static boolean contains(Reader reader, String parameter, boolean caseInsensitive) throws IOException {
+		if (reader == null) {
+			return false;
+		}
+		try {
+			char[] buffer = new char[SEARCH_BUFFER_SIZE + parameter.length()];
+			int kept = 0;
+			int read;
+			while ((read = reader.read(buffer, kept, buffer.length - kept)) != -1) {
+				int length = kept + read;
+				if (contains(new String(buffer, 0, length), parameter, caseInsensitive)) {
+					return true;
+				}
+				// the start of a match across the buffer boundary
+				kept = Math.min(Math.max(parameter.length() - 1, 0), length);
+				System.arraycopy(buffer, length - kept, buffer, 0, kept);
+			}
+			return false;
+		} finally {
+			reader.close();
+		}
+	}
 }
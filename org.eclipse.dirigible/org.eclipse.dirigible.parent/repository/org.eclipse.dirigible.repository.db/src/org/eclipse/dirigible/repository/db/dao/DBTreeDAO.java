@@ -0,0 +1,526 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.db.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.io.input.ReaderInputStream;
+import org.eclipse.dirigible.repository.db.DBBaseException;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.repository.db.init.DBScriptsMap;
+import org.eclipse.dirigible.repository.ext.db.DBUtils;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Copies whole trees of files at once. The manifests of the source and the
+ * target tree - the type, the content type and the size of the content of each
+ * file - are read with a few queries over each tree. The content is digested
+ * only for the files, which type and size match in both trees. Only the files
+ * missing in the target or having a different content are written, all of
+ * them in a single transaction with batched statements. The content of the
+ * files is copied by the database itself.
+ */
+public class DBTreeDAO extends DBObjectDAO {
+
+	private static final String TYPE_OF_S_DIFFERS_IN_THE_TARGET_SKIPPED = "The type of %s differs in the target, skipped"; //$NON-NLS-1$
+
+	private static final String FILE_PATH = "FILE_PATH"; //$NON-NLS-1$
+	private static final String FILE_TYPE = "FILE_TYPE"; //$NON-NLS-1$
+	private static final String FILE_CONTENT_TYPE = "FILE_CONTENT_TYPE"; //$NON-NLS-1$
+	private static final String TXT_FILE_PATH = "TXT_FILE_PATH"; //$NON-NLS-1$
+	private static final String TXT_CONTENT = "TXT_CONTENT"; //$NON-NLS-1$
+	private static final String TXT_LENGTH = "TXT_LENGTH"; //$NON-NLS-1$
+	private static final String BIN_FILE_PATH = "BIN_FILE_PATH"; //$NON-NLS-1$
+	private static final String BIN_CONTENT = "BIN_CONTENT"; //$NON-NLS-1$
+	private static final String BIN_LENGTH = "BIN_LENGTH"; //$NON-NLS-1$
+	private static final String FV_FILE_PATH = "FV_FILE_PATH"; //$NON-NLS-1$
+	private static final String FV_VERSION = "FV_VERSION"; //$NON-NLS-1$
+
+	private static final String ANY = "%"; //$NON-NLS-1$
+
+	private static final String DIGEST_ALGORITHM = "SHA-1"; //$NON-NLS-1$
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int BATCH_SIZE = 100;
+
+	private static final long UNKNOWN_SIZE = -1;
+
+	private static Logger logger = Logger.getLogger(DBTreeDAO.class);
+
+	DBTreeDAO(DBRepositoryDAO dbRepositoryDAO) {
+		super(dbRepositoryDAO);
+	}
+
+	/**
+	 * Copies the files and the folders under the source path, which are
+	 * missing or differ under the target path. The files existing in the
+	 * target only are kept.
+	 * 
+	 * @param sourcePath
+	 * @param targetPath
+	 * @return the paths of the written files
+	 * @throws DBBaseException
+	 */
+	List<String> copyTree(String sourcePath, String targetPath) throws DBBaseException {
+		logger.debug("entering copyTree"); //$NON-NLS-1$
+
+		checkInitialized();
+
+		sourcePath = trimDelimiter(sourcePath);
+		targetPath = trimDelimiter(targetPath);
+		if (!"".equals(targetPath)) { //$NON-NLS-1$
+			getDbRepositoryDAO().getDbFolderDAO().createFolder(targetPath);
+		}
+
+		List<String> written = new ArrayList<String>();
+		List<String> created = new ArrayList<String>();
+		Connection connection = null;
+		boolean autoCommit = false;
+		try {
+			connection = getRepository().getDbUtils().getConnection();
+			autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				Map<String, ManifestEntry> source = readManifest(connection, sourcePath);
+				Map<String, ManifestEntry> target = readManifest(connection, targetPath);
+				// the files existing in the target only are kept
+				target.keySet().retainAll(source.keySet());
+				readDigests(connection, sourcePath, targetPath, source, target);
+				writeChanges(connection, sourcePath, targetPath, source, target, written, created);
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} catch (IOException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		} catch (SQLException e) {
+			throw new DBBaseException(e);
+		} catch (IOException e) {
+			throw new DBBaseException(e);
+		} finally {
+			getRepository().getDbUtils().closeConnection(connection);
+		}
+
+		for (String path : created) {
+			getRepository().getCacheManager().clear(path);
+		}
+		for (String path : written) {
+			getRepository().getCacheManager().clear(path);
+		}
+		logger.debug("exiting copyTree"); //$NON-NLS-1$
+		return written;
+	}
+
+	/**
+	 * The files and the folders under the given root, keyed by their path
+	 * relative to it, with the size of their content. The content itself is
+	 * not read.
+	 */
+	private Map<String, ManifestEntry> readManifest(Connection connection, String root) throws SQLException,
+			IOException {
+		Map<String, ManifestEntry> manifest = new TreeMap<String, ManifestEntry>();
+		String prefix = root + DBRepository.PATH_DELIMITER;
+
+		PreparedStatement preparedStatement = prepare(connection, DBScriptsMap.SCRIPT_GET_FILES_BY_PATH_CASCADE);
+		try {
+			preparedStatement.setString(1, prefix + ANY);
+			ResultSet resultSet = preparedStatement.executeQuery();
+			while (resultSet.next()) {
+				String path = resultSet.getString(FILE_PATH);
+				if (path.startsWith(prefix)) {
+					ManifestEntry entry = new ManifestEntry(resultSet.getInt(FILE_TYPE),
+							resultSet.getString(FILE_CONTENT_TYPE));
+					manifest.put(path.substring(root.length()), entry);
+				}
+			}
+			resultSet.close();
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+		}
+
+		readSizes(connection, root, manifest, DBScriptsMap.SCRIPT_GET_DOCUMENT_LENGTHS_BY_PATH_CASCADE,
+				TXT_FILE_PATH, TXT_LENGTH);
+		readSizes(connection, root, manifest, DBScriptsMap.SCRIPT_GET_BINARY_LENGTHS_BY_PATH_CASCADE,
+				BIN_FILE_PATH, BIN_LENGTH);
+		return manifest;
+	}
+
+	private void readSizes(Connection connection, String root, Map<String, ManifestEntry> manifest,
+			String scriptPath, String pathColumn, String lengthColumn) throws SQLException, IOException {
+		PreparedStatement preparedStatement = prepare(connection, scriptPath);
+		try {
+			preparedStatement.setString(1, root + DBRepository.PATH_DELIMITER + ANY);
+			ResultSet resultSet = preparedStatement.executeQuery();
+			while (resultSet.next()) {
+				ManifestEntry entry = getEntry(manifest, root, resultSet.getString(pathColumn));
+				if (entry != null) {
+					long size = resultSet.getLong(lengthColumn);
+					// measured while digesting, if at all
+					entry.size = resultSet.wasNull() ? UNKNOWN_SIZE : size;
+				}
+			}
+			resultSet.close();
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+		}
+	}
+
+	/**
+	 * Digests the content of the files present at the same relative path in
+	 * both trees with the same type, content type and size - only for them the
+	 * content decides whether the file is written
+	 */
+	private void readDigests(Connection connection, String sourceRoot, String targetRoot,
+			Map<String, ManifestEntry> source, Map<String, ManifestEntry> target) throws SQLException,
+			IOException {
+		boolean texts = false;
+		boolean binaries = false;
+		for (Map.Entry<String, ManifestEntry> next : target.entrySet()) {
+			ManifestEntry existing = next.getValue();
+			ManifestEntry entry = source.get(next.getKey());
+			if (existing.isFolder() || !existing.isSameKind(entry) || !existing.isSameSize(entry)) {
+				continue;
+			}
+			existing.compared = true;
+			entry.compared = true;
+			if (entry.type == DBMapper.OBJECT_TYPE_BINARY) {
+				binaries = true;
+			} else {
+				texts = true;
+			}
+		}
+		if (texts) {
+			readDigests(connection, sourceRoot, source, DBScriptsMap.SCRIPT_GET_DOCUMENTS_BY_PATH_CASCADE,
+					TXT_FILE_PATH, false);
+			readDigests(connection, targetRoot, target, DBScriptsMap.SCRIPT_GET_DOCUMENTS_BY_PATH_CASCADE,
+					TXT_FILE_PATH, false);
+		}
+		if (binaries) {
+			readDigests(connection, sourceRoot, source, DBScriptsMap.SCRIPT_GET_BINARIES_BY_PATH_CASCADE,
+					BIN_FILE_PATH, true);
+			readDigests(connection, targetRoot, target, DBScriptsMap.SCRIPT_GET_BINARIES_BY_PATH_CASCADE,
+					BIN_FILE_PATH, true);
+		}
+
+		// the files without a content row are empty
+		byte[] empty = createDigest().digest(new byte[] {});
+		for (ManifestEntry entry : target.values()) {
+			if (entry.compared && (entry.digest == null)) {
+				entry.size = 0;
+				entry.digest = empty;
+			}
+		}
+		for (ManifestEntry entry : source.values()) {
+			if (entry.compared && (entry.digest == null)) {
+				entry.size = 0;
+				entry.digest = empty;
+			}
+		}
+	}
+
+	private void readDigests(Connection connection, String root, Map<String, ManifestEntry> manifest,
+			String scriptPath, String pathColumn, boolean binary) throws SQLException, IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		PreparedStatement preparedStatement = prepare(connection, scriptPath);
+		try {
+			preparedStatement.setString(1, root + DBRepository.PATH_DELIMITER + ANY);
+			ResultSet resultSet = preparedStatement.executeQuery();
+			while (resultSet.next()) {
+				ManifestEntry entry = getEntry(manifest, root, resultSet.getString(pathColumn));
+				if ((entry == null) || !entry.compared) {
+					continue;
+				}
+				InputStream in = null;
+				if (binary) {
+					in = DBUtils.getDialectSpecifier(DBUtils.getDatabaseProductName(connection)).getBinaryStream(
+							resultSet, BIN_CONTENT);
+				} else {
+					Reader reader = resultSet.getCharacterStream(TXT_CONTENT);
+					if (reader != null) {
+						in = new ReaderInputStream(reader, DBFileDAO.TEXT_CHARSET);
+					}
+				}
+				long size = 0;
+				if (in != null) {
+					try {
+						int read;
+						while ((read = in.read(buffer)) != -1) {
+							digest.update(buffer, 0, read);
+							size += read;
+						}
+					} finally {
+						in.close();
+					}
+				}
+				entry.size = size;
+				entry.digest = digest.digest();
+			}
+			resultSet.close();
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+		}
+	}
+
+	private void writeChanges(Connection connection, String sourcePath, String targetPath,
+			Map<String, ManifestEntry> source, Map<String, ManifestEntry> target, List<String> written,
+			List<String> created) throws SQLException, IOException {
+		String user = getRepository().getUser();
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		Set<String> versioned = new HashSet<String>();
+
+		PreparedStatement insertFile = prepare(connection, DBScriptsMap.SCRIPT_INSERT_FILE);
+		PreparedStatement updateFile = prepare(connection, DBScriptsMap.SCRIPT_UPDATE_FILE_CONTENT);
+		PreparedStatement removeDocument = prepare(connection, DBScriptsMap.SCRIPT_REMOVE_DOCUMENT);
+		PreparedStatement removeBinary = prepare(connection, DBScriptsMap.SCRIPT_REMOVE_BINARY);
+		PreparedStatement copyDocument = prepare(connection, DBScriptsMap.SCRIPT_COPY_DOCUMENT);
+		PreparedStatement copyBinary = prepare(connection, DBScriptsMap.SCRIPT_COPY_BINARY);
+		try {
+			// sorted, so the parent folders come first
+			for (Map.Entry<String, ManifestEntry> next : source.entrySet()) {
+				String relativePath = next.getKey();
+				ManifestEntry entry = next.getValue();
+				ManifestEntry existing = target.get(relativePath);
+				String path = targetPath + relativePath;
+				if ((existing != null) && (existing.isFolder() != entry.isFolder())) {
+					logger.warn(String.format(TYPE_OF_S_DIFFERS_IN_THE_TARGET_SKIPPED, path));
+					continue;
+				}
+				if (entry.isFolder()) {
+					if (existing == null) {
+						addInsertFile(insertFile, path, entry, user, now);
+						created.add(path);
+					}
+					continue;
+				}
+				if (!entry.differs(existing)) {
+					continue;
+				}
+				if (existing == null) {
+					addInsertFile(insertFile, path, entry, user, now);
+				} else {
+					updateFile.setInt(1, entry.type);
+					updateFile.setString(2, entry.contentType);
+					updateFile.setString(3, user);
+					updateFile.setTimestamp(4, now);
+					updateFile.setString(5, path);
+					updateFile.addBatch();
+				}
+				// also the content left over by a removal of a parent folder
+				removeDocument.setString(1, path);
+				removeDocument.addBatch();
+				removeBinary.setString(1, path);
+				removeBinary.addBatch();
+				if (entry.type == DBMapper.OBJECT_TYPE_BINARY) {
+					copyBinary.setString(1, path);
+					copyBinary.setString(2, sourcePath + relativePath);
+					copyBinary.addBatch();
+				} else {
+					copyDocument.setString(1, path);
+					copyDocument.setString(2, sourcePath + relativePath);
+					copyDocument.addBatch();
+					versioned.add(relativePath);
+				}
+				written.add(path);
+			}
+			insertFile.executeBatch();
+			updateFile.executeBatch();
+			removeDocument.executeBatch();
+			removeBinary.executeBatch();
+			copyDocument.executeBatch();
+			copyBinary.executeBatch();
+		} finally {
+			getRepository().getDbUtils().closeStatement(insertFile);
+			getRepository().getDbUtils().closeStatement(updateFile);
+			getRepository().getDbUtils().closeStatement(removeDocument);
+			getRepository().getDbUtils().closeStatement(removeBinary);
+			getRepository().getDbUtils().closeStatement(copyDocument);
+			getRepository().getDbUtils().closeStatement(copyBinary);
+		}
+		writeVersions(connection, sourcePath, targetPath, source, versioned, user);
+	}
+
+	/**
+	 * Adds a version of each written text with the content read from the
+	 * source, a batch at a time
+	 */
+	private void writeVersions(Connection connection, String sourceRoot, String targetRoot,
+			Map<String, ManifestEntry> source, Set<String> versioned, String user) throws SQLException, IOException {
+		if (versioned.isEmpty()) {
+			return;
+		}
+
+		// the versions outlive the removal of the file
+		Map<String, Integer> lastVersions = new HashMap<String, Integer>();
+		PreparedStatement preparedStatement = prepare(connection,
+				DBScriptsMap.SCRIPT_GET_LAST_FILE_VERSIONS_BY_PATH_CASCADE);
+		try {
+			preparedStatement.setString(1, targetRoot + DBRepository.PATH_DELIMITER + ANY);
+			ResultSet resultSet = preparedStatement.executeQuery();
+			while (resultSet.next()) {
+				lastVersions.put(resultSet.getString(FV_FILE_PATH), resultSet.getInt(FV_VERSION));
+			}
+			resultSet.close();
+		} finally {
+			getRepository().getDbUtils().closeStatement(preparedStatement);
+		}
+
+		PreparedStatement getDocuments = prepare(connection, DBScriptsMap.SCRIPT_GET_DOCUMENTS_BY_PATH_CASCADE);
+		PreparedStatement insertFileVersion = prepare(connection, DBScriptsMap.SCRIPT_INSERT_FILE_VERSION);
+		try {
+			getDocuments.setString(1, sourceRoot + DBRepository.PATH_DELIMITER + ANY);
+			ResultSet resultSet = getDocuments.executeQuery();
+			int count = 0;
+			while (resultSet.next()) {
+				String path = resultSet.getString(TXT_FILE_PATH);
+				if ((path.length() <= sourceRoot.length()) || !versioned.remove(path.substring(sourceRoot.length()))) {
+					continue;
+				}
+				String relativePath = path.substring(sourceRoot.length());
+				String content = resultSet.getString(TXT_CONTENT);
+				byte[] bytes = (content != null) ? content.getBytes(DBFileDAO.TEXT_CHARSET) : new byte[] {};
+				addInsertFileVersion(insertFileVersion, targetRoot + relativePath, source.get(relativePath), bytes,
+						lastVersions, user);
+				if (++count % BATCH_SIZE == 0) {
+					insertFileVersion.executeBatch();
+				}
+			}
+			resultSet.close();
+			// the texts without a content row are empty
+			for (String relativePath : versioned) {
+				addInsertFileVersion(insertFileVersion, targetRoot + relativePath, source.get(relativePath),
+						new byte[] {}, lastVersions, user);
+			}
+			insertFileVersion.executeBatch();
+		} finally {
+			getRepository().getDbUtils().closeStatement(getDocuments);
+			getRepository().getDbUtils().closeStatement(insertFileVersion);
+		}
+	}
+
+	private void addInsertFile(PreparedStatement insertFile, String path, ManifestEntry entry, String user,
+			Timestamp now) throws SQLException {
+		insertFile.setString(1, path.substring(path.lastIndexOf(DBRepository.PATH_DELIMITER) + 1));
+		insertFile.setString(2, path);
+		insertFile.setInt(3, entry.type);
+		insertFile.setString(4, entry.isFolder() ? "" : entry.contentType); //$NON-NLS-1$
+		insertFile.setString(5, user);
+		insertFile.setTimestamp(6, now);
+		insertFile.setString(7, user);
+		insertFile.setTimestamp(8, now);
+		insertFile.addBatch();
+	}
+
+	private static void addInsertFileVersion(PreparedStatement insertFileVersion, String path, ManifestEntry entry,
+			byte[] bytes, Map<String, Integer> lastVersions, String user) throws SQLException {
+		Integer lastVersion = lastVersions.get(path);
+		int i = 0;
+		insertFileVersion.setString(++i, path);
+		insertFileVersion.setInt(++i, (lastVersion != null) ? lastVersion + 1 : 1);
+		insertFileVersion.setBinaryStream(++i, new ByteArrayInputStream(bytes), bytes.length);
+		insertFileVersion.setInt(++i, entry.type);
+		insertFileVersion.setString(++i, entry.contentType);
+		insertFileVersion.setString(++i, user);
+		insertFileVersion.addBatch();
+	}
+
+	private PreparedStatement prepare(Connection connection, String scriptPath) throws SQLException,
+			IOException {
+		String script = getRepository().getDbUtils().readScript(connection, scriptPath, this.getClass());
+		return getRepository().getDbUtils().getPreparedStatement(connection, script);
+	}
+
+	private static ManifestEntry getEntry(Map<String, ManifestEntry> manifest, String root, String path) {
+		if ((path == null) || (path.length() <= root.length())) {
+			return null;
+		}
+		return manifest.get(path.substring(root.length()));
+	}
+
+	private static String trimDelimiter(String path) {
+		if (path.endsWith(DBRepository.PATH_DELIMITER)) {
+			return path.substring(0, path.length() - DBRepository.PATH_DELIMITER.length());
+		}
+		return path;
+	}
+
+	private static MessageDigest createDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static class ManifestEntry {
+
+		private final int type;
+
+		private final String contentType;
+
+		private long size;
+
+		private byte[] digest;
+
+		private boolean compared;
+
+		ManifestEntry(int type, String contentType) {
+			this.type = type;
+			this.contentType = contentType;
+		}
+
+		boolean isFolder() {
+			return type == DBMapper.OBJECT_TYPE_FOLDER;
+		}
+
+		boolean isSameKind(ManifestEntry other) {
+			return (type == other.type)
+					&& ((contentType == null) ? (other.contentType == null) : contentType.equals(other.contentType));
+		}
+
+		boolean isSameSize(ManifestEntry other) {
+			return (size == other.size) || (size == UNKNOWN_SIZE) || (other.size == UNKNOWN_SIZE);
+		}
+
+		boolean differs(ManifestEntry other) {
+			if ((other == null) || (digest == null) || (other.digest == null)) {
+				return true;
+			}
+			return !isSameKind(other) || (size != other.size) || !Arrays.equals(digest, other.digest);
+		}
+
+	}
+
+}
@@ -0,0 +1,3 @@
+INSERT INTO DGB_BINARIES (
+	BIN_FILE_PATH, BIN_CONTENT)
+	SELECT ?, BIN_CONTENT FROM DGB_BINARIES WHERE BIN_FILE_PATH = ?
\ No newline at end of file
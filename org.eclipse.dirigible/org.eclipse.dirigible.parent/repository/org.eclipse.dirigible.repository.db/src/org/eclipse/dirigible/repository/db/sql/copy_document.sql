@@ -0,0 +1,3 @@
+INSERT INTO DGB_TEXTS (
+	TXT_FILE_PATH, TXT_CONTENT, TXT_LENGTH)
+	SELECT ?, TXT_CONTENT, TXT_LENGTH FROM DGB_TEXTS WHERE TXT_FILE_PATH = ?
\ No newline at end of file
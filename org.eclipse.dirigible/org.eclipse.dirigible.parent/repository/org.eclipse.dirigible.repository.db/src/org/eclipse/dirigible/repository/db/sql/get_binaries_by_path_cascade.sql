@@ -0,0 +1 @@
+SELECT * FROM DGB_BINARIES WHERE BIN_FILE_PATH LIKE ?
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT LENGTH(BIN_CONTENT) AS BIN_LENGTH FROM DGB_BINARIES WHERE BIN_FILE_PATH = ?
\ No newline at end of file
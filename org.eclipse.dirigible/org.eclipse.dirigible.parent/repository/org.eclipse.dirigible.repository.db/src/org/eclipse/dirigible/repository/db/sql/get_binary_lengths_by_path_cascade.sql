@@ -0,0 +1 @@
+SELECT BIN_FILE_PATH, LENGTH(BIN_CONTENT) AS BIN_LENGTH FROM DGB_BINARIES WHERE BIN_FILE_PATH LIKE ?
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT TXT_LENGTH FROM DGB_TEXTS WHERE TXT_FILE_PATH = ?
\ No newline at end of file
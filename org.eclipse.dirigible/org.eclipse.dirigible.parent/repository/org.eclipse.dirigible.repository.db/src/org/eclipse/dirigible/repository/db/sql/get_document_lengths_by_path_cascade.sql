@@ -0,0 +1 @@
+SELECT TXT_FILE_PATH, TXT_LENGTH FROM DGB_TEXTS WHERE TXT_FILE_PATH LIKE ?
\ No newline at end of file
@@ -1 +1 @@
-SELECT * FROM DGB_DOCUMENTS WHERE DOC_FILE_PATH LIKE ?
\ No newline at end of file
+SELECT * FROM DGB_TEXTS WHERE TXT_FILE_PATH LIKE ?
\ No newline at end of file
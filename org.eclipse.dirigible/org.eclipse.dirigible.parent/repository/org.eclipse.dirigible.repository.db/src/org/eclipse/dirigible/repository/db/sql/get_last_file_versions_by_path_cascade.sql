@@ -0,0 +1 @@
+SELECT FV_FILE_PATH, MAX(FV_VERSION) AS FV_VERSION FROM DGB_FILE_VERSIONS WHERE FV_FILE_PATH LIKE ? GROUP BY FV_FILE_PATH
\ No newline at end of file
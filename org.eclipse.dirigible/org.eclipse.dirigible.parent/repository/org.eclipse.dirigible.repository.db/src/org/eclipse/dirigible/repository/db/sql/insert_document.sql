@@ -1,3 +1,3 @@
-INSERT INTO DGB_DOCUMENTS (
-	DOC_FILE_PATH, DOC_CONTENT, DOC_ORDER)
+INSERT INTO DGB_TEXTS (
+	TXT_FILE_PATH, TXT_CONTENT, TXT_LENGTH)
 	VALUES (?, ?, ?)
@@ -1 +1 @@
-DELETE FROM DGB_DOCUMENTS WHERE DOC_FILE_PATH = ?
\ No newline at end of file
+DELETE FROM DGB_TEXTS WHERE TXT_FILE_PATH = ?
\ No newline at end of file
@@ -1 +1 @@
-UPDATE DGB_DOCUMENTS SET DOC_FILE_PATH = ? WHERE DOC_FILE_PATH LIKE ?
+UPDATE DGB_TEXTS SET TXT_FILE_PATH = ? WHERE TXT_FILE_PATH LIKE ?
@@ -1 +1 @@
-SELECT DISTINCT DOC_FILE_PATH FROM DGB_DOCUMENTS WHERE UPPER(DOC_FILE_PATH) LIKE ? OR UPPER(DOC_CONTENT) LIKE ? 
+SELECT TXT_FILE_PATH, TXT_CONTENT FROM DGB_TEXTS 
@@ -1 +0,0 @@
-SELECT DISTINCT DOC_FILE_PATH FROM DGB_DOCUMENTS WHERE DOC_FILE_PATH LIKE ? OR DOC_CONTENT LIKE ? 
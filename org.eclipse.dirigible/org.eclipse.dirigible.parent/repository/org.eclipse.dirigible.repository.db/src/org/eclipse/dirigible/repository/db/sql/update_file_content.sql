@@ -0,0 +1,6 @@
+UPDATE DGB_FILES SET 
+	FILE_TYPE = ?, 
+	FILE_CONTENT_TYPE = ?,
+	FILE_MODIFIED_BY = ?, 
+	FILE_MODIFIED_AT = ?
+WHERE FILE_PATH = ?
\ No newline at end of file
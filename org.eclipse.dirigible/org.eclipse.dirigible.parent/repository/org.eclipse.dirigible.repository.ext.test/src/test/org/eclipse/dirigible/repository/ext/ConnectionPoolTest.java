@@ -0,0 +1,284 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.ext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.ext.db.ConnectionPool;
+import org.eclipse.dirigible.repository.ext.db.WrappedDataSource;
+
+public class ConnectionPoolTest {
+
+	private WrappedDataSource dataSource;
+
+	@Before
+	public void setUp() {
+		System.setProperty(ConnectionPool.MIN_SIZE_PROPERTY, "0"); //$NON-NLS-1$
+		System.setProperty(ConnectionPool.MAX_SIZE_PROPERTY, "2"); //$NON-NLS-1$
+		System.setProperty(ConnectionPool.BORROW_TIMEOUT_PROPERTY, "200"); //$NON-NLS-1$
+		System.setProperty(ConnectionPool.EVICTION_INTERVAL_PROPERTY, "100"); //$NON-NLS-1$
+		System.setProperty(ConnectionPool.LEAK_THRESHOLD_PROPERTY, "300"); //$NON-NLS-1$
+		dataSource = new WrappedDataSource(createEmbeddedDataSource(), true);
+	}
+
+	private static EmbeddedDataSource createEmbeddedDataSource() {
+		EmbeddedDataSource embeddedDataSource = new EmbeddedDataSource();
+		embeddedDataSource.setDatabaseName("derby"); //$NON-NLS-1$
+		embeddedDataSource.setCreateDatabase("create"); //$NON-NLS-1$
+		return embeddedDataSource;
+	}
+
+	@After
+	public void tearDown() {
+		dataSource.getConnectionPool().close();
+		System.clearProperty(ConnectionPool.MIN_SIZE_PROPERTY);
+		System.clearProperty(ConnectionPool.MAX_SIZE_PROPERTY);
+		System.clearProperty(ConnectionPool.BORROW_TIMEOUT_PROPERTY);
+		System.clearProperty(ConnectionPool.EVICTION_INTERVAL_PROPERTY);
+		System.clearProperty(ConnectionPool.LEAK_THRESHOLD_PROPERTY);
+	}
+
+	@Test
+	public void testPhysicalConnectionIsReused() throws SQLException {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		assertNotNull(pool);
+		for (int i = 0; i < 10; i++) {
+			Connection connection = dataSource.getConnection();
+			assertEquals(1, pool.getActiveCount());
+			connection.close();
+			// closing twice must not return the physical connection twice
+			connection.close();
+			assertTrue(connection.isClosed());
+		}
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(1, pool.getIdleCount());
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(10, pool.getBorrowCount());
+	}
+
+	@Test
+	public void testContainerDataSourceIsNotPooled() throws SQLException {
+		// e.g. looked up from JNDI and pooled by the container
+		WrappedDataSource containerDataSource = new WrappedDataSource(createEmbeddedDataSource());
+		assertNull(containerDataSource.getConnectionPool());
+	}
+
+	@Test
+	public void testExhaustedPool() throws SQLException {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		try {
+			dataSource.getConnection();
+			fail("The pool should be exhausted"); //$NON-NLS-1$
+		} catch (SQLException e) {
+			assertEquals(1, pool.getTimeoutCount());
+		}
+		first.close();
+		second.close();
+		assertEquals(2, pool.getIdleCount());
+	}
+
+	@Test
+	public void testLeakedConnectionIsReclaimed() throws Exception {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		Connection leaked = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		// wait for the eviction to report both as leaked
+		Thread.sleep(600);
+		assertEquals(2, pool.getLeakCount());
+
+		Connection third = dataSource.getConnection();
+		assertEquals(1, pool.getReclaimedCount());
+		third.close();
+		second.close();
+		leaked.close();
+		assertEquals(0, pool.getActiveCount());
+	}
+
+	@Test
+	public void testPreparedStatementIsReused() throws SQLException {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		String sql = "SELECT 1 FROM SYSIBM.SYSDUMMY1"; //$NON-NLS-1$
+		for (int i = 0; i < 5; i++) {
+			Connection connection = dataSource.getConnection();
+			PreparedStatement statement = connection.prepareStatement(sql);
+			assertTrue(statement.getConnection() == connection);
+			// the same SQL while the cached statement is in use gets its own one
+			PreparedStatement concurrent = connection.prepareStatement(sql);
+			ResultSet resultSet = statement.executeQuery();
+			assertTrue(resultSet.next());
+			assertEquals(1, resultSet.getInt(1));
+			concurrent.close();
+			statement.close();
+			assertTrue(statement.isClosed());
+			try {
+				statement.executeQuery();
+				fail("The statement should be closed"); //$NON-NLS-1$
+			} catch (SQLException e) {
+				// expected
+			}
+			connection.close();
+		}
+		assertEquals(1, pool.getCachedStatementsCount());
+		assertEquals(1, pool.getStatementCacheMisses());
+		assertEquals(4, pool.getStatementCacheHits());
+	}
+
+	@Test
+	public void testReusedStatementIsReset() throws SQLException {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		String sql = "SELECT TABLENAME FROM SYS.SYSTABLES WHERE TABLENAME <> ?"; //$NON-NLS-1$
+		Connection connection = dataSource.getConnection();
+		PreparedStatement statement = connection.prepareStatement(sql);
+		int fetchSize = statement.getFetchSize();
+		statement.setString(1, ""); //$NON-NLS-1$
+		statement.setFetchSize(fetchSize + 10);
+		statement.setMaxRows(1);
+		statement.setQueryTimeout(10);
+		statement.executeQuery().close();
+		statement.close();
+		connection.close();
+
+		connection = dataSource.getConnection();
+		try {
+			statement = connection.prepareStatement(sql);
+			assertEquals(1, pool.getStatementCacheHits());
+			assertEquals(0, statement.getMaxRows());
+			assertEquals(fetchSize, statement.getFetchSize());
+			assertEquals(0, statement.getQueryTimeout());
+			try {
+				statement.executeQuery();
+				fail("The parameters should be cleared"); //$NON-NLS-1$
+			} catch (SQLException e) {
+				// expected
+			}
+			statement.setString(1, ""); //$NON-NLS-1$
+			ResultSet resultSet = statement.executeQuery();
+			assertTrue(resultSet.next());
+			assertTrue(resultSet.next());
+			resultSet.close();
+			statement.close();
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Test
+	public void testStatementLeftOpenIsNotReused() throws SQLException {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		Connection connection = dataSource.getConnection();
+		connection.prepareStatement("VALUES 1"); //$NON-NLS-1$
+		connection.close();
+		assertEquals(0, pool.getCachedStatementsCount());
+	}
+
+	@Test
+	public void testOpenTransactionIsRolledBackOnClose() throws SQLException {
+		execute("CREATE TABLE DGB_POOL_TEST (ID INTEGER)"); //$NON-NLS-1$
+		try {
+			Connection connection = dataSource.getConnection();
+			connection.setAutoCommit(false);
+			Statement statement = connection.createStatement();
+			statement.executeUpdate("INSERT INTO DGB_POOL_TEST VALUES (1)"); //$NON-NLS-1$
+			statement.close();
+			// an error skipped the commit
+			connection.close();
+			assertEquals(0, count("DGB_POOL_TEST")); //$NON-NLS-1$
+
+			connection = dataSource.getConnection();
+			connection.setAutoCommit(false);
+			statement = connection.createStatement();
+			statement.executeUpdate("INSERT INTO DGB_POOL_TEST VALUES (2)"); //$NON-NLS-1$
+			statement.close();
+			connection.commit();
+			connection.close();
+			assertEquals(1, count("DGB_POOL_TEST")); //$NON-NLS-1$
+		} finally {
+			execute("DROP TABLE DGB_POOL_TEST"); //$NON-NLS-1$
+		}
+	}
+
+	@Test
+	public void testWorkWithoutTransactionIsCommittedOnClose() throws SQLException {
+		execute("CREATE TABLE DGB_POOL_TEST (ID INTEGER)"); //$NON-NLS-1$
+		try {
+			execute("INSERT INTO DGB_POOL_TEST VALUES (1)"); //$NON-NLS-1$
+			assertEquals(1, count("DGB_POOL_TEST")); //$NON-NLS-1$
+		} finally {
+			execute("DROP TABLE DGB_POOL_TEST"); //$NON-NLS-1$
+		}
+	}
+
+	@Test
+	public void testConnectionStateIsRestored() throws SQLException {
+		ConnectionPool pool = dataSource.getConnectionPool();
+		Connection connection = dataSource.getConnection();
+		boolean readOnly = connection.isReadOnly();
+		int transactionIsolation = connection.getTransactionIsolation();
+		connection.setReadOnly(!readOnly);
+		connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		connection.close();
+
+		connection = dataSource.getConnection();
+		try {
+			assertEquals(readOnly, connection.isReadOnly());
+			assertEquals(transactionIsolation, connection.getTransactionIsolation());
+		} finally {
+			connection.close();
+		}
+		// restored, not replaced
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(0, pool.getDestroyedCount());
+	}
+
+	private void execute(String sql) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			statement.executeUpdate(sql);
+			statement.close();
+		} finally {
+			connection.close();
+		}
+	}
+
+	private int count(String table) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table); //$NON-NLS-1$
+			resultSet.next();
+			int count = resultSet.getInt(1);
+			statement.close();
+			return count;
+		} finally {
+			connection.close();
+		}
+	}
+
+}
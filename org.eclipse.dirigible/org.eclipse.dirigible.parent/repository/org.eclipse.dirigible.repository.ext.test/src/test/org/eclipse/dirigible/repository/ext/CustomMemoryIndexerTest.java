@@ -14,11 +14,13 @@ package test.org.eclipse.dirigible.repository.ext;
 import static org.junit.Assert.*;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.lucene.document.Document;
 import org.junit.Test;
 
 import org.eclipse.dirigible.repository.ext.lucene.CustomMemoryIndexer;
+import org.eclipse.dirigible.repository.ext.lucene.SearchResult;
 
 public class CustomMemoryIndexerTest {
 
@@ -123,4 +125,51 @@ public class CustomMemoryIndexerTest {
 		}
 	}
 
+	@Test
+	public void testPagingAndConcurrentSearch() throws Exception {
+		final CustomMemoryIndexer customMemoryIndexer = CustomMemoryIndexer.getIndex("TestPagingIndex");
+		for (int i = 0; i < 250; i++) {
+			customMemoryIndexer.indexDocument(customMemoryIndexer.createDocument("id" + i, "Paged Content " + i));
+		}
+
+		SearchResult<Document> result = customMemoryIndexer.search("Paged", 200, 100);
+		assertEquals(250, result.getTotalHits());
+		assertEquals(50, result.getHits().size());
+		assertFalse(result.hasMore());
+
+		result = customMemoryIndexer.search("id7", "id", 0, 10);
+		assertEquals(1, result.getTotalHits());
+		assertEquals("Paged Content 7", result.getHits().get(0).get("content"));
+
+		// searches running while the index changes
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] searchers = new Thread[4];
+		for (int i = 0; i < searchers.length; i++) {
+			searchers[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 50; j++) {
+							assertTrue(customMemoryIndexer.search("Paged", 0, 10).getTotalHits() >= 250);
+						}
+					} catch (Throwable e) {
+						failure.set(e);
+					}
+				}
+			};
+			searchers[i].start();
+		}
+		for (int i = 250; i < 300; i++) {
+			customMemoryIndexer.indexDocument(customMemoryIndexer.createDocument("id" + i, "Paged Content " + i));
+		}
+		for (Thread searcher : searchers) {
+			searcher.join();
+		}
+		assertNull(failure.get());
+		assertEquals(300, customMemoryIndexer.search("Paged", 0, 10).getTotalHits());
+
+		customMemoryIndexer.clearIndex();
+		assertEquals(0, customMemoryIndexer.search("Paged", 0, 10).getTotalHits());
+	}
+
 }
@@ -0,0 +1,248 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.ext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.ext.db.DBTableDataInserter;
+import org.eclipse.dirigible.repository.ext.db.InvalidNumberOfElementsException;
+
+public class DBTableDataInserterTest {
+
+	private static final String TABLE_NAME = "DGB_DSV_TEST"; //$NON-NLS-1$
+
+	private static final String FILE_NAME = TABLE_NAME + ".table"; //$NON-NLS-1$
+
+	private static final String CREATE_TABLE = "CREATE TABLE " + TABLE_NAME //$NON-NLS-1$
+			+ " (DT_ID INTEGER, DT_NAME VARCHAR(32), DT_PRICE DECIMAL(10,2), DT_DAY DATE)"; //$NON-NLS-1$
+
+	private EmbeddedDataSource embeddedDataSource;
+
+	@Before
+	public void setUp() throws SQLException {
+		embeddedDataSource = new EmbeddedDataSource();
+		embeddedDataSource.setDatabaseName("derby"); //$NON-NLS-1$
+		embeddedDataSource.setCreateDatabase("create"); //$NON-NLS-1$
+		dropTable();
+		execute(CREATE_TABLE);
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		System.clearProperty(DBTableDataInserter.BATCH_SIZE_PROPERTY);
+		System.clearProperty(DBTableDataInserter.BULK_PROPERTY);
+		dropTable();
+	}
+
+	@Test
+	public void testTypedValues() throws Exception {
+		String content = "1|first|10.50|2015-03-01\n2||7|\n"; //$NON-NLS-1$
+		DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.getBytes(), FILE_NAME);
+		inserter.insert();
+		assertEquals(2, inserter.getInsertedCount());
+
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT * FROM " + TABLE_NAME + " ORDER BY DT_ID"); //$NON-NLS-1$ //$NON-NLS-2$
+			resultSet.next();
+			assertEquals(1, resultSet.getInt(1));
+			assertEquals("first", resultSet.getString(2)); //$NON-NLS-1$
+			assertEquals(new BigDecimal("10.50"), resultSet.getBigDecimal(3)); //$NON-NLS-1$
+			assertEquals(Date.valueOf("2015-03-01"), resultSet.getDate(4)); //$NON-NLS-1$
+			resultSet.next();
+			assertEquals(2, resultSet.getInt(1));
+			assertNull(resultSet.getString(2));
+			assertEquals(new BigDecimal("7.00"), resultSet.getBigDecimal(3)); //$NON-NLS-1$
+			assertNull(resultSet.getDate(4));
+			statement.close();
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Test
+	public void testBatchesAreCommitted() throws Exception {
+		System.setProperty(DBTableDataInserter.BATCH_SIZE_PROPERTY, "2"); //$NON-NLS-1$
+		String content = "1|a||\n2|b||\n3|c||\n4|d|x|\n5|e||\n"; //$NON-NLS-1$
+		DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.getBytes(), FILE_NAME);
+		try {
+			inserter.insert();
+			fail("The invalid price should be rejected by the database"); //$NON-NLS-1$
+		} catch (SQLException e) {
+			// expected
+		}
+		// the first batch is kept, the failed one is rolled back
+		assertEquals(2, count());
+	}
+
+	@Test
+	public void testInvalidNumberOfElements() throws Exception {
+		String content = "1|a||\n2|b\n"; //$NON-NLS-1$
+		DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.getBytes(), FILE_NAME);
+		try {
+			inserter.insert();
+			fail("The short line should be rejected"); //$NON-NLS-1$
+		} catch (InvalidNumberOfElementsException e) {
+			// expected
+		}
+		assertEquals(0, count());
+	}
+
+	@Test
+	public void testBulkImport() throws Exception {
+		System.setProperty(DBTableDataInserter.BULK_PROPERTY, Boolean.TRUE.toString());
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			content.append(i).append("|name").append(i).append("|1.25|2015-03-01\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.toString().getBytes(),
+				FILE_NAME);
+		inserter.insert();
+		// not counted - loaded by the database itself
+		assertEquals(-1, inserter.getInsertedCount());
+		assertEquals(100, count());
+	}
+
+	@Test
+	public void testBulkImportKeepsQuotes() throws Exception {
+		System.setProperty(DBTableDataInserter.BULK_PROPERTY, Boolean.TRUE.toString());
+		String content = "1|\"quoted\"||\n2|a\"b||\n"; //$NON-NLS-1$
+		DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.getBytes(), FILE_NAME);
+		inserter.insert();
+		assertEquals(-1, inserter.getInsertedCount());
+
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT DT_NAME FROM " + TABLE_NAME + " ORDER BY DT_ID"); //$NON-NLS-1$ //$NON-NLS-2$
+			// the same values as inserted one by one
+			resultSet.next();
+			assertEquals("\"quoted\"", resultSet.getString(1)); //$NON-NLS-1$
+			resultSet.next();
+			assertEquals("a\"b", resultSet.getString(1)); //$NON-NLS-1$
+			statement.close();
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Test
+	public void testBulkImportReplaces() throws Exception {
+		execute("INSERT INTO " + TABLE_NAME + " VALUES (1, 'old', NULL, NULL)"); //$NON-NLS-1$ //$NON-NLS-2$
+		System.setProperty(DBTableDataInserter.BULK_PROPERTY, Boolean.TRUE.toString());
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			connection.setAutoCommit(false);
+			String content = "1|new||\n2|new||\n"; //$NON-NLS-1$
+			DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.getBytes(), FILE_NAME);
+			inserter.insert(connection, true);
+			assertEquals(-1, inserter.getInsertedCount());
+		} finally {
+			connection.close();
+		}
+		assertEquals(2, count());
+		assertEquals(0, count("old")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testFailedBulkImportReplacesOnce() throws Exception {
+		execute("INSERT INTO " + TABLE_NAME + " VALUES (1, 'old', NULL, NULL)"); //$NON-NLS-1$ //$NON-NLS-2$
+		execute("INSERT INTO " + TABLE_NAME + " VALUES (2, 'old', NULL, NULL)"); //$NON-NLS-1$ //$NON-NLS-2$
+		System.setProperty(DBTableDataInserter.BULK_PROPERTY, Boolean.TRUE.toString());
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			connection.setAutoCommit(false);
+			Statement statement = connection.createStatement();
+			// an open result set on the table makes the bulk import fail
+			ResultSet resultSet = statement.executeQuery("SELECT * FROM " + TABLE_NAME); //$NON-NLS-1$
+			String content = "1|new||\n2|new||\n"; //$NON-NLS-1$
+			DBTableDataInserter inserter = new DBTableDataInserter(embeddedDataSource, content.getBytes(), FILE_NAME);
+			inserter.insert(connection, true);
+			// inserted one by one instead
+			assertEquals(2, inserter.getInsertedCount());
+			resultSet.close();
+			statement.close();
+		} finally {
+			connection.close();
+		}
+		// the old records are deleted, not duplicated
+		assertEquals(2, count());
+		assertEquals(0, count("old")); //$NON-NLS-1$
+	}
+
+	private int count(String name) throws SQLException {
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE_NAME //$NON-NLS-1$
+					+ " WHERE DT_NAME = '" + name + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+			resultSet.next();
+			int count = resultSet.getInt(1);
+			statement.close();
+			return count;
+		} finally {
+			connection.close();
+		}
+	}
+
+	private int count() throws SQLException {
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE_NAME); //$NON-NLS-1$
+			resultSet.next();
+			int count = resultSet.getInt(1);
+			statement.close();
+			return count;
+		} finally {
+			connection.close();
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				statement.executeUpdate(sql);
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private void dropTable() throws SQLException {
+		try {
+			execute("DROP TABLE " + TABLE_NAME); //$NON-NLS-1$
+		} catch (SQLException e) {
+			// not there yet
+		}
+	}
+
+}
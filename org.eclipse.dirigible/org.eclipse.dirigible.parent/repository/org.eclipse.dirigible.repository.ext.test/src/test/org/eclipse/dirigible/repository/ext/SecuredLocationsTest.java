@@ -0,0 +1,87 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.ext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.ext.security.SecuredLocations;
+import org.eclipse.dirigible.repository.ext.security.SecurityLocationMetadata;
+
+public class SecuredLocationsTest {
+
+	private SecuredLocations securedLocations;
+
+	@Before
+	public void setUp() {
+		List<SecurityLocationMetadata> accessList = new ArrayList<SecurityLocationMetadata>();
+		accessList.add(createMetadata("/project1", "Everyone"));
+		accessList.add(createMetadata("/project1/admin", "Admin", "Operator"));
+		accessList.add(createMetadata("/project2/data", "User"));
+		// the access list of an empty table
+		accessList.add(new SecurityLocationMetadata());
+		securedLocations = SecuredLocations.build(accessList);
+	}
+
+	@Test
+	public void testIsSecured() {
+		assertTrue(securedLocations.isSecured("/project1"));
+		assertTrue(securedLocations.isSecured("/project1/admin/users.js"));
+		assertTrue(securedLocations.isSecured("/project10/index.html"));
+		assertTrue(securedLocations.isSecured("/project2/data"));
+		assertFalse(securedLocations.isSecured("/project2/dat"));
+		assertFalse(securedLocations.isSecured("/project2/index.html"));
+		assertFalse(securedLocations.isSecured("/"));
+		assertFalse(securedLocations.isSecured(""));
+	}
+
+	@Test
+	public void testGetRoles() {
+		assertEquals(Arrays.asList("Everyone"), securedLocations.getRoles("/project1"));
+		assertEquals(Arrays.asList("Everyone"), securedLocations.getRoles("/project1/index.html"));
+		assertEquals(Arrays.asList("Admin", "Operator"), securedLocations.getRoles("/project1/admin"));
+		assertEquals(Arrays.asList("Admin", "Operator"), securedLocations.getRoles("/project1/admin/users.js"));
+		assertEquals(Arrays.asList("Everyone"), securedLocations.getRoles("/project1/administration"));
+		assertEquals(Collections.emptyList(), securedLocations.getRoles("/project10/index.html"));
+		assertEquals(Collections.emptyList(), securedLocations.getRoles("/project2/index.html"));
+	}
+
+	@Test
+	public void testEquals() {
+		List<SecurityLocationMetadata> accessList = new ArrayList<SecurityLocationMetadata>();
+		accessList.add(createMetadata("/project2/data", "User"));
+		accessList.add(createMetadata("/project1/admin", "Admin", "Operator"));
+		accessList.add(createMetadata("/project1", "Everyone"));
+		assertEquals(securedLocations, SecuredLocations.build(accessList));
+		assertEquals(3, securedLocations.size());
+
+		accessList.add(createMetadata("/project3", "Everyone"));
+		assertFalse(securedLocations.equals(SecuredLocations.build(accessList)));
+	}
+
+	private static SecurityLocationMetadata createMetadata(String location, String... roles) {
+		SecurityLocationMetadata metadata = new SecurityLocationMetadata();
+		metadata.setLocation(location);
+		metadata.getRoles().addAll(Arrays.asList(roles));
+		return metadata;
+	}
+
+}
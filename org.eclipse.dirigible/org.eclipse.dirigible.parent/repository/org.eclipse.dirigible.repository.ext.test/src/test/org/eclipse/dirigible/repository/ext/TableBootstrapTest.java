@@ -0,0 +1,122 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package test.org.eclipse.dirigible.repository.ext;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
+import org.eclipse.dirigible.repository.ext.db.WrappedDataSource;
+
+public class TableBootstrapTest {
+
+	private static final String TABLE_NAME = "DGB_TABLE_BOOTSTRAP_TEST"; //$NON-NLS-1$
+
+	private static final String CREATE_TABLE = "CREATE TABLE " + TABLE_NAME + " (TBT_ID INTEGER)"; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private EmbeddedDataSource embeddedDataSource;
+
+	@Before
+	public void setUp() throws SQLException {
+		embeddedDataSource = new EmbeddedDataSource();
+		embeddedDataSource.setDatabaseName("derby"); //$NON-NLS-1$
+		embeddedDataSource.setCreateDatabase("create"); //$NON-NLS-1$
+		dropTable();
+		TableBootstrap.reset(embeddedDataSource);
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		dropTable();
+		TableBootstrap.reset(embeddedDataSource);
+	}
+
+	@Test
+	public void testTableIsCreatedOnce() throws SQLException {
+		TableBootstrap.ensureTable(embeddedDataSource, TABLE_NAME, CREATE_TABLE);
+		assertEquals(0, count());
+		// already verified - the create statement is not even looked at
+		TableBootstrap.ensureTable(embeddedDataSource, TABLE_NAME, "INVALID STATEMENT"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testExistingTableIsKept() throws SQLException {
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			statement.executeUpdate(CREATE_TABLE);
+			statement.executeUpdate("INSERT INTO " + TABLE_NAME + " VALUES (1)"); //$NON-NLS-1$ //$NON-NLS-2$
+			statement.close();
+		} finally {
+			connection.close();
+		}
+		TableBootstrap.ensureTable(embeddedDataSource, TABLE_NAME, CREATE_TABLE);
+		assertEquals(1, count());
+	}
+
+	@Test
+	public void testVerifiedOncePerDatabase() throws SQLException {
+		WrappedDataSource first = new WrappedDataSource(embeddedDataSource);
+		WrappedDataSource second = new WrappedDataSource(embeddedDataSource);
+		Connection connection = first.getConnection();
+		try {
+			TableBootstrap.ensureTable(first, connection, TABLE_NAME, CREATE_TABLE);
+		} finally {
+			connection.close();
+		}
+		// a connection that cannot be used proves no round-trip is made
+		connection = second.getConnection();
+		connection.close();
+		TableBootstrap.ensureTable(second, connection, TABLE_NAME, "INVALID STATEMENT"); //$NON-NLS-1$
+		assertEquals(0, count());
+	}
+
+	private int count() throws SQLException {
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE_NAME); //$NON-NLS-1$
+			resultSet.next();
+			int count = resultSet.getInt(1);
+			statement.close();
+			return count;
+		} finally {
+			connection.close();
+		}
+	}
+
+	private void dropTable() throws SQLException {
+		Connection connection = embeddedDataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				statement.executeUpdate("DROP TABLE " + TABLE_NAME); //$NON-NLS-1$
+			} catch (SQLException e) {
+				// not there yet
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+}
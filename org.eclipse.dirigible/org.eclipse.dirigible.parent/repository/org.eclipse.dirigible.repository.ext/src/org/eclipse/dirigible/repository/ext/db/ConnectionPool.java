@@ -0,0 +1,614 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Pool of physical connections of a single {@link DataSource}. The borrowing
+ * is limited by a fair semaphore with the maximum size of the pool, the idle
+ * connections are kept in LIFO order, so that the ones not needed anymore get
+ * idle long enough to be evicted down to the minimum size. The connections
+ * borrowed for longer than the leak threshold are reported together with the
+ * stack trace of the borrower and reclaimed only when the pool is exhausted.
+ * The read-only flag, the transaction isolation and the catalog of a released
+ * connection are restored to the ones it was created with, so that the next
+ * borrower does not inherit them.
+ *
+ * The pool is configured by the system properties with prefix
+ * <code>dirigible.datasource.pool.</code>
+ */
+public class ConnectionPool {
+
+	private static final Logger logger = Logger.getLogger(ConnectionPool.class);
+
+	public static final String ENABLED_PROPERTY = "dirigible.datasource.pool.enabled"; //$NON-NLS-1$
+	public static final String MIN_SIZE_PROPERTY = "dirigible.datasource.pool.min"; //$NON-NLS-1$
+	public static final String MAX_SIZE_PROPERTY = "dirigible.datasource.pool.max"; //$NON-NLS-1$
+	public static final String BORROW_TIMEOUT_PROPERTY = "dirigible.datasource.pool.borrow.timeout"; //$NON-NLS-1$
+	public static final String IDLE_TIMEOUT_PROPERTY = "dirigible.datasource.pool.idle.timeout"; //$NON-NLS-1$
+	public static final String EVICTION_INTERVAL_PROPERTY = "dirigible.datasource.pool.eviction.interval"; //$NON-NLS-1$
+	public static final String VALIDATION_QUERY_PROPERTY = "dirigible.datasource.pool.validation.query"; //$NON-NLS-1$
+	public static final String VALIDATION_INTERVAL_PROPERTY = "dirigible.datasource.pool.validation.interval"; //$NON-NLS-1$
+	public static final String LEAK_THRESHOLD_PROPERTY = "dirigible.datasource.pool.leak.threshold"; //$NON-NLS-1$
+	public static final String STATEMENT_CACHE_SIZE_PROPERTY = "dirigible.datasource.pool.statements"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MIN_SIZE = 2;
+	private static final int DEFAULT_MAX_SIZE = 32;
+	private static final long DEFAULT_BORROW_TIMEOUT = 30000;
+	private static final long DEFAULT_IDLE_TIMEOUT = 600000;
+	private static final long DEFAULT_EVICTION_INTERVAL = 30000;
+	private static final long DEFAULT_VALIDATION_INTERVAL = 5000;
+	private static final long DEFAULT_LEAK_THRESHOLD = 120000;
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private static final Map<DataSource, ConnectionPool> pools = new IdentityHashMap<DataSource, ConnectionPool>();
+
+	private static Timer evictor;
+
+	private final DataSource dataSource;
+
+	private final int minSize;
+	private final int maxSize;
+	private final long borrowTimeout;
+	private final long idleTimeout;
+	private final long validationInterval;
+	private final String validationQuery;
+	private final long leakThreshold;
+	private final int statementCacheSize;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<IdleConnection> idleConnections = new LinkedBlockingDeque<IdleConnection>();
+	private final Map<Connection, BorrowedConnection> borrowedConnections = new ConcurrentHashMap<Connection, BorrowedConnection>();
+	private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<Connection, StatementCache>();
+	private final Map<Connection, ConnectionDefaults> connectionDefaults = new ConcurrentHashMap<Connection, ConnectionDefaults>();
+	private final AtomicInteger totalCount = new AtomicInteger();
+	private final TimerTask evictionTask;
+
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong destroyedCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong leakCount = new AtomicLong();
+	private final AtomicLong reclaimedCount = new AtomicLong();
+	private final AtomicLong validationFailureCount = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	public static boolean isEnabled() {
+		return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, Boolean.TRUE.toString()));
+	}
+
+	/**
+	 * Returns the pool of the given data source, created with the current
+	 * configuration on the first call
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	public static ConnectionPool getInstance(DataSource dataSource) {
+		synchronized (pools) {
+			ConnectionPool pool = pools.get(dataSource);
+			if (pool == null) {
+				pool = new ConnectionPool(dataSource);
+				pools.put(dataSource, pool);
+			}
+			return pool;
+		}
+	}
+
+	private static synchronized Timer getEvictor() {
+		if (evictor == null) {
+			evictor = new Timer("Dirigible DataSource Pool Evictor", true); //$NON-NLS-1$
+		}
+		return evictor;
+	}
+
+	ConnectionPool(DataSource dataSource) {
+		this.dataSource = dataSource;
+		this.maxSize = Math.max(1, Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+		this.minSize = Math.min(maxSize, Math.max(0, Integer.getInteger(MIN_SIZE_PROPERTY, DEFAULT_MIN_SIZE)));
+		this.borrowTimeout = Long.getLong(BORROW_TIMEOUT_PROPERTY, DEFAULT_BORROW_TIMEOUT);
+		this.idleTimeout = Long.getLong(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT);
+		this.validationInterval = Long.getLong(VALIDATION_INTERVAL_PROPERTY, DEFAULT_VALIDATION_INTERVAL);
+		this.validationQuery = System.getProperty(VALIDATION_QUERY_PROPERTY);
+		this.leakThreshold = Long.getLong(LEAK_THRESHOLD_PROPERTY, DEFAULT_LEAK_THRESHOLD);
+		this.statementCacheSize = Math.max(0, Integer.getInteger(STATEMENT_CACHE_SIZE_PROPERTY, DEFAULT_STATEMENT_CACHE_SIZE));
+		this.permits = new Semaphore(maxSize, true);
+
+		long evictionInterval = Long.getLong(EVICTION_INTERVAL_PROPERTY, DEFAULT_EVICTION_INTERVAL);
+		this.evictionTask = new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					evict();
+				} catch (Throwable t) {
+					logger.error(t.getMessage(), t);
+				}
+			}
+		};
+		getEvictor().schedule(evictionTask, evictionInterval, evictionInterval);
+		logger.debug(String.format("Connection pool created with min: %d, max: %d", minSize, maxSize)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Borrows a physical connection, waiting for the configured borrow timeout
+	 * if all the connections are in use
+	 *
+	 * @return
+	 * @throws SQLException
+	 */
+	public Connection borrow() throws SQLException {
+		long start = System.currentTimeMillis();
+		acquirePermit();
+		long waitTime = System.currentTimeMillis() - start;
+		totalWaitTime.addAndGet(waitTime);
+		updateMaxWaitTime(waitTime);
+		try {
+			Connection connection = takeIdleConnection();
+			if (connection == null) {
+				connection = createConnection();
+			}
+			Throwable borrower = (leakThreshold > 0) ? new Throwable("Connection borrowed here") : null; //$NON-NLS-1$
+			borrowedConnections.put(connection, new BorrowedConnection(borrower));
+			borrowCount.incrementAndGet();
+			return connection;
+		} catch (SQLException e) {
+			permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	private void acquirePermit() throws SQLException {
+		try {
+			if (permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+				return;
+			}
+			// the pool is exhausted - take over a leaked connection if any
+			if (reclaimLeakedConnection() && permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException(e);
+		}
+		timeoutCount.incrementAndGet();
+		throw new SQLException(String.format("Timeout of %d ms waiting for a connection, all %d connections are in use", //$NON-NLS-1$
+				borrowTimeout, maxSize));
+	}
+
+	private Connection takeIdleConnection() {
+		IdleConnection idleConnection;
+		while ((idleConnection = idleConnections.pollFirst()) != null) {
+			if (System.currentTimeMillis() - idleConnection.idleSince < validationInterval
+					|| isValid(idleConnection.connection)) {
+				return idleConnection.connection;
+			}
+			validationFailureCount.incrementAndGet();
+			destroyConnection(idleConnection.connection);
+		}
+		return null;
+	}
+
+	private Connection createConnection() throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			connectionDefaults.put(connection, new ConnectionDefaults(connection));
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		totalCount.incrementAndGet();
+		createdCount.incrementAndGet();
+		logger.debug("Physical connection created, total: " + totalCount.get()); //$NON-NLS-1$
+		return connection;
+	}
+
+	private void destroyConnection(Connection connection) {
+		totalCount.decrementAndGet();
+		destroyedCount.incrementAndGet();
+		connectionDefaults.remove(connection);
+		StatementCache statementCache = statementCaches.remove(connection);
+		if (statementCache != null) {
+			statementCache.close();
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+		}
+	}
+
+	/**
+	 * Prepares the statement through the statement cache of the given borrowed
+	 * physical connection, so that closing it keeps the physical statement
+	 * for the next borrower preparing the same SQL
+	 *
+	 * @param connection
+	 *            the physical connection
+	 * @param owner
+	 *            the connection returned by {@link PreparedStatement#getConnection()}
+	 * @param sql
+	 * @return
+	 * @throws SQLException
+	 */
+	public PreparedStatement prepareStatement(Connection connection, Connection owner, String sql) throws SQLException {
+		if (statementCacheSize == 0) {
+			return connection.prepareStatement(sql);
+		}
+		StatementCache statementCache = statementCaches.get(connection);
+		if (statementCache == null) {
+			statementCache = new StatementCache(statementCacheSize);
+			statementCaches.put(connection, statementCache);
+		}
+		return statementCache.prepareStatement(connection, owner, sql);
+	}
+
+	private boolean isValid(Connection connection) {
+		try {
+			if (connection.isClosed()) {
+				return false;
+			}
+			if (validationQuery == null) {
+				return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+			}
+			Statement statement = connection.createStatement();
+			try {
+				statement.execute(validationQuery);
+			} finally {
+				statement.close();
+			}
+			return true;
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a borrowed connection to the pool. Not reusable connections, e.g.
+	 * the ones failed on commit, are closed, as well as the ones whose state
+	 * cannot be restored.
+	 *
+	 * @param connection
+	 * @param reusable
+	 */
+	public void release(Connection connection, boolean reusable) {
+		if (borrowedConnections.remove(connection) == null) {
+			// already released or reclaimed as leaked
+			return;
+		}
+		try {
+			if (reusable && !connection.isClosed()) {
+				StatementCache statementCache = statementCaches.get(connection);
+				if (statementCache != null) {
+					statementCache.releaseAll();
+				}
+				connection.clearWarnings();
+				ConnectionDefaults defaults = connectionDefaults.get(connection);
+				if (defaults != null && !defaults.restore(connection)) {
+					destroyConnection(connection);
+				} else {
+					idleConnections.offerFirst(new IdleConnection(connection));
+				}
+			} else {
+				destroyConnection(connection);
+			}
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+			destroyConnection(connection);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private boolean reclaimLeakedConnection() {
+		Connection oldestConnection = null;
+		BorrowedConnection oldest = null;
+		for (Map.Entry<Connection, BorrowedConnection> entry : borrowedConnections.entrySet()) {
+			BorrowedConnection borrowed = entry.getValue();
+			if (borrowed.isLeaked() && (oldest == null || borrowed.borrowedAt < oldest.borrowedAt)) {
+				oldestConnection = entry.getKey();
+				oldest = borrowed;
+			}
+		}
+		if (oldestConnection != null && borrowedConnections.remove(oldestConnection) != null) {
+			logger.error("Potential connection leak; victim connection used (ms): " //$NON-NLS-1$
+					+ oldest.getTimeUsed(), oldest.borrower);
+			reclaimedCount.incrementAndGet();
+			destroyConnection(oldestConnection);
+			permits.release();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Closes the connections idle for longer than the idle timeout down to
+	 * the minimum size, reports the leaked connections and creates new ones up
+	 * to the minimum size
+	 */
+	void evict() {
+		long now = System.currentTimeMillis();
+		for (IdleConnection idleConnection : idleConnections.toArray(new IdleConnection[0])) {
+			if (totalCount.get() <= minSize) {
+				break;
+			}
+			if (now - idleConnection.idleSince > idleTimeout
+					&& idleConnections.removeLastOccurrence(idleConnection)) {
+				destroyConnection(idleConnection.connection);
+			}
+		}
+
+		if (leakThreshold > 0) {
+			for (BorrowedConnection borrowed : borrowedConnections.values()) {
+				if (!borrowed.isLeaked() && now - borrowed.borrowedAt > leakThreshold) {
+					borrowed.markLeaked();
+					leakCount.incrementAndGet();
+					logger.error("Potential connection leak; connection used (ms): " //$NON-NLS-1$
+							+ borrowed.getTimeUsed(), borrowed.borrower);
+				}
+			}
+		}
+
+		while (totalCount.get() < minSize) {
+			try {
+				idleConnections.offerLast(new IdleConnection(createConnection()));
+			} catch (SQLException e) {
+				logger.error(e.getMessage(), e);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Closes all the idle connections and stops the eviction. The borrowed
+	 * connections are closed on their release.
+	 */
+	public void close() {
+		evictionTask.cancel();
+		synchronized (pools) {
+			pools.remove(dataSource);
+		}
+		IdleConnection idleConnection;
+		while ((idleConnection = idleConnections.pollFirst()) != null) {
+			destroyConnection(idleConnection.connection);
+		}
+	}
+
+	private void updateMaxWaitTime(long waitTime) {
+		long current;
+		while (waitTime > (current = maxWaitTime.get())) {
+			if (maxWaitTime.compareAndSet(current, waitTime)) {
+				break;
+			}
+		}
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getActiveCount() {
+		return borrowedConnections.size();
+	}
+
+	public int getIdleCount() {
+		return idleConnections.size();
+	}
+
+	public int getTotalCount() {
+		return totalCount.get();
+	}
+
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	public long getCreatedCount() {
+		return createdCount.get();
+	}
+
+	public long getDestroyedCount() {
+		return destroyedCount.get();
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	public long getLeakCount() {
+		return leakCount.get();
+	}
+
+	public long getReclaimedCount() {
+		return reclaimedCount.get();
+	}
+
+	public long getValidationFailureCount() {
+		return validationFailureCount.get();
+	}
+
+	public long getMaxWaitTime() {
+		return maxWaitTime.get();
+	}
+
+	public int getCachedStatementsCount() {
+		int count = 0;
+		for (StatementCache statementCache : statementCaches.values()) {
+			count += statementCache.size();
+		}
+		return count;
+	}
+
+	public long getStatementCacheHits() {
+		long hits = 0;
+		for (StatementCache statementCache : statementCaches.values()) {
+			hits += statementCache.getHits();
+		}
+		return hits;
+	}
+
+	public long getStatementCacheMisses() {
+		long misses = 0;
+		for (StatementCache statementCache : statementCaches.values()) {
+			misses += statementCache.getMisses();
+		}
+		return misses;
+	}
+
+	public long getAverageWaitTime() {
+		long count = borrowCount.get();
+		return (count == 0) ? 0 : totalWaitTime.get() / count;
+	}
+
+	/**
+	 * Snapshot of the pool metrics
+	 *
+	 * @return
+	 */
+	public Map<String, Number> getStatistics() {
+		Map<String, Number> statistics = new LinkedHashMap<String, Number>();
+		statistics.put("min", getMinSize()); //$NON-NLS-1$
+		statistics.put("max", getMaxSize()); //$NON-NLS-1$
+		statistics.put("active", getActiveCount()); //$NON-NLS-1$
+		statistics.put("idle", getIdleCount()); //$NON-NLS-1$
+		statistics.put("total", getTotalCount()); //$NON-NLS-1$
+		statistics.put("waiting", getWaitingCount()); //$NON-NLS-1$
+		statistics.put("borrowed", getBorrowCount()); //$NON-NLS-1$
+		statistics.put("created", getCreatedCount()); //$NON-NLS-1$
+		statistics.put("destroyed", getDestroyedCount()); //$NON-NLS-1$
+		statistics.put("timeouts", getTimeoutCount()); //$NON-NLS-1$
+		statistics.put("leaks", getLeakCount()); //$NON-NLS-1$
+		statistics.put("reclaimed", getReclaimedCount()); //$NON-NLS-1$
+		statistics.put("validationFailures", getValidationFailureCount()); //$NON-NLS-1$
+		statistics.put("averageWaitTime", getAverageWaitTime()); //$NON-NLS-1$
+		statistics.put("maxWaitTime", getMaxWaitTime()); //$NON-NLS-1$
+		statistics.put("cachedStatements", getCachedStatementsCount()); //$NON-NLS-1$
+		statistics.put("statementCacheHits", getStatementCacheHits()); //$NON-NLS-1$
+		statistics.put("statementCacheMisses", getStatementCacheMisses()); //$NON-NLS-1$
+		return statistics;
+	}
+
+	private static class IdleConnection {
+
+		private final Connection connection;
+
+		private final long idleSince;
+
+		IdleConnection(Connection connection) {
+			this.connection = connection;
+			this.idleSince = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * The state of a connection as created, which the borrowers may change
+	 */
+	private static class ConnectionDefaults {
+
+		private final boolean readOnly;
+
+		private final int transactionIsolation;
+
+		private final String catalog;
+
+		ConnectionDefaults(Connection connection) throws SQLException {
+			this.readOnly = connection.isReadOnly();
+			this.transactionIsolation = connection.getTransactionIsolation();
+			this.catalog = connection.getCatalog();
+		}
+
+		/**
+		 * Restores the state of the connection
+		 * 
+		 * @param connection
+		 * @return false if the connection cannot be restored
+		 * @throws SQLException
+		 */
+		boolean restore(Connection connection) throws SQLException {
+			if (connection.isReadOnly() != readOnly) {
+				connection.setReadOnly(readOnly);
+			}
+			if (connection.getTransactionIsolation() != transactionIsolation) {
+				connection.setTransactionIsolation(transactionIsolation);
+			}
+			String currentCatalog = connection.getCatalog();
+			if ((catalog == null) ? (currentCatalog != null) : !catalog.equals(currentCatalog)) {
+				if (catalog == null) {
+					// no catalog to switch back to
+					return false;
+				}
+				connection.setCatalog(catalog);
+			}
+			return true;
+		}
+	}
+
+	private static class BorrowedConnection {
+
+		private final long borrowedAt;
+
+		private final Throwable borrower;
+
+		private volatile boolean leaked;
+
+		BorrowedConnection(Throwable borrower) {
+			this.borrowedAt = System.currentTimeMillis();
+			this.borrower = borrower;
+		}
+
+		long getTimeUsed() {
+			return System.currentTimeMillis() - borrowedAt;
+		}
+
+		boolean isLeaked() {
+			return leaked;
+		}
+
+		void markLeaked() {
+			leaked = true;
+		}
+	}
+
+}
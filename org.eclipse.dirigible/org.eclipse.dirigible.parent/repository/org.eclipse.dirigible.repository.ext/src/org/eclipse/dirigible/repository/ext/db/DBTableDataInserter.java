@@ -13,24 +13,63 @@ package org.eclipse.dirigible.repository.ext.db;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.StringTokenizer;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
 
 import javax.sql.DataSource;
 
+import org.eclipse.dirigible.repository.ext.db.dialect.IDialectSpecifier;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Loads the '|' delimited content of a file into the table with the name of
+ * the file. The content is read line by line and inserted in batches, each
+ * committed on its own, so the memory used does not depend on the size of
+ * the file. The values are bound with the types of the table columns.
+ * Databases having a bulk import procedure (see
+ * {@link IDialectSpecifier#getBulkImportScript()}) can load the whole file
+ * with a single call instead, when enabled with the 'dirigible.dsv.bulk'
+ * system property.
+ */
 public class DBTableDataInserter {
 
+	private static final Logger logger = Logger.getLogger(DBTableDataInserter.class);
+
+	public static final String BATCH_SIZE_PROPERTY = "dirigible.dsv.batch.size"; //$NON-NLS-1$
+
+	public static final String BULK_PROPERTY = "dirigible.dsv.bulk"; //$NON-NLS-1$
+
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+
 	private static final String INVALID_NUMBER_D_OF_ELEMENTS_AT_LINE_D_INITIAL_COLUMNS_NUMBER_D = Messages.DBTableDataInserter_INVALID_NUMBER_D_OF_ELEMENTS_AT_LINE_D_INITIAL_COLUMNS_NUMBER_D;
 
-	private static final String DELIMITER = "|"; //$NON-NLS-1$
+	private static final String BULK_IMPORT_FAILED_S = "Bulk import into %s failed, inserting the records one by one: %s"; //$NON-NLS-1$
+
+	private static final char DELIMITER = '|';
+
+	/**
+	 * The values are not quoted, so the bulk import gets a character
+	 * delimiter not expected in the content, instead of the default quote
+	 */
+	private static final char CHARACTER_DELIMITER = '\u0001';
 
 	private static final String DOT = "."; //$NON-NLS-1$
 
@@ -40,58 +79,300 @@ public class DBTableDataInserter {
 
 	private static final String INSERT_INTO = "INSERT INTO "; //$NON-NLS-1$
 
+	private static final String DELETE_FROM = "DELETE FROM "; //$NON-NLS-1$
+
+	private static final String SELECT_NONE_FROM = "SELECT * FROM %s WHERE 1 = 0"; //$NON-NLS-1$
+
 	private static final String Q = "?"; //$NON-NLS-1$
 
 	private static final String COMMA = ","; //$NON-NLS-1$
 
-	private static final int BATCH_SIZE = 500;
+	private static final String BULK_FILE_PREFIX = "dsv"; //$NON-NLS-1$
+
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	private static final int[] NO_TYPES = new int[0];
 
-	private byte[] csvFileContent;
-	private String tableName;
-	private DataSource dataSource;
+	private final InputStream csvFileContent;
+	private final String tableName;
+	private final DataSource dataSource;
+	private final int batchSize;
+	private long insertedCount;
 
 	public DBTableDataInserter(DataSource dataSource, byte[] csvFileContent, String fileName) {
+		this(dataSource, new ByteArrayInputStream(csvFileContent), fileName);
+	}
+
+	/**
+	 * The content is read once, on insert, and is not closed afterwards
+	 *
+	 * @param dataSource
+	 * @param csvFileContent
+	 * @param fileName
+	 */
+	public DBTableDataInserter(DataSource dataSource, InputStream csvFileContent, String fileName) {
 		this.csvFileContent = csvFileContent;
 		this.tableName = getFileNameWithoutExtension(fileName);
 		this.dataSource = dataSource;
+		this.batchSize = Math.max(1, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
 	}
 
 	public void insert() throws Exception {
 		Connection con = null;
 		try {
 			con = getConnection();
-
-			List<String[]> records = readRecords(new ByteArrayInputStream(csvFileContent));
-			
-			insertRecords(con, records, tableName);
+			insert(con);
 		} finally {
 			closeConnection(con);
 		}
 	}
 
-	private void insertRecords(Connection con, List<String[]> records,
-			String tableName) throws SQLException {
-		int columnsCount = records.get(0).length;
-		PreparedStatement insertStat = con.prepareStatement(INSERT_INTO
-				+ tableName + VALUES + generateQM(columnsCount) + CLOSE);
+	/**
+	 * Inserts the records using the given connection, committing after each
+	 * batch. A failed batch is rolled back, the ones before it stay committed.
+	 *
+	 * @param con
+	 * @throws Exception
+	 */
+	public void insert(Connection con) throws Exception {
+		insert(con, false);
+	}
 
-		int recordsInBatch = 0;
+	/**
+	 * Inserts the records using the given connection, replacing the existing
+	 * ones if requested. The delete is committed together with the first
+	 * batch, or done by the bulk import itself, so a failed bulk import never
+	 * leaves the old records next to the new ones.
+	 *
+	 * @param con
+	 * @param replace
+	 * @throws Exception
+	 */
+	public void insert(Connection con, boolean replace) throws Exception {
+		insertedCount = 0;
+		String bulkImportScript = null;
+		if (Boolean.getBoolean(BULK_PROPERTY)) {
+			bulkImportScript = DBUtils.getDialectSpecifier(DBUtils.getDatabaseProductName(con)).getBulkImportScript();
+		}
+		if (bulkImportScript == null) {
+			deleteRecords(con, replace);
+			insertRecords(con, csvFileContent);
+			return;
+		}
+		File file = File.createTempFile(BULK_FILE_PREFIX, DsvUpdater.EXTENSION_DSV);
+		try {
+			boolean delimited = copy(csvFileContent, file);
+			if (delimited || !bulkImport(con, bulkImportScript, file, replace)) {
+				deleteRecords(con, replace);
+				InputStream in = new FileInputStream(file);
+				try {
+					insertRecords(con, in);
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+	/**
+	 * The number of records inserted by the last insert, not known after a
+	 * bulk import (-1)
+	 *
+	 * @return
+	 */
+	public long getInsertedCount() {
+		return insertedCount;
+	}
+
+	/**
+	 * Loads the file with the bulk import procedure, which deletes the
+	 * existing records itself when replacing. A failed import rolls back the
+	 * whole transaction (in Derby), so it leaves the table as it was.
+	 */
+	private boolean bulkImport(Connection con, String bulkImportScript, File file, boolean replace)
+			throws SQLException {
+		CallableStatement call = con.prepareCall(bulkImportScript);
+		try {
+			call.setString(1, tableName.toUpperCase());
+			call.setString(2, file.getAbsolutePath());
+			call.setString(3, String.valueOf(DELIMITER));
+			call.setString(4, String.valueOf(CHARACTER_DELIMITER));
+			call.setString(5, Charset.defaultCharset().name());
+			call.setInt(6, replace ? 1 : 0);
+			call.execute();
+			commit(con);
+			insertedCount = -1;
+			return true;
+		} catch (SQLException e) {
+			// e.g. the database does not run on this host
+			logger.warn(String.format(BULK_IMPORT_FAILED_S, tableName, e.getMessage()));
+			rollback(con);
+			return false;
+		} finally {
+			call.close();
+		}
+	}
 
-		for (String[] record : records) {
-			for (int i = 0; i < record.length; i++) {
-				insertStat.setString(i + 1, record[i]);
+	private void insertRecords(Connection con, InputStream content) throws SQLException, IOException,
+			InvalidNumberOfElementsException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(content));
+		String line = reader.readLine();
+		if (line == null) {
+			commit(con);
+			return;
+		}
+		String[] items = new String[countItems(line)];
+		int[] columnTypes = getColumnTypes(con);
+		PreparedStatement insertStat = con.prepareStatement(INSERT_INTO + tableName + VALUES
+				+ generateQM(items.length) + CLOSE);
+		try {
+			int recordsInBatch = 0;
+			int lineNumber = 0;
+			for (; line != null; line = reader.readLine()) {
+				lineNumber++;
+				int count = countItems(line);
+				if (count != items.length) {
+					throw new InvalidNumberOfElementsException(String.format(
+							INVALID_NUMBER_D_OF_ELEMENTS_AT_LINE_D_INITIAL_COLUMNS_NUMBER_D, count, lineNumber,
+							items.length));
+				}
+				getStringItems(line, items);
+				for (int i = 0; i < items.length; i++) {
+					int type = (i < columnTypes.length) ? columnTypes[i] : Types.VARCHAR;
+					setValue(insertStat, i + 1, items[i], type);
+				}
+				insertStat.addBatch();
+				recordsInBatch++;
+
+				if (recordsInBatch == batchSize) {
+					executeBatch(con, insertStat, recordsInBatch);
+					recordsInBatch = 0;
+				}
 			}
-			insertStat.addBatch();
-			recordsInBatch++;
+			if (recordsInBatch != 0) {
+				executeBatch(con, insertStat, recordsInBatch);
+			}
+		} catch (SQLException e) {
+			rollback(con);
+			throw e;
+		} catch (InvalidNumberOfElementsException e) {
+			rollback(con);
+			throw e;
+		} finally {
+			insertStat.close();
+		}
+	}
+
+	private void deleteRecords(Connection con, boolean replace) throws SQLException {
+		if (!replace) {
+			return;
+		}
+		Statement statement = con.createStatement();
+		try {
+			statement.executeUpdate(DELETE_FROM + tableName);
+		} finally {
+			statement.close();
+		}
+	}
+
+	private void executeBatch(Connection con, PreparedStatement insertStat, int recordsInBatch)
+			throws SQLException {
+		insertStat.executeBatch();
+		commit(con);
+		insertedCount += recordsInBatch;
+	}
 
-			if (recordsInBatch == BATCH_SIZE) {
-				insertStat.executeBatch();
-				recordsInBatch = 0;
+	/**
+	 * The JDBC types of the table columns, probed with a query selecting no
+	 * rows
+	 */
+	private int[] getColumnTypes(Connection con) {
+		try {
+			Statement statement = con.createStatement();
+			try {
+				ResultSet resultSet = statement.executeQuery(String.format(SELECT_NONE_FROM, tableName));
+				try {
+					ResultSetMetaData metaData = resultSet.getMetaData();
+					int[] types = new int[metaData.getColumnCount()];
+					for (int i = 0; i < types.length; i++) {
+						types[i] = metaData.getColumnType(i + 1);
+					}
+					return types;
+				} finally {
+					resultSet.close();
+				}
+			} finally {
+				statement.close();
 			}
+		} catch (SQLException e) {
+			// left to the insert to report
+			logger.debug(e.getMessage());
+			rollback(con);
+			return NO_TYPES;
 		}
-		if (recordsInBatch != 0) {
-			insertStat.executeBatch();
+	}
+
+	/**
+	 * Binds the value with the type of the column. Values not in the JDBC
+	 * escape format of their type are left to the conversion of the database.
+	 */
+	static void setValue(PreparedStatement statement, int index, String value, int type) throws SQLException {
+		if (value == null) {
+			statement.setNull(index, type);
+			return;
+		}
+		try {
+			switch (type) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				statement.setInt(index, Integer.parseInt(value.trim()));
+				return;
+			case Types.BIGINT:
+				statement.setLong(index, Long.parseLong(value.trim()));
+				return;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				statement.setBigDecimal(index, new BigDecimal(value.trim()));
+				return;
+			case Types.REAL:
+				statement.setFloat(index, Float.parseFloat(value.trim()));
+				return;
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				statement.setDouble(index, Double.parseDouble(value.trim()));
+				return;
+			case Types.BIT:
+			case Types.BOOLEAN:
+				String trimmed = value.trim();
+				if (Boolean.TRUE.toString().equalsIgnoreCase(trimmed) || "1".equals(trimmed)) { //$NON-NLS-1$
+					statement.setBoolean(index, true);
+					return;
+				} else if (Boolean.FALSE.toString().equalsIgnoreCase(trimmed) || "0".equals(trimmed)) { //$NON-NLS-1$
+					statement.setBoolean(index, false);
+					return;
+				}
+				break;
+			case Types.DATE:
+				statement.setDate(index, Date.valueOf(value.trim()));
+				return;
+			case Types.TIME:
+				statement.setTime(index, Time.valueOf(value.trim()));
+				return;
+			case Types.TIMESTAMP:
+				statement.setTimestamp(index, Timestamp.valueOf(value.trim()));
+				return;
+			default:
+				break;
+			}
+		} catch (IllegalArgumentException e) {
+			logger.debug(e.getMessage());
 		}
+		statement.setString(index, value);
 	}
 
 	private String generateQM(int number) {
@@ -106,62 +387,70 @@ public class DBTableDataInserter {
 		return result.toString();
 	}
 
-	private String[] getStringItems(String str) {
-		String delimiter = DELIMITER;
-		StringTokenizer tok = new StringTokenizer(str, delimiter, true);
+	/**
+	 * The number of items of the line - the delimiters plus one
+	 */
+	static int countItems(String line) {
+		int count = 1;
+		for (int i = line.indexOf(DELIMITER); i >= 0; i = line.indexOf(DELIMITER, i + 1)) {
+			count++;
+		}
+		return count;
+	}
 
-		List<String> res = new ArrayList<String>();
+	/**
+	 * Splits the line into the given array, sized with
+	 * {@link #countItems(String)}. Empty items are null.
+	 */
+	static void getStringItems(String line, String[] items) {
+		int start = 0;
+		for (int i = 0; i < items.length; i++) {
+			int end = line.indexOf(DELIMITER, start);
+			if (end < 0) {
+				end = line.length();
+			}
+			items[i] = (end > start) ? line.substring(start, end) : null;
+			start = end + 1;
+		}
+	}
 
-		boolean delimiterIsPreviousToken = true;
-		while (tok.hasMoreTokens()) {
-			String token = tok.nextToken();
-			if (delimiter.equals(token)) {
-				if (delimiterIsPreviousToken) {
-					res.add((String) null);
+	/**
+	 * Copies the content to the file
+	 * 
+	 * @return true if the content contains the character delimiter
+	 */
+	private static boolean copy(InputStream in, File file) throws IOException {
+		boolean delimited = false;
+		OutputStream out = new FileOutputStream(file);
+		try {
+			byte[] buffer = new byte[COPY_BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				for (int i = 0; (i < read) && !delimited; i++) {
+					delimited = (buffer[i] == CHARACTER_DELIMITER);
 				}
-				delimiterIsPreviousToken = true;
-			} else {
-				res.add(token);
-				delimiterIsPreviousToken = false;
+				out.write(buffer, 0, read);
 			}
+		} finally {
+			out.close();
 		}
-		if (delimiterIsPreviousToken) {
-			res.add((String) null);
-		}
+		return delimited;
+	}
 
-		String[] myArr = new String[res.size()];
-		res.toArray(myArr);
-		return myArr;
+	private static void commit(Connection con) throws SQLException {
+		if (!con.getAutoCommit()) {
+			con.commit();
+		}
 	}
 
-	private List<String[]> readRecords(InputStream csvFile)
-			throws FileNotFoundException, IOException,
-			InvalidNumberOfElementsException {
-		BufferedReader reader = new BufferedReader(new InputStreamReader(
-				csvFile));
-		List<String[]> data = new ArrayList<String[]>();
-
-		int item_count = -1;
-		int line_number = 0;
-		while (true) {
-			String line = reader.readLine();
-			line_number++;
-			if (line == null) {
-				break;
-			}
-			String[] items = getStringItems(line);
-			if (item_count == -1) {
-				item_count = items.length;
-			} else if (item_count != items.length) {
-				throw new InvalidNumberOfElementsException(
-						String.format(
-								INVALID_NUMBER_D_OF_ELEMENTS_AT_LINE_D_INITIAL_COLUMNS_NUMBER_D,
-								items.length, line_number, item_count));
+	private static void rollback(Connection con) {
+		try {
+			if (!con.getAutoCommit()) {
+				con.rollback();
 			}
-			data.add(items);
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
 		}
-		reader.close();
-		return data;
 	}
 
 	private String getFileNameWithoutExtension(String csvFileName) {
@@ -11,19 +11,18 @@
 
 package org.eclipse.dirigible.repository.ext.db;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
@@ -47,6 +46,10 @@ public class DBUtils {
 	
 	public static final String SCRIPT_DELIMITER = ";"; //$NON-NLS-1$
 	
+	private static final String KEY_SEPARATOR = "#"; //$NON-NLS-1$
+	
+	private static final Map<String, String> scripts = new ConcurrentHashMap<String, String>();
+	
 
 	private static Logger logger = Logger.getLogger(DBUtils.class.getCanonicalName());
 
@@ -58,7 +61,8 @@ public class DBUtils {
 
 	/**
 	 * Read whole SQL script from the class path. It can contain multiple
-	 * statements separated with ';'
+	 * statements separated with ';'. The dialect specific script is cached per
+	 * path and database product.
 	 * 
 	 * @param path
 	 * @return the SQL script as a String
@@ -66,46 +70,18 @@ public class DBUtils {
 	public String readScript(Connection conn, String path, Class<?> clazz) throws IOException {
 		logger.debug("entering readScript"); //$NON-NLS-1$
 		String sql = null;
-		InputStream in = clazz.getResourceAsStream(path);
-		if (in == null) {
-			throw new IOException("SQL script does not exist: " + path);
-		}
-		
-		BufferedInputStream bufferedInput = null;
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		PrintWriter writer = new PrintWriter(baos);
-		byte[] buffer = new byte[1024];
-
 		try {
-			bufferedInput = new BufferedInputStream(in);
-			int bytesRead = 0;
-
-			while ((bytesRead = bufferedInput.read(buffer)) != -1) {
-				String chunk = new String(buffer, 0, bytesRead,
-						Charset.defaultCharset());
-				writer.write(chunk);
+			String productName = getDatabaseProductName(conn);
+			String key = clazz.getName() + KEY_SEPARATOR + path + KEY_SEPARATOR + productName;
+			sql = scripts.get(key);
+			if (sql == null) {
+				sql = loadScript(path, clazz);
+				IDialectSpecifier dialectSpecifier = getDialectSpecifier(productName);
+				sql = dialectSpecifier.specify(sql);
+				scripts.put(key, sql);
 			}
-
-			writer.flush();
-
-			sql = new String(baos.toByteArray(), Charset.defaultCharset());
-			String productName = conn.getMetaData().getDatabaseProductName();
-			IDialectSpecifier dialectSpecifier = getDialectSpecifier(productName);
-			sql = dialectSpecifier.specify(sql);
-
-		} catch (FileNotFoundException ex) {
-			logger.error(ex.getMessage(), ex);
-		} catch (IOException ex) {
-			logger.error(ex.getMessage(), ex);
 		} catch (SQLException ex) {
 			logger.error(ex.getMessage(), ex);
-		} finally {
-			try {
-				if (bufferedInput != null)
-					bufferedInput.close();
-			} catch (IOException ex) {
-				logger.error(ex.getMessage(), ex);
-			}
 		}
 
 		logger.debug("exiting readScript"); //$NON-NLS-1$
@@ -113,6 +89,33 @@ public class DBUtils {
 		return sql;
 	}
 
+	private String loadScript(String path, Class<?> clazz) throws IOException {
+		InputStream in = clazz.getResourceAsStream(path);
+		if (in == null) {
+			throw new IOException("SQL script does not exist: " + path);
+		}
+		try {
+			return IOUtils.toString(in, Charset.defaultCharset().name());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The database product name of the given connection, taken from the data
+	 * source of the wrapped connections without a metadata round-trip
+	 * 
+	 * @param connection
+	 * @return
+	 * @throws SQLException
+	 */
+	public static String getDatabaseProductName(Connection connection) throws SQLException {
+		if (connection instanceof WrappedConnection) {
+			return ((WrappedConnection) connection).getDatabaseProductName();
+		}
+		return connection.getMetaData().getDatabaseProductName();
+	}
+
 	/**
 	 * Execute a SQL script containing multiple statements separated with ';'
 	 * 
@@ -211,7 +214,7 @@ public class DBUtils {
 
 	public String specifyDataType(Connection connection, String commonType)
 			throws SQLException {
-		String productName = connection.getMetaData().getDatabaseProductName();
+		String productName = getDatabaseProductName(connection);
 		IDialectSpecifier dialectSpecifier = getDialectSpecifier(productName);
 		return dialectSpecifier.getSpecificType(commonType);
 	}
@@ -274,7 +277,7 @@ public class DBUtils {
 	 */
 	public static byte[] dbToDataBinary(Connection connection, ResultSet resultSet,
 			String columnName) throws SQLException, IOException {
-		String productName = connection.getMetaData().getDatabaseProductName();
+		String productName = getDatabaseProductName(connection);
 		IDialectSpecifier dialectSpecifier = DBUtils.getDialectSpecifier(productName);
 		InputStream is = dialectSpecifier.getBinaryStream(resultSet, columnName);
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
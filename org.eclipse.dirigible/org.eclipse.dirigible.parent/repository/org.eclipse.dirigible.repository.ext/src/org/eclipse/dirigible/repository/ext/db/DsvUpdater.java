@@ -12,8 +12,8 @@
 package org.eclipse.dirigible.repository.ext.db;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.List;
@@ -30,11 +30,10 @@ import org.eclipse.dirigible.repository.logging.Logger;
 
 public class DsvUpdater extends AbstractDataUpdater {
 
-	private static final String DELETE_FROM = "DELETE FROM ";
 	private static final String TABLE_NAME = "tableName";
 
 	private static final String EXTENSION_TABLE = ".table";
-	private static final String EXTENSION_DSV = ".dsv";
+	public static final String EXTENSION_DSV = ".dsv"; //$NON-NLS-1$
 	
 	private static final Logger logger = Logger.getLogger(DsvUpdater.class);
 
@@ -96,6 +95,10 @@ public class DsvUpdater extends AbstractDataUpdater {
 					} catch (Exception e) {
 						logger.error(e.getMessage(), e);
 						errors.add(e.getMessage());
+						// the delete of a table whose records could not be read
+						if (!connection.getAutoCommit()) {
+							connection.rollback();
+						}
 					}
 				}
 			} finally {
@@ -119,18 +122,19 @@ public class DsvUpdater extends AbstractDataUpdater {
 		JsonObject dsDefinitionObject = parseTable(dsDefinitionTable);
 		String tableName = dsDefinitionObject.get(TABLE_NAME).getAsString();
 		tableName = tableName.toUpperCase();
-		deleteAllDataFromTable(tableName);
 
 		IRepository repository = this.repository;
 //		# 177
 //		IResource resource = repository.getResource(this.location + dsDefinition);
 		IResource resource = repository.getResource(dsDefinition);
-		byte[] content = resource.getContent();
-
-		if (content.length != 0) {
+		InputStream content = resource.openInputStream();
+		try {
 			DBTableDataInserter tableDataInserter = new DBTableDataInserter(dataSource, 
 					content, tableName + EXTENSION_TABLE);
-			tableDataInserter.insert();
+			// the existing records are replaced
+			tableDataInserter.insert(connection, true);
+		} finally {
+			content.close();
 		}
 	}
 
@@ -145,23 +149,6 @@ public class DsvUpdater extends AbstractDataUpdater {
 		return dsDefinitionObject;
 	}
 
-	private void deleteAllDataFromTable(String tableName) throws Exception {
-		Connection con = null;
-		try {
-			con = getConnection();
-			PreparedStatement deleteStatement = con.prepareStatement(DELETE_FROM + tableName);
-			deleteStatement.execute();
-		} finally {
-			if (con != null) {
-				con.close();
-			}
-		}
-	}
-
-	private Connection getConnection() throws Exception {
-		return dataSource.getConnection();
-	}
-
 	@Override
 	public IRepository getRepository() {
 		return this.repository;
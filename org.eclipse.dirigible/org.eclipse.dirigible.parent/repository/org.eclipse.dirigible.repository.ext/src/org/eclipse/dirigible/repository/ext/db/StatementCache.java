@@ -0,0 +1,227 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Bounded cache of the prepared statements of a single pooled physical
+ * connection. The statements are handed out wrapped, so that closing them
+ * returns them to the cache instead of closing the physical statement. A
+ * statement is used by a single caller at a time - preparing the same SQL
+ * while the cached statement is still open gives a new, not cached one.
+ */
+class StatementCache {
+
+	private static final Logger logger = Logger.getLogger(StatementCache.class);
+
+	private static final String METHOD_CLOSE = "close"; //$NON-NLS-1$
+	private static final String METHOD_IS_CLOSED = "isClosed"; //$NON-NLS-1$
+	private static final String METHOD_GET_CONNECTION = "getConnection"; //$NON-NLS-1$
+	private static final String METHOD_EQUALS = "equals"; //$NON-NLS-1$
+	private static final String METHOD_HASH_CODE = "hashCode"; //$NON-NLS-1$
+	private static final String METHOD_TO_STRING = "toString"; //$NON-NLS-1$
+
+	private final Map<String, PreparedStatement> statements;
+
+	private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>());
+
+	private long hits;
+
+	private long misses;
+
+	StatementCache(final int maxSize) {
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -2466425213297513823L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > maxSize) {
+					// the ones in use are closed on their release
+					if (!inUse.contains(eldest.getValue())) {
+						closeQuietly(eldest.getValue());
+					}
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	synchronized PreparedStatement prepareStatement(Connection physicalConnection, Connection owner, String sql)
+			throws SQLException {
+		PreparedStatement statement = statements.get(sql);
+		if (statement != null) {
+			if (inUse.contains(statement)) {
+				return physicalConnection.prepareStatement(sql);
+			}
+			hits++;
+		} else {
+			statement = physicalConnection.prepareStatement(sql);
+			statements.put(sql, statement);
+			misses++;
+		}
+		inUse.add(statement);
+		return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class },
+				new CachedStatementHandler(statement, sql, owner, statement.getFetchSize()));
+	}
+
+	synchronized void release(PreparedStatement statement, String sql, ResultSet resultSet, int fetchSize) {
+		inUse.remove(statement);
+		if (statements.get(sql) != statement) {
+			// evicted in the meantime
+			closeQuietly(statement);
+			return;
+		}
+		try {
+			if (resultSet != null) {
+				resultSet.close();
+			}
+			// the next borrower gets the statement as freshly prepared
+			statement.clearParameters();
+			statement.clearBatch();
+			statement.clearWarnings();
+			statement.setMaxRows(0);
+			statement.setQueryTimeout(0);
+			// zero does not reset the fetch size with all the drivers
+			statement.setFetchSize(fetchSize);
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+			statements.remove(sql);
+			closeQuietly(statement);
+		}
+	}
+
+	/**
+	 * Called when the physical connection goes back to the pool - the
+	 * statements left open by the last borrower are not reused
+	 */
+	synchronized void releaseAll() {
+		if (inUse.isEmpty()) {
+			return;
+		}
+		for (Iterator<PreparedStatement> iterator = statements.values().iterator(); iterator.hasNext();) {
+			PreparedStatement statement = iterator.next();
+			if (inUse.contains(statement)) {
+				iterator.remove();
+				closeQuietly(statement);
+			}
+		}
+		inUse.clear();
+	}
+
+	synchronized void close() {
+		List<PreparedStatement> all = new ArrayList<PreparedStatement>(statements.values());
+		statements.clear();
+		inUse.clear();
+		for (PreparedStatement statement : all) {
+			closeQuietly(statement);
+		}
+	}
+
+	synchronized int size() {
+		return statements.size();
+	}
+
+	synchronized long getHits() {
+		return hits;
+	}
+
+	synchronized long getMisses() {
+		return misses;
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+		}
+	}
+
+	private class CachedStatementHandler implements InvocationHandler {
+
+		private final PreparedStatement statement;
+
+		private final String sql;
+
+		private final Connection owner;
+
+		private final int fetchSize;
+
+		private ResultSet resultSet;
+
+		private boolean closed;
+
+		CachedStatementHandler(PreparedStatement statement, String sql, Connection owner, int fetchSize) {
+			this.statement = statement;
+			this.sql = sql;
+			this.owner = owner;
+			this.fetchSize = fetchSize;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (METHOD_CLOSE.equals(name) && method.getParameterTypes().length == 0) {
+				if (!closed) {
+					closed = true;
+					release(statement, sql, resultSet, fetchSize);
+				}
+				return null;
+			} else if (METHOD_IS_CLOSED.equals(name)) {
+				return closed;
+			} else if (METHOD_EQUALS.equals(name) && method.getParameterTypes().length == 1) {
+				return proxy == args[0];
+			} else if (METHOD_HASH_CODE.equals(name) && method.getParameterTypes().length == 0) {
+				return System.identityHashCode(proxy);
+			} else if (METHOD_TO_STRING.equals(name) && method.getParameterTypes().length == 0) {
+				return statement.toString();
+			}
+			if (closed) {
+				throw new SQLException("Statement is closed"); //$NON-NLS-1$
+			}
+			if (METHOD_GET_CONNECTION.equals(name)) {
+				return owner;
+			}
+			try {
+				Object result = method.invoke(statement, args);
+				if (result instanceof ResultSet) {
+					resultSet = (ResultSet) result;
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+}
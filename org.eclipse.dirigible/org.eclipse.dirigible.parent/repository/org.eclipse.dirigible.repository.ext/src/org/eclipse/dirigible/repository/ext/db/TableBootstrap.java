@@ -0,0 +1,172 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Process-wide registry of the tables known to exist in a given database.
+ * A table is verified - and created if missing - on its first use only, the
+ * next calls for the same data source and table name return without any
+ * database round-trip. The existence probe selects no rows, so it does not
+ * depend on the size of the table.
+ */
+public class TableBootstrap {
+
+	private static final Logger logger = Logger.getLogger(TableBootstrap.class);
+
+	private static final String TABLE_DOES_NOT_EXIST_S = "Table does not exist, creating it: %s"; //$NON-NLS-1$
+
+	private static final String SELECT_NONE_FROM = "SELECT 1 FROM %s WHERE 1 = 0"; //$NON-NLS-1$
+
+	private static final Map<DataSource, Set<String>> verified = new WeakHashMap<DataSource, Set<String>>();
+
+	private TableBootstrap() {
+	}
+
+	/**
+	 * Makes sure the table exists, using a connection of its own if it has
+	 * not been verified yet
+	 *
+	 * @param dataSource
+	 * @param tableName
+	 * @param createTableQuery
+	 * @throws SQLException
+	 */
+	public static void ensureTable(DataSource dataSource, String tableName, String createTableQuery)
+			throws SQLException {
+		if (isVerified(dataSource, tableName)) {
+			return;
+		}
+		Connection connection = dataSource.getConnection();
+		try {
+			ensureTable(dataSource, connection, tableName, createTableQuery);
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Makes sure the table exists, using the given connection of the data
+	 * source if it has not been verified yet. Has to be called before any
+	 * other work is done on the connection, as the transaction is rolled back
+	 * when the table turns out to be missing.
+	 *
+	 * @param dataSource
+	 * @param connection
+	 * @param tableName
+	 * @param createTableQuery
+	 * @throws SQLException
+	 */
+	public static void ensureTable(DataSource dataSource, Connection connection, String tableName,
+			String createTableQuery) throws SQLException {
+		if (isVerified(dataSource, tableName)) {
+			return;
+		}
+		if (!tableExists(connection, tableName)) {
+			logger.warn(String.format(TABLE_DOES_NOT_EXIST_S, tableName));
+			try {
+				execute(connection, createTableQuery);
+			} catch (SQLException e) {
+				// created by someone else in the meantime?
+				rollback(connection);
+				if (!tableExists(connection, tableName)) {
+					throw e;
+				}
+			}
+		}
+		setVerified(dataSource, tableName);
+	}
+
+	/**
+	 * Forgets the verified tables of the given data source, e.g. after they
+	 * have been dropped
+	 *
+	 * @param dataSource
+	 */
+	public static void reset(DataSource dataSource) {
+		synchronized (verified) {
+			verified.remove(getKey(dataSource));
+		}
+	}
+
+	static boolean isVerified(DataSource dataSource, String tableName) {
+		synchronized (verified) {
+			Set<String> tables = verified.get(getKey(dataSource));
+			return (tables != null) && tables.contains(tableName);
+		}
+	}
+
+	private static void setVerified(DataSource dataSource, String tableName) {
+		synchronized (verified) {
+			DataSource key = getKey(dataSource);
+			Set<String> tables = verified.get(key);
+			if (tables == null) {
+				tables = new HashSet<String>();
+				verified.put(key, tables);
+			}
+			tables.add(tableName);
+		}
+	}
+
+	/**
+	 * The wrappers are created per session in some environments, while the
+	 * database behind them stays the same
+	 */
+	private static DataSource getKey(DataSource dataSource) {
+		if (dataSource instanceof WrappedDataSource) {
+			return ((WrappedDataSource) dataSource).getOriginalDataSource();
+		}
+		return dataSource;
+	}
+
+	private static boolean tableExists(Connection connection, String tableName) throws SQLException {
+		try {
+			execute(connection, String.format(SELECT_NONE_FROM, tableName));
+			return true;
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+			// some databases abort the whole transaction on a failed statement
+			rollback(connection);
+			return false;
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		Statement statement = connection.createStatement();
+		try {
+			statement.execute(sql);
+		} finally {
+			statement.close();
+		}
+		if (!connection.getAutoCommit()) {
+			connection.commit();
+		}
+	}
+
+	private static void rollback(Connection connection) throws SQLException {
+		if (!connection.getAutoCommit()) {
+			connection.rollback();
+		}
+	}
+
+}
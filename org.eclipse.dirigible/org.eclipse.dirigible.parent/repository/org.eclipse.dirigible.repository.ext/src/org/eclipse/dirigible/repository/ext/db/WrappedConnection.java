@@ -43,11 +43,40 @@ public class WrappedConnection implements Connection {
 
 	private WrappedDataSource dataSource;
 
+	private boolean pooled;
+
+	private boolean closed;
+
+	/**
+	 * A transaction opened explicitly with setAutoCommit(false), which has
+	 * been neither committed nor rolled back yet
+	 */
+	private boolean transactionOpen;
+
 	public WrappedConnection(Connection originalConnection, WrappedDataSource dataSource) {
 		super();
 		this.originalConnection = originalConnection;
 		this.timeAcquired = GregorianCalendar.getInstance().getTime().getTime();
 		this.dataSource = dataSource;
+		this.pooled = (dataSource.getConnectionPool() != null);
+	}
+
+	Connection getOriginalConnection() {
+		return originalConnection;
+	}
+
+	boolean isPooled() {
+		return pooled;
+	}
+
+	/**
+	 * The product name of the database, cached per data source
+	 * 
+	 * @return
+	 * @throws SQLException
+	 */
+	public String getDatabaseProductName() throws SQLException {
+		return dataSource.getDatabaseProductName(originalConnection);
 	}
 
 	public long getTimeAcquired() {
@@ -67,17 +96,41 @@ public class WrappedConnection implements Connection {
 		logger.debug("exiting - clearWarnings()");
 	}
 
+	/**
+	 * The work done without an explicit transaction is committed. An explicit
+	 * transaction left open, e.g. because an error skipped its commit, is
+	 * rolled back, so that neither it gets committed partially nor the next
+	 * borrower of the pooled connection inherits it.
+	 */
 	public void close() throws SQLException {
 		logger.debug("entering - close()");
-		originalConnection.commit();
-		originalConnection.close();
-		dataSource.closedConnection(this);
+		if (closed) {
+			// the physical connection may be in use by someone else already
+			return;
+		}
+		closed = true;
+		boolean completed = false;
+		try {
+			// closed underneath if reclaimed as leaked
+			if (!originalConnection.isClosed()) {
+				if (transactionOpen) {
+					logger.debug("Open transaction rolled back on close");
+					originalConnection.rollback();
+				} else {
+					originalConnection.commit();
+				}
+				completed = true;
+			}
+		} finally {
+			dataSource.closedConnection(this, completed);
+		}
 		logger.debug("exiting - close()");
 	}
 
 	public void commit() throws SQLException {
 		logger.debug("entering - commit()");
 		originalConnection.commit();
+		transactionOpen = false;
 		logger.debug("exiting - commit()");
 	}
 
@@ -176,7 +229,7 @@ public class WrappedConnection implements Connection {
 
 	public boolean isClosed() throws SQLException {
 		logger.debug("called - isClosed()");
-		return originalConnection.isClosed();
+		return closed || originalConnection.isClosed();
 	}
 
 	public boolean isReadOnly() throws SQLException {
@@ -252,6 +305,9 @@ public class WrappedConnection implements Connection {
 
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
 		logger.debug("called - prepareStatement(String sql): " + sql);
+		if (pooled) {
+			return dataSource.getConnectionPool().prepareStatement(originalConnection, this, sql);
+		}
 		return originalConnection.prepareStatement(sql);
 	}
 
@@ -263,6 +319,7 @@ public class WrappedConnection implements Connection {
 	public void rollback() throws SQLException {
 		logger.debug("called - rollback()");
 		originalConnection.rollback();
+		transactionOpen = false;
 	}
 
 	public void rollback(Savepoint savepoint) throws SQLException {
@@ -273,6 +330,7 @@ public class WrappedConnection implements Connection {
 	public void setAutoCommit(boolean autoCommit) throws SQLException {
 		logger.debug("called - setAutoCommit(boolean autoCommit)");
 		originalConnection.setAutoCommit(autoCommit);
+		transactionOpen = !autoCommit;
 	}
 
 	public void setCatalog(String catalog) throws SQLException {
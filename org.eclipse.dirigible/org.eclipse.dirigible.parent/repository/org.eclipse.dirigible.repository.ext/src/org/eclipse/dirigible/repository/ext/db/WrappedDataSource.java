@@ -31,23 +31,83 @@ public class WrappedDataSource implements DataSource {
 	
 	private DataSource originalDataSource;
 	
+	private ConnectionPool connectionPool;
+	
+	private volatile String databaseProductName;
+	
 	private static final Collection<WrappedConnection> connections = Collections.synchronizedCollection(new ArrayList<WrappedConnection>());
 
 	// default timeout before kill the victim connection
 	private static final long WAIT_TIMEOUT = 500;
 	private static final int WAIT_COUNT = 5;
 
+	/**
+	 * Wraps a data source pooled by its provider, e.g. the container of a
+	 * JNDI data source - its connections are not pooled again
+	 * 
+	 * @param originalDataSource
+	 */
 	public WrappedDataSource(DataSource originalDataSource) {
+		this(originalDataSource, false);
+	}
+
+	/**
+	 * Wraps a data source, which connections are pooled here if requested and
+	 * pooling is enabled, e.g. the local embedded one
+	 * 
+	 * @param originalDataSource
+	 * @param pooled
+	 */
+	public WrappedDataSource(DataSource originalDataSource, boolean pooled) {
 		super();
 		this.originalDataSource = originalDataSource;
+		if (pooled && ConnectionPool.isEnabled()) {
+			this.connectionPool = ConnectionPool.getInstance(originalDataSource);
+		}
+	}
+
+	/**
+	 * The pool of the original data source, or null if pooling is disabled
+	 * 
+	 * @return
+	 */
+	public ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	DataSource getOriginalDataSource() {
+		return originalDataSource;
+	}
+
+	/**
+	 * The product name of the database, resolved once from the metadata of the
+	 * given physical connection
+	 * 
+	 * @param originalConnection
+	 * @return
+	 * @throws SQLException
+	 */
+	String getDatabaseProductName(Connection originalConnection) throws SQLException {
+		if (databaseProductName == null) {
+			databaseProductName = originalConnection.getMetaData().getDatabaseProductName();
+		}
+		return databaseProductName;
 	}
 
 	public Connection getConnection() throws SQLException {
 		logger.debug("entring - getConnection()");
+		if (connectionPool != null) {
+			WrappedConnection wrappedConnection = new WrappedConnection(connectionPool.borrow(), this);
+			// work without an explicit transaction is committed on close
+			wrappedConnection.getOriginalConnection().setAutoCommit(false);
+			logger.debug("Connection acquired: " + wrappedConnection.hashCode() + " active: " + connectionPool.getActiveCount());
+			logger.debug("exiting - getConnection()");
+			return wrappedConnection;
+		}
 		checkConnections();
 		WrappedConnection wrappedConnection = new WrappedConnection(originalDataSource.getConnection(), this);
 		addConnection(wrappedConnection);
-		wrappedConnection.setAutoCommit(false);
+		wrappedConnection.getOriginalConnection().setAutoCommit(false);
 		logger.debug("Connection acquired: " + wrappedConnection.hashCode() + " count: " + connections.size());
 		logger.debug("exiting - getConnection()");
 		return wrappedConnection;
@@ -59,7 +119,7 @@ public class WrappedDataSource implements DataSource {
 		checkConnections();
 		WrappedConnection wrappedConnection = new WrappedConnection(originalDataSource.getConnection(username, password), this);
 		addConnection(wrappedConnection);
-		wrappedConnection.setAutoCommit(false);
+		wrappedConnection.getOriginalConnection().setAutoCommit(false);
 		logger.debug("Connection acquired: " + wrappedConnection.hashCode() + " count: " + connections.size());
 		logger.debug("exiting - getConnection(String username, String password)");
 		return wrappedConnection;
@@ -90,7 +150,7 @@ public class WrappedDataSource implements DataSource {
 			if (oldestConnection == null) {
 				oldestConnection = connection;
 			}
-			if (oldestConnection.getTimeAcquired() < connection.getTimeAcquired()) {
+			if (connection.getTimeAcquired() < oldestConnection.getTimeAcquired()) {
 				oldestConnection = connection;
 			}
 		}
@@ -113,9 +173,28 @@ public class WrappedDataSource implements DataSource {
 		logger.debug("exiting - removeConnection()");
 	}
 	
-	public void closedConnection(WrappedConnection wrappedConnection) {
+	/**
+	 * Called on close of the wrapped connection - returns the physical
+	 * connection to the pool, or closes it if it is not pooled or reusable
+	 * 
+	 * @param wrappedConnection
+	 * @param reusable
+	 * @throws SQLException
+	 */
+	public void closedConnection(WrappedConnection wrappedConnection, boolean reusable) throws SQLException {
 		logger.debug("entring - closeConnection()");
-		removeConnection(wrappedConnection);
+		if (wrappedConnection.isPooled()) {
+			connectionPool.release(wrappedConnection.getOriginalConnection(), reusable);
+			logger.debug("Connection released: " + wrappedConnection.hashCode() + " active: " + connectionPool.getActiveCount()
+					+ " time used: " + wrappedConnection.getTimeUsed() + "ms");
+			logger.debug("exiting - closeConnection()");
+			return;
+		}
+		try {
+			wrappedConnection.getOriginalConnection().close();
+		} finally {
+			removeConnection(wrappedConnection);
+		}
 		logger.debug("Connection released: " + wrappedConnection.hashCode() + " count: " + connections.size() 
 				+ " time used: " + wrappedConnection.getTimeUsed() + "ms");
 		logger.debug("exiting - closeConnection()");
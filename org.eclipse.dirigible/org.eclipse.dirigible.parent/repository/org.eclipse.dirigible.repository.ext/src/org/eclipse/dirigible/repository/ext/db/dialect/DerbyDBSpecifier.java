@@ -25,6 +25,8 @@ public class DerbyDBSpecifier implements IDialectSpecifier {
 	private static final String DERBY_TIMESTAMP = "TIMESTAMP"; //$NON-NLS-1$
 	private static final String DERBY_FLOAT = "DOUBLE"; //$NON-NLS-1$
 	private static final String DERBY_BLOB = "BLOB"; //$NON-NLS-1$
+	private static final String DERBY_CLOB = "CLOB"; //$NON-NLS-1$
+	private static final String DERBY_IMPORT_TABLE = "CALL SYSCS_UTIL.SYSCS_IMPORT_TABLE(NULL, ?, ?, ?, ?, ?, ?)"; //$NON-NLS-1$
 	private static final String DERBY_CURRENT_TIMESTAMP = "CURRENT_TIMESTAMP"; //$NON-NLS-1$
 
 	@Override
@@ -37,6 +39,7 @@ public class DerbyDBSpecifier implements IDialectSpecifier {
 		sql = sql.replace(DIALECT_CURRENT_TIMESTAMP, DERBY_CURRENT_TIMESTAMP);
 		sql = sql.replace(DIALECT_TIMESTAMP, DERBY_TIMESTAMP);
 		sql = sql.replace(DIALECT_BLOB, DERBY_BLOB);
+		sql = sql.replace(DIALECT_CLOB, DERBY_CLOB);
 		return sql;
 	}
 
@@ -80,4 +83,9 @@ public class DerbyDBSpecifier implements IDialectSpecifier {
 	}
 
 
+	@Override
+	public String getBulkImportScript() {
+		return DERBY_IMPORT_TABLE;
+	}
+
 }
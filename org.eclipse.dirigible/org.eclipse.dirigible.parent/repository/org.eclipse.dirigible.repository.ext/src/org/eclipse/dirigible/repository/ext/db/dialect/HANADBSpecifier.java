@@ -24,6 +24,7 @@ public class HANADBSpecifier implements IDialectSpecifier {
 	private static final String HANA_FLOAT = "DOUBLE"; //$NON-NLS-1$
 	private static final String HANA_TIMESTAMP = "TIMESTAMP"; //$NON-NLS-1$
 	private static final String HANA_BLOB = "BLOB"; //$NON-NLS-1$
+	private static final String HANA_CLOB = "NCLOB"; //$NON-NLS-1$
 	private static final String HANA_CURRENT_TIMESTAMP = "CURRENT_TIMESTAMP"; //$NON-NLS-1$
 
 	@Override
@@ -56,6 +57,7 @@ public class HANADBSpecifier implements IDialectSpecifier {
 		sql = sql.replace(DIALECT_CURRENT_TIMESTAMP, HANA_CURRENT_TIMESTAMP);
 		sql = sql.replace(DIALECT_TIMESTAMP, HANA_TIMESTAMP);
 		sql = sql.replace(DIALECT_BLOB, HANA_BLOB);
+		sql = sql.replace(DIALECT_CLOB, HANA_CLOB);
 		return sql;
 	}
 
@@ -78,4 +80,9 @@ public class HANADBSpecifier implements IDialectSpecifier {
 		return data.getBinaryStream();
 	}
 
+	@Override
+	public String getBulkImportScript() {
+		return null;
+	}
+
 }
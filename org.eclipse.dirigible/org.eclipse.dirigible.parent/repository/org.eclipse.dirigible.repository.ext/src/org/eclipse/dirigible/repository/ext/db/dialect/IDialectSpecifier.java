@@ -19,6 +19,7 @@ public interface IDialectSpecifier {
 
 	public static final String DIALECT_TIMESTAMP = "$TIMESTAMP$"; //$NON-NLS-1$
 	public static final String DIALECT_BLOB = "$BLOB$"; //$NON-NLS-1$
+	public static final String DIALECT_CLOB = "$CLOB$"; //$NON-NLS-1$
 	public static final String DIALECT_CURRENT_TIMESTAMP = "$CURRENT_TIMESTAMP$"; //$NON-NLS-1$
 
 	String specify(String sql);
@@ -39,4 +40,12 @@ public interface IDialectSpecifier {
 
 	InputStream getBinaryStream(ResultSet resultSet, String columnName) throws SQLException;
 
+	/**
+	 * The call loading a delimited file of the database host into a table,
+	 * with parameters the table name, the file name, the column delimiter, the
+	 * character delimiter, the encoding and 1 to replace the existing records
+	 * or 0 to keep them, or null if the database has no such procedure
+	 */
+	String getBulkImportScript();
+
 }
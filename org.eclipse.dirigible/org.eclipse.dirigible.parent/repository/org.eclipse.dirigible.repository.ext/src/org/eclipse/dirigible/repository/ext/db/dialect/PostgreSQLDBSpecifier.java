@@ -25,6 +25,7 @@ public class PostgreSQLDBSpecifier implements IDialectSpecifier {
 	private static final String POSTGRESQL_TIMESTAMP = "TIMESTAMP"; //$NON-NLS-1$
 	private static final String POSTGRESQL_FLOAT = "REAL"; //$NON-NLS-1$
 	private static final String POSTGRESQL_BLOB = "BYTEA"; //$NON-NLS-1$
+	private static final String POSTGRESQL_CLOB = "TEXT"; //$NON-NLS-1$
 	private static final String POSTGRESQL_CURRENT_TIMESTAMP = "CURRENT_TIMESTAMP"; //$NON-NLS-1$
 
 	@Override
@@ -37,6 +38,7 @@ public class PostgreSQLDBSpecifier implements IDialectSpecifier {
 		sql = sql.replace(DIALECT_CURRENT_TIMESTAMP, POSTGRESQL_CURRENT_TIMESTAMP);
 		sql = sql.replace(DIALECT_TIMESTAMP, POSTGRESQL_TIMESTAMP);
 		sql = sql.replace(DIALECT_BLOB, POSTGRESQL_BLOB);
+		sql = sql.replace(DIALECT_CLOB, POSTGRESQL_CLOB);
 		return sql;
 	}
 
@@ -78,4 +80,9 @@ public class PostgreSQLDBSpecifier implements IDialectSpecifier {
 		return new ByteArrayInputStream(resultSet.getBytes(columnName));
 	}
 
+	@Override
+	public String getBulkImportScript() {
+		return null;
+	}
+
 }
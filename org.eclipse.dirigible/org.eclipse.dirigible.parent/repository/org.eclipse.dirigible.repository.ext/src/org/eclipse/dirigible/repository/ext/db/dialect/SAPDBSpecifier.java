@@ -24,6 +24,7 @@ public class SAPDBSpecifier implements IDialectSpecifier {
 	private static final String SAPDB_TIMESTAMP = "TIMESTAMP"; //$NON-NLS-1$
 	private static final String SAPDB_FLOAT = "DOUBLE"; //$NON-NLS-1$
 	private static final String SAPDB_BLOB = "BLOB"; //$NON-NLS-1$
+	private static final String SAPDB_CLOB = "CLOB"; //$NON-NLS-1$
 	private static final String SAPDB_CURRENT_TIMESTAMP = "CURRENT_TIMESTAMP"; //$NON-NLS-1$
 
 	@Override
@@ -31,6 +32,7 @@ public class SAPDBSpecifier implements IDialectSpecifier {
 		sql = sql.replace(DIALECT_CURRENT_TIMESTAMP, SAPDB_CURRENT_TIMESTAMP);
 		sql = sql.replace(DIALECT_TIMESTAMP, SAPDB_TIMESTAMP);
 		sql = sql.replace(DIALECT_BLOB, SAPDB_BLOB);
+		sql = sql.replace(DIALECT_CLOB, SAPDB_CLOB);
 		return sql;
 	}
 
@@ -78,4 +80,9 @@ public class SAPDBSpecifier implements IDialectSpecifier {
 		return data.getBinaryStream();
 	}
 
+	@Override
+	public String getBulkImportScript() {
+		return null;
+	}
+
 }
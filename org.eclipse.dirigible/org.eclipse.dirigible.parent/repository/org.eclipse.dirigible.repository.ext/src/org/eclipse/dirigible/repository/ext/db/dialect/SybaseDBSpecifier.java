@@ -24,6 +24,7 @@ public class SybaseDBSpecifier implements IDialectSpecifier {
 	private static final String SYBASE_TIMESTAMP = "DATETIME"; //$NON-NLS-1$
 	private static final String SYBASE_FLOAT = "REAL"; //$NON-NLS-1$
 	private static final String SYBASE_BLOB = "IMAGE"; //$NON-NLS-1$
+	private static final String SYBASE_CLOB = "TEXT"; //$NON-NLS-1$
 	private static final String SYBASE_CURRENT_TIMESTAMP = "GETDATE()"; //$NON-NLS-1$
 
 	@Override
@@ -31,6 +32,7 @@ public class SybaseDBSpecifier implements IDialectSpecifier {
 		sql = sql.replace(DIALECT_CURRENT_TIMESTAMP, SYBASE_CURRENT_TIMESTAMP);
 		sql = sql.replace(DIALECT_TIMESTAMP, SYBASE_TIMESTAMP);
 		sql = sql.replace(DIALECT_BLOB, SYBASE_BLOB);
+		sql = sql.replace(DIALECT_CLOB, SYBASE_CLOB);
 		return sql;
 	}
 
@@ -88,4 +90,9 @@ public class SybaseDBSpecifier implements IDialectSpecifier {
 		return new ByteArrayInputStream(resultSet.getBytes(columnName));
 	}
 
+	@Override
+	public String getBulkImportScript() {
+		return null;
+	}
+
 }
@@ -0,0 +1,41 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.events;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+
+/**
+ * Notified after a successful change in a repository. The listeners are
+ * called by the writing thread, so they should not do any heavy work
+ * themselves.
+ */
+public interface IRepositoryListener {
+
+	/**
+	 * The resource or the collection at the given path has been created or
+	 * its content has been changed
+	 * 
+	 * @param repository
+	 * @param path
+	 */
+	void changed(IRepository repository, String path);
+
+	/**
+	 * The resource or the collection at the given path, together with all of
+	 * its children, has been removed
+	 * 
+	 * @param repository
+	 * @param path
+	 */
+	void removed(IRepository repository, String path);
+
+}
@@ -0,0 +1,34 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.events;
+
+import java.util.List;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+
+/**
+ * A repository listener notified once for a whole tree written at once, e.g.
+ * on publish, instead of once per resource
+ */
+public interface IRepositoryTreeListener extends IRepositoryListener {
+
+	/**
+	 * The given resources under the root path have been created or their
+	 * content has been changed
+	 * 
+	 * @param repository
+	 * @param root
+	 * @param paths
+	 */
+	void published(IRepository repository, String root, List<String> paths);
+
+}
@@ -0,0 +1,86 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Process-wide registry of the repository listeners. A failing listener is
+ * logged and does not affect the change itself or the other listeners.
+ */
+public class RepositoryListeners {
+
+	private static final Logger logger = Logger.getLogger(RepositoryListeners.class);
+
+	private static final CopyOnWriteArrayList<IRepositoryListener> listeners = new CopyOnWriteArrayList<IRepositoryListener>();
+
+	private RepositoryListeners() {
+	}
+
+	public static void addListener(IRepositoryListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	public static void removeListener(IRepositoryListener listener) {
+		listeners.remove(listener);
+	}
+
+	public static void fireChanged(IRepository repository, String path) {
+		for (IRepositoryListener listener : listeners) {
+			try {
+				listener.changed(repository, path);
+			} catch (RuntimeException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	public static void fireRemoved(IRepository repository, String path) {
+		for (IRepositoryListener listener : listeners) {
+			try {
+				listener.removed(repository, path);
+			} catch (RuntimeException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * A single event for the resources written at once under the given root.
+	 * The listeners not interested in it are notified for each of the
+	 * resources as for a separate change.
+	 * 
+	 * @param repository
+	 * @param root
+	 * @param paths
+	 */
+	public static void firePublished(IRepository repository, String root, List<String> paths) {
+		for (IRepositoryListener listener : listeners) {
+			try {
+				if (listener instanceof IRepositoryTreeListener) {
+					((IRepositoryTreeListener) listener).published(repository, root, paths);
+				} else {
+					for (String path : paths) {
+						listener.changed(repository, path);
+					}
+				}
+			} catch (RuntimeException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+}
@@ -14,31 +14,25 @@ package org.eclipse.dirigible.repository.ext.lucene;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryParser.ParseException;
-import org.apache.lucene.queryParser.QueryParser;
-import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
-import org.apache.lucene.util.Version;
 
 import org.eclipse.dirigible.repository.logging.Logger;
 
+/**
+ * Named in-memory index of custom documents. Each index keeps a single writer
+ * and a shared searcher, refreshed after each change, so the searches run
+ * concurrently with each other and with the indexing.
+ */
 public class CustomMemoryIndexer {
 	
 	private static final String FIELD_ID = "id"; //$NON-NLS-1$
@@ -46,93 +40,96 @@ public class CustomMemoryIndexer {
 	
 	private static final Logger logger = Logger.getLogger(CustomMemoryIndexer.class);
 	
-	private Directory directory = new RAMDirectory();
+	private static final Map<String, CustomMemoryIndexer> indexes = new HashMap<String, CustomMemoryIndexer>();
 	
-	private static Map<String, CustomMemoryIndexer> indexes = Collections.synchronizedMap(new HashMap<String, CustomMemoryIndexer>());
+	private final NearRealTimeIndex index;
 	
 	private String indexName = null;
 	
-	private Date lastIndexed = new Date();
+	private volatile Date lastIndexed = new Date();
 	
 	public static CustomMemoryIndexer getIndex(String indexName) {
-		CustomMemoryIndexer indexer = indexes.get(indexName);
-		if (indexer == null) {
-			indexer = new CustomMemoryIndexer(indexName);
-			indexes.put(indexName, indexer);
+		synchronized (indexes) {
+			CustomMemoryIndexer indexer = indexes.get(indexName);
+			if (indexer == null) {
+				indexer = new CustomMemoryIndexer(indexName);
+				indexes.put(indexName, indexer);
+			}
+			return indexer;
 		}
-		return indexer;
 	}
 
 	private CustomMemoryIndexer(String indexName) {
 		// no external instances
 		this.indexName = indexName;
+		try {
+			this.index = new NearRealTimeIndex(new RAMDirectory());
+		} catch (IOException e) {
+			// not expected for a directory in memory
+			throw new IllegalStateException(e);
+		}
 	}
 	
 	public void clearIndex() throws IOException {
 
-		try {
-			synchronized (directory) {
-				
-				logger.debug("entering: clearIndex() : " + indexName); //$NON-NLS-1$
-				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				IndexWriterConfig config = null;
-				IndexWriter iwriter = null;
-				try {
-					config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
-					iwriter = new IndexWriter(directory, config);
-					iwriter.deleteAll();
-				} finally {
-					if (iwriter != null) {
-						iwriter.close();
-					}
-				}
-				logger.debug("exiting: clearIndex() : " + indexName); //$NON-NLS-1$
-			}
-		} catch (Exception e) {
-			throw new IOException(e);
-		}
+		logger.debug("entering: clearIndex() : " + indexName); //$NON-NLS-1$
+		
+		index.getWriter().deleteAll();
+		changed();
+		
+		logger.debug("exiting: clearIndex() : " + indexName); //$NON-NLS-1$
 	}
 
+	/**
+	 * The first documents with content matching the term
+	 * 
+	 * @param term
+	 * @return
+	 * @throws IOException
+	 */
 	public List<Document> search(String term) throws IOException {
+		return search(term, 0, NearRealTimeIndex.DEFAULT_LIMIT).getHits();
+	}
+
+	/**
+	 * A page of the documents with content matching the term
+	 * 
+	 * @param term
+	 * @param offset
+	 * @param limit
+	 * @return
+	 * @throws IOException
+	 */
+	public SearchResult<Document> search(String term, int offset, int limit) throws IOException {
+		return search(term, FIELD_CONTENT, offset, limit);
+	}
+
+	/**
+	 * A page of the documents matching the term
+	 * 
+	 * @param term
+	 * @param field
+	 *            the field searched by default
+	 * @param offset
+	 * @param limit
+	 * @return
+	 * @throws IOException
+	 */
+	public SearchResult<Document> search(String term, String field, int offset, int limit) throws IOException {
 		
-		List<Document> docs = new ArrayList<Document>();
+		logger.debug("entering: search(String term) : " + indexName); //$NON-NLS-1$
 		
+		SearchResult<Document> result;
 		try {
-			synchronized (directory) {
-				logger.debug("entering: search(String term) : " + indexName); //$NON-NLS-1$
-
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				// Now search the index:
-				IndexSearcher isearcher = null;
-				IndexReader ireader = null;
-				try {
-					ireader = IndexReader.open(directory);
-					isearcher = new IndexSearcher(ireader);
-					// Parse a simple query that searches for "text":
-					QueryParser parser = new QueryParser(Version.LUCENE_35, FIELD_CONTENT, analyzer);
-					Query query = parser.parse(term);
-					ScoreDoc[] hits = isearcher.search(query, null, 100).scoreDocs;
-					// Iterate through the results:
-					for (int i = 0; i < hits.length; i++) {
-					  Document hitDoc = isearcher.doc(hits[i].doc);
-					  docs.add(hitDoc);
-					}
-				} finally {
-					if (isearcher != null) {
-						isearcher.close();
-					}
-					if (ireader != null) {
-						ireader.close();
-					}
-				}
-				
-				logger.debug("exiting: search(String term) : " + indexName); //$NON-NLS-1$
-			}
+			Query query = index.parse(term, field);
+			result = index.search(query, null, null, offset, limit);
 		} catch (ParseException e) {
 			logger.debug(e.getMessage());
+			result = new SearchResult<Document>(0, offset, new ArrayList<Document>());
 		}
-		return docs;
+		
+		logger.debug("exiting: search(String term) : " + indexName); //$NON-NLS-1$
+		return result;
 	}
 
 	public Document createDocument(String id, String content)
@@ -144,96 +141,48 @@ public class CustomMemoryIndexer {
 	}
 	
 	public void indexDocument(Document document) throws IOException {
-		try {
-			synchronized (directory) {
-				
-				logger.debug("entering: indexDocument(Document document) : " + indexName); //$NON-NLS-1$
-				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				IndexWriterConfig config = null;
-				IndexWriter iwriter = null;
-				try {
-					config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
-					iwriter = new IndexWriter(directory, config);
-					iwriter.addDocument(document);
-					iwriter.commit();				
-					
-					lastIndexed = new Date();
-					
-				} finally {
-					if (iwriter != null) {
-						iwriter.close();
-					}
-				}
-				logger.debug("exiting: indexRepository(IRepository repository) : " + indexName); //$NON-NLS-1$
-			}
-		} catch (Exception e) {
-			throw new IOException(e);
-		}
+		
+		logger.debug("entering: indexDocument(Document document) : " + indexName); //$NON-NLS-1$
+		
+		index.getWriter().addDocument(document);
+		changed();
+		
+		logger.debug("exiting: indexDocument(Document document) : " + indexName); //$NON-NLS-1$
 	}
 	
 	public void deleteDocument(Document document) throws IOException {
-		try {
-			synchronized (directory) {
-				
-				logger.debug("entering: indexDocument(Document document) : " + indexName); //$NON-NLS-1$
-				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				IndexWriterConfig config = null;
-				IndexWriter iwriter = null;
-				try {
-					config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
-					iwriter = new IndexWriter(directory, config);
-					Term term = new Term(FIELD_ID, document.get(FIELD_ID));
-					iwriter.deleteDocuments(term);
-					iwriter.commit();				
-					
-					lastIndexed = new Date();
-					
-				} finally {
-					if (iwriter != null) {
-						iwriter.close();
-					}
-				}
-				logger.debug("exiting: indexRepository(IRepository repository) : " + indexName); //$NON-NLS-1$
-			}
-		} catch (Exception e) {
-			throw new IOException(e);
-		}
+		
+		logger.debug("entering: deleteDocument(Document document) : " + indexName); //$NON-NLS-1$
+		
+		Term term = new Term(FIELD_ID, document.get(FIELD_ID));
+		index.getWriter().deleteDocuments(term);
+		changed();
+		
+		logger.debug("exiting: deleteDocument(Document document) : " + indexName); //$NON-NLS-1$
 	}
 	
 	public void updateDocument(Document document) throws IOException {
-		try {
-			synchronized (directory) {
-				
-				logger.debug("entering: indexDocument(Document document) : " + indexName); //$NON-NLS-1$
-				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				IndexWriterConfig config = null;
-				IndexWriter iwriter = null;
-				try {
-					config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
-					iwriter = new IndexWriter(directory, config);
-					Term term = new Term(FIELD_ID, document.get(FIELD_ID));
-					iwriter.updateDocument(term, document);
-					iwriter.commit();				
-					
-					lastIndexed = new Date();
-					
-				} finally {
-					if (iwriter != null) {
-						iwriter.close();
-					}
-				}
-				logger.debug("exiting: indexRepository(IRepository repository) : " + indexName); //$NON-NLS-1$
-			}
-		} catch (Exception e) {
-			throw new IOException(e);
-		}
+		
+		logger.debug("entering: updateDocument(Document document) : " + indexName); //$NON-NLS-1$
+		
+		Term term = new Term(FIELD_ID, document.get(FIELD_ID));
+		index.getWriter().updateDocument(term, document);
+		changed();
+		
+		logger.debug("exiting: updateDocument(Document document) : " + indexName); //$NON-NLS-1$
 	}
 	
 	public Date getLastIndexed() {
 		return lastIndexed;
 	}
+
+	/**
+	 * The index is in memory, so there is nothing to commit - reopening the
+	 * searcher is enough for the change to be visible
+	 */
+	private void changed() throws IOException {
+		index.refresh();
+		lastIndexed = new Date();
+	}
 	
 }
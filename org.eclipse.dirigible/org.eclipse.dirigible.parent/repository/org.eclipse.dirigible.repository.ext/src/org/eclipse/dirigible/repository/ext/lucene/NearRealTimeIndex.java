@@ -0,0 +1,137 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.queryParser.QueryParser;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Version;
+
+/**
+ * A single long-lived writer of an index together with a shared searcher
+ * over it. The searcher is near-real-time - it is opened from the writer and
+ * reopened by {@link #refresh()} after the changes, so it sees them before
+ * they are committed. The searches do not take any lock, any number of them
+ * run concurrently with each other and with the indexing.
+ */
+class NearRealTimeIndex {
+
+	static final int DEFAULT_LIMIT = 100;
+
+	private static final String INVALID_PAGE = "Invalid page - offset: %d, limit: %d"; //$NON-NLS-1$
+
+	private final Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searcherManager;
+
+	private final Object refreshLock = new Object();
+
+	NearRealTimeIndex(Directory directory) throws IOException {
+		IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
+		config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+		this.writer = new IndexWriter(directory, config);
+		this.searcherManager = new SearcherManager(writer, true, null, null);
+	}
+
+	IndexWriter getWriter() {
+		return writer;
+	}
+
+	/**
+	 * Makes the changes done so far by the writer visible to the searches
+	 * started afterwards
+	 * 
+	 * @throws IOException
+	 */
+	void refresh() throws IOException {
+		// the manager skips the reopen if another one is in progress, which
+		// may have started before the last change
+		synchronized (refreshLock) {
+			searcherManager.maybeReopen();
+		}
+	}
+
+	/**
+	 * Commits the changes and makes them visible to the searches
+	 * 
+	 * @throws IOException
+	 */
+	void commit() throws IOException {
+		writer.commit();
+		refresh();
+	}
+
+	/**
+	 * Parses the term with the given field as a default one - other fields can
+	 * still be given in the term itself
+	 * 
+	 * @param term
+	 * @param field
+	 * @return
+	 * @throws ParseException
+	 */
+	Query parse(String term, String field) throws ParseException {
+		// the parser is not thread-safe
+		return new QueryParser(Version.LUCENE_35, field, analyzer).parse(term);
+	}
+
+	/**
+	 * A page of the matching documents, ordered by relevance
+	 * 
+	 * @param query
+	 * @param filter
+	 *            optional
+	 * @param fieldSelector
+	 *            the fields to load, all if null
+	 * @param offset
+	 * @param limit
+	 * @return
+	 * @throws IOException
+	 */
+	SearchResult<Document> search(Query query, Filter filter, FieldSelector fieldSelector, int offset, int limit)
+			throws IOException {
+		if ((offset < 0) || (limit <= 0) || (offset > Integer.MAX_VALUE - limit)) {
+			throw new IllegalArgumentException(String.format(INVALID_PAGE, offset, limit));
+		}
+		IndexSearcher searcher = searcherManager.acquire();
+		try {
+			TopDocs topDocs = searcher.search(query, filter, offset + limit);
+			ScoreDoc[] hits = topDocs.scoreDocs;
+			List<Document> documents = new ArrayList<Document>();
+			for (int i = offset; i < hits.length; i++) {
+				documents.add(searcher.doc(hits[i].doc, fieldSelector));
+			}
+			return new SearchResult<Document>(topDocs.totalHits, offset, documents);
+		} finally {
+			searcherManager.release(searcher);
+		}
+	}
+
+}
@@ -11,79 +11,144 @@
 
 package org.eclipse.dirigible.repository.ext.lucene;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
-import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.document.MapFieldSelector;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryParser.ParseException;
-import org.apache.lucene.queryParser.QueryParser;
-import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.PrefixFilter;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
-import org.apache.lucene.util.Version;
 
 import org.eclipse.dirigible.repository.api.ICollection;
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.ext.events.IRepositoryListener;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
 import org.eclipse.dirigible.repository.logging.Logger;
 
+/**
+ * Full-text index of the text resources of the repository. The index is kept
+ * up to date incrementally - the changes reported by the repository are
+ * applied in batches in the background, with a single commit per batch, and
+ * {@link #indexRepository(IRepository)} only re-reads the resources modified
+ * since they were indexed. The index is stored in a local directory, so it
+ * survives restarts. The searches share a searcher, reopened after each batch,
+ * and run concurrently with each other and with the indexing.
+ */
 public class RepositoryMemoryIndexer {
-	
-	private static final String FIELD_PATH = "path"; //$NON-NLS-1$
-	private static final String FIELD_NAME = "name"; //$NON-NLS-1$
-	private static final String FIELD_CONTENT = "content"; //$NON-NLS-1$
-	
+
+	/**
+	 * System property for the directory of the index - a directory under the
+	 * temporary one by default
+	 */
+	public static final String INDEX_DIRECTORY_PROPERTY = "dirigible.search.index.dir"; //$NON-NLS-1$
+
+	/**
+	 * System property for the delay in milliseconds, after which the reported
+	 * changes are indexed - the changes made meanwhile go in the same batch
+	 */
+	public static final String FLUSH_DELAY_PROPERTY = "dirigible.search.flush.delay"; //$NON-NLS-1$
+
+	public static final long DEFAULT_FLUSH_DELAY = 1000;
+
+	public static final String FIELD_PATH = "path"; //$NON-NLS-1$
+	public static final String FIELD_NAME = "name"; //$NON-NLS-1$
+	public static final String FIELD_CONTENT = "content"; //$NON-NLS-1$
+
+	private static final String FIELD_ID = "id"; //$NON-NLS-1$
+	private static final String FIELD_MODIFIED = "modified"; //$NON-NLS-1$
+
+	private static final Set<String> SEARCH_FIELDS = new HashSet<String>(Arrays.asList(FIELD_CONTENT, FIELD_NAME,
+			FIELD_PATH));
+
+	private static final FieldSelector PATH_SELECTOR = new MapFieldSelector(new String[] { FIELD_ID });
+
+	private static final String INDEX_DIRECTORY_FAILED = "Index directory %s could not be used, the index is kept in memory"; //$NON-NLS-1$
+
+	private static final String UNKNOWN_FIELD = "Unknown search field: %s"; //$NON-NLS-1$
+
 	private static final Logger logger = Logger.getLogger(RepositoryMemoryIndexer.class);
-	
-	private static Directory directory = new RAMDirectory();
-	private static List<String> indexedResources = new ArrayList<String>();
-	private static Date lastIndexed = new Date();
+
+	private static final Object writeLock = new Object();
+
+	private static volatile NearRealTimeIndex searchIndex;
+
+	/**
+	 * The indexed resources by path, with their modification time at indexing
+	 */
+	private static final ConcurrentMap<String, Long> indexedResources = new ConcurrentHashMap<String, Long>();
+
+	private static final ConcurrentMap<String, PendingChange> pendingChanges = new ConcurrentHashMap<String, PendingChange>();
+
+	private static final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private static ScheduledExecutorService executor;
+
+	static {
+		RepositoryListeners.addListener(new IndexingListener());
+	}
 
 	private RepositoryMemoryIndexer() {
 		// no external instances
 	}
 	
+	/**
+	 * Brings the index in line with the repository - indexes the text
+	 * resources modified since they were indexed and removes the ones which
+	 * do not exist anymore
+	 * 
+	 * @param repository
+	 * @throws IOException
+	 */
 	public static void indexRepository(IRepository repository) 
 			throws IOException {
 
 		try {
-			synchronized (directory) {
+			synchronized (writeLock) {
 				
 				logger.debug("entering: indexRepository(IRepository repository)"); //$NON-NLS-1$
 				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				IndexWriterConfig config = null;
-				IndexWriter iwriter = null;
-				try {
-					config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
-					iwriter = new IndexWriter(directory, config);
-					
-					ICollection collection = repository.getRoot();
-					indexCollection(iwriter, collection);
-					
-					lastIndexed = new Date();
-					
-				} finally {
-					if (iwriter != null) {
-						iwriter.close();
+				NearRealTimeIndex index = getIndex();
+				IndexWriter writer = index.getWriter();
+				Set<String> visited = new HashSet<String>();
+				indexCollection(writer, repository.getRoot(), visited);
+				for (Map.Entry<String, Long> entry : indexedResources.entrySet()) {
+					String path = entry.getKey();
+					// skipped if indexed again in the meantime
+					if (!visited.contains(path) && indexedResources.remove(path, entry.getValue())) {
+						writer.deleteDocuments(new Term(FIELD_ID, path));
 					}
 				}
+				index.commit();
+				
 				logger.debug("exiting: indexRepository(IRepository repository)"); //$NON-NLS-1$
 			}
+		} catch (IOException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new IOException(e);
 		}
@@ -92,132 +157,297 @@ public class RepositoryMemoryIndexer {
 	public static void clearIndex()
 			throws IOException {
 
-		try {
-			synchronized (directory) {
-				
-				logger.debug("entering: clearIndex()"); //$NON-NLS-1$
-				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				IndexWriterConfig config = null;
-				IndexWriter iwriter = null;
-				try {
-					config = new IndexWriterConfig(Version.LUCENE_35, analyzer);
-					iwriter = new IndexWriter(directory, config);
-					iwriter.deleteAll();
-				} finally {
-					if (iwriter != null) {
-						iwriter.close();
-					}
-				}
-				logger.debug("exiting: clearIndex()"); //$NON-NLS-1$
-			}
-		} catch (Exception e) {
-			throw new IOException(e);
+		synchronized (writeLock) {
+			
+			logger.debug("entering: clearIndex()"); //$NON-NLS-1$
+			
+			NearRealTimeIndex index = getIndex();
+			index.getWriter().deleteAll();
+			index.commit();
+			indexedResources.clear();
+			
+			logger.debug("exiting: clearIndex()"); //$NON-NLS-1$
 		}
 	}
 
+	/**
+	 * The paths of the first resources with content matching the term
+	 * 
+	 * @param term
+	 * @return
+	 * @throws IOException
+	 */
 	public static List<String> search(String term) 
 			throws IOException {
+		return search(term, FIELD_CONTENT, null, 0, NearRealTimeIndex.DEFAULT_LIMIT).getHits();
+	}
+
+	/**
+	 * A page of the paths of the resources matching the term
+	 * 
+	 * @param term
+	 * @param field
+	 *            the field searched by default - one of {@link #FIELD_CONTENT},
+	 *            {@link #FIELD_NAME} or {@link #FIELD_PATH}
+	 * @param pathPrefix
+	 *            optional, only the resources under it are searched
+	 * @param offset
+	 * @param limit
+	 * @return
+	 * @throws IOException
+	 */
+	public static SearchResult<String> search(String term, String field, String pathPrefix, int offset, int limit)
+			throws IOException {
 		
-		List<String> docs = new ArrayList<String>();
+		if (!SEARCH_FIELDS.contains(field)) {
+			throw new IllegalArgumentException(String.format(UNKNOWN_FIELD, field));
+		}
+		
+		logger.debug("entering: search(String term)"); //$NON-NLS-1$
 		
+		NearRealTimeIndex index = getIndex();
+		List<String> paths = new ArrayList<String>();
+		SearchResult<Document> result;
 		try {
-			synchronized (directory) {
-				
-				logger.debug("entering: search(String term)"); //$NON-NLS-1$
-				
-				Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_35);
-				// Now search the index:
-				IndexSearcher isearcher = null;
-				IndexReader ireader = null;
-				 
-				try {
-					ireader = IndexReader.open(directory);
-					isearcher = new IndexSearcher(ireader);
-					// Parse a simple query that searches for "text":
-					QueryParser parser = new QueryParser(Version.LUCENE_35, FIELD_CONTENT, analyzer);
-					Query query = parser.parse(term);
-					ScoreDoc[] hits = isearcher.search(query, null, 100).scoreDocs;
-					// Iterate through the results:
-					for (int i = 0; i < hits.length; i++) {
-					  Document hitDoc = isearcher.doc(hits[i].doc);
-					  docs.add(hitDoc.get(FIELD_PATH));
-					}
-				} finally {
-					if (isearcher != null) {
-						isearcher.close();
-					}
-					if (ireader != null) {
-						ireader.close();
-					}
-				}
-				
-				logger.debug("exiting: search(String term)"); //$NON-NLS-1$
-				
-			}
+			Query query = index.parse(term, field);
+			Filter filter = (pathPrefix != null) ? new PrefixFilter(new Term(FIELD_ID, pathPrefix)) : null;
+			result = index.search(query, filter, PATH_SELECTOR, offset, limit);
 		} catch (ParseException e) {
 			logger.debug(e.getMessage());
+			return new SearchResult<String>(0, offset, paths);
+		}
+		for (Document document : result.getHits()) {
+			paths.add(document.get(FIELD_ID));
+		}
+		
+		logger.debug("exiting: search(String term)"); //$NON-NLS-1$
+		return new SearchResult<String>(result.getTotalHits(), offset, paths);
+	}
+
+	/**
+	 * Indexes the changes reported so far, without waiting for the scheduled
+	 * batch
+	 * 
+	 * @throws IOException
+	 */
+	public static void flush() throws IOException {
+		synchronized (writeLock) {
+			NearRealTimeIndex index = getIndex();
+			boolean changed = false;
+			for (Map.Entry<String, PendingChange> entry : pendingChanges.entrySet()) {
+				// a change reported in the meantime is left for the next flush
+				if (!pendingChanges.remove(entry.getKey(), entry.getValue())) {
+					continue;
+				}
+				applyChange(index.getWriter(), entry.getKey(), entry.getValue());
+				changed = true;
+			}
+			if (changed) {
+				index.commit();
+			}
 		}
-		return docs;
 	}
 
-	private static void indexCollection(IndexWriter iwriter, ICollection collection) throws IOException {
+	private static void applyChange(IndexWriter writer, String path, PendingChange change) throws IOException {
+		removePath(writer, path);
+		if (change.removed) {
+			logger.debug("Removed from the index: " + path); //$NON-NLS-1$
+			return;
+		}
+		IResource resource = change.repository.getResource(path);
+		if (resource.exists()) {
+			indexResource(writer, resource, null);
+			return;
+		}
+		ICollection collection = change.repository.getCollection(path);
+		if (collection.exists()) {
+			indexCollection(writer, collection, null);
+		}
+	}
+
+	/**
+	 * Removes the documents of the resource at the path or of the resources
+	 * under it, if it is a collection
+	 */
+	private static void removePath(IndexWriter writer, String path) throws IOException {
+		String prefix = path.endsWith(IRepository.SEPARATOR) ? path : path + IRepository.SEPARATOR;
+		writer.deleteDocuments(new Term(FIELD_ID, path));
+		writer.deleteDocuments(new PrefixQuery(new Term(FIELD_ID, prefix)));
+		indexedResources.remove(path);
+		for (Map.Entry<String, Long> entry : indexedResources.entrySet()) {
+			if (entry.getKey().startsWith(prefix)) {
+				indexedResources.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private static void indexCollection(IndexWriter iwriter, ICollection collection, Set<String> visited)
+			throws IOException {
 		
 		logger.debug("entering: indexCollection(IndexWriter iwriter, ICollection collection)"); //$NON-NLS-1$
 		
 		List<IResource> resources = collection.getResources();
 		for (Iterator<IResource> iterator = resources.iterator(); iterator.hasNext();) {
 			IResource resource = iterator.next();
-			indexResource(iwriter, resource);
+			indexResource(iwriter, resource, visited);
 		}
 		List<ICollection> collections = collection.getCollections();
 		for (Iterator<ICollection> iterator = collections.iterator(); iterator.hasNext();) {
 			ICollection child = iterator.next();
-			indexCollection(iwriter, child);
+			indexCollection(iwriter, child, visited);
 		}
 		logger.debug("exiting: indexCollection(IndexWriter iwriter, ICollection collection)"); //$NON-NLS-1$
 	}
 
-	private static void indexResource(IndexWriter iwriter, IResource resource)
-			throws CorruptIndexException, IOException {
+	private static void indexResource(IndexWriter iwriter, IResource resource, Set<String> visited)
+			throws IOException {
 		
 		logger.debug("entering: indexResource(IndexWriter iwriter, IResource resource)"); //$NON-NLS-1$
 		
+		String path = resource.getPath();
 		if (!resource.isBinary()) {
-			if (!indexedResources.contains(resource.getPath())) {
-				logger.debug("Indexing resource: " + resource.getPath()); //$NON-NLS-1$
-				Document doc = createDocument(resource);
-				iwriter.addDocument(doc);
-				iwriter.commit();
-				logger.debug("Resource: " + resource.getPath() + " indexed successfully"); //$NON-NLS-1$ //$NON-NLS-2$
-				indexedResources.add(resource.getPath());
+			long modified = resource.getInformation().getModifiedAt().getTime();
+			Long indexed = indexedResources.get(path);
+			if ((indexed == null) || (indexed.longValue() != modified)) {
+				logger.debug("Indexing resource: " + path); //$NON-NLS-1$
+				iwriter.updateDocument(new Term(FIELD_ID, path), createDocument(resource, modified));
+				indexedResources.put(path, modified);
+				logger.debug("Resource: " + path + " indexed successfully"); //$NON-NLS-1$ //$NON-NLS-2$
 			} else {
-				if (lastIndexed.before(resource.getInformation().getModifiedAt())) {
-					logger.debug("Updating index for resource: " + resource.getPath()); //$NON-NLS-1$
-					Document doc = createDocument(resource);
-					Term term = new Term(FIELD_PATH, resource.getPath());
-					iwriter.updateDocument(term, doc);
-					iwriter.commit();
-					logger.debug("For resource: " + resource.getPath() + " index updated successfully"); //$NON-NLS-1$ //$NON-NLS-2$
-				} else {
-					logger.debug("Skip indexing for unmodified resource: " + resource.getPath()); //$NON-NLS-1$
-				}
+				logger.debug("Skip indexing for unmodified resource: " + path); //$NON-NLS-1$
+			}
+			if (visited != null) {
+				visited.add(path);
 			}
 		} else {
-			logger.debug("Skip indexing for binary resource: " + resource.getPath()); //$NON-NLS-1$
+			logger.debug("Skip indexing for binary resource: " + path); //$NON-NLS-1$
 		}
 		
 		logger.debug("exiting: indexResource(IndexWriter iwriter, IResource resource)"); //$NON-NLS-1$
 	}
 
-	private static Document createDocument(IResource resource)
-			throws UnsupportedEncodingException, IOException {
+	private static Document createDocument(IResource resource, long modified) throws IOException {
 		Document doc = new Document();
 		String text = new String(resource.getContent(), "UTF-8"); //$NON-NLS-1$
-		doc.add(new Field(FIELD_CONTENT, text, Field.Store.YES, Field.Index.ANALYZED));
+		doc.add(new Field(FIELD_ID, resource.getPath(), Field.Store.YES, Field.Index.NOT_ANALYZED));
+		doc.add(new Field(FIELD_CONTENT, text, Field.Store.NO, Field.Index.ANALYZED));
 		doc.add(new Field(FIELD_NAME, resource.getName(), Field.Store.YES, Field.Index.ANALYZED));
 		doc.add(new Field(FIELD_PATH, resource.getPath(), Field.Store.YES, Field.Index.ANALYZED));
+		doc.add(new Field(FIELD_MODIFIED, Long.toString(modified), Field.Store.YES, Field.Index.NO));
 		return doc;
 	}
+
+	/**
+	 * The single writer of the index and the shared searcher over it, opened
+	 * on first use together with the list of the already indexed resources.
+	 * Does not wait for the indexing in progress once opened.
+	 */
+	private static NearRealTimeIndex getIndex() throws IOException {
+		NearRealTimeIndex result = searchIndex;
+		if (result == null) {
+			synchronized (writeLock) {
+				result = searchIndex;
+				if (result == null) {
+					File indexDirectory = getIndexDirectory();
+					try {
+						result = new NearRealTimeIndex(FSDirectory.open(indexDirectory));
+					} catch (IOException e) {
+						// e.g. locked by another process
+						logger.warn(String.format(INDEX_DIRECTORY_FAILED, indexDirectory), e);
+						result = new NearRealTimeIndex(new RAMDirectory());
+					}
+					loadIndexedResources(result.getWriter());
+					searchIndex = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void loadIndexedResources(IndexWriter writer) throws IOException {
+		indexedResources.clear();
+		IndexReader reader = IndexReader.open(writer, true);
+		try {
+			MapFieldSelector selector = new MapFieldSelector(new String[] { FIELD_ID, FIELD_MODIFIED });
+			for (int i = 0; i < reader.maxDoc(); i++) {
+				if (!reader.isDeleted(i)) {
+					Document document = reader.document(i, selector);
+					String path = document.get(FIELD_ID);
+					String modified = document.get(FIELD_MODIFIED);
+					if ((path != null) && (modified != null)) {
+						indexedResources.put(path, Long.valueOf(modified));
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static File getIndexDirectory() {
+		String indexDirectory = System.getProperty(INDEX_DIRECTORY_PROPERTY);
+		if (indexDirectory == null) {
+			return new File(System.getProperty("java.io.tmpdir"), "dirigible" + File.separator + "search"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return new File(indexDirectory);
+	}
+
+	private static void scheduleChange(String path, PendingChange change) {
+		pendingChanges.put(path, change);
+		if (flushScheduled.compareAndSet(false, true)) {
+			getExecutor().schedule(new Runnable() {
+				@Override
+				public void run() {
+					flushScheduled.set(false);
+					try {
+						flush();
+					} catch (Exception e) {
+						logger.error(e.getMessage(), e);
+					}
+				}
+			}, Long.getLong(FLUSH_DELAY_PROPERTY, DEFAULT_FLUSH_DELAY), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private static synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Dirigible Search Indexer"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private static class PendingChange {
+
+		private final IRepository repository;
+
+		private final boolean removed;
+
+		PendingChange(IRepository repository, boolean removed) {
+			this.repository = repository;
+			this.removed = removed;
+		}
+
+	}
+
+	private static class IndexingListener implements IRepositoryListener {
+
+		@Override
+		public void changed(IRepository repository, String path) {
+			scheduleChange(path, new PendingChange(repository, false));
+		}
+
+		@Override
+		public void removed(IRepository repository, String path) {
+			scheduleChange(path, new PendingChange(repository, true));
+		}
+
+	}
 	
 }
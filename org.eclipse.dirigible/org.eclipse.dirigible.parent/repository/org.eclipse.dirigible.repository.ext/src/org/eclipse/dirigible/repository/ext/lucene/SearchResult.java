@@ -0,0 +1,57 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.lucene;
+
+import java.util.List;
+
+/**
+ * A page of the hits of a search
+ * 
+ * @param <T>
+ *            the type of the hits
+ */
+public class SearchResult<T> {
+
+	private final int totalHits;
+
+	private final int offset;
+
+	private final List<T> hits;
+
+	public SearchResult(int totalHits, int offset, List<T> hits) {
+		this.totalHits = totalHits;
+		this.offset = offset;
+		this.hits = hits;
+	}
+
+	/**
+	 * The number of all the matches, not only the ones on this page
+	 * 
+	 * @return
+	 */
+	public int getTotalHits() {
+		return totalHits;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public List<T> getHits() {
+		return hits;
+	}
+
+	public boolean hasMore() {
+		return offset + hits.size() < totalHits;
+	}
+
+}
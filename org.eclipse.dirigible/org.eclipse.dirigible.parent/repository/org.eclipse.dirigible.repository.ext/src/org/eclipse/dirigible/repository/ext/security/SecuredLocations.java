@@ -0,0 +1,217 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.repository.ext.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+
+/**
+ * Immutable index of the secured locations and their roles, for the lookups
+ * done on each request. The locations are kept in a character trie, so both
+ * the check whether a location is secured and the search of its roles walk
+ * the location once, without allocations and without database access.
+ */
+public class SecuredLocations {
+
+	public static final SecuredLocations EMPTY = new SecuredLocations(new TreeMap<String, List<String>>());
+
+	private static final char SEPARATOR = IRepository.SEPARATOR.charAt(0);
+
+	private final Map<String, List<String>> locations;
+
+	private final Node root;
+
+	private SecuredLocations(TreeMap<String, List<String>> locations) {
+		this.locations = Collections.unmodifiableMap(locations);
+		BuilderNode builder = new BuilderNode();
+		for (Map.Entry<String, List<String>> entry : locations.entrySet()) {
+			builder.add(entry.getKey(), entry.getValue());
+		}
+		this.root = builder.build();
+	}
+
+	/**
+	 * Builds the index out of the access list of the {@link SecurityManager}
+	 * 
+	 * @param accessList
+	 * @return
+	 */
+	public static SecuredLocations build(List<SecurityLocationMetadata> accessList) {
+		TreeMap<String, List<String>> locations = new TreeMap<String, List<String>>();
+		for (SecurityLocationMetadata metadata : accessList) {
+			if (metadata.getLocation() == null) {
+				continue;
+			}
+			List<String> roles = locations.get(metadata.getLocation());
+			if (roles == null) {
+				roles = new ArrayList<String>();
+				locations.put(metadata.getLocation(), roles);
+			}
+			for (String role : metadata.getRoles()) {
+				if (!roles.contains(role)) {
+					roles.add(role);
+				}
+			}
+		}
+		for (Map.Entry<String, List<String>> entry : locations.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return new SecuredLocations(locations);
+	}
+
+	/**
+	 * Whether the location starts with any of the secured locations
+	 * 
+	 * @param location
+	 * @return
+	 */
+	public boolean isSecured(String location) {
+		Node node = root;
+		for (int i = 0; i < location.length(); i++) {
+			if (node.roles != null) {
+				return true;
+			}
+			node = node.getChild(location.charAt(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.roles != null;
+	}
+
+	/**
+	 * The roles of the longest secured location which is the location itself
+	 * or one of its parent folders, or an empty list if there is no such
+	 * location
+	 * 
+	 * @param location
+	 * @return
+	 */
+	public List<String> getRoles(String location) {
+		List<String> roles = Collections.emptyList();
+		Node node = root;
+		for (int i = 0;; i++) {
+			if ((node.roles != null) && (i > 0)
+					&& ((i == location.length()) || (location.charAt(i) == SEPARATOR))) {
+				roles = node.roles;
+			}
+			if (i == location.length()) {
+				return roles;
+			}
+			node = node.getChild(location.charAt(i));
+			if (node == null) {
+				return roles;
+			}
+		}
+	}
+
+	/**
+	 * The secured locations in alphabetical order, mapped to their roles
+	 * 
+	 * @return
+	 */
+	public Map<String, List<String>> getLocations() {
+		return locations;
+	}
+
+	public int size() {
+		return locations.size();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SecuredLocations)) {
+			return false;
+		}
+		return locations.equals(((SecuredLocations) obj).locations);
+	}
+
+	@Override
+	public int hashCode() {
+		return locations.hashCode();
+	}
+
+	private static class Node {
+
+		private static final char[] NO_KEYS = new char[0];
+
+		private char[] keys = NO_KEYS;
+
+		private Node[] children;
+
+		private List<String> roles;
+
+		Node getChild(char key) {
+			int low = 0;
+			int high = keys.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				char middleKey = keys[middle];
+				if (middleKey < key) {
+					low = middle + 1;
+				} else if (middleKey > key) {
+					high = middle - 1;
+				} else {
+					return children[middle];
+				}
+			}
+			return null;
+		}
+
+	}
+
+	private static class BuilderNode {
+
+		private final TreeMap<Character, BuilderNode> children = new TreeMap<Character, BuilderNode>();
+
+		private List<String> roles;
+
+		void add(String location, List<String> locationRoles) {
+			BuilderNode node = this;
+			for (int i = 0; i < location.length(); i++) {
+				BuilderNode child = node.children.get(location.charAt(i));
+				if (child == null) {
+					child = new BuilderNode();
+					node.children.put(location.charAt(i), child);
+				}
+				node = child;
+			}
+			node.roles = locationRoles;
+		}
+
+		Node build() {
+			Node node = new Node();
+			node.roles = roles;
+			if (!children.isEmpty()) {
+				node.keys = new char[children.size()];
+				node.children = new Node[children.size()];
+				int i = 0;
+				for (Map.Entry<Character, BuilderNode> entry : children.entrySet()) {
+					node.keys[i] = entry.getKey();
+					node.children[i] = entry.getValue().build();
+					i++;
+				}
+			}
+			return node;
+		}
+
+	}
+
+}
@@ -19,6 +19,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.sql.DataSource;
@@ -57,6 +58,8 @@ public class SecurityManager {
 
 	private static SecurityManager instance;
 
+	private static final List<Runnable> changeListeners = new CopyOnWriteArrayList<Runnable>();
+
 	private DataSource dataSource;
 
 	private IRepository repository;
@@ -77,6 +80,26 @@ public class SecurityManager {
 		this.dbUtils = new DBUtils(dataSource);
 	}
 
+	/**
+	 * Registers a callback, which is run after each change of the access list
+	 * made through the security manager
+	 * 
+	 * @param listener
+	 */
+	public static void addChangeListener(Runnable listener) {
+		changeListeners.add(listener);
+	}
+
+	public static void removeChangeListener(Runnable listener) {
+		changeListeners.remove(listener);
+	}
+
+	private static void fireChanged() {
+		for (Runnable listener : changeListeners) {
+			listener.run();
+		}
+	}
+
 	public IRepository getRepository() {
 		return this.repository;
 	}
@@ -151,6 +174,7 @@ public class SecurityManager {
 				logger.error(DATABASE_ERROR, e);
 			}
 		}
+		fireChanged();
 	}
 
 	public void secureLocationWithRole(String location, String roleName,
@@ -172,6 +196,7 @@ public class SecurityManager {
 				logger.error(DATABASE_ERROR, e);
 			}
 		}
+		fireChanged();
 	}
 
 	public void unsecureLocation(String location) throws SecurityException {
@@ -195,6 +220,7 @@ public class SecurityManager {
 				logger.error(DATABASE_ERROR, e);
 			}
 		}
+		fireChanged();
 	}
 
 	public void unsecureLocationForRole(String location, String roleName)
@@ -219,6 +245,7 @@ public class SecurityManager {
 				logger.error(DATABASE_ERROR, e);
 			}
 		}
+		fireChanged();
 	}
 
 	private List<String> getSecuredLocations(Connection connection)
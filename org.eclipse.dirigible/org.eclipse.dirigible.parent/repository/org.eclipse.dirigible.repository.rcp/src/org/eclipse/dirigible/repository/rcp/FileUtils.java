@@ -14,9 +14,14 @@ package org.eclipse.dirigible.repository.rcp;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 
 import org.eclipse.dirigible.repository.api.IRepositoryPaths;
@@ -36,6 +41,46 @@ public class FileUtils {
 		return Files.readAllBytes(path);
 	}
 	
+	/**
+	 * Opens a stream reading the file from the given position on
+	 * 
+	 * @param workspacePath
+	 * @param offset
+	 * @return
+	 * @throws IOException
+	 */
+	public static InputStream openFile(String workspacePath, long offset)
+			throws IOException {
+		Path path = FileSystems.getDefault().getPath(workspacePath);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			channel.position(offset);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return Channels.newInputStream(channel);
+	}
+
+	/**
+	 * Opens a stream replacing the content of the file
+	 * 
+	 * @param workspacePath
+	 * @return
+	 * @throws IOException
+	 */
+	public static OutputStream openFileForWrite(String workspacePath)
+			throws IOException {
+		createFoldersIfNecessary(workspacePath);
+		Path path = FileSystems.getDefault().getPath(workspacePath);
+		return Files.newOutputStream(path);
+	}
+
+	public static long getFileLength(String workspacePath) throws IOException {
+		Path path = FileSystems.getDefault().getPath(workspacePath);
+		return Files.size(path);
+	}
+
 	public static void moveFile(String workspacePathOld, String workspacePathNew)
 			throws FileNotFoundException, IOException {
 		createFoldersIfNecessary(workspacePathNew);
@@ -11,6 +11,7 @@
 
 package org.eclipse.dirigible.repository.rcp;
 
+import java.io.InputStream;
 import java.util.Arrays;
 
 /**
@@ -51,6 +52,21 @@ public class RCPFile extends RCPObject {
 		getRepository().getRepositoryDAO().setFileContent(this, content);
 	}
 
+	/**
+	 * Opens a stream over the content starting at the given position
+	 * 
+	 * @param offset
+	 * @return
+	 * @throws RCPBaseException
+	 */
+	public InputStream getDataStream(long offset) throws RCPBaseException {
+		return getRepository().getRepositoryDAO().getFileContentStream(this, offset);
+	}
+
+	public long getDataLength() throws RCPBaseException {
+		return getRepository().getRepositoryDAO().getFileContentLength(this);
+	}
+
 	public boolean isBinary() {
 		return binary;
 	}
@@ -13,6 +13,8 @@ package org.eclipse.dirigible.repository.rcp;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -68,6 +70,33 @@ public class RCPRepositoryDAO {
 		}
 	}
 
+	public InputStream getFileContentStream(RCPFile rcpFile, long offset) {
+		try {
+			String workspacePath = RCPWorkspaceMapper.getMappedName(rcpFile.getPath());
+			return FileUtils.openFile(workspacePath, offset);
+		} catch (IOException e) {
+			throw new RCPBaseException(e);
+		}
+	}
+
+	public long getFileContentLength(RCPFile rcpFile) {
+		try {
+			String workspacePath = RCPWorkspaceMapper.getMappedName(rcpFile.getPath());
+			return FileUtils.getFileLength(workspacePath);
+		} catch (IOException e) {
+			throw new RCPBaseException(e);
+		}
+	}
+
+	public OutputStream openFileContentForWrite(String path) {
+		try {
+			String workspacePath = RCPWorkspaceMapper.getMappedName(path);
+			return FileUtils.openFileForWrite(workspacePath);
+		} catch (IOException e) {
+			throw new RCPBaseException(e);
+		}
+	}
+
 	public void renameFile(String path, String newPath) {
 		
 		try {
@@ -14,8 +14,11 @@ package org.eclipse.dirigible.repository.rcp;
 import static java.text.MessageFormat.format;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
+import org.apache.commons.io.input.BoundedInputStream;
 import org.eclipse.dirigible.repository.api.IResource;
 import org.eclipse.dirigible.repository.api.IResourceVersion;
 import org.eclipse.dirigible.repository.api.RepositoryPath;
@@ -137,6 +140,59 @@ public class RCPResource extends RCPEntity implements IResource {
 		}
 	}
 
+	@Override
+	public InputStream openInputStream() throws IOException {
+		final RCPFile document = getDocumentSafe();
+		try {
+			return document.getDataStream(0);
+		} catch (RCPBaseException ex) {
+			throw new IOException(COULD_NOT_READ_RESOURCE_CONTENT, ex);
+		}
+	}
+
+	@Override
+	public InputStream openInputStream(long offset, long length)
+			throws IOException {
+		final RCPFile document = getDocumentSafe();
+		try {
+			return new BoundedInputStream(document.getDataStream(offset), length);
+		} catch (RCPBaseException ex) {
+			throw new IOException(COULD_NOT_READ_RESOURCE_CONTENT, ex);
+		}
+	}
+
+	@Override
+	public long getContentLength() throws IOException {
+		final RCPFile document = getDocumentSafe();
+		try {
+			return document.getDataLength();
+		} catch (RCPBaseException ex) {
+			throw new IOException(COULD_NOT_READ_RESOURCE_CONTENT, ex);
+		}
+	}
+
+	@Override
+	public OutputStream openOutputStream() throws IOException {
+		return openOutputStream(this.binary, this.contentType);
+	}
+
+	@Override
+	public OutputStream openOutputStream(boolean isBinary, String contentType)
+			throws IOException {
+
+		this.binary = isBinary;
+		this.contentType = contentType;
+
+		if (!exists()) {
+			createAncestorsIfMissing();
+		}
+		try {
+			return getRepository().getRepositoryDAO().openFileContentForWrite(getPath());
+		} catch (RCPBaseException ex) {
+			throw new IOException(COULD_NOT_UPDATE_DOCUMENT, ex);
+		}
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == null) {
@@ -13,12 +13,15 @@ package org.eclipse.dirigible.repository.zip;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.dirigible.repository.api.ICollection;
 import org.eclipse.dirigible.repository.api.IEntity;
 import org.eclipse.dirigible.repository.api.IRepository;
@@ -46,9 +49,29 @@ public class ZipExporter {
 			List<String> relativeRoots) throws IOException {
 
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		exportZip(repository, relativeRoots, baos);
+		byte[] result = baos.toByteArray();
+		return result;
+	}
+
+	/**
+	 * Export all the content under the given path(s) with the target repository
+	 * instance directly to the given output stream. Include the last segment of
+	 * the relative roots during the archiving. The content of the resources is
+	 * streamed, so the memory used does not depend on the size of the exported
+	 * content.
+	 * 
+	 * @param repository
+	 * @param relativeRoots
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void exportZip(IRepository repository,
+			List<String> relativeRoots, OutputStream out) throws IOException {
+
 		ZipOutputStream zipOutputStream = null;
 		try {
-			zipOutputStream = new ZipOutputStream(baos);
+			zipOutputStream = new ZipOutputStream(out);
 
 			for (Iterator<String> iterator = relativeRoots.iterator(); iterator
 					.hasNext();) {
@@ -66,9 +89,7 @@ public class ZipExporter {
 										relativeRoot.length()
 												- iResource.getName().length()));
 						zipOutputStream.putNextEntry(zipEntry);
-						zipOutputStream
-								.write((iResource.getContent() == null ? "" //$NON-NLS-1$
-										.getBytes() : iResource.getContent()));
+						writeContent(zipOutputStream, iResource);
 						zipOutputStream.closeEntry();
 					} else {
 						throw new IOException(String.format(
@@ -83,9 +104,6 @@ public class ZipExporter {
 				zipOutputStream.close();
 			}
 		}
-
-		byte[] result = baos.toByteArray();
-		return result;
 	}
 
 	/**
@@ -164,10 +182,19 @@ public class ZipExporter {
 			IResource iResource = iterator.next();
 			zipEntry = new ZipEntry(iResource.getPath().substring(substring));
 			zipOutputStream.putNextEntry(zipEntry);
-			zipOutputStream.write((iResource.getContent() == null ? "" //$NON-NLS-1$
-					.getBytes() : iResource.getContent()));
+			writeContent(zipOutputStream, iResource);
 			zipOutputStream.closeEntry();
 		}
 	}
 
+	private static void writeContent(ZipOutputStream zipOutputStream,
+			IResource resource) throws IOException {
+		InputStream in = resource.openInputStream();
+		try {
+			IOUtils.copyLarge(in, zipOutputStream);
+		} finally {
+			in.close();
+		}
+	}
+
 }
@@ -0,0 +1,159 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.registry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
+
+public class HttpContentUtilsTest {
+
+	@Test
+	public void testParseRange() {
+		assertArrayEquals(new long[] { 0, 99 }, HttpContentUtils.parseRange("bytes=0-99", 1000)); //$NON-NLS-1$
+		assertArrayEquals(new long[] { 900, 999 }, HttpContentUtils.parseRange("bytes=900-", 1000)); //$NON-NLS-1$
+		assertArrayEquals(new long[] { 950, 999 }, HttpContentUtils.parseRange("bytes=-50", 1000)); //$NON-NLS-1$
+		assertArrayEquals(new long[] { 500, 999 }, HttpContentUtils.parseRange("bytes=500-5000", 1000)); //$NON-NLS-1$
+		assertEquals(0, HttpContentUtils.parseRange("bytes=0-1,5-6", 1000).length); //$NON-NLS-1$
+		assertEquals(0, HttpContentUtils.parseRange("items=0-1", 1000).length); //$NON-NLS-1$
+		assertNull(HttpContentUtils.parseRange("bytes=1000-", 1000)); //$NON-NLS-1$
+		assertNull(HttpContentUtils.parseRange("bytes=20-10", 1000)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testETags() throws Exception {
+		String etag = HttpContentUtils.getETag("content".getBytes()); //$NON-NLS-1$
+		assertTrue(etag.startsWith("\"") && etag.endsWith("\"")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(etag, HttpContentUtils.getETag(new ByteArrayInputStream("content".getBytes()))); //$NON-NLS-1$
+		assertFalse(etag.equals(HttpContentUtils.getETag("other content".getBytes()))); //$NON-NLS-1$
+		String gzipETag = HttpContentUtils.getGzipETag(etag);
+		assertTrue(gzipETag.endsWith("-gz\"")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testCompression() throws Exception {
+		assertTrue(HttpContentUtils.isCompressible("text/html; charset=UTF-8")); //$NON-NLS-1$
+		assertTrue(HttpContentUtils.isCompressible("application/javascript")); //$NON-NLS-1$
+		assertTrue(HttpContentUtils.isCompressible("image/svg+xml")); //$NON-NLS-1$
+		assertFalse(HttpContentUtils.isCompressible("image/png")); //$NON-NLS-1$
+		assertFalse(HttpContentUtils.isCompressible(null));
+
+		byte[] content = new byte[10000];
+		byte[] gzipped = HttpContentUtils.gzip(content);
+		assertTrue(gzipped.length < content.length);
+		ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+		IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(gzipped)), unzipped);
+		assertArrayEquals(content, unzipped.toByteArray());
+	}
+
+	@Test
+	public void testGzippedVariantsCache() throws Exception {
+		byte[] content = new byte[10000];
+		byte[] other = new byte[20000];
+		// room for one of them only
+		StaticContentCache cache = new StaticContentCache(10, HttpContentUtils.gzip(content).length
+				+ HttpContentUtils.gzip(other).length - 1);
+		String etag = HttpContentUtils.getETag(content);
+		byte[] gzipped = cache.getGzipped(etag, content);
+		assertSame(gzipped, cache.getGzipped(etag, content));
+		assertEquals(gzipped.length, cache.getSize());
+
+		cache.getGzipped(HttpContentUtils.getETag(other), other);
+		assertEquals(HttpContentUtils.gzip(other).length, cache.getSize());
+		assertNotSame(gzipped, cache.getGzipped(etag, content));
+	}
+
+	@Test
+	public void testResourceETagsCache() throws Exception {
+		DataSource dataSource = DataSourceUtils.createLocal();
+		IRepository repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		IResource resource = repository.createResource("/db/dirigible/registry/etag/image.png", //$NON-NLS-1$
+				new byte[] { 1, 2, 3 }, true, "image/png"); //$NON-NLS-1$
+		try {
+			StaticContentCache cache = new StaticContentCache(10, 100);
+			assertNull(cache.getETag(resource));
+			assertArrayEquals(new byte[] { 1, 2, 3 }, stream(cache, resource));
+			String etag = cache.getETag(resource);
+			assertEquals(HttpContentUtils.getETag(new byte[] { 1, 2, 3 }), etag);
+			assertEquals(1, cache.getVersionsCount());
+			assertSame(etag, cache.getETag(resource));
+
+			Thread.sleep(10);
+			resource.setContent(new byte[] { 4, 5, 6, 7 });
+			assertNull(cache.getETag(resource));
+			// not read to the end
+			InputStream in = cache.openInputStream(resource);
+			in.read();
+			in.close();
+			assertNull(cache.getETag(resource));
+			stream(cache, resource);
+			assertEquals(HttpContentUtils.getETag(new byte[] { 4, 5, 6, 7 }), cache.getETag(resource));
+		} finally {
+			resource.delete();
+		}
+	}
+
+	private static byte[] stream(StaticContentCache cache, IResource resource) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = cache.openInputStream(resource);
+		try {
+			IOUtils.copy(in, out);
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testBuiltContentETagsCache() throws Exception {
+		DataSource dataSource = DataSourceUtils.createLocal();
+		IRepository repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		IResource resource = repository.createResource("/db/dirigible/registry/etag/page.html", //$NON-NLS-1$
+				"page".getBytes()); //$NON-NLS-1$
+		try {
+			StaticContentCache cache = new StaticContentCache(10, 100);
+			String key = "servlet:" + resource.getPath(); //$NON-NLS-1$
+			assertNull(cache.getETag(key, resource));
+			String etag = HttpContentUtils.getETag("<p>page</p>".getBytes()); //$NON-NLS-1$
+			cache.putETag(key, resource, etag);
+			assertSame(etag, cache.getETag(key, resource));
+			assertNull(cache.getETag(key + "?nohf", resource)); //$NON-NLS-1$
+
+			Thread.sleep(10);
+			resource.setContent("changed".getBytes()); //$NON-NLS-1$
+			assertNull(cache.getETag(key, resource));
+		} finally {
+			resource.delete();
+		}
+	}
+
+}
@@ -0,0 +1,201 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.runtime.scripting.AbstractStorageUtils;
+import org.eclipse.dirigible.runtime.scripting.utils.ChunkedStorageUtils;
+import org.eclipse.dirigible.runtime.scripting.utils.ChunkedStorageUtils.ChunkedStorageFile;
+import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
+
+public class ChunkedStorageUtilsTest {
+
+	private static final String PATH = "/a/b/c";
+	private static final String OTHER_PATH = "/a/b/d";
+	private static final String CONTENT_TYPE = "application/pdf";
+	private static final int CHUNK_SIZE = 1024;
+
+	private DataSource dataSource;
+
+	private ChunkedStorageUtils storage;
+
+	@Before
+	public void setUp() throws Exception {
+		System.setProperty(ChunkedStorageUtils.CHUNK_SIZE_PROPERTY, Integer.toString(CHUNK_SIZE));
+		dataSource = DataSourceUtils.createLocal();
+		storage = new ChunkedStorageUtils(dataSource);
+		storage.clear();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		storage.clear();
+		System.clearProperty(ChunkedStorageUtils.CHUNK_SIZE_PROPERTY);
+	}
+
+	@Test
+	public void testPutBiggerThanSimpleStorage() throws Exception {
+		System.setProperty(ChunkedStorageUtils.CHUNK_SIZE_PROPERTY, Integer.toString(64 * 1024));
+		byte[] data = createData(AbstractStorageUtils.MAX_STORAGE_FILE_SIZE_IN_BYTES + 12345, 1);
+		storage.put(PATH, new ByteArrayInputStream(data), CONTENT_TYPE);
+		ChunkedStorageFile file = storage.getInfo(PATH);
+		assertEquals(data.length, file.size);
+		assertEquals(CONTENT_TYPE, file.contentType);
+		assertArrayEquals(data, storage.get(PATH));
+	}
+
+	@Test
+	public void testRangeRead() throws Exception {
+		byte[] data = createData(CHUNK_SIZE * 5 + 100, 2);
+		storage.put(PATH, data, CONTENT_TYPE);
+		assertArrayEquals(Arrays.copyOfRange(data, 1000, 3100), read(PATH, 1000, 2100));
+		assertArrayEquals(Arrays.copyOfRange(data, CHUNK_SIZE * 2, CHUNK_SIZE * 3), read(PATH, CHUNK_SIZE * 2, CHUNK_SIZE));
+		// beyond the end
+		assertArrayEquals(Arrays.copyOfRange(data, data.length - 10, data.length), read(PATH, data.length - 10, 1000));
+		assertEquals(0, read(PATH, data.length, 10).length);
+	}
+
+	@Test
+	public void testIdenticalChunksAreStoredOnce() throws Exception {
+		byte[] data = createData(CHUNK_SIZE * 4, 3);
+		storage.put(PATH, data, CONTENT_TYPE);
+		storage.put(OTHER_PATH, data, CONTENT_TYPE);
+		assertEquals(4, countChunks());
+		assertEquals(storage.getInfo(PATH).hash, storage.getInfo(OTHER_PATH).hash);
+
+		storage.delete(PATH);
+		assertFalse(storage.exists(PATH));
+		assertEquals(4, countChunks());
+		assertArrayEquals(data, storage.get(OTHER_PATH));
+
+		storage.delete(OTHER_PATH);
+		assertEquals(0, countChunks());
+	}
+
+	@Test
+	public void testOverwriteReleasesChunks() throws Exception {
+		byte[] data = createData(CHUNK_SIZE * 3, 4);
+		storage.put(PATH, data, CONTENT_TYPE);
+		// only the last chunk differs
+		byte[] changed = data.clone();
+		changed[changed.length - 1]++;
+		storage.put(PATH, changed, CONTENT_TYPE);
+		assertEquals(3, countChunks());
+		assertArrayEquals(changed, storage.get(PATH));
+	}
+
+	@Test
+	public void testConcurrentWritersOfTheSameNewChunk() throws Exception {
+		final int writers = 4;
+		final int rounds = 20;
+		for (int round = 0; round < rounds; round++) {
+			final byte[] data = createData(CHUNK_SIZE, 100 + round);
+			final CyclicBarrier barrier = new CyclicBarrier(writers);
+			final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < writers; i++) {
+				final String path = PATH + round + "/" + i; //$NON-NLS-1$
+				Thread thread = new Thread() {
+					@Override
+					public void run() {
+						try {
+							barrier.await();
+							storage.put(path, data, CONTENT_TYPE);
+						} catch (Exception e) {
+							failures.add(e);
+						}
+					}
+				};
+				thread.start();
+				threads.add(thread);
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			if (!failures.isEmpty()) {
+				throw failures.get(0);
+			}
+			assertEquals(round + 1, countChunks());
+		}
+		// every writer has referenced the chunk once
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i < writers; i++) {
+				storage.delete(PATH + round + "/" + i); //$NON-NLS-1$
+			}
+		}
+		assertEquals(0, countChunks());
+	}
+
+	@Test
+	public void testMissingAndEmpty() throws Exception {
+		assertNull(storage.get(PATH));
+		assertNull(storage.openInputStream(PATH));
+		storage.put(PATH, new byte[0], CONTENT_TYPE);
+		assertTrue(storage.exists(PATH));
+		assertEquals(0, storage.get(PATH).length);
+	}
+
+	private byte[] read(String path, long offset, long length) throws Exception {
+		InputStream in = storage.openInputStream(path, offset, length);
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private int countChunks() throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM DGB_STORAGE_CHUNKS"); //$NON-NLS-1$
+			resultSet.next();
+			int count = resultSet.getInt(1);
+			statement.close();
+			return count;
+		} finally {
+			connection.close();
+		}
+	}
+
+	private static byte[] createData(int size, long seed) {
+		byte[] data = new byte[size];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+}
@@ -11,19 +11,25 @@
 
 package org.eclipse.dirigible.runtime.scripts;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import javax.sql.DataSource;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mozilla.javascript.Script;
 
 import org.eclipse.dirigible.repository.api.ICommonConstants;
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
+import org.eclipse.dirigible.runtime.js.CompiledScriptCache;
 import org.eclipse.dirigible.runtime.js.JavaScriptExecutor;
 import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
 
@@ -66,6 +72,13 @@ public class JavaScriptExecutorTest {
 					REPOSITORY_JS_DEPLOY_PATH + "/testDefaultObjects.js", //$NON-NLS-1$
 					(" var testDefaultObjects = function() { return (datasource !== null) ? true : false}; testDefaultObjects();") //$NON-NLS-1$
 							.getBytes());
+			repository
+			.createResource(
+					REPOSITORY_JS_DEPLOY_PATH + "/testLazyObjects.js", //$NON-NLS-1$
+					("var created = (context.get('db') === null) && (db !== null) && (context.get('db') !== null); " //$NON-NLS-1$
+							+ "var url = 'shadowed'; " //$NON-NLS-1$
+							+ "created && (context.get('storage') === null) && (url === 'shadowed');") //$NON-NLS-1$
+							.getBytes());
 			
 			
 			
@@ -143,5 +156,93 @@ public class JavaScriptExecutorTest {
 			e.printStackTrace();
 		}
 	}
+	
+	@Test
+	public void testCompiledScriptCache() {
+		JavaScriptExecutor executor = new JavaScriptExecutor(repository,
+				REPOSITORY_JS_DEPLOY_PATH, null);
+		try {
+			CompiledScriptCache cache = CompiledScriptCache.getInstance();
+			executor.executeServiceModule(null, null, "/testExports.js", null); //$NON-NLS-1$
+			long hits = cache.getHits();
+			Object object = executor.executeServiceModule(null, null,
+					"/testExports.js", null); //$NON-NLS-1$
+			assertTrue(((Double) object) == 11);
+			assertTrue(cache.getHits() > hits);
+			
+			// re-published library has to be compiled again
+			repository.getResource(REPOSITORY_JS_DEPLOY_PATH + "/test/testLibrary.js").setContent( //$NON-NLS-1$
+					("exports.add = function(a,b) {return a+b+1};").getBytes()); //$NON-NLS-1$
+			object = executor.executeServiceModule(null, null,
+					"/testExports.js", null); //$NON-NLS-1$
+			assertTrue(((Double) object) == 12);
+
+			// dropped as soon as the repository reports the change
+			int size = cache.size();
+			RepositoryListeners.fireChanged(repository, REPOSITORY_JS_DEPLOY_PATH + "/test/testLibrary.js"); //$NON-NLS-1$
+			assertEquals(size - 1, cache.size());
+
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), false);
+			e.printStackTrace();
+		}
+	}
+	
+	@Test
+	public void testExecuteOptimized() {
+		System.setProperty(JavaScriptExecutor.OPTIMIZATION_LEVEL_PROPERTY, "9"); //$NON-NLS-1$
+		JavaScriptExecutor executor = new JavaScriptExecutor(repository,
+				REPOSITORY_SANDBOX_DEPLOY_PATH, REPOSITORY_JS_DEPLOY_PATH);
+		try {
+			// the sandbox module is interpreted, the registry library is compiled
+			Object object = executor.executeServiceModule(null, null,
+					"/testSumSandbox.js", null); //$NON-NLS-1$
+			assertTrue(((Double) object) == 4);
+			object = executor.executeServiceModule(null, null,
+					"/testExports.js", null); //$NON-NLS-1$
+			assertTrue(((Double) object) == 11);
+
+			assertFalse(isCompiled(getCachedScript(REPOSITORY_SANDBOX_DEPLOY_PATH + "/testSumSandbox.js", -1))); //$NON-NLS-1$
+			assertTrue(isCompiled(getCachedScript(REPOSITORY_JS_DEPLOY_PATH + "/testExports.js", 9))); //$NON-NLS-1$
+			assertTrue(isCompiled(getCachedScript(REPOSITORY_JS_DEPLOY_PATH + "/test/testLibrary.js", 9))); //$NON-NLS-1$
+
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), false);
+			e.printStackTrace();
+		} finally {
+			System.clearProperty(JavaScriptExecutor.OPTIMIZATION_LEVEL_PROPERTY);
+		}
+	}
+
+	@Test
+	public void testLazyDefaultObjects() {
+		JavaScriptExecutor executor = new JavaScriptExecutor(repository,
+				REPOSITORY_JS_DEPLOY_PATH, null);
+		try {
+			// db is created on the first access only, storage is never accessed
+			Object object = executor.executeServiceModule(null, null,
+					"/testLazyObjects.js", new HashMap<Object, Object>()); //$NON-NLS-1$
+			assertTrue(((Boolean) object));
+
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), false);
+			e.printStackTrace();
+		}
+	}
+
+	private static Script getCachedScript(String path, int optimizationLevel) throws IOException {
+		Script script = CompiledScriptCache.getInstance().get(path,
+				repository.getResource(path).getInformation().getModifiedAt(), optimizationLevel);
+		assertNotNull(path, script);
+		return script;
+	}
+
+	/**
+	 * Whether the script is an instance of a class generated by the compiler,
+	 * rather than a function run by the interpreter
+	 */
+	private static boolean isCompiled(Script script) {
+		return script.getClass().getName().startsWith("org.mozilla.javascript.gen."); //$NON-NLS-1$
+	}
 
 }
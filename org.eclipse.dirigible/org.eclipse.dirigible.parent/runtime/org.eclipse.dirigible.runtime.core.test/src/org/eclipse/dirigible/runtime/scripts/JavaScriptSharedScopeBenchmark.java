@@ -0,0 +1,90 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripts;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.api.ICommonConstants;
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.runtime.js.JavaScriptExecutor;
+import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
+
+/**
+ * Load benchmark comparing the execution with fresh standard objects per
+ * request and the execution in a child scope of the shared sealed scope. Its
+ * name does not end with Test, so it is not part of the test run of the build
+ * and has to be run on demand.
+ */
+public class JavaScriptSharedScopeBenchmark {
+
+	private static final String REPOSITORY_JS_DEPLOY_PATH = "/db/dirigible/registry/public/" //$NON-NLS-1$
+			+ ICommonConstants.ARTIFACT_TYPE.SCRIPTING_SERVICES;
+
+	private static final int WARMUP_ITERATIONS = 200;
+
+	private static final int ITERATIONS = 2000;
+
+	private IRepository repository;
+
+	@Before
+	public void setUp() throws Exception {
+		DataSource dataSource = DataSourceUtils.createLocal();
+		repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		repository.createResource(REPOSITORY_JS_DEPLOY_PATH + "/test/benchmarkLibrary.js", //$NON-NLS-1$
+				("exports.add = function(a,b) {return a+b};").getBytes()); //$NON-NLS-1$
+		repository.createResource(REPOSITORY_JS_DEPLOY_PATH + "/testBenchmark.js", //$NON-NLS-1$
+				("var add = require('test/benchmarkLibrary').add; " //$NON-NLS-1$
+						+ "var result = [1, 2, 3].map(function(x) { return add(x, 1); }); " //$NON-NLS-1$
+						+ "(datasource !== null) ? result.join(',') : null;").getBytes()); //$NON-NLS-1$
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY);
+	}
+
+	@Test
+	public void benchmarkSharedScopeVersusStandardObjectsPerRequest() throws IOException {
+		JavaScriptExecutor executor = new JavaScriptExecutor(repository, REPOSITORY_JS_DEPLOY_PATH, null);
+
+		System.setProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY, Boolean.FALSE.toString());
+		long perRequest = measure(executor);
+
+		System.setProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY, Boolean.TRUE.toString());
+		long shared = measure(executor);
+
+		System.out.println(String.format(
+				"standard objects per request: %d us/call, shared sealed scope: %d us/call", //$NON-NLS-1$
+				perRequest / ITERATIONS / 1000, shared / ITERATIONS / 1000));
+	}
+
+	private static long measure(JavaScriptExecutor executor) throws IOException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			assertEquals("2,3,4", executor.executeServiceModule(null, null, "/testBenchmark.js", null)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			executor.executeServiceModule(null, null, "/testBenchmark.js", null); //$NON-NLS-1$
+		}
+		return System.nanoTime() - start;
+	}
+
+}
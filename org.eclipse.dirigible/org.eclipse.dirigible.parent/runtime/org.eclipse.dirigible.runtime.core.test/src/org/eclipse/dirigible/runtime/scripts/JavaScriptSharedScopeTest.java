@@ -0,0 +1,93 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripts;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.dirigible.repository.api.ICommonConstants;
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.runtime.js.JavaScriptExecutor;
+import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
+
+/**
+ * Compares the execution in a child scope of the shared sealed scope with the
+ * execution with fresh standard objects per request
+ */
+public class JavaScriptSharedScopeTest {
+
+	private static final String REPOSITORY_JS_DEPLOY_PATH = "/db/dirigible/registry/public/" //$NON-NLS-1$
+			+ ICommonConstants.ARTIFACT_TYPE.SCRIPTING_SERVICES;
+
+	private IRepository repository;
+
+	private JavaScriptExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		DataSource dataSource = DataSourceUtils.createLocal();
+		repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		repository.createResource(REPOSITORY_JS_DEPLOY_PATH + "/test/sharedScopeLibrary.js", //$NON-NLS-1$
+				("exports.add = function(a,b) {return a+b};").getBytes()); //$NON-NLS-1$
+		repository.createResource(REPOSITORY_JS_DEPLOY_PATH + "/testSharedScope.js", //$NON-NLS-1$
+				("var add = require('test/sharedScopeLibrary').add; " //$NON-NLS-1$
+						+ "var result = [1, 2, 3].map(function(x) { return add(x, 1); }); " //$NON-NLS-1$
+						+ "(datasource !== null) ? result.join(',') + ':' + JSON.stringify({a: Math.max(1, 2)}) : null;").getBytes()); //$NON-NLS-1$
+		repository.createResource(REPOSITORY_JS_DEPLOY_PATH + "/testGlobals.js", //$NON-NLS-1$
+				("var before = typeof counter; counter = 1; before;").getBytes()); //$NON-NLS-1$
+		repository.createResource(REPOSITORY_JS_DEPLOY_PATH + "/testStandardObjects.js", //$NON-NLS-1$
+				("var before = typeof Math.answer; try { Math.answer = 42; } catch (e) { } before;").getBytes()); //$NON-NLS-1$
+		executor = new JavaScriptExecutor(repository, REPOSITORY_JS_DEPLOY_PATH, null);
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY);
+	}
+
+	@Test
+	public void testSameResultsWithAndWithoutSharedScope() throws IOException {
+		System.setProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY, Boolean.FALSE.toString());
+		Object perRequest = executor.executeServiceModule(null, null, "/testSharedScope.js", null); //$NON-NLS-1$
+
+		System.setProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY, Boolean.TRUE.toString());
+		Object shared = executor.executeServiceModule(null, null, "/testSharedScope.js", null); //$NON-NLS-1$
+		Object sharedAgain = executor.executeServiceModule(null, null, "/testSharedScope.js", null); //$NON-NLS-1$
+
+		assertEquals("2,3,4:{\"a\":2}", perRequest); //$NON-NLS-1$
+		assertEquals(perRequest, shared);
+		assertEquals(perRequest, sharedAgain);
+	}
+
+	@Test
+	public void testGlobalsDoNotLeakBetweenRequests() throws IOException {
+		System.setProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY, Boolean.TRUE.toString());
+		assertEquals("undefined", executor.executeServiceModule(null, null, "/testGlobals.js", null)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("undefined", executor.executeServiceModule(null, null, "/testGlobals.js", null)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void testStandardObjectsDoNotLeakBetweenRequests() throws IOException {
+		System.setProperty(JavaScriptExecutor.SHARED_SCOPE_PROPERTY, Boolean.TRUE.toString());
+		assertEquals("undefined", executor.executeServiceModule(null, null, "/testStandardObjects.js", null)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("undefined", executor.executeServiceModule(null, null, "/testStandardObjects.js", null)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
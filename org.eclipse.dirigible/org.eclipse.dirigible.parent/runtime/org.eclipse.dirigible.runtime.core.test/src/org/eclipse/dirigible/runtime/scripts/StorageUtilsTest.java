@@ -28,6 +28,7 @@ import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
 public class StorageUtilsTest {
 
 	private static final String PATH = "/a/b/c";
+	private static final String OTHER_PATH = "/a/b/d";
 	private static final byte[] DATA = "Some data".getBytes();
 	private static final byte[] OTHER_DATA = "Other data".getBytes();
 	private static final byte[] TOO_BIG_DATA = new byte[AbstractStorageUtils.MAX_STORAGE_FILE_SIZE_IN_BYTES + 1];
@@ -76,4 +77,14 @@ public class StorageUtilsTest {
 		assertArrayEquals(OTHER_DATA, storage.get(PATH));
 	}
 
+	@Test
+	public void testSetKeepsOtherPaths() throws Exception {
+		storage.put(PATH, DATA);
+		storage.put(OTHER_PATH, DATA);
+		storage.put(PATH, OTHER_DATA);
+		assertArrayEquals(OTHER_DATA, storage.get(PATH));
+		assertArrayEquals(DATA, storage.get(OTHER_PATH));
+		storage.delete(OTHER_PATH);
+	}
+
 }
@@ -12,6 +12,7 @@
 package org.eclipse.dirigible.runtime.search;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -26,6 +27,7 @@ import org.junit.Test;
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.db.DBRepository;
 import org.eclipse.dirigible.repository.ext.lucene.RepositoryMemoryIndexer;
+import org.eclipse.dirigible.repository.ext.lucene.SearchResult;
 import org.eclipse.dirigible.runtime.utils.DataSourceUtils;
 
 public class SearchIndexerTest {
@@ -86,4 +88,64 @@ public class SearchIndexerTest {
 		}
 	}
 
+	@Test
+	public void testIncrementalUpdates() throws IOException {
+		RepositoryMemoryIndexer.indexRepository(repository);
+		try {
+			repository.createResource(
+					"/db/dirigible/incremental/file4.txt", "Rigid airships like the Zeppelin have an internal frame." //$NON-NLS-1$ //$NON-NLS-2$
+							.getBytes(), false, "text/plain");
+			repository.createResource(
+					"/db/dirigible/incremental/sub/file5.txt", "The Zeppelin is a dirigible." //$NON-NLS-1$ //$NON-NLS-2$
+							.getBytes(), false, "text/plain");
+			RepositoryMemoryIndexer.flush();
+			assertEquals(2, RepositoryMemoryIndexer.search("Zeppelin").size());
+
+			repository.getResource("/db/dirigible/incremental/file4.txt").setContent(
+					"Blimps do not have an internal frame.".getBytes()); //$NON-NLS-1$
+			RepositoryMemoryIndexer.flush();
+			assertEquals(1, RepositoryMemoryIndexer.search("Zeppelin").size());
+			assertEquals(1, RepositoryMemoryIndexer.search("Blimps").size());
+
+			repository.getCollection("/db/dirigible/incremental/sub").moveTo("/db/dirigible/incremental/moved");
+			RepositoryMemoryIndexer.flush();
+			List<String> matches = RepositoryMemoryIndexer.search("Zeppelin");
+			assertEquals(1, matches.size());
+			assertEquals("/db/dirigible/incremental/moved/file5.txt", matches.get(0));
+		} finally {
+			repository.getCollection("/db/dirigible/incremental").delete();
+			RepositoryMemoryIndexer.flush();
+		}
+		assertEquals(0, RepositoryMemoryIndexer.search("Zeppelin").size());
+		assertEquals(0, RepositoryMemoryIndexer.search("Blimps").size());
+	}
+
+	@Test
+	public void testFieldsAndPaging() throws IOException {
+		RepositoryMemoryIndexer.indexRepository(repository);
+
+		SearchResult<String> result = RepositoryMemoryIndexer.search("file3", RepositoryMemoryIndexer.FIELD_NAME, //$NON-NLS-1$
+				null, 0, 10);
+		assertEquals(1, result.getTotalHits());
+		assertEquals("/db/dirigible/sub/file3.txt", result.getHits().get(0)); //$NON-NLS-1$
+
+		result = RepositoryMemoryIndexer.search("file3", RepositoryMemoryIndexer.FIELD_CONTENT, null, 0, 10); //$NON-NLS-1$
+		assertEquals(0, result.getTotalHits());
+
+		result = RepositoryMemoryIndexer.search("Apache", RepositoryMemoryIndexer.FIELD_CONTENT, "/db/dirigible/sub/", //$NON-NLS-1$ //$NON-NLS-2$
+				0, 10);
+		assertEquals(1, result.getTotalHits());
+
+		result = RepositoryMemoryIndexer.search("Apache", RepositoryMemoryIndexer.FIELD_CONTENT, null, 0, 1); //$NON-NLS-1$
+		assertEquals(2, result.getTotalHits());
+		assertEquals(1, result.getHits().size());
+		assertTrue(result.hasMore());
+		String first = result.getHits().get(0);
+
+		result = RepositoryMemoryIndexer.search("Apache", RepositoryMemoryIndexer.FIELD_CONTENT, null, 1, 1); //$NON-NLS-1$
+		assertEquals(1, result.getHits().size());
+		assertFalse(result.hasMore());
+		assertFalse(first.equals(result.getHits().get(0)));
+	}
+
 }
@@ -12,9 +12,13 @@
 package org.eclipse.dirigible.runtime.utils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -91,4 +95,50 @@ public class DbUtilsTest {
 		}
 	}
 
+	@Test
+	public void testGetNextConcurrently() throws Exception {
+		dbUtils.dropSequence("TEST_SEQ4"); //$NON-NLS-1$
+		final int threadsCount = 8;
+		final int valuesCount = 250;
+		final Set<Integer> values = Collections.synchronizedSet(new HashSet<Integer>());
+		final Throwable[] error = new Throwable[1];
+		Thread[] threads = new Thread[threadsCount];
+		for (int i = 0; i < threadsCount; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						// separate instances, as each script execution has its own
+						DbUtils threadDbUtils = new DbUtils(dataSource);
+						for (int j = 0; j < valuesCount; j++) {
+							values.add(threadDbUtils.getNext("TEST_SEQ4")); //$NON-NLS-1$
+						}
+					} catch (Throwable t) {
+						error[0] = t;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(error[0]);
+		// unique and, within a single process, without gaps
+		assertEquals(threadsCount * valuesCount, values.size());
+		for (int i = 1; i <= threadsCount * valuesCount; i++) {
+			assertTrue(values.contains(i));
+		}
+		dbUtils.dropSequence("TEST_SEQ4"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testCreateSequenceStart() throws Exception {
+		dbUtils.dropSequence("TEST_SEQ5"); //$NON-NLS-1$
+		dbUtils.createSequence("TEST_SEQ5", 41); //$NON-NLS-1$
+		assertEquals(42, dbUtils.getNext("TEST_SEQ5")); //$NON-NLS-1$
+		assertEquals(43, dbUtils.getNext("TEST_SEQ5")); //$NON-NLS-1$
+		dbUtils.dropSequence("TEST_SEQ5"); //$NON-NLS-1$
+	}
+
 }
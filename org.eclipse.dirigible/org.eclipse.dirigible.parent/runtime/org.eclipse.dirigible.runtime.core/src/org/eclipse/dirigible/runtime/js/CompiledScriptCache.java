@@ -0,0 +1,186 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.js;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mozilla.javascript.Script;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.ext.events.IRepositoryListener;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Shared, bounded cache of compiled Rhino {@link Script} objects. The entries
+ * are keyed by the repository path of the module and are valid only as long as
+ * the modification time of the resource and the optimization level it has been
+ * compiled with stay the same, so a re-published module is compiled again on
+ * its next execution. They are also dropped as soon as the repository reports
+ * a change under their path. For optimization levels above -1 the cached
+ * script is an instance of the generated class, hence the class generation is
+ * done once per module version too.
+ */
+public class CompiledScriptCache {
+
+	private static final Logger logger = Logger.getLogger(CompiledScriptCache.class);
+
+	/**
+	 * System property for the maximum number of compiled scripts kept in memory
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "dirigible.js.cache.size"; //$NON-NLS-1$
+
+	private static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private static CompiledScriptCache instance;
+
+	private final Map<String, CacheEntry> cache;
+
+	private long hits;
+
+	private long misses;
+
+	public static synchronized CompiledScriptCache getInstance() {
+		if (instance == null) {
+			instance = new CompiledScriptCache(getConfiguredSize());
+			RepositoryListeners.addListener(new InvalidationListener(instance));
+		}
+		return instance;
+	}
+
+	private static int getConfiguredSize() {
+		String size = System.getProperty(CACHE_SIZE_PROPERTY);
+		if (size != null) {
+			try {
+				return Integer.parseInt(size);
+			} catch (NumberFormatException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+		return DEFAULT_CACHE_SIZE;
+	}
+
+	CompiledScriptCache(final int maxSize) {
+		this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2530462283826400387L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the compiled script for the given path, or <code>null</code> if
+	 * there is no such entry or it has been compiled from a different version
+	 * of the resource or with a different optimization level
+	 *
+	 * @param path
+	 * @param modifiedAt
+	 * @param optimizationLevel
+	 * @return
+	 */
+	public synchronized Script get(String path, Date modifiedAt, int optimizationLevel) {
+		CacheEntry entry = cache.get(path);
+		if (entry != null && entry.isValid(modifiedAt, optimizationLevel)) {
+			hits++;
+			return entry.getScript();
+		}
+		misses++;
+		return null;
+	}
+
+	public synchronized void put(String path, Date modifiedAt, int optimizationLevel, Script script) {
+		logger.debug("compiled script cached for: " + path); //$NON-NLS-1$
+		cache.put(path, new CacheEntry(script, modifiedAt, optimizationLevel));
+	}
+
+	/**
+	 * Removes all the compiled scripts located under the given path, e.g. when
+	 * the whole project has been re-published
+	 *
+	 * @param pathPrefix
+	 */
+	public synchronized void invalidate(String pathPrefix) {
+		for (Iterator<String> iterator = cache.keySet().iterator(); iterator.hasNext();) {
+			if (iterator.next().startsWith(pathPrefix)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	private static class CacheEntry {
+
+		private final Script script;
+
+		private final long modifiedAt;
+
+		private final int optimizationLevel;
+
+		CacheEntry(Script script, Date modifiedAt, int optimizationLevel) {
+			this.script = script;
+			this.modifiedAt = (modifiedAt != null) ? modifiedAt.getTime() : 0;
+			this.optimizationLevel = optimizationLevel;
+		}
+
+		Script getScript() {
+			return script;
+		}
+
+		boolean isValid(Date currentModifiedAt, int currentOptimizationLevel) {
+			return (currentModifiedAt != null) && (currentModifiedAt.getTime() == modifiedAt)
+					&& (currentOptimizationLevel == optimizationLevel);
+		}
+	}
+
+	private static class InvalidationListener implements IRepositoryListener {
+
+		private final CompiledScriptCache cache;
+
+		InvalidationListener(CompiledScriptCache cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public void changed(IRepository repository, String path) {
+			cache.invalidate(path);
+		}
+
+		@Override
+		public void removed(IRepository repository, String path) {
+			cache.invalidate(path);
+		}
+
+	}
+
+}
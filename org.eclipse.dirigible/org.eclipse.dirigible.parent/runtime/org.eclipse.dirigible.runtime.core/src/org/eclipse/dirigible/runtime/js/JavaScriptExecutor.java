@@ -11,27 +11,31 @@
 
 package org.eclipse.dirigible.runtime.js;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStreamReader;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.commonjs.module.ModuleScriptProvider;
 import org.mozilla.javascript.commonjs.module.Require;
 import org.mozilla.javascript.commonjs.module.RequireBuilder;
-import org.mozilla.javascript.commonjs.module.provider.ModuleSource;
-import org.mozilla.javascript.commonjs.module.provider.ModuleSourceProvider;
-import org.mozilla.javascript.commonjs.module.provider.SoftCachingModuleScriptProvider;
 
 import org.eclipse.dirigible.repository.api.ICommonConstants;
 import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IRepositoryPaths;
+import org.eclipse.dirigible.repository.api.IResource;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.scripting.AbstractScriptExecutor;
+import org.eclipse.dirigible.runtime.scripting.ILazyVariable;
 
 public class JavaScriptExecutor extends AbstractScriptExecutor {
 
@@ -40,6 +44,25 @@ public class JavaScriptExecutor extends AbstractScriptExecutor {
 	
 	private static final Logger logger = Logger.getLogger(JavaScriptExecutor.class);
 
+	private static final String JS_EXTENSION = ".js"; //$NON-NLS-1$
+
+	/**
+	 * System property switching on the execution in a lightweight per-request
+	 * scope on top of a shared, sealed scope with the standard objects
+	 */
+	public static final String SHARED_SCOPE_PROPERTY = "dirigible.js.scope.shared"; //$NON-NLS-1$
+
+	/**
+	 * System property for the Rhino optimization level of the published
+	 * (registry) modules, -1 means interpreted and 0 to 9 means compiled to
+	 * bytecode. The modules from the sandbox are always interpreted.
+	 */
+	public static final String OPTIMIZATION_LEVEL_PROPERTY = "dirigible.js.optimization.level"; //$NON-NLS-1$
+
+	protected static final int INTERPRETED = -1;
+
+	private static final Map<Class<?>, ScriptableObject> sharedScopes = new HashMap<Class<?>, ScriptableObject>();
+
 	private IRepository repository;
 	private String[] rootPaths;
 
@@ -65,8 +88,7 @@ public class JavaScriptExecutor extends AbstractScriptExecutor {
 			throw new IOException(JAVA_SCRIPT_MODULE_NAME_CANNOT_BE_NULL);
 		}
 
-		ModuleSourceProvider sourceProvider = createRepositoryModuleSourceProvider();
-		ModuleScriptProvider scriptProvider = new SoftCachingModuleScriptProvider(sourceProvider);
+		ModuleScriptProvider scriptProvider = new RepositoryModuleScriptProvider(this);
 		RequireBuilder builder = new RequireBuilder();
 		builder.setModuleScriptProvider(scriptProvider);
 		builder.setSandboxed(false);
@@ -77,7 +99,7 @@ public class JavaScriptExecutor extends AbstractScriptExecutor {
 		try {
 			context.setLanguageVersion(Context.VERSION_1_2);
 			context.getWrapFactory().setJavaPrimitiveWrap(false);
-			Scriptable topLevelScope = context.initStandardObjects();
+			Scriptable topLevelScope = createTopLevelScope(context);
 			Require require = builder.createRequire(context, topLevelScope);
 
 			require.install(topLevelScope);
@@ -87,13 +109,9 @@ public class JavaScriptExecutor extends AbstractScriptExecutor {
 
 			beforeExecution(request, response, module, context);
 
-			try {
-				ModuleSource moduleSource = sourceProvider.loadSource(module, null, null);
-				result = context.evaluateReader(topLevelScope, moduleSource.getReader(), module, 0,
-						null);
-			} catch (URISyntaxException e) {
-				throw new IOException(e.getMessage(), e);
-			}
+			String extension = module.endsWith(JS_EXTENSION) ? "" : JS_EXTENSION; //$NON-NLS-1$
+			Script script = getCompiledScript(context, module, extension, module, 0);
+			result = script.exec(context, topLevelScope);
 
 		} finally {
 			Context.exit();
@@ -107,11 +125,87 @@ public class JavaScriptExecutor extends AbstractScriptExecutor {
 			String module, Context context) {
 	}
 
-	private RepositoryModuleSourceProvider createRepositoryModuleSourceProvider() {
-		RepositoryModuleSourceProvider repositoryModuleSourceProvider = null;
-		repositoryModuleSourceProvider = new RepositoryModuleSourceProvider(this, repository,
-				rootPaths);
-		return repositoryModuleSourceProvider;
+	protected boolean isSharedScopeEnabled() {
+		return Boolean.getBoolean(SHARED_SCOPE_PROPERTY);
+	}
+
+	private Scriptable createTopLevelScope(Context context) {
+		if (!isSharedScopeEnabled()) {
+			return context.initStandardObjects(new LazyVariablesScope());
+		}
+		// the request variables and require() live in a child scope only
+		ScriptableObject sharedScope = getSharedScope(context);
+		Scriptable requestScope = new LazyVariablesScope();
+		requestScope.setPrototype(sharedScope);
+		requestScope.setParentScope(null);
+		return requestScope;
+	}
+
+	private ScriptableObject getSharedScope(Context context) {
+		synchronized (sharedScopes) {
+			ScriptableObject sharedScope = sharedScopes.get(getClass());
+			if (sharedScope == null) {
+				sharedScope = context.initStandardObjects(null, true);
+				sharedScopes.put(getClass(), sharedScope);
+			}
+			return sharedScope;
+		}
+	}
+
+	/**
+	 * Whether the compiled scripts can be taken from and stored in the shared
+	 * {@link CompiledScriptCache}
+	 * 
+	 * @return
+	 */
+	protected boolean isCompiledScriptCacheEnabled() {
+		return true;
+	}
+
+	/**
+	 * The optimization level the module at the given repository path will be
+	 * compiled with
+	 * 
+	 * @param context
+	 * @param path
+	 * @return
+	 */
+	protected int getOptimizationLevel(Context context, String path) {
+		if (path.startsWith(IRepositoryPaths.REGISTRY_DEPLOY_PATH)) {
+			return Integer.getInteger(OPTIMIZATION_LEVEL_PROPERTY, context.getOptimizationLevel());
+		}
+		return INTERPRETED;
+	}
+
+	Script getCompiledScript(Context context, String module, String extension, String sourceName,
+			int lineno) throws IOException {
+		IResource resource = retrieveModuleResource(repository, module, extension, rootPaths);
+		int optimizationLevel = getOptimizationLevel(context, resource.getPath());
+		if (!isCompiledScriptCacheEnabled()) {
+			return compileScript(context, resource, sourceName, lineno, optimizationLevel);
+		}
+		CompiledScriptCache cache = CompiledScriptCache.getInstance();
+		Date modifiedAt = resource.getInformation().getModifiedAt();
+		Script script = cache.get(resource.getPath(), modifiedAt, optimizationLevel);
+		if (script == null) {
+			script = compileScript(context, resource, sourceName, lineno, optimizationLevel);
+			cache.put(resource.getPath(), modifiedAt, optimizationLevel, script);
+		}
+		return script;
+	}
+
+	private Script compileScript(Context context, IResource resource, String sourceName,
+			int lineno, int optimizationLevel) throws IOException {
+		InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(
+				resource.getContent()));
+		int currentOptimizationLevel = context.getOptimizationLevel();
+		try {
+			context.setOptimizationLevel(optimizationLevel);
+			return context.compileReader(reader, sourceName, lineno, null);
+		} finally {
+			context.setOptimizationLevel(currentOptimizationLevel);
+			reader.close();
+		}
 	}
 
 	@Override
@@ -122,6 +216,15 @@ public class JavaScriptExecutor extends AbstractScriptExecutor {
 		}
 	}
 	
+	@Override
+	protected void registerLazyVariable(Object scope, String name, ILazyVariable variable) {
+		if (scope instanceof LazyVariablesScope) {
+			((LazyVariablesScope) scope).putLazy(name, variable);
+		} else {
+			super.registerLazyVariable(scope, name, variable);
+		}
+	}
+
 	@Override
 	protected String getModuleType(String path) {
 		return ICommonConstants.ARTIFACT_TYPE.SCRIPTING_SERVICES;
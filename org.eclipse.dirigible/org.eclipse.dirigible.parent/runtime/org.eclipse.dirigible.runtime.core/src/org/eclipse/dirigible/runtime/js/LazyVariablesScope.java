@@ -0,0 +1,64 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.js;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.Scriptable;
+
+import org.eclipse.dirigible.runtime.scripting.ILazyVariable;
+
+/**
+ * Top level scope of a single execution, which creates the lazy default
+ * variables on their first lookup from the script. Assigning or deleting a
+ * variable before that just drops its lazy definition.
+ */
+public class LazyVariablesScope extends NativeObject {
+
+	private static final long serialVersionUID = -4311594958411526372L;
+
+	private final Map<String, ILazyVariable> lazyVariables = new HashMap<String, ILazyVariable>();
+
+	public void putLazy(String name, ILazyVariable variable) {
+		super.delete(name);
+		lazyVariables.put(name, variable);
+	}
+
+	@Override
+	public Object get(String name, Scriptable start) {
+		ILazyVariable variable = lazyVariables.remove(name);
+		if (variable != null) {
+			super.put(name, this, variable.create());
+		}
+		return super.get(name, start);
+	}
+
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return lazyVariables.containsKey(name) || super.has(name, start);
+	}
+
+	@Override
+	public void put(String name, Scriptable start, Object value) {
+		lazyVariables.remove(name);
+		super.put(name, start, value);
+	}
+
+	@Override
+	public void delete(String name) {
+		lazyVariables.remove(name);
+		super.delete(name);
+	}
+
+}
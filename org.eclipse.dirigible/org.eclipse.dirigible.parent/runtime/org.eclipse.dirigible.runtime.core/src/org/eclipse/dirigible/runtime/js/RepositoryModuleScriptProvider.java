@@ -0,0 +1,45 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.js;
+
+import java.net.URI;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.commonjs.module.ModuleScript;
+import org.mozilla.javascript.commonjs.module.ModuleScriptProvider;
+
+/**
+ * {@link ModuleScriptProvider} resolving the required modules against the
+ * repository and reusing their compiled scripts from the
+ * {@link CompiledScriptCache}
+ */
+public class RepositoryModuleScriptProvider implements ModuleScriptProvider {
+
+	private static final String JS_EXTENSION = ".js"; //$NON-NLS-1$
+
+	private JavaScriptExecutor executor;
+
+	public RepositoryModuleScriptProvider(JavaScriptExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public ModuleScript getModuleScript(Context context, String moduleId, URI moduleUri,
+			URI baseUri, Scriptable paths) throws Exception {
+		String extension = moduleId.endsWith(JS_EXTENSION) ? "" : JS_EXTENSION; //$NON-NLS-1$
+		URI uri = new URI(moduleId + extension);
+		return new ModuleScript(executor.getCompiledScript(context, moduleId, extension, uri.toString(), 1),
+				uri, null);
+	}
+
+}
@@ -57,4 +57,16 @@ public class JavaScriptDebuggingExecutor extends JavaScriptExecutor {
 		logger.debug("exiting JavaScriptDebuggingExecutor.beforeExecution()");
 	}
 
+	@Override
+	protected boolean isCompiledScriptCacheEnabled() {
+		// scripts have to be compiled with the debugger attached
+		return false;
+	}
+
+	@Override
+	protected int getOptimizationLevel(Context context, String path) {
+		// breakpoints work in interpreted mode only
+		return INTERPRETED;
+	}
+
 }
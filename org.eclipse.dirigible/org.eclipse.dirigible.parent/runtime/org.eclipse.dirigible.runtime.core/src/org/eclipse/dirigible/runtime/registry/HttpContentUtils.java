@@ -0,0 +1,274 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.codec.binary.Hex;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Helpers for the conditional, ranged and compressed responses of static
+ * content
+ */
+public class HttpContentUtils {
+
+	public static final String ETAG_HEADER = "ETag"; //$NON-NLS-1$
+	public static final String IF_NONE_MATCH_HEADER = "If-None-Match"; //$NON-NLS-1$
+	public static final String IF_RANGE_HEADER = "If-Range"; //$NON-NLS-1$
+	public static final String RANGE_HEADER = "Range"; //$NON-NLS-1$
+	public static final String ACCEPT_RANGES_HEADER = "Accept-Ranges"; //$NON-NLS-1$
+	public static final String CONTENT_RANGE_HEADER = "Content-Range"; //$NON-NLS-1$
+	public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding"; //$NON-NLS-1$
+	public static final String CONTENT_ENCODING_HEADER = "Content-Encoding"; //$NON-NLS-1$
+	public static final String VARY_HEADER = "Vary"; //$NON-NLS-1$
+
+	public static final String BYTES_UNIT = "bytes"; //$NON-NLS-1$
+	public static final String GZIP_ENCODING = "gzip"; //$NON-NLS-1$
+
+	private static final String BYTES_PREFIX = "bytes="; //$NON-NLS-1$
+	private static final String WEAK_PREFIX = "W/"; //$NON-NLS-1$
+	private static final String ANY = "*"; //$NON-NLS-1$
+	private static final String QUOTE = "\""; //$NON-NLS-1$
+	private static final String GZIP_SUFFIX = "-gz"; //$NON-NLS-1$
+
+	private static final String HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+	private static final String[] COMPRESSIBLE_TYPES = new String[] { "text/", "application/javascript", //$NON-NLS-1$ //$NON-NLS-2$
+			"application/x-javascript", "application/json", "application/xml", "+xml", "+json" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	private static final Logger logger = Logger.getLogger(HttpContentUtils.class);
+
+	private HttpContentUtils() {
+	}
+
+	/**
+	 * Strong entity tag of the given content
+	 * 
+	 * @param content
+	 * @return the quoted tag
+	 * @throws IOException
+	 */
+	public static String getETag(byte[] content) throws IOException {
+		MessageDigest digest = createDigest();
+		digest.update(content);
+		return getETag(digest);
+	}
+
+	/**
+	 * Strong entity tag of the content read from the stream, which is not
+	 * closed
+	 * 
+	 * @param in
+	 * @return the quoted tag
+	 * @throws IOException
+	 */
+	public static String getETag(InputStream in) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+		return getETag(digest);
+	}
+
+	/**
+	 * Strong entity tag of the content the digest has been updated with
+	 * 
+	 * @param digest
+	 * @return the quoted tag
+	 */
+	static String getETag(MessageDigest digest) {
+		return QUOTE + new String(Hex.encodeHex(digest.digest())) + QUOTE;
+	}
+
+	/**
+	 * The entity tag of the gzip encoded variant - the tags of the different
+	 * representations of a strongly validated content have to differ
+	 * 
+	 * @param etag
+	 * @return
+	 */
+	public static String getGzipETag(String etag) {
+		return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + QUOTE;
+	}
+
+	/**
+	 * Whether the If-None-Match header of the request matches the entity tag
+	 * of any of the representations of the content
+	 * 
+	 * @param request
+	 * @param etag
+	 * @return
+	 */
+	public static boolean isNoneMatchSatisfied(HttpServletRequest request, String etag) {
+		String ifNoneMatch = request.getHeader(IF_NONE_MATCH_HEADER);
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		String gzipETag = getGzipETag(etag);
+		for (String tag : ifNoneMatch.split(",")) { //$NON-NLS-1$
+			tag = tag.trim();
+			if (tag.startsWith(WEAK_PREFIX)) {
+				// weak comparison is used for the conditional GET
+				tag = tag.substring(WEAK_PREFIX.length());
+			}
+			if (ANY.equals(tag) || etag.equals(tag) || gzipETag.equals(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the range of the request, if any, is to be applied - the If-Range
+	 * header is only supported with entity tags, the whole content is sent if
+	 * it holds a date
+	 * 
+	 * @param request
+	 * @param etag
+	 * @return
+	 */
+	public static boolean isRangeApplicable(HttpServletRequest request, String etag) {
+		if (request.getHeader(RANGE_HEADER) == null) {
+			return false;
+		}
+		String ifRange = request.getHeader(IF_RANGE_HEADER);
+		return (ifRange == null) || ifRange.trim().equals(etag);
+	}
+
+	/**
+	 * Parses a single byte range of the Range header
+	 * 
+	 * @param range
+	 * @param size
+	 * @return the first and the last byte of the range, an empty array if the
+	 *         whole content is to be sent or <code>null</code> if the range is
+	 *         not satisfiable
+	 */
+	public static long[] parseRange(String range, long size) {
+		if (!range.startsWith(BYTES_PREFIX) || (range.indexOf(',') >= 0)) {
+			// multiple ranges are not supported - the whole content is sent
+			return new long[0];
+		}
+		String spec = range.substring(BYTES_PREFIX.length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return new long[0];
+		}
+		try {
+			long first;
+			long last;
+			if (dash == 0) {
+				long suffix = Long.parseLong(spec.substring(1).trim());
+				if (suffix <= 0) {
+					return null;
+				}
+				first = Math.max(size - suffix, 0);
+				last = size - 1;
+			} else {
+				first = Long.parseLong(spec.substring(0, dash).trim());
+				String end = spec.substring(dash + 1).trim();
+				last = (end.length() == 0) ? size - 1 : Math.min(Long.parseLong(end), size - 1);
+			}
+			if ((first >= size) || (first > last)) {
+				return null;
+			}
+			return new long[] { first, last };
+		} catch (NumberFormatException e) {
+			logger.debug(e.getMessage());
+			return new long[0];
+		}
+	}
+
+	/**
+	 * The value of the Content-Range header of a satisfied range
+	 * 
+	 * @param bounds
+	 * @param size
+	 * @return
+	 */
+	public static String getContentRange(long[] bounds, long size) {
+		return BYTES_UNIT + " " + bounds[0] + "-" + bounds[1] + "/" + size; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * The value of the Content-Range header of a not satisfiable range
+	 * 
+	 * @param size
+	 * @return
+	 */
+	public static String getUnsatisfiedContentRange(long size) {
+		return BYTES_UNIT + " */" + size; //$NON-NLS-1$
+	}
+
+	public static boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(ACCEPT_ENCODING_HEADER);
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) { //$NON-NLS-1$
+			String[] parameters = coding.split(";"); //$NON-NLS-1$
+			if (GZIP_ENCODING.equalsIgnoreCase(parameters[0].trim())) {
+				// explicitly refused with q=0
+				return (parameters.length < 2) || !parameters[1].trim().matches("q\\s*=\\s*0(\\.0*)?"); //$NON-NLS-1$
+			}
+		}
+		return false;
+	}
+
+	public static boolean isCompressible(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		String type = contentType.toLowerCase();
+		int parameters = type.indexOf(';');
+		if (parameters >= 0) {
+			type = type.substring(0, parameters).trim();
+		}
+		for (String compressible : COMPRESSIBLE_TYPES) {
+			if (type.startsWith(compressible) || type.endsWith(compressible)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3 + 64);
+		GZIPOutputStream out = new GZIPOutputStream(bytes);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		return bytes.toByteArray();
+	}
+
+	static MessageDigest createDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
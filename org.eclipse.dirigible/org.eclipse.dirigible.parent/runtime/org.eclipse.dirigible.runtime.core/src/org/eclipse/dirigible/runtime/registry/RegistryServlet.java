@@ -13,10 +13,9 @@ package org.eclipse.dirigible.runtime.registry;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.text.ParsePosition;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -26,7 +25,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.lang.StringUtils;
+import org.apache.commons.io.IOUtils;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
@@ -54,8 +53,14 @@ public class RegistryServlet extends AbstractRegistryServlet {
 
 	private static final String ACCEPT_HEADER = "Accept"; //$NON-NLS-1$
 
+	private static final int MIN_COMPRESSED_LENGTH = 256;
+
 	private static final String INDEX_HTML = "index.html"; //$NON-NLS-1$
 
+	private static final String KEY_SEPARATOR = ":"; //$NON-NLS-1$
+
+	private static final String QUERY_SEPARATOR = "?"; //$NON-NLS-1$
+
 	private static final String LISTING_OF_FOLDERS_IS_FORBIDDEN = Messages
 			.getString("RegistryServlet.LISTING_OF_FOLDERS_IS_FORBIDDEN"); //$NON-NLS-1$
 
@@ -94,7 +99,8 @@ public class RegistryServlet extends AbstractRegistryServlet {
 			byte[] data;
 			if (entity != null) {
 				if (entity instanceof IResource) {
-					data = buildResourceData(entity, request, response);
+					sendResource((IResource) entity, request, response, out);
+					return;
 				} else if (entity instanceof ICollection) {
 					String collectionPath = request.getRequestURI().toString();
 					String acceptHeader = request.getHeader(ACCEPT_HEADER);
@@ -107,7 +113,8 @@ public class RegistryServlet extends AbstractRegistryServlet {
 						// welcome file support
 						IResource index = ((ICollection) entity).getResource(INDEX_HTML);
 						if (index.exists() && (collectionPath.endsWith(IRepository.SEPARATOR))) {
-							data = buildResourceData(index, request, response);
+							sendResource(index, request, response, out);
+							return;
 						} else {
 							// listing of collections is forbidden
 							exceptionHandler(response, repositoryPath,
@@ -127,18 +134,8 @@ public class RegistryServlet extends AbstractRegistryServlet {
 				return;
 			}
 
-			if (entity instanceof IResource) {
-				final IResource resource = (IResource) entity;
-				String mimeType = null;
-				String extension = ContentTypeHelper.getExtension(resource.getName());
-				if ((mimeType = ContentTypeHelper.getContentType(extension)) != null) {
-					response.setContentType(mimeType);
-				} else {
-					response.setContentType(resource.getContentType());
-				}
-			}
+			setContentLengthHeader(response, data.length);
 			sendData(out, data);
-			setContentLengthHeader(entity, data.length, request, response);
 		} catch (final IllegalArgumentException ex) {
 			exceptionHandler(response, repositoryPath, HttpServletResponse.SC_BAD_REQUEST,
 					ex.getMessage());
@@ -178,18 +175,196 @@ public class RegistryServlet extends AbstractRegistryServlet {
 		return data;
 	}
 
+	/**
+	 * The content of the resource to be sent, called only if the client does
+	 * not have the last modified version already
+	 * 
+	 * @param entity
+	 * @param request
+	 * @param response
+	 * @return
+	 * @throws IOException
+	 */
 	protected byte[] buildResourceData(final IEntity entity, final HttpServletRequest request,
 			final HttpServletResponse response) throws IOException {
-		byte[] data = new byte[] {};
-		if (!setCacheHeaders(entity, request, response)) {
-			data = readResourceData((IResource) entity);
+		return readResourceData((IResource) entity);
+	}
+
+	/**
+	 * The key under which the entity tag of the content built for the request
+	 * is cached along with the version of the resource, or null if the built
+	 * content depends on more than the resource and the request itself
+	 * 
+	 * @param resource
+	 * @param request
+	 * @return
+	 */
+	protected String getContentKey(IResource resource, HttpServletRequest request) {
+		String key = getClass().getName() + KEY_SEPARATOR + resource.getPath();
+		String query = request.getQueryString();
+		return (query != null) ? key + QUERY_SEPARATOR + query : key;
+	}
+
+	/**
+	 * Whether the content of the resource is copied directly from the
+	 * repository to the response, without being loaded in memory. The binary
+	 * resources are not processed in any way, hence they are streamed by
+	 * default.
+	 * 
+	 * @param resource
+	 * @param request
+	 * @return
+	 */
+	protected boolean isStreamed(IResource resource, HttpServletRequest request) {
+		return resource.isBinary();
+	}
+
+	private void sendResource(IResource resource, HttpServletRequest request,
+			HttpServletResponse response, OutputStream out) throws IOException {
+		if (isStreamed(resource, request)) {
+			sendResourceStream(resource, request, response, out);
+			return;
 		}
-		return data;
+		if (setCacheHeaders(resource, request, response)) {
+			return;
+		}
+		setContentTypeHeader(resource, response);
+		String key = getContentKey(resource, request);
+		String etag = (key != null) ? StaticContentCache.getInstance().getETag(key, resource) : null;
+		if ((etag != null) && HttpContentUtils.isNoneMatchSatisfied(request, etag)) {
+			// the client has the current version, nothing is built
+			if (HttpContentUtils.isCompressible(response.getContentType())) {
+				response.setHeader(HttpContentUtils.VARY_HEADER, HttpContentUtils.ACCEPT_ENCODING_HEADER);
+			}
+			response.setHeader(HttpContentUtils.ETAG_HEADER, etag);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		byte[] data = buildResourceData(resource, request, response);
+		if (etag == null) {
+			etag = HttpContentUtils.getETag(data);
+			if (key != null) {
+				StaticContentCache.getInstance().putETag(key, resource, etag);
+			}
+		}
+		sendContent(data, etag, request, response, out);
 	}
 
-	private void setContentLengthHeader(IEntity entity, int contentLength,
-			HttpServletRequest request, HttpServletResponse response) throws IOException {
-		response.setHeader(CONTENT_LENGTH_HEADER, Integer.toString(contentLength));
+	/**
+	 * Sends the content built in memory - validated by the hash of the content
+	 * itself, as it may be composed of several resources, and compressed if
+	 * the client accepts it
+	 */
+	private void sendContent(byte[] data, String etag, HttpServletRequest request, HttpServletResponse response,
+			OutputStream out) throws IOException {
+		boolean compressible = (data.length >= MIN_COMPRESSED_LENGTH)
+				&& HttpContentUtils.isCompressible(response.getContentType());
+		if (compressible) {
+			response.setHeader(HttpContentUtils.VARY_HEADER, HttpContentUtils.ACCEPT_ENCODING_HEADER);
+		}
+		if (HttpContentUtils.isNoneMatchSatisfied(request, etag)) {
+			response.setHeader(HttpContentUtils.ETAG_HEADER, etag);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		response.setHeader(HttpContentUtils.ACCEPT_RANGES_HEADER, HttpContentUtils.BYTES_UNIT);
+		if (HttpContentUtils.isRangeApplicable(request, etag)) {
+			response.setHeader(HttpContentUtils.ETAG_HEADER, etag);
+			long[] bounds = HttpContentUtils.parseRange(request.getHeader(HttpContentUtils.RANGE_HEADER), data.length);
+			if (bounds == null) {
+				sendRangeNotSatisfiable(response, data.length);
+				return;
+			}
+			if (bounds.length > 0) {
+				int length = (int) (bounds[1] - bounds[0] + 1);
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(HttpContentUtils.CONTENT_RANGE_HEADER,
+						HttpContentUtils.getContentRange(bounds, data.length));
+				setContentLengthHeader(response, length);
+				out.write(data, (int) bounds[0], length);
+				return;
+			}
+		}
+		if (compressible && HttpContentUtils.acceptsGzip(request)) {
+			byte[] gzipped = StaticContentCache.getInstance().getGzipped(etag, data);
+			response.setHeader(HttpContentUtils.ETAG_HEADER, HttpContentUtils.getGzipETag(etag));
+			response.setHeader(HttpContentUtils.CONTENT_ENCODING_HEADER, HttpContentUtils.GZIP_ENCODING);
+			setContentLengthHeader(response, gzipped.length);
+			sendData(out, gzipped);
+			return;
+		}
+		response.setHeader(HttpContentUtils.ETAG_HEADER, etag);
+		setContentLengthHeader(response, data.length);
+		sendData(out, data);
+	}
+
+	/**
+	 * Streams the content from the repository - validated by the cached hash
+	 * of the current version of the resource, which is computed while the
+	 * whole content is streamed, so the response of a cache miss goes without
+	 * an entity tag
+	 */
+	private void sendResourceStream(IResource resource, HttpServletRequest request,
+			HttpServletResponse response, OutputStream out) throws IOException {
+		if (setCacheHeaders(resource, request, response)) {
+			return;
+		}
+		setContentTypeHeader(resource, response);
+		StaticContentCache cache = StaticContentCache.getInstance();
+		String etag = cache.getETag(resource);
+		if (etag != null) {
+			response.setHeader(HttpContentUtils.ETAG_HEADER, etag);
+			if (HttpContentUtils.isNoneMatchSatisfied(request, etag)) {
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+		response.setHeader(HttpContentUtils.ACCEPT_RANGES_HEADER, HttpContentUtils.BYTES_UNIT);
+		long contentLength = resource.getContentLength();
+		long offset = 0;
+		long length = contentLength;
+		if (HttpContentUtils.isRangeApplicable(request, etag)) {
+			long[] bounds = HttpContentUtils.parseRange(request.getHeader(HttpContentUtils.RANGE_HEADER), contentLength);
+			if (bounds == null) {
+				sendRangeNotSatisfiable(response, contentLength);
+				return;
+			}
+			if (bounds.length > 0) {
+				offset = bounds[0];
+				length = bounds[1] - bounds[0] + 1;
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(HttpContentUtils.CONTENT_RANGE_HEADER,
+						HttpContentUtils.getContentRange(bounds, contentLength));
+			}
+		}
+		setContentLengthHeader(response, length);
+		InputStream in = (length == contentLength) ? cache.openInputStream(resource) : resource.openInputStream(offset,
+				length);
+		try {
+			IOUtils.copyLarge(in, out);
+		} finally {
+			in.close();
+		}
+	}
+
+	private void sendRangeNotSatisfiable(HttpServletResponse response, long contentLength) throws IOException {
+		response.setHeader(HttpContentUtils.CONTENT_RANGE_HEADER,
+				HttpContentUtils.getUnsatisfiedContentRange(contentLength));
+		response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+	}
+
+	private void setContentTypeHeader(IResource resource, HttpServletResponse response) {
+		String mimeType = null;
+		String extension = ContentTypeHelper.getExtension(resource.getName());
+		if ((mimeType = ContentTypeHelper.getContentType(extension)) != null) {
+			response.setContentType(mimeType);
+		} else {
+			response.setContentType(resource.getContentType());
+		}
+	}
+
+	private void setContentLengthHeader(HttpServletResponse response, long contentLength) {
+		response.setHeader(CONTENT_LENGTH_HEADER, Long.toString(contentLength));
 	}
 
 	private boolean setCacheHeaders(IEntity entity, HttpServletRequest request,
@@ -197,13 +372,17 @@ public class RegistryServlet extends AbstractRegistryServlet {
 
 		boolean cached = false;
 		IEntityInformation entityInformation = entity.getInformation();
-		String modifiedSinceHeader = request.getHeader(IF_MODIFIED_SINCE_HEADER);
 
 		if ((entityInformation != null)) {
 			Calendar lastModified = getCalendar(entityInformation.getModifiedAt());
 
-			if ((!StringUtils.isEmpty(modifiedSinceHeader))) {
-				Calendar modifiedSince = getCalendar(parseDate(modifiedSinceHeader));
+			// the entity tags take precedence over the dates
+			long modifiedSinceHeader = -1;
+			if (request.getHeader(HttpContentUtils.IF_NONE_MATCH_HEADER) == null) {
+				modifiedSinceHeader = getModifiedSince(request);
+			}
+			if (modifiedSinceHeader != -1) {
+				Calendar modifiedSince = getCalendar(new Date(modifiedSinceHeader));
 				
 				if (lastModified.compareTo(modifiedSince) <= 0) {
 
@@ -221,37 +400,16 @@ public class RegistryServlet extends AbstractRegistryServlet {
 		return cached;
 	}
 
-	//--------------------------------------------------------------------	
-	// lifted from org.apache.http.client.utils.DateUtils
-	//--------------------------------------------------------------------
-	
-	public static final String PATTERN_RFC1123 = "EEE, dd MMM yyyy HH:mm:ss zzz";
-	public static final String PATTERN_RFC1036 = "EEE, dd-MMM-yy HH:mm:ss zzz";
-	public static final String PATTERN_ASCTIME = "EEE MMM d HH:mm:ss yyyy";
-	
-	public static final String[] DATE_FORMATS = new String[]{PATTERN_RFC1123, PATTERN_RFC1036, PATTERN_ASCTIME};
-	
-	private static final String SINGLE_QUOTE = "'";
-	 
-	private Date parseDate(String modifiedSinceHeader) {
-		final Calendar calendar = Calendar.getInstance();
-		if (modifiedSinceHeader.length() > 1
-				&& modifiedSinceHeader.startsWith(SINGLE_QUOTE)
-				&& modifiedSinceHeader.endsWith(SINGLE_QUOTE)) {
-			modifiedSinceHeader = modifiedSinceHeader.substring (1, modifiedSinceHeader.length() - 1);
-		}
-		for (String format : DATE_FORMATS) {
-			SimpleDateFormat dateParser = new SimpleDateFormat(format);
-		    dateParser.set2DigitYearStart(calendar.getTime());
-		    final ParsePosition pos = new ParsePosition(0);
-		    final Date result = dateParser.parse(modifiedSinceHeader, pos);
-            if (pos.getIndex() != 0) {
-                return result;
-            }
+	private long getModifiedSince(HttpServletRequest request) {
+		try {
+			// parsed by the container
+			return request.getDateHeader(IF_MODIFIED_SINCE_HEADER);
+		} catch (IllegalArgumentException e) {
+			// an invalid date is ignored
+			logger.debug(e.getMessage());
+			return -1;
 		}
-		return null;
 	}
-	//--------------------------------------------------------------------
 
 	private Calendar getCalendar(Calendar calendar) {
 		return getCalendar(calendar.getTime());
@@ -66,15 +66,20 @@ public class RepositoryServlet extends RegistryServlet {
 			IEntity entity = getEntity(repositoryPath, request);
 			byte[] data;
 			if (entity == null) {
-				ByteArrayOutputStream buff = new ByteArrayOutputStream();
-				IOUtils.copy(request.getInputStream(), buff);
-				data = buff.toByteArray();
 				String contentType = request.getContentType();
 				if (contentType == null) {
 					contentType = "text/plain"; //$NON-NLS-1$
 				}
 				boolean isBinary = ContentTypeHelper.isBinary(contentType);
-				getRepository(request).createResource(repositoryPath, data, isBinary, contentType);
+				if (isBinary) {
+					IResource resource = getRepository(request).getResource(repositoryPath);
+					receiveResourceStream(request, resource.openOutputStream(isBinary, contentType));
+				} else {
+					ByteArrayOutputStream buff = new ByteArrayOutputStream();
+					IOUtils.copy(request.getInputStream(), buff);
+					data = buff.toByteArray();
+					getRepository(request).createResource(repositoryPath, data, isBinary, contentType);
+				}
 			} else {
 				if (entity instanceof IResource) {
 					response.sendError(HttpServletResponse.SC_BAD_REQUEST,
@@ -110,11 +115,15 @@ public class RepositoryServlet extends RegistryServlet {
 				doPost(request, response);
 			} else {
 				if (entity instanceof IResource) {
-					ByteArrayOutputStream buff = new ByteArrayOutputStream();
-					IOUtils.copy(request.getInputStream(), buff);
-					byte[] data = buff.toByteArray();
 					IResource resource = (IResource) entity;
-					resource.setContent(data);
+					if (resource.isBinary()) {
+						receiveResourceStream(request, resource.openOutputStream());
+					} else {
+						ByteArrayOutputStream buff = new ByteArrayOutputStream();
+						IOUtils.copy(request.getInputStream(), buff);
+						byte[] data = buff.toByteArray();
+						resource.setContent(data);
+					}
 				} else {
 					response.sendError(HttpServletResponse.SC_BAD_REQUEST,
 							THERE_IS_AN_EXISTING_COLLECTION_AT_THE_SAME_LOCATION);
@@ -132,6 +141,15 @@ public class RepositoryServlet extends RegistryServlet {
 		}
 	}
 
+	private void receiveResourceStream(HttpServletRequest request, OutputStream content)
+			throws IOException {
+		try {
+			IOUtils.copyLarge(request.getInputStream(), content);
+		} finally {
+			content.close();
+		}
+	}
+
 	@Override
 	protected void doDelete(HttpServletRequest request, HttpServletResponse response)
 			throws ServletException, IOException {
@@ -0,0 +1,265 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.dirigible.repository.api.IEntityInformation;
+import org.eclipse.dirigible.repository.api.IResource;
+
+/**
+ * Process-wide cache of the entity tags of the served resources and of the
+ * gzip encoded variants of the served content. The tags of the streamed
+ * resources are computed while the content is streamed, cached per path and
+ * valid as long as the modification time and the length of the resource stay
+ * the same. The tags of the content built from a resource are cached per key
+ * of the built content and are valid as long as the modification time of the
+ * resource stays the same. The encoded variants are cached by the tag of their
+ * content, so the same content is compressed once, whatever resource or
+ * request it comes from. Both are evicted least recently used first.
+ */
+public class StaticContentCache {
+
+	/**
+	 * System property for the maximum number of cached entity tags
+	 */
+	public static final String MAX_ENTRIES_PROPERTY = "dirigible.registry.cache.entries"; //$NON-NLS-1$
+
+	/**
+	 * System property for the maximum size in bytes of the cached encoded
+	 * variants
+	 */
+	public static final String MAX_SIZE_PROPERTY = "dirigible.registry.cache.size"; //$NON-NLS-1$
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	public static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+
+	private static StaticContentCache instance;
+
+	private final Map<String, Version> versions;
+
+	private final Map<String, byte[]> variants;
+
+	private final long maxSize;
+
+	private long size;
+
+	public static synchronized StaticContentCache getInstance() {
+		if (instance == null) {
+			instance = new StaticContentCache(Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES),
+					Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+		}
+		return instance;
+	}
+
+	StaticContentCache(final int maxEntries, long maxSize) {
+		this.maxSize = maxSize;
+		this.versions = new LinkedHashMap<String, Version>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2932874520637146718L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Version> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.variants = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+	}
+
+	/**
+	 * The entity tag of the current content of the resource, or null if it has
+	 * not been streamed in full through this cache since it has changed
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws IOException
+	 */
+	public String getETag(IResource resource) throws IOException {
+		long modified = getModified(resource);
+		long length = resource.getContentLength();
+		synchronized (this) {
+			Version version = versions.get(resource.getPath());
+			if ((version != null) && (version.modified == modified) && (version.length == length)) {
+				return version.etag;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Opens the whole content of the resource for streaming - the entity tag of
+	 * the content is computed on the way and cached when the stream is closed,
+	 * if it has been read to the end
+	 * 
+	 * @param resource
+	 * @return
+	 * @throws IOException
+	 */
+	public InputStream openInputStream(IResource resource) throws IOException {
+		final String path = resource.getPath();
+		final long modified = getModified(resource);
+		final long length = resource.getContentLength();
+		final MessageDigest digest = HttpContentUtils.createDigest();
+		return new DigestInputStream(resource.openInputStream(), digest) {
+
+			private boolean ended;
+
+			@Override
+			public int read() throws IOException {
+				int read = super.read();
+				ended |= (read == -1);
+				return read;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int count) throws IOException {
+				int read = super.read(buffer, offset, count);
+				ended |= (read == -1);
+				return read;
+			}
+
+			@Override
+			public void close() throws IOException {
+				super.close();
+				if (ended && (modified != -1)) {
+					String etag = HttpContentUtils.getETag(digest);
+					synchronized (StaticContentCache.this) {
+						versions.put(path, new Version(modified, length, etag));
+					}
+					// only once
+					ended = false;
+				}
+			}
+		};
+	}
+
+	/**
+	 * The entity tag of the content built under the given key from the current
+	 * version of the resource, or null if not cached yet
+	 * 
+	 * @param key
+	 * @param resource
+	 * @return
+	 * @throws IOException
+	 */
+	public String getETag(String key, IResource resource) throws IOException {
+		long modified = getModified(resource);
+		synchronized (this) {
+			Version version = versions.get(key);
+			if ((version != null) && (version.modified == modified)) {
+				return version.etag;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Caches the entity tag of the content built under the given key from the
+	 * current version of the resource
+	 * 
+	 * @param key
+	 * @param resource
+	 * @param etag
+	 * @throws IOException
+	 */
+	public void putETag(String key, IResource resource, String etag) throws IOException {
+		long modified = getModified(resource);
+		if (modified != -1) {
+			synchronized (this) {
+				versions.put(key, new Version(modified, -1, etag));
+			}
+		}
+	}
+
+	/**
+	 * The gzip encoded variant of the content with the given entity tag,
+	 * compressed on the first request
+	 * 
+	 * @param etag
+	 * @param content
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] getGzipped(String etag, byte[] content) throws IOException {
+		synchronized (this) {
+			byte[] gzipped = variants.get(etag);
+			if (gzipped != null) {
+				return gzipped;
+			}
+		}
+		byte[] gzipped = HttpContentUtils.gzip(content);
+		if (gzipped.length <= maxSize) {
+			synchronized (this) {
+				byte[] previous = variants.put(etag, gzipped);
+				if (previous != null) {
+					size -= previous.length;
+				}
+				size += gzipped.length;
+				evict();
+			}
+		}
+		return gzipped;
+	}
+
+	public synchronized void clear() {
+		versions.clear();
+		variants.clear();
+		size = 0;
+	}
+
+	synchronized int getVersionsCount() {
+		return versions.size();
+	}
+
+	synchronized long getSize() {
+		return size;
+	}
+
+	private static long getModified(IResource resource) throws IOException {
+		IEntityInformation information = resource.getInformation();
+		Date modifiedAt = (information != null) ? information.getModifiedAt() : null;
+		return (modifiedAt != null) ? modifiedAt.getTime() : -1;
+	}
+
+	private void evict() {
+		Iterator<byte[]> iterator = variants.values().iterator();
+		while ((size > maxSize) && iterator.hasNext()) {
+			size -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	private static class Version {
+
+		private final long modified;
+
+		private final long length;
+
+		private final String etag;
+
+		Version(long modified, long length, String etag) {
+			this.modified = modified;
+			this.length = length;
+			this.etag = etag;
+		}
+
+	}
+
+}
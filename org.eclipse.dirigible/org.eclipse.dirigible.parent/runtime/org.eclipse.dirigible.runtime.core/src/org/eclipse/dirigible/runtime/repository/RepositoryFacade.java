@@ -172,7 +172,7 @@ public class RepositoryFacade {
 		}
 		logger.error("Embedded DataSource is used!");
 
-		WrappedDataSource wrappedDataSource = new WrappedDataSource(localDataSource);
+		WrappedDataSource wrappedDataSource = new WrappedDataSource(localDataSource, true);
 		return wrappedDataSource;
 	}
 
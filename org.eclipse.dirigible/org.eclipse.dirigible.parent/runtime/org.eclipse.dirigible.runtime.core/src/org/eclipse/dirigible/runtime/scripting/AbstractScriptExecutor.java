@@ -14,9 +14,7 @@ package org.eclipse.dirigible.runtime.scripting;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -33,8 +31,6 @@ import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.InvalidSyntaxException;
-import org.osgi.framework.ServiceReference;
 
 import org.eclipse.dirigible.repository.api.ICollection;
 import org.eclipse.dirigible.repository.api.ICommonConstants;
@@ -47,6 +43,7 @@ import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.RuntimeActivator;
 import org.eclipse.dirigible.runtime.mail.MailSender;
 import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
+import org.eclipse.dirigible.runtime.scripting.utils.ChunkedStorageUtils;
 import org.eclipse.dirigible.runtime.scripting.utils.ConfigStorageUtils;
 import org.eclipse.dirigible.runtime.scripting.utils.DbUtils;
 import org.eclipse.dirigible.runtime.scripting.utils.FileStorageUtils;
@@ -66,6 +63,18 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 
 	private static final Logger logger = Logger.getLogger(AbstractScriptExecutor.class);
 
+	// stateless utilities shared by all the executions
+	private static final MailSender MAIL_SENDER = new MailSender();
+	private static final IOUtils IO_UTILS = new IOUtils();
+	private static final HttpUtils HTTP_UTILS = new HttpUtils();
+	private static final Hex HEX_CODEC = new Hex();
+	private static final DigestUtils DIGEST_UTILS = new DigestUtils();
+	private static final URLUtils URL_UTILS = new URLUtils();
+	private static final UUID UUID_GENERATOR = new UUID(0, 0);
+	private static final StringEscapeUtils STRING_ESCAPE_UTILS = new StringEscapeUtils();
+	private static final IndexerUtils INDEXER_UTILS = new IndexerUtils();
+	private static final XMLUtils XML_UTILS = new XMLUtils();
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.dirigible.runtime.scripting.IScriptExecutor#executeServiceModule(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.String, java.util.Map)
 	 */
@@ -79,7 +88,16 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 			HttpServletResponse response, Object input, String module, Map<Object, Object> executionContext) throws IOException;
 
 	protected abstract void registerDefaultVariable(Object scope, String name, Object value);
-	
+
+	/**
+	 * Registers a variable, which is created on the first access from the
+	 * script. The executors without support for lazy variables create it
+	 * immediately.
+	 */
+	protected void registerLazyVariable(Object scope, String name, ILazyVariable variable) {
+		registerDefaultVariable(scope, name, variable.create());
+	}
+
 	private void registerDefaultVariableInContextAndScope(Map<Object, Object> executionContext, Object scope, String name, Object value) {
 		if (executionContext.get(name) == null) {
 			registerDefaultVariable(scope, name, value);
@@ -87,9 +105,23 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 		}
 	}
 
+	private void registerLazyVariableInContextAndScope(final Map<Object, Object> executionContext, Object scope,
+			final String name, final ILazyVariable variable) {
+		if (executionContext.get(name) == null) {
+			registerLazyVariable(scope, name, new ILazyVariable() {
+				@Override
+				public Object create() {
+					Object value = variable.create();
+					executionContext.put(name, value);
+					return value;
+				}
+			});
+		}
+	}
+
 	protected void registerDefaultVariables(HttpServletRequest request,
 			HttpServletResponse response, Object input, Map<Object, Object> executionContext,
-			IRepository repository, Object scope) {
+			final IRepository repository, Object scope) {
 		
 		if (executionContext == null) {
 			// in case executionContext is not provided from outside
@@ -101,11 +133,10 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 		// put the system out
 		registerDefaultVariableInContextAndScope(executionContext, scope, "out", System.out); //$NON-NLS-1$
 		// put the default data source
-		DataSource dataSource = null;
 //		if (repository instanceof DBRepository) {
 //			dataSource = ((DBRepository) repository).getDataSource();
 //		} else {
-			dataSource = RepositoryFacade.getInstance().getDataSource();
+		final DataSource dataSource = RepositoryFacade.getInstance().getDataSource();
 //		}
 		registerDefaultVariableInContextAndScope(executionContext, scope, "datasource", dataSource); //$NON-NLS-1$
 		// put request
@@ -115,76 +146,100 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 		// put repository
 		registerDefaultVariableInContextAndScope(executionContext, scope, "repository", repository); //$NON-NLS-1$
 		// put mail sender
-		MailSender mailSender = new MailSender();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "mail", mailSender); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "mail", MAIL_SENDER); //$NON-NLS-1$
 		// put Apache Commons IOUtils
-		IOUtils ioUtils = new IOUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "io", ioUtils); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "io", IO_UTILS); //$NON-NLS-1$
 		// put Apache Commons HttpClient and related classes wrapped with a
 		// factory like HttpUtils
-		HttpUtils httpUtils = new HttpUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "http", httpUtils); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "http", HTTP_UTILS); //$NON-NLS-1$
 		// put Apache Commons Codecs
-		Base64 base64Codec = new Base64();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "base64", base64Codec); //$NON-NLS-1$
-		Hex hexCodec = new Hex();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "hex", hexCodec); //$NON-NLS-1$
-		DigestUtils digestUtils = new DigestUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "digest", digestUtils); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "base64", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				// keeps encoding state, hence not shared
+				return new Base64();
+			}
+		});
+		registerDefaultVariableInContextAndScope(executionContext, scope, "hex", HEX_CODEC); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "digest", DIGEST_UTILS); //$NON-NLS-1$
 		// standard URLEncoder and URLDecoder functionality
-		URLUtils urlUtils = new URLUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "url", urlUtils); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "url", URL_UTILS); //$NON-NLS-1$
 		// user name
 		registerDefaultVariableInContextAndScope(executionContext, scope, "user", RepositoryFacade.getUser(request)); //$NON-NLS-1$
 		// file upload
-		ServletFileUpload fileUpload = new ServletFileUpload(new DiskFileItemFactory());
-		registerDefaultVariableInContextAndScope(executionContext, scope, "upload", fileUpload); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "upload", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new ServletFileUpload(new DiskFileItemFactory());
+			}
+		});
 		// UUID
-		UUID uuid = new UUID(0, 0);
-		registerDefaultVariableInContextAndScope(executionContext, scope, "uuid", uuid); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "uuid", UUID_GENERATOR); //$NON-NLS-1$
 		// the input from the execution chain if any
 		registerDefaultVariableInContextAndScope(executionContext, scope, "input", input); //$NON-NLS-1$
 		// DbUtils
-		DbUtils dbUtils = new DbUtils(dataSource);
-		registerDefaultVariableInContextAndScope(executionContext, scope, "db", dbUtils); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "db", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new DbUtils(dataSource);
+			}
+		});
 		// EscapeUtils
-		StringEscapeUtils stringEscapeUtils = new StringEscapeUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "xss", stringEscapeUtils); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "xss", STRING_ESCAPE_UTILS); //$NON-NLS-1$
 		// Extension Manager
-		ExtensionManager extensionManager = new ExtensionManager(repository, dataSource);
-		registerDefaultVariableInContextAndScope(executionContext, scope, "extensionManager", extensionManager); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "extensionManager", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new ExtensionManager(repository, dataSource);
+			}
+		});
 		// Apache Lucene Indexer
-		IndexerUtils indexerUtils = new IndexerUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "indexer", indexerUtils); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "indexer", INDEXER_UTILS); //$NON-NLS-1$
 //		// Mylyn Confluence Format
 //		WikiUtils wikiUtils = new WikiUtils();
 //		registerDefaultVariableInContextAndScope(executionContext, scope, "wiki", wikiUtils); //$NON-NLS-1$
 		// Simple binary storage
-		StorageUtils storageUtils = new StorageUtils(dataSource);
-		registerDefaultVariableInContextAndScope(executionContext, scope, "storage", storageUtils); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "storage", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new StorageUtils(dataSource);
+			}
+		});
 		// Simple file storage
-		FileStorageUtils fileStorageUtils = new FileStorageUtils(dataSource);
-		registerDefaultVariableInContextAndScope(executionContext, scope, "fileStorage", fileStorageUtils); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "fileStorage", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new FileStorageUtils(dataSource);
+			}
+		});
+		// Chunked storage for large objects
+		registerLazyVariableInContextAndScope(executionContext, scope, "chunkedStorage", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new ChunkedStorageUtils(dataSource);
+			}
+		});
 		// Simple binary storage
-		ConfigStorageUtils configStorageUtils = new ConfigStorageUtils(dataSource);
-		registerDefaultVariableInContextAndScope(executionContext, scope, "config", configStorageUtils); //$NON-NLS-1$
+		registerLazyVariableInContextAndScope(executionContext, scope, "config", new ILazyVariable() { //$NON-NLS-1$
+			@Override
+			public Object create() {
+				return new ConfigStorageUtils(dataSource);
+			}
+		});
 		// XML to JSON and vice-versa
-		XMLUtils xmlUtils = new XMLUtils();
-		registerDefaultVariableInContextAndScope(executionContext, scope, "xml", xmlUtils); //$NON-NLS-1$
+		registerDefaultVariableInContextAndScope(executionContext, scope, "xml", XML_UTILS); //$NON-NLS-1$
 
 		// register objects via extension
-		try {
-			BundleContext context = RuntimeActivator.getContext();
-			if (context != null) {
-				Collection<ServiceReference<IContextService>> serviceReferences = context.getServiceReferences(IContextService.class, null);
-				for (Iterator<ServiceReference<IContextService>> iterator = serviceReferences.iterator(); iterator.hasNext();) {
-					ServiceReference<IContextService> serviceReference = iterator.next();
-					IContextService contextService = context.getService(serviceReference);
-					registerDefaultVariableInContextAndScope(executionContext, scope, contextService.getName(), contextService.getInstance());
-				}
+		BundleContext context = RuntimeActivator.getContext();
+		if (context != null) {
+			for (final IContextService contextService : ContextServices.getInstance(context).getContextServices()) {
+				registerLazyVariableInContextAndScope(executionContext, scope, contextService.getName(), new ILazyVariable() {
+					@Override
+					public Object create() {
+						return contextService.getInstance();
+					}
+				});
 			}
-		} catch (InvalidSyntaxException e) {
-			logger.error(e.getMessage(), e);
 		}
 		
 	}
@@ -204,12 +259,29 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 	public Module retrieveModule(IRepository repository, String module, String extension,
 			String... rootPaths) throws IOException {
 
+		final IResource resource = retrieveModuleResource(repository, module, extension, rootPaths);
+		return new Module(getModuleName(resource.getPath()), resource.getPath(), resource.getContent());
+	}
+
+	/**
+	 * Resolves the module against the given root paths without reading its
+	 * content, so that the caller can check its own caches first
+	 * 
+	 * @param repository
+	 * @param module
+	 * @param extension
+	 * @param rootPaths
+	 * @return the first existing resource
+	 * @throws IOException
+	 */
+	public IResource retrieveModuleResource(IRepository repository, String module, String extension,
+			String... rootPaths) throws IOException {
+
 		for (String rootPath : rootPaths) {
 			String resourcePath = createResourcePath(rootPath, module, extension);
 			final IResource resource = repository.getResource(resourcePath);
 			if (resource.exists()) {
-				return new Module(getModuleName(resource.getPath()), resource.getPath(), readResourceData(repository,
-						resourcePath));
+				return resource;
 			}
 		}
 
@@ -221,6 +293,21 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 
 	public List<Module> retrieveModulesByExtension(IRepository repository, String extension,
 			String... rootPaths) throws IOException {
+		return retrieveModulesByExtension(repository, extension, true, rootPaths);
+	}
+
+	/**
+	 * Same as {@link #retrieveModulesByExtension(IRepository, String, String...)}
+	 * but without reading the content of the modules, so that the caller can
+	 * check their modification times and load only the changed ones
+	 */
+	public List<Module> retrieveModuleInformationByExtension(IRepository repository, String extension,
+			String... rootPaths) throws IOException {
+		return retrieveModulesByExtension(repository, extension, false, rootPaths);
+	}
+
+	private List<Module> retrieveModulesByExtension(IRepository repository, String extension,
+			boolean withContent, String... rootPaths) throws IOException {
 		Map<String, Module> modules = new HashMap<String, Module>();
 		for (int i = rootPaths.length - 1; i >= 0; i--) {
 			List<IEntity> entities = repository.searchName(rootPaths[i], "%" + extension, false);
@@ -228,7 +315,8 @@ public abstract class AbstractScriptExecutor implements IScriptExecutor {
 				if (entity.exists()) {
 					String path = entity.getPath();
 					String moduleName = getModuleName(path);
-					Module module = new Module(moduleName, path, readResourceData(repository, path), entity.getInformation());
+					byte[] content = withContent ? readResourceData(repository, path) : null;
+					Module module = new Module(moduleName, path, content, entity.getInformation());
 					modules.put(moduleName, module);
 				}
 			}
@@ -17,9 +17,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
-import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
 import org.eclipse.dirigible.repository.logging.Logger;
 
 public abstract class AbstractStorageUtils {
@@ -33,8 +33,6 @@ public abstract class AbstractStorageUtils {
 	public static final String TOO_BIG_DATA_MESSAGE = String.format(MAX_STORAGE_FILE_SIZE_MESSAGE,
 			MAX_STORAGE_FILE_SIZE_IN_MEGA_BYTES);
 
-	private static final String TABLE_DOES_NOT_EXIST_S = "Table does not exist: %s";
-
 	private static final Logger logger = Logger.getLogger(AbstractStorageUtils.class);
 	
 	protected DataSource dataSource;
@@ -43,92 +41,102 @@ public abstract class AbstractStorageUtils {
 		this.dataSource = dataSource;
 	}
 
-	protected void checkDB(String checkDBQuery, String createTableQuery) throws NamingException,
-			SQLException {
-		DataSource dataSource = this.dataSource;
+	/**
+	 * Creates the table on the first use for the data source, the next calls
+	 * do not hit the database
+	 * 
+	 * @param connection
+	 * @param tableName
+	 * @param createTableQuery
+	 * @throws SQLException
+	 */
+	protected void checkDB(Connection connection, String tableName, String createTableQuery) throws SQLException {
+		TableBootstrap.ensureTable(this.dataSource, connection, tableName, createTableQuery);
+	}
+
+	/**
+	 * A connection to be used for the whole storage operation, with the table
+	 * already checked
+	 * 
+	 * @param tableName
+	 * @param createTableQuery
+	 * @return
+	 * @throws SQLException
+	 */
+	protected Connection getConnection(String tableName, String createTableQuery) throws SQLException {
+		Connection connection = this.dataSource.getConnection();
+		try {
+			checkDB(connection, tableName, createTableQuery);
+		} catch (SQLException e) {
+			closeConnection(connection);
+			throw e;
+		}
+		return connection;
+	}
+
+	protected boolean exists(String path, String existsQuery, String tableName, String createTableQuery) throws SQLException {
 		Connection connection = null;
 		try {
-			connection = dataSource.getConnection();
-			Statement stmt = connection.createStatement();
-			try {
-				stmt.executeQuery(checkDBQuery);
-			} catch (Exception e) {
-				logger.warn(String.format(TABLE_DOES_NOT_EXIST_S, e.getMessage()));
-				// Create Table
-				stmt.executeUpdate(createTableQuery);
-			}
+			connection = getConnection(tableName, createTableQuery);
+			return exists(connection, path, existsQuery);
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeConnection(connection);
 		}
 	}
 
-	protected boolean exists(String path, String existsQuery, String checkDBQuery, String createTableQuery) throws SQLException {
+	protected boolean exists(Connection connection, String path, String existsQuery) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(existsQuery);
 		try {
-			checkDB(checkDBQuery, createTableQuery);
-
-			DataSource dataSource = this.dataSource;
-			Connection connection = null;
-			try {
-				connection = dataSource.getConnection();
-				PreparedStatement pstmt = connection.prepareStatement(existsQuery);
-				pstmt.setString(1, path);
-
-				ResultSet rs = pstmt.executeQuery();
-				if (rs.next()) {
-					return true;
-				}
-
-			} finally {
-				if (connection != null) {
-					connection.close();
-				}
-			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
+			pstmt.setString(1, path);
+			ResultSet rs = pstmt.executeQuery();
+			return rs.next();
+		} finally {
+			closeStatement(pstmt);
 		}
-		return false;
 	}
 
-	protected void clear(String clearQuery, String checkDBQuery, String createTableQuery) throws SQLException {
+	protected void clear(String clearQuery, String tableName, String createTableQuery) throws SQLException {
+		Connection connection = null;
 		try {
-			checkDB(checkDBQuery, createTableQuery);
-
-			DataSource dataSource = this.dataSource;
-			Connection connection = null;
+			connection = getConnection(tableName, createTableQuery);
+			Statement stmt = connection.createStatement();
 			try {
-				connection = dataSource.getConnection();
-				Statement stmt = connection.createStatement();
 				stmt.executeUpdate(clearQuery);
 			} finally {
-				if (connection != null) {
-					connection.close();
-				}
+				closeStatement(stmt);
 			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 	}
 
-	protected void delete(String path, String deleteQuery, String checkDBQuery, String createTableQuery) throws SQLException {
+	protected void delete(String path, String deleteQuery, String tableName, String createTableQuery) throws SQLException {
+		Connection connection = null;
 		try {
-			checkDB(checkDBQuery, createTableQuery);
-
-			DataSource dataSource = this.dataSource;
-			Connection connection = null;
+			connection = getConnection(tableName, createTableQuery);
+			PreparedStatement pstmt = connection.prepareStatement(deleteQuery);
 			try {
-				connection = dataSource.getConnection();
-				PreparedStatement pstmt = connection.prepareStatement(deleteQuery);
 				pstmt.setString(1, path);
 				pstmt.executeUpdate();
 			} finally {
-				if (connection != null) {
-					connection.close();
-				}
+				closeStatement(pstmt);
 			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
+		}
+	}
+
+	protected void closeStatement(Statement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	protected void closeConnection(Connection connection) throws SQLException {
+		if (connection != null) {
+			connection.close();
 		}
 	}
 
@@ -0,0 +1,87 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Cache of the registered {@link IContextService}s. The OSGi service registry
+ * is queried once and again only after a context service has been registered,
+ * modified or unregistered.
+ */
+public class ContextServices implements ServiceListener {
+
+	private static final Logger logger = Logger.getLogger(ContextServices.class);
+
+	private static final String OBJECT_CLASS_FILTER = "(objectClass=%s)"; //$NON-NLS-1$
+
+	private static ContextServices instance;
+
+	private final BundleContext context;
+
+	private List<IContextService> contextServices;
+
+	public static synchronized ContextServices getInstance(BundleContext context) {
+		if (instance == null || instance.context != context) {
+			instance = new ContextServices(context);
+		}
+		return instance;
+	}
+
+	private ContextServices(BundleContext context) {
+		this.context = context;
+		try {
+			context.addServiceListener(this,
+					String.format(OBJECT_CLASS_FILTER, IContextService.class.getName()));
+		} catch (InvalidSyntaxException e) {
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	public synchronized List<IContextService> getContextServices() {
+		if (contextServices == null) {
+			List<IContextService> services = new ArrayList<IContextService>();
+			try {
+				Collection<ServiceReference<IContextService>> serviceReferences = context
+						.getServiceReferences(IContextService.class, null);
+				for (ServiceReference<IContextService> serviceReference : serviceReferences) {
+					IContextService contextService = context.getService(serviceReference);
+					if (contextService != null) {
+						services.add(contextService);
+					}
+				}
+			} catch (InvalidSyntaxException e) {
+				logger.error(e.getMessage(), e);
+			}
+			contextServices = Collections.unmodifiableList(services);
+		}
+		return contextServices;
+	}
+
+	@Override
+	public synchronized void serviceChanged(ServiceEvent event) {
+		logger.debug("context services changed, event type: " + event.getType()); //$NON-NLS-1$
+		contextServices = null;
+	}
+
+}
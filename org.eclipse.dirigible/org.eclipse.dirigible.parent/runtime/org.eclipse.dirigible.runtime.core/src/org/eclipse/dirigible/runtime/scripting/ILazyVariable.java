@@ -0,0 +1,22 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripting;
+
+/**
+ * Default variable of the script execution, which is created on the first
+ * access to it from the script only
+ */
+public interface ILazyVariable {
+
+	Object create();
+
+}
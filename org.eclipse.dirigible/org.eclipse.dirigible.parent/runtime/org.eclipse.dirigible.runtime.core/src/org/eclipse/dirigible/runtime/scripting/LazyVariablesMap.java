@@ -0,0 +1,63 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripting;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map of the default variables, which creates the lazy ones on their first
+ * lookup. Iterating over the entries creates all the remaining ones.
+ */
+public class LazyVariablesMap extends AbstractMap<String, Object> {
+
+	private final Map<String, Object> values = new HashMap<String, Object>();
+
+	private final Map<String, ILazyVariable> lazyVariables = new HashMap<String, ILazyVariable>();
+
+	public void putLazy(String name, ILazyVariable variable) {
+		values.remove(name);
+		lazyVariables.put(name, variable);
+	}
+
+	@Override
+	public Object put(String name, Object value) {
+		lazyVariables.remove(name);
+		return values.put(name, value);
+	}
+
+	@Override
+	public Object get(Object name) {
+		ILazyVariable variable = lazyVariables.remove(name);
+		if (variable != null) {
+			values.put((String) name, variable.create());
+		}
+		return values.get(name);
+	}
+
+	@Override
+	public boolean containsKey(Object name) {
+		return values.containsKey(name) || lazyVariables.containsKey(name);
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		for (Map.Entry<String, ILazyVariable> lazyVariable : lazyVariables.entrySet()) {
+			values.put(lazyVariable.getKey(), lazyVariable.getValue().create());
+		}
+		lazyVariables.clear();
+		return values.entrySet();
+	}
+
+}
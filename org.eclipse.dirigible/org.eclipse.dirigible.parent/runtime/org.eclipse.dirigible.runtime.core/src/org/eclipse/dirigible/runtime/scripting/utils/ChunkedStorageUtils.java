@@ -0,0 +1,665 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripting.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+
+import org.eclipse.dirigible.repository.ext.db.DBUtils;
+import org.eclipse.dirigible.repository.logging.Logger;
+import org.eclipse.dirigible.runtime.registry.HttpContentUtils;
+import org.eclipse.dirigible.runtime.scripting.AbstractStorageUtils;
+
+/**
+ * Storage for large objects, which are split into fixed-size chunks kept in a
+ * companion table. Identical chunks are stored once, referenced by their
+ * SHA-256 hash. Objects are written from and read into streams, so only a
+ * single chunk at a time is held in memory, and there is no size limit.
+ */
+public class ChunkedStorageUtils extends AbstractStorageUtils {
+
+	private static final Logger logger = Logger.getLogger(ChunkedStorageUtils.class);
+
+	/**
+	 * System property for the size in bytes of the chunks of the newly stored
+	 * objects
+	 */
+	public static final String CHUNK_SIZE_PROPERTY = "dirigible.storage.chunk.size"; //$NON-NLS-1$
+
+	public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+	private static final String HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+	/**
+	 * The SQL state class of the integrity constraint violations, e.g. a
+	 * duplicate primary key
+	 */
+	private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23"; //$NON-NLS-1$
+
+	private static final String CHUNK_IS_MISSING = "Chunk is missing, the object has been changed while reading: %s"; //$NON-NLS-1$
+
+	private static final String RANGE_HEADER = "Range"; //$NON-NLS-1$
+	private static final String ACCEPT_RANGES_HEADER = "Accept-Ranges"; //$NON-NLS-1$
+	private static final String CONTENT_RANGE_HEADER = "Content-Range"; //$NON-NLS-1$
+	private static final String CONTENT_LENGTH_HEADER = "Content-Length"; //$NON-NLS-1$
+	private static final String ETAG_HEADER = "ETag"; //$NON-NLS-1$
+	private static final String BYTES_UNIT = "bytes"; //$NON-NLS-1$
+
+	private static final String DGB_CHUNKED_STORAGE = "DGB_CHUNKED_STORAGE";
+	private static final String CHUNKED_STORAGE_PATH = "CHUNKED_STORAGE_PATH";
+	private static final String CHUNKED_STORAGE_CONTENT_TYPE = "CHUNKED_STORAGE_CONTENT_TYPE";
+	private static final String CHUNKED_STORAGE_SIZE = "CHUNKED_STORAGE_SIZE";
+	private static final String CHUNKED_STORAGE_CHUNK_SIZE = "CHUNKED_STORAGE_CHUNK_SIZE";
+	private static final String CHUNKED_STORAGE_HASH = "CHUNKED_STORAGE_HASH";
+	private static final String CHUNKED_STORAGE_TIMESTAMP = "CHUNKED_STORAGE_TIMESTAMP";
+
+	private static final String DGB_CHUNKED_STORAGE_MAP = "DGB_CHUNKED_STORAGE_MAP";
+	private static final String CHUNKED_MAP_PATH = "CHUNKED_MAP_PATH";
+	private static final String CHUNKED_MAP_INDEX = "CHUNKED_MAP_INDEX";
+	private static final String CHUNKED_MAP_HASH = "CHUNKED_MAP_HASH";
+
+	private static final String DGB_STORAGE_CHUNKS = "DGB_STORAGE_CHUNKS";
+	private static final String STORAGE_CHUNK_HASH = "STORAGE_CHUNK_HASH";
+	private static final String STORAGE_CHUNK_DATA = "STORAGE_CHUNK_DATA";
+	private static final String STORAGE_CHUNK_REFS = "STORAGE_CHUNK_REFS";
+
+	private static final String CREATE_TABLE_DGB_CHUNKED_STORAGE = "CREATE TABLE " + DGB_CHUNKED_STORAGE
+			+ " (" + CHUNKED_STORAGE_PATH + " VARCHAR(2048) PRIMARY KEY, " + CHUNKED_STORAGE_CONTENT_TYPE
+			+ " VARCHAR(128), " + CHUNKED_STORAGE_SIZE + " BIGINT, " + CHUNKED_STORAGE_CHUNK_SIZE
+			+ " INTEGER, " + CHUNKED_STORAGE_HASH + " VARCHAR(64), " + CHUNKED_STORAGE_TIMESTAMP
+			+ " TIMESTAMP" + " )";
+
+	private static final String CREATE_TABLE_DGB_CHUNKED_STORAGE_MAP = "CREATE TABLE "
+			+ DGB_CHUNKED_STORAGE_MAP + " (" + CHUNKED_MAP_PATH + " VARCHAR(2048), " + CHUNKED_MAP_INDEX
+			+ " INTEGER, " + CHUNKED_MAP_HASH + " VARCHAR(64), PRIMARY KEY (" + CHUNKED_MAP_PATH + ", "
+			+ CHUNKED_MAP_INDEX + ")" + " )";
+
+	private static final String CREATE_TABLE_DGB_STORAGE_CHUNKS = "CREATE TABLE " + DGB_STORAGE_CHUNKS
+			+ " (" + STORAGE_CHUNK_HASH + " VARCHAR(64) PRIMARY KEY, " + STORAGE_CHUNK_DATA + " BLOB, "
+			+ STORAGE_CHUNK_REFS + " INTEGER" + " )";
+
+	private static final String INSERT_INTO_DGB_CHUNKED_STORAGE = "INSERT INTO " + DGB_CHUNKED_STORAGE
+			+ " (" + CHUNKED_STORAGE_CONTENT_TYPE + ", " + CHUNKED_STORAGE_SIZE + ", "
+			+ CHUNKED_STORAGE_CHUNK_SIZE + ", " + CHUNKED_STORAGE_HASH + ", " + CHUNKED_STORAGE_TIMESTAMP
+			+ ", " + CHUNKED_STORAGE_PATH + ")" + "VALUES (?,?,?,?,?,?)";
+
+	private static final String UPDATE_DGB_CHUNKED_STORAGE = "UPDATE " + DGB_CHUNKED_STORAGE + " SET "
+			+ CHUNKED_STORAGE_CONTENT_TYPE + " = ?, " + CHUNKED_STORAGE_SIZE + " = ?, "
+			+ CHUNKED_STORAGE_CHUNK_SIZE + " = ?, " + CHUNKED_STORAGE_HASH + " = ?, "
+			+ CHUNKED_STORAGE_TIMESTAMP + " = ? WHERE " + CHUNKED_STORAGE_PATH + " = ?";
+
+	private static final String SELECT_DGB_CHUNKED_STORAGE = "SELECT * FROM " + DGB_CHUNKED_STORAGE
+			+ " WHERE " + CHUNKED_STORAGE_PATH + " = ?";
+
+	private static final String SELECT_DGB_CHUNKED_STORAGE_EXISTS = "SELECT " + CHUNKED_STORAGE_PATH
+			+ " FROM " + DGB_CHUNKED_STORAGE + " WHERE " + CHUNKED_STORAGE_PATH + " = ?";
+
+	private static final String DELETE_DGB_CHUNKED_STORAGE_PATH = "DELETE FROM " + DGB_CHUNKED_STORAGE
+			+ " WHERE " + CHUNKED_STORAGE_PATH + " = ?";
+
+	private static final String INSERT_INTO_DGB_CHUNKED_STORAGE_MAP = "INSERT INTO "
+			+ DGB_CHUNKED_STORAGE_MAP + " (" + CHUNKED_MAP_PATH + ", " + CHUNKED_MAP_INDEX + ", "
+			+ CHUNKED_MAP_HASH + ")" + "VALUES (?,?,?)";
+
+	private static final String SELECT_DGB_CHUNKED_STORAGE_MAP = "SELECT " + CHUNKED_MAP_HASH + " FROM "
+			+ DGB_CHUNKED_STORAGE_MAP + " WHERE " + CHUNKED_MAP_PATH + " = ? ORDER BY " + CHUNKED_MAP_INDEX;
+
+	private static final String DELETE_DGB_CHUNKED_STORAGE_MAP_PATH = "DELETE FROM "
+			+ DGB_CHUNKED_STORAGE_MAP + " WHERE " + CHUNKED_MAP_PATH + " = ?";
+
+	private static final String INSERT_INTO_DGB_STORAGE_CHUNKS = "INSERT INTO " + DGB_STORAGE_CHUNKS
+			+ " (" + STORAGE_CHUNK_HASH + ", " + STORAGE_CHUNK_DATA + ", " + STORAGE_CHUNK_REFS + ")"
+			+ "VALUES (?,?,1)";
+
+	private static final String SELECT_DGB_STORAGE_CHUNKS = "SELECT " + STORAGE_CHUNK_DATA + " FROM "
+			+ DGB_STORAGE_CHUNKS + " WHERE " + STORAGE_CHUNK_HASH + " = ?";
+
+	private static final String ACQUIRE_DGB_STORAGE_CHUNKS = "UPDATE " + DGB_STORAGE_CHUNKS + " SET "
+			+ STORAGE_CHUNK_REFS + " = " + STORAGE_CHUNK_REFS + " + 1 WHERE " + STORAGE_CHUNK_HASH + " = ?";
+
+	private static final String RELEASE_DGB_STORAGE_CHUNKS = "UPDATE " + DGB_STORAGE_CHUNKS + " SET "
+			+ STORAGE_CHUNK_REFS + " = " + STORAGE_CHUNK_REFS + " - 1 WHERE " + STORAGE_CHUNK_HASH + " = ?";
+
+	private static final String DELETE_DGB_STORAGE_CHUNKS_UNUSED = "DELETE FROM " + DGB_STORAGE_CHUNKS
+			+ " WHERE " + STORAGE_CHUNK_HASH + " = ? AND " + STORAGE_CHUNK_REFS + " <= 0";
+
+	private static final String DELETE_DGB_CHUNKED_STORAGE = "DELETE FROM " + DGB_CHUNKED_STORAGE;
+
+	private static final String DELETE_DGB_CHUNKED_STORAGE_MAP = "DELETE FROM " + DGB_CHUNKED_STORAGE_MAP;
+
+	private static final String DELETE_DGB_STORAGE_CHUNKS = "DELETE FROM " + DGB_STORAGE_CHUNKS;
+
+	public ChunkedStorageUtils(DataSource dataSource) {
+		super(dataSource);
+	}
+
+	public boolean exists(String path) throws SQLException {
+		return super.exists(path, SELECT_DGB_CHUNKED_STORAGE_EXISTS, DGB_CHUNKED_STORAGE,
+				CREATE_TABLE_DGB_CHUNKED_STORAGE);
+	}
+
+	public void clear() throws SQLException {
+		Connection connection = null;
+		boolean committed = false;
+		try {
+			connection = getConnection();
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				Statement stmt = connection.createStatement();
+				try {
+					stmt.executeUpdate(DELETE_DGB_CHUNKED_STORAGE);
+					stmt.executeUpdate(DELETE_DGB_CHUNKED_STORAGE_MAP);
+					stmt.executeUpdate(DELETE_DGB_STORAGE_CHUNKS);
+				} finally {
+					closeStatement(stmt);
+				}
+				connection.commit();
+				committed = true;
+			} finally {
+				restore(connection, autoCommit, committed);
+			}
+		} finally {
+			closeConnection(connection);
+		}
+	}
+
+	public void delete(String path) throws SQLException {
+		Connection connection = null;
+		boolean committed = false;
+		try {
+			connection = getConnection();
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				List<String> hashes = getChunkHashes(connection, path);
+				executeUpdate(connection, DELETE_DGB_CHUNKED_STORAGE_MAP_PATH, path);
+				executeUpdate(connection, DELETE_DGB_CHUNKED_STORAGE_PATH, path);
+				releaseChunks(connection, hashes);
+				connection.commit();
+				committed = true;
+			} finally {
+				restore(connection, autoCommit, committed);
+			}
+		} finally {
+			closeConnection(connection);
+		}
+	}
+
+	public void put(String path, byte[] data, String contentType) throws SQLException, IOException {
+		put(path, new ByteArrayInputStream(data), contentType);
+	}
+
+	/**
+	 * Stores the content of the stream under the given path, replacing the
+	 * previous object if any. The stream is read up to its end, but not closed.
+	 * 
+	 * @param path
+	 * @param in
+	 * @param contentType
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public void put(String path, InputStream in, String contentType) throws SQLException, IOException {
+		int chunkSize = getChunkSize();
+		MessageDigest objectDigest = createDigest();
+		MessageDigest chunkDigest = createDigest();
+		byte[] buffer = new byte[chunkSize];
+
+		Connection connection = null;
+		boolean committed = false;
+		try {
+			connection = getConnection();
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				List<String> previous = getChunkHashes(connection, path);
+				executeUpdate(connection, DELETE_DGB_CHUNKED_STORAGE_MAP_PATH, path);
+
+				long size = 0;
+				int index = 0;
+				int count;
+				while ((count = readChunk(in, buffer)) > 0) {
+					objectDigest.update(buffer, 0, count);
+					chunkDigest.update(buffer, 0, count);
+					String hash = new String(Hex.encodeHex(chunkDigest.digest()));
+					acquireChunk(connection, hash, buffer, count);
+					insertMapping(connection, path, index++, hash);
+					size += count;
+				}
+				// the chunks shared with the previous version have been acquired already
+				releaseChunks(connection, previous);
+
+				String hash = new String(Hex.encodeHex(objectDigest.digest()));
+				boolean exists = exists(connection, path, SELECT_DGB_CHUNKED_STORAGE_EXISTS);
+				PreparedStatement pstmt = connection.prepareStatement(exists ? UPDATE_DGB_CHUNKED_STORAGE
+						: INSERT_INTO_DGB_CHUNKED_STORAGE);
+				try {
+					int i = 0;
+					pstmt.setString(++i, contentType);
+					pstmt.setLong(++i, size);
+					pstmt.setInt(++i, chunkSize);
+					pstmt.setString(++i, hash);
+					pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
+					pstmt.setString(++i, path);
+					pstmt.executeUpdate();
+				} finally {
+					closeStatement(pstmt);
+				}
+				connection.commit();
+				committed = true;
+			} finally {
+				restore(connection, autoCommit, committed);
+			}
+		} finally {
+			closeConnection(connection);
+		}
+	}
+
+	/**
+	 * The information about the stored object, or <code>null</code> if there
+	 * is no object under the given path
+	 * 
+	 * @param path
+	 * @return
+	 * @throws SQLException
+	 */
+	public ChunkedStorageFile getInfo(String path) throws SQLException {
+		Connection connection = null;
+		try {
+			connection = getConnection();
+			return getInfo(connection, path);
+		} finally {
+			closeConnection(connection);
+		}
+	}
+
+	/**
+	 * The whole content of the object - for small objects only, use the
+	 * streams otherwise
+	 * 
+	 * @param path
+	 * @return
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public byte[] get(String path) throws SQLException, IOException {
+		InputStream in = openInputStream(path);
+		if (in == null) {
+			return null;
+		}
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	public InputStream openInputStream(String path) throws SQLException, IOException {
+		return openInputStream(path, 0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Opens a stream over a range of the content of the object. The chunks are
+	 * loaded one by one while reading, those before the offset are not loaded
+	 * at all.
+	 * 
+	 * @param path
+	 * @param offset
+	 *            the first byte to read
+	 * @param length
+	 *            the maximum number of bytes to read
+	 * @return the stream or <code>null</code> if there is no such object
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public InputStream openInputStream(String path, long offset, long length) throws SQLException, IOException {
+		Connection connection = null;
+		try {
+			connection = getConnection();
+			ChunkedStorageFile file = getInfo(connection, path);
+			if (file == null) {
+				return null;
+			}
+			List<String> hashes = getChunkHashes(connection, path);
+			long start = Math.min(Math.max(offset, 0), file.size);
+			long count = Math.min(length, file.size - start);
+			return new ChunkInputStream(hashes, file.chunkSize, start, count);
+		} finally {
+			closeConnection(connection);
+		}
+	}
+
+	/**
+	 * Sends the object as a response to the given request, serving a single
+	 * byte range if requested
+	 * 
+	 * @param path
+	 * @param request
+	 * @param response
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public void send(String path, HttpServletRequest request, HttpServletResponse response)
+			throws SQLException, IOException {
+		ChunkedStorageFile file = getInfo(path);
+		if (file == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND, path);
+			return;
+		}
+		response.setHeader(ACCEPT_RANGES_HEADER, BYTES_UNIT);
+		response.setHeader(ETAG_HEADER, "\"" + file.hash + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+		if (file.contentType != null) {
+			response.setContentType(file.contentType);
+		}
+		long offset = 0;
+		long length = file.size;
+		String range = request.getHeader(RANGE_HEADER);
+		if (range != null) {
+			long[] bounds = HttpContentUtils.parseRange(range, file.size);
+			if (bounds == null) {
+				response.setHeader(CONTENT_RANGE_HEADER, BYTES_UNIT + " */" + file.size); //$NON-NLS-1$
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (bounds.length > 0) {
+				offset = bounds[0];
+				length = bounds[1] - bounds[0] + 1;
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(CONTENT_RANGE_HEADER, BYTES_UNIT + " " + bounds[0] + "-" + bounds[1] + "/" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						+ file.size);
+			}
+		}
+		response.setHeader(CONTENT_LENGTH_HEADER, Long.toString(length));
+		InputStream in = openInputStream(path, offset, length);
+		if (in == null) {
+			// deleted in the meantime
+			response.sendError(HttpServletResponse.SC_NOT_FOUND, path);
+			return;
+		}
+		try {
+			IOUtils.copyLarge(in, response.getOutputStream());
+		} finally {
+			in.close();
+		}
+	}
+
+	private Connection getConnection() throws SQLException {
+		Connection connection = getConnection(DGB_CHUNKED_STORAGE, CREATE_TABLE_DGB_CHUNKED_STORAGE);
+		try {
+			checkDB(connection, DGB_CHUNKED_STORAGE_MAP, CREATE_TABLE_DGB_CHUNKED_STORAGE_MAP);
+			checkDB(connection, DGB_STORAGE_CHUNKS, CREATE_TABLE_DGB_STORAGE_CHUNKS);
+		} catch (SQLException e) {
+			closeConnection(connection);
+			throw e;
+		}
+		return connection;
+	}
+
+	private ChunkedStorageFile getInfo(Connection connection, String path) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_CHUNKED_STORAGE);
+		try {
+			pstmt.setString(1, path);
+			ResultSet rs = pstmt.executeQuery();
+			if (rs.next()) {
+				return new ChunkedStorageFile(rs.getString(CHUNKED_STORAGE_CONTENT_TYPE),
+						rs.getLong(CHUNKED_STORAGE_SIZE), rs.getInt(CHUNKED_STORAGE_CHUNK_SIZE),
+						rs.getString(CHUNKED_STORAGE_HASH), rs.getTimestamp(CHUNKED_STORAGE_TIMESTAMP));
+			}
+			return null;
+		} finally {
+			closeStatement(pstmt);
+		}
+	}
+
+	private List<String> getChunkHashes(Connection connection, String path) throws SQLException {
+		List<String> hashes = new ArrayList<String>();
+		PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_CHUNKED_STORAGE_MAP);
+		try {
+			pstmt.setString(1, path);
+			ResultSet rs = pstmt.executeQuery();
+			while (rs.next()) {
+				hashes.add(rs.getString(1));
+			}
+		} finally {
+			closeStatement(pstmt);
+		}
+		return hashes;
+	}
+
+	private void insertMapping(Connection connection, String path, int index, String hash) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_CHUNKED_STORAGE_MAP);
+		try {
+			pstmt.setString(1, path);
+			pstmt.setInt(2, index);
+			pstmt.setString(3, hash);
+			pstmt.executeUpdate();
+		} finally {
+			closeStatement(pstmt);
+		}
+	}
+
+	/**
+	 * References the chunk with the given hash, storing it if it is not there
+	 * yet. A concurrent writer may store the same new chunk meanwhile - then
+	 * the insert fails on the primary key and the stored chunk is referenced
+	 * instead.
+	 */
+	private void acquireChunk(Connection connection, String hash, byte[] buffer, int count) throws SQLException {
+		if (executeUpdate(connection, ACQUIRE_DGB_STORAGE_CHUNKS, hash) > 0) {
+			return;
+		}
+		Savepoint savepoint = connection.setSavepoint();
+		PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_STORAGE_CHUNKS);
+		try {
+			pstmt.setString(1, hash);
+			pstmt.setBinaryStream(2, new ByteArrayInputStream(buffer, 0, count), count);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			if ((e.getSQLState() == null) || !e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+				throw e;
+			}
+			// the transaction stays usable after the failed insert only if rolled back to before it
+			connection.rollback(savepoint);
+			if (executeUpdate(connection, ACQUIRE_DGB_STORAGE_CHUNKS, hash) == 0) {
+				throw e;
+			}
+			return;
+		} finally {
+			closeStatement(pstmt);
+		}
+		connection.releaseSavepoint(savepoint);
+	}
+
+	private void releaseChunks(Connection connection, List<String> hashes) throws SQLException {
+		for (String hash : hashes) {
+			executeUpdate(connection, RELEASE_DGB_STORAGE_CHUNKS, hash);
+			executeUpdate(connection, DELETE_DGB_STORAGE_CHUNKS_UNUSED, hash);
+		}
+	}
+
+	private byte[] loadChunk(String hash) throws IOException {
+		try {
+			Connection connection = null;
+			try {
+				connection = this.dataSource.getConnection();
+				PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_STORAGE_CHUNKS);
+				try {
+					pstmt.setString(1, hash);
+					ResultSet rs = pstmt.executeQuery();
+					if (rs.next()) {
+						return DBUtils.dbToDataBinary(connection, rs, STORAGE_CHUNK_DATA);
+					}
+				} finally {
+					closeStatement(pstmt);
+				}
+			} finally {
+				closeConnection(connection);
+			}
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		throw new IOException(String.format(CHUNK_IS_MISSING, hash));
+	}
+
+	private int executeUpdate(Connection connection, String sql, String parameter) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(sql);
+		try {
+			pstmt.setString(1, parameter);
+			return pstmt.executeUpdate();
+		} finally {
+			closeStatement(pstmt);
+		}
+	}
+
+	private void restore(Connection connection, boolean autoCommit, boolean committed) throws SQLException {
+		try {
+			if (!committed) {
+				connection.rollback();
+			}
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	private static int readChunk(InputStream in, byte[] buffer) throws IOException {
+		int count = 0;
+		while (count < buffer.length) {
+			int read = in.read(buffer, count, buffer.length - count);
+			if (read < 0) {
+				break;
+			}
+			count += read;
+		}
+		return count;
+	}
+
+	private static int getChunkSize() {
+		int chunkSize = Integer.getInteger(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE);
+		return (chunkSize > 0) ? chunkSize : DEFAULT_CHUNK_SIZE;
+	}
+
+	private static MessageDigest createDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	public class ChunkedStorageFile {
+
+		public String contentType;
+		public long size;
+		public int chunkSize;
+		public String hash;
+		public Date timestamp;
+
+		public ChunkedStorageFile(String contentType, long size, int chunkSize, String hash, Date timestamp) {
+			this.contentType = contentType;
+			this.size = size;
+			this.chunkSize = chunkSize;
+			this.hash = hash;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Reads the chunks of an object lazily, each one with a connection of its
+	 * own, so no connection is held between the reads
+	 */
+	private class ChunkInputStream extends InputStream {
+
+		private final List<String> hashes;
+
+		private int chunkIndex;
+
+		private byte[] chunk;
+
+		private int position;
+
+		private long remaining;
+
+		ChunkInputStream(List<String> hashes, int chunkSize, long offset, long length) {
+			this.hashes = hashes;
+			this.chunkIndex = (int) (offset / chunkSize);
+			this.position = (int) (offset % chunkSize);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			int count = read(single, 0, 1);
+			return (count < 0) ? -1 : (single[0] & 0xFF);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (remaining <= 0) {
+				return -1;
+			}
+			while ((chunk == null) || (position >= chunk.length)) {
+				if (!nextChunk()) {
+					return -1;
+				}
+			}
+			int count = (int) Math.min(Math.min(len, chunk.length - position), remaining);
+			System.arraycopy(chunk, position, b, off, count);
+			position += count;
+			remaining -= count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return (chunk == null) ? 0 : (int) Math.min(chunk.length - position, remaining);
+		}
+
+		private boolean nextChunk() throws IOException {
+			if (chunk != null) {
+				chunkIndex++;
+				position = 0;
+			}
+			if (chunkIndex >= hashes.size()) {
+				return false;
+			}
+			chunk = loadChunk(hashes.get(chunkIndex));
+			return true;
+		}
+	}
+
+}
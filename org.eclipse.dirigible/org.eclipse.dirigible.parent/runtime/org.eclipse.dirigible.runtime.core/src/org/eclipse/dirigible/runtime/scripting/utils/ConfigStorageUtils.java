@@ -23,7 +23,6 @@ import java.sql.Timestamp;
 import java.util.GregorianCalendar;
 import java.util.Properties;
 
-import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import org.eclipse.dirigible.repository.ext.db.DBUtils;
@@ -48,8 +47,8 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 			+ CONFIG_STORAGE_TIMESTAMP + ")" + "VALUES (?,?,?)";
 
 	private static final String UPDATE_DGB_CONFIG_STORAGE = "UPDATE " + DGB_CONFIG_STORAGE
-			+ " SET " + CONFIG_STORAGE_PATH + " = ?, " + CONFIG_STORAGE_DATA + " = ?, "
-			+ CONFIG_STORAGE_TIMESTAMP + " = ?";
+			+ " SET " + CONFIG_STORAGE_DATA + " = ?, " + CONFIG_STORAGE_TIMESTAMP + " = ? WHERE "
+			+ CONFIG_STORAGE_PATH + " = ?";
 
 	private static final String DELETE_DGB_CONFIG_STORAGE = "DELETE FROM " + DGB_CONFIG_STORAGE;
 
@@ -60,9 +59,6 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 			+ DGB_CONFIG_STORAGE + " (" + CONFIG_STORAGE_PATH + " VARCHAR(2048) PRIMARY KEY, "
 			+ CONFIG_STORAGE_DATA + " BLOB, " + CONFIG_STORAGE_TIMESTAMP + " TIMESTAMP" + " )";
 
-	private static final String SELECT_COUNT_FROM_DGB_CONFIG_STORAGE = "SELECT COUNT(*) FROM "
-			+ DGB_CONFIG_STORAGE;
-
 	private static final String SELECT_DGB_CONFIG_STORAGE = "SELECT * FROM " + DGB_CONFIG_STORAGE
 			+ " WHERE " + CONFIG_STORAGE_PATH + " = ?";
 
@@ -73,23 +69,17 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 		super(dataSource);
 	}
 
-	private void checkDB() throws NamingException, SQLException {
-		super.checkDB(SELECT_COUNT_FROM_DGB_CONFIG_STORAGE, CREATE_TABLE_DGB_CONFIG_STORAGE);
-	}
-
 	public boolean exists(String path) throws SQLException {
-		return super.exists(path, SELECT_DGB_CONFIG_STORAGE_EXISTS,
-				SELECT_COUNT_FROM_DGB_CONFIG_STORAGE, CREATE_TABLE_DGB_CONFIG_STORAGE);
+		return super.exists(path, SELECT_DGB_CONFIG_STORAGE_EXISTS, DGB_CONFIG_STORAGE,
+				CREATE_TABLE_DGB_CONFIG_STORAGE);
 	}
 
 	public void clear() throws SQLException {
-		super.clear(DELETE_DGB_CONFIG_STORAGE, SELECT_COUNT_FROM_DGB_CONFIG_STORAGE,
-				CREATE_TABLE_DGB_CONFIG_STORAGE);
+		super.clear(DELETE_DGB_CONFIG_STORAGE, DGB_CONFIG_STORAGE, CREATE_TABLE_DGB_CONFIG_STORAGE);
 	}
 
 	public void delete(String path) throws SQLException {
-		super.delete(path, DELETE_DGB_STORAGE_PATH, SELECT_COUNT_FROM_DGB_CONFIG_STORAGE,
-				CREATE_TABLE_DGB_CONFIG_STORAGE);
+		super.delete(path, DELETE_DGB_STORAGE_PATH, DGB_CONFIG_STORAGE, CREATE_TABLE_DGB_CONFIG_STORAGE);
 	}
 
 	public void putProperty(String path, Object key, Object value) throws SQLException, IOException {
@@ -104,17 +94,16 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 	public void putProperties(String path, Properties properties) throws SQLException {
 		byte[] data = checkMaxSize(getByteArray(properties));
 
+		Connection connection = null;
 		try {
-			checkDB();
-
-			if (exists(path)) {
-				update(path, data);
+			connection = getConnection(DGB_CONFIG_STORAGE, CREATE_TABLE_DGB_CONFIG_STORAGE);
+			if (exists(connection, path, SELECT_DGB_CONFIG_STORAGE_EXISTS)) {
+				update(connection, path, data);
 			} else {
-				insert(path, data);
+				insert(connection, path, data);
 			}
-
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 	}
 
@@ -140,45 +129,31 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 		return data;
 	}
 
-	private void insert(String path, byte[] data) throws SQLException {
-		DataSource dataSource = this.dataSource;
-		Connection connection = null;
+	private void insert(Connection connection, String path, byte[] data) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_CONFIG_STORAGE);
 		try {
-			connection = dataSource.getConnection();
-			PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_CONFIG_STORAGE);
-
 			int i = 0;
 			pstmt.setString(++i, path);
 			pstmt.setBinaryStream(++i, new ByteArrayInputStream(data), data.length);
 			pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
 
 			pstmt.executeUpdate();
-
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeStatement(pstmt);
 		}
 	}
 
-	private void update(String path, byte[] data) throws SQLException {
-		DataSource dataSource = this.dataSource;
-		Connection connection = null;
+	private void update(Connection connection, String path, byte[] data) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(UPDATE_DGB_CONFIG_STORAGE);
 		try {
-			connection = dataSource.getConnection();
-			PreparedStatement pstmt = connection.prepareStatement(UPDATE_DGB_CONFIG_STORAGE);
-
 			int i = 0;
-			pstmt.setString(++i, path);
 			pstmt.setBinaryStream(++i, new ByteArrayInputStream(data), data.length);
 			pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
+			pstmt.setString(++i, path);
 
 			pstmt.executeUpdate();
-
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeStatement(pstmt);
 		}
 	}
 
@@ -192,14 +167,11 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 
 	// Retrieve photo data from the cache
 	public Properties getProperties(String path) throws SQLException, IOException {
+		Connection connection = null;
 		try {
-			checkDB();
-
-			DataSource dataSource = this.dataSource;
-			Connection connection = null;
+			connection = getConnection(DGB_CONFIG_STORAGE, CREATE_TABLE_DGB_CONFIG_STORAGE);
+			PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_CONFIG_STORAGE);
 			try {
-				connection = dataSource.getConnection();
-				PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_CONFIG_STORAGE);
 				pstmt.setString(1, path);
 
 				ResultSet rs = pstmt.executeQuery();
@@ -213,16 +185,13 @@ public class ConfigStorageUtils extends AbstractStorageUtils {
 					bis.close();
 					return properties;
 				}
-
 			} finally {
-				if (connection != null) {
-					connection.close();
-				}
+				closeStatement(pstmt);
 			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 		return null;
 	}
 
-}
\ No newline at end of file
+}
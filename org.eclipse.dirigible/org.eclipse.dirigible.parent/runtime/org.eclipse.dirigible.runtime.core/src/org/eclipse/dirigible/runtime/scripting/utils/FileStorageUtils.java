@@ -21,7 +21,6 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.GregorianCalendar;
 
-import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import org.eclipse.dirigible.repository.ext.db.DBUtils;
@@ -43,8 +42,8 @@ public class FileStorageUtils extends AbstractStorageUtils {
 			+ FILE_STORAGE_CONTENT_TYPE + ", " + FILE_STORAGE_TIMESTAMP + ")" + "VALUES (?,?,?,?)";
 
 	private static final String UPDATE_DGB_FILE_STORAGE = "UPDATE " + DGB_FILE_STORAGE + " SET "
-			+ FILE_STORAGE_PATH + " = ?, " + FILE_STORAGE_DATA + " = ?, "
-			+ FILE_STORAGE_CONTENT_TYPE + " = ?, " + FILE_STORAGE_TIMESTAMP + " = ?";
+			+ FILE_STORAGE_DATA + " = ?, " + FILE_STORAGE_CONTENT_TYPE + " = ?, "
+			+ FILE_STORAGE_TIMESTAMP + " = ? WHERE " + FILE_STORAGE_PATH + " = ?";
 
 	private static final String DELETE_DGB_FILE_STORAGE = "DELETE FROM " + DGB_FILE_STORAGE;
 
@@ -56,9 +55,6 @@ public class FileStorageUtils extends AbstractStorageUtils {
 			+ " BLOB, " + FILE_STORAGE_CONTENT_TYPE + " VARCHAR(50), " + FILE_STORAGE_TIMESTAMP
 			+ " TIMESTAMP" + " )";
 
-	private static final String SELECT_COUNT_FROM_DGB_FILE_STORAGE = "SELECT COUNT(*) FROM "
-			+ DGB_FILE_STORAGE;
-
 	private static final String SELECT_DGB_FILE_STORAGE = "SELECT * FROM " + DGB_FILE_STORAGE
 			+ " WHERE " + FILE_STORAGE_PATH + " = ?";
 
@@ -69,38 +65,31 @@ public class FileStorageUtils extends AbstractStorageUtils {
 		super(dataSource);
 	}
 
-	private void checkDB() throws NamingException, SQLException {
-		super.checkDB(SELECT_COUNT_FROM_DGB_FILE_STORAGE, CREATE_TABLE_DGB_FILE_STORAGE);
-	}
-
 	public boolean exists(String path) throws SQLException {
-		return super.exists(path, SELECT_DGB_FILE_STORAGE_EXISTS,
-				SELECT_COUNT_FROM_DGB_FILE_STORAGE, CREATE_TABLE_DGB_FILE_STORAGE);
+		return super.exists(path, SELECT_DGB_FILE_STORAGE_EXISTS, DGB_FILE_STORAGE,
+				CREATE_TABLE_DGB_FILE_STORAGE);
 	}
 
 	public void clear() throws SQLException {
-		super.clear(DELETE_DGB_FILE_STORAGE, SELECT_COUNT_FROM_DGB_FILE_STORAGE,
-				CREATE_TABLE_DGB_FILE_STORAGE);
+		super.clear(DELETE_DGB_FILE_STORAGE, DGB_FILE_STORAGE, CREATE_TABLE_DGB_FILE_STORAGE);
 	}
 
 	public void delete(String path) throws SQLException {
-		super.delete(path, DELETE_DGB_STORAGE_PATH, SELECT_COUNT_FROM_DGB_FILE_STORAGE,
-				CREATE_TABLE_DGB_FILE_STORAGE);
+		super.delete(path, DELETE_DGB_STORAGE_PATH, DGB_FILE_STORAGE, CREATE_TABLE_DGB_FILE_STORAGE);
 	}
 
 	public void put(String path, byte[] data, String contentType) throws SQLException {
 		checkMaxSize(data);
+		Connection connection = null;
 		try {
-			checkDB();
-
-			if (exists(path)) {
-				update(path, data, contentType);
+			connection = getConnection(DGB_FILE_STORAGE, CREATE_TABLE_DGB_FILE_STORAGE);
+			if (exists(connection, path, SELECT_DGB_FILE_STORAGE_EXISTS)) {
+				update(connection, path, data, contentType);
 			} else {
-				insert(path, data, contentType);
+				insert(connection, path, data, contentType);
 			}
-
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 	}
 
@@ -112,13 +101,10 @@ public class FileStorageUtils extends AbstractStorageUtils {
 		return data;
 	}
 
-	private void insert(String path, byte[] data, String contentType) throws SQLException {
-		DataSource dataSource = this.dataSource;
-		Connection connection = null;
+	private void insert(Connection connection, String path, byte[] data, String contentType)
+			throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_FILE_STORAGE);
 		try {
-			connection = dataSource.getConnection();
-			PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_FILE_STORAGE);
-
 			int i = 0;
 			pstmt.setString(++i, path);
 			pstmt.setBinaryStream(++i, new ByteArrayInputStream(data), data.length);
@@ -126,46 +112,34 @@ public class FileStorageUtils extends AbstractStorageUtils {
 			pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
 
 			pstmt.executeUpdate();
-
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeStatement(pstmt);
 		}
 	}
 
-	private void update(String path, byte[] data, String contentType) throws SQLException {
-		DataSource dataSource = this.dataSource;
-		Connection connection = null;
+	private void update(Connection connection, String path, byte[] data, String contentType)
+			throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(UPDATE_DGB_FILE_STORAGE);
 		try {
-			connection = dataSource.getConnection();
-			PreparedStatement pstmt = connection.prepareStatement(UPDATE_DGB_FILE_STORAGE);
-
 			int i = 0;
-			pstmt.setString(++i, path);
 			pstmt.setBinaryStream(++i, new ByteArrayInputStream(data), data.length);
 			pstmt.setString(++i, contentType);
 			pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
+			pstmt.setString(++i, path);
 
 			pstmt.executeUpdate();
-
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeStatement(pstmt);
 		}
 	}
 
 	// Retrieve photo data from the cache
 	public FileStorageFile get(String path) throws SQLException, IOException {
+		Connection connection = null;
 		try {
-			checkDB();
-
-			DataSource dataSource = this.dataSource;
-			Connection connection = null;
+			connection = getConnection(DGB_FILE_STORAGE, CREATE_TABLE_DGB_FILE_STORAGE);
+			PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_FILE_STORAGE);
 			try {
-				connection = dataSource.getConnection();
-				PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_FILE_STORAGE);
 				pstmt.setString(1, path);
 
 				ResultSet rs = pstmt.executeQuery();
@@ -174,14 +148,11 @@ public class FileStorageUtils extends AbstractStorageUtils {
 					String contentType = rs.getString(FILE_STORAGE_CONTENT_TYPE);
 					return new FileStorageFile(data, contentType);
 				}
-
 			} finally {
-				if (connection != null) {
-					connection.close();
-				}
+				closeStatement(pstmt);
 			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 		return null;
 	}
@@ -0,0 +1,245 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.scripting.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Sequences kept in the DGB_SEQUENCES table. The values are not taken one by
+ * one - a block of them is reserved with a single atomic update and then
+ * handed out from memory. The generator is shared per data source, hence the
+ * values are unique within the process and across the processes using the same
+ * database, although not necessarily in order and without gaps between them,
+ * as the rest of a block is lost on shutdown.
+ */
+public class SequenceGenerator {
+
+	private static final Logger logger = Logger.getLogger(SequenceGenerator.class);
+
+	/**
+	 * System property for the number of values reserved at once
+	 */
+	public static final String BLOCK_SIZE_PROPERTY = "dirigible.sequence.block.size"; //$NON-NLS-1$
+
+	public static final int DEFAULT_BLOCK_SIZE = 100;
+
+	private static final String SEQUENCE_NOT_RESERVED = "Values of sequence %s could not be reserved, it has been dropped in the meantime"; //$NON-NLS-1$
+
+	private static final String DGB_SEQUENCES = "DGB_SEQUENCES"; //$NON-NLS-1$
+
+	private static final String CREATE_TABLE_DGB_SEQUENCES = "CREATE TABLE " + DGB_SEQUENCES //$NON-NLS-1$
+			+ " (SEQ_NAME VARCHAR(128) NOT NULL PRIMARY KEY, SEQ_VALUE INTEGER)"; //$NON-NLS-1$
+
+	private static final String SELECT_DGB_SEQUENCES = "SELECT SEQ_VALUE FROM " + DGB_SEQUENCES //$NON-NLS-1$
+			+ " WHERE SEQ_NAME=?"; //$NON-NLS-1$
+
+	private static final String INSERT_INTO_DGB_SEQUENCES = "INSERT INTO " + DGB_SEQUENCES //$NON-NLS-1$
+			+ " VALUES (?, ?)"; //$NON-NLS-1$
+
+	private static final String RESERVE_DGB_SEQUENCES = "UPDATE " + DGB_SEQUENCES //$NON-NLS-1$
+			+ " SET SEQ_VALUE=SEQ_VALUE+? WHERE SEQ_NAME=?"; //$NON-NLS-1$
+
+	private static final String DELETE_FROM_DGB_SEQUENCES = "DELETE FROM " + DGB_SEQUENCES //$NON-NLS-1$
+			+ " WHERE SEQ_NAME=?"; //$NON-NLS-1$
+
+	private static final Map<DataSource, SequenceGenerator> instances = new WeakHashMap<DataSource, SequenceGenerator>();
+
+	private final DataSource dataSource;
+
+	private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<String, Block>();
+
+	public static SequenceGenerator getInstance(DataSource dataSource) {
+		synchronized (instances) {
+			SequenceGenerator instance = instances.get(dataSource);
+			if (instance == null) {
+				instance = new SequenceGenerator(dataSource);
+				instances.put(dataSource, instance);
+			}
+			return instance;
+		}
+	}
+
+	SequenceGenerator(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * The next value of the sequence, which is created starting from 1 if it
+	 * does not exist
+	 * 
+	 * @param sequenceName
+	 * @return
+	 * @throws SQLException
+	 */
+	public long next(String sequenceName) throws SQLException {
+		while (true) {
+			Block block = blocks.get(sequenceName);
+			if (block != null) {
+				long value = block.next.getAndIncrement();
+				if (value <= block.last) {
+					return value;
+				}
+			}
+			synchronized (this) {
+				// the exhausted block may have been replaced in the meantime
+				if (blocks.get(sequenceName) == block) {
+					Block reserved = reserve(sequenceName, getBlockSize());
+					if (block == null) {
+						blocks.putIfAbsent(sequenceName, reserved);
+					} else {
+						blocks.replace(sequenceName, block, reserved);
+					}
+				}
+			}
+		}
+	}
+
+	public void create(String sequenceName, int start) throws SQLException {
+		blocks.remove(sequenceName);
+		Connection connection = getConnection();
+		try {
+			executeUpdate(connection, INSERT_INTO_DGB_SEQUENCES, sequenceName, start);
+		} finally {
+			connection.close();
+		}
+	}
+
+	public void drop(String sequenceName) throws SQLException {
+		blocks.remove(sequenceName);
+		Connection connection = getConnection();
+		try {
+			PreparedStatement preparedStatement = connection.prepareStatement(DELETE_FROM_DGB_SEQUENCES);
+			try {
+				preparedStatement.setString(1, sequenceName);
+				preparedStatement.executeUpdate();
+			} finally {
+				preparedStatement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	public boolean exists(String sequenceName) throws SQLException {
+		Connection connection = getConnection();
+		try {
+			return select(connection, sequenceName) != null;
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Reserves the values after the current one in a transaction of its own
+	 */
+	private Block reserve(String sequenceName, int size) throws SQLException {
+		Connection connection = getConnection();
+		try {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				if (executeUpdate(connection, RESERVE_DGB_SEQUENCES, size, sequenceName) == 0) {
+					try {
+						executeUpdate(connection, INSERT_INTO_DGB_SEQUENCES, sequenceName, size);
+					} catch (SQLException e) {
+						// created by someone else in the meantime
+						logger.debug(e.getMessage());
+						connection.rollback();
+						executeUpdate(connection, RESERVE_DGB_SEQUENCES, size, sequenceName);
+					}
+				}
+				// the row is locked by the update until the commit
+				Long last = select(connection, sequenceName);
+				if (last == null) {
+					throw new SQLException(String.format(SEQUENCE_NOT_RESERVED, sequenceName));
+				}
+				connection.commit();
+				return new Block(last - size + 1, last);
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private Connection getConnection() throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			TableBootstrap.ensureTable(dataSource, connection, DGB_SEQUENCES, CREATE_TABLE_DGB_SEQUENCES);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		return connection;
+	}
+
+	private Long select(Connection connection, String sequenceName) throws SQLException {
+		PreparedStatement preparedStatement = connection.prepareStatement(SELECT_DGB_SEQUENCES);
+		try {
+			preparedStatement.setString(1, sequenceName);
+			ResultSet resultSet = preparedStatement.executeQuery();
+			if (resultSet.next()) {
+				return resultSet.getLong(1);
+			}
+			return null;
+		} finally {
+			preparedStatement.close();
+		}
+	}
+
+	private int executeUpdate(Connection connection, String sql, Object first, Object second)
+			throws SQLException {
+		PreparedStatement preparedStatement = connection.prepareStatement(sql);
+		try {
+			preparedStatement.setObject(1, first);
+			preparedStatement.setObject(2, second);
+			return preparedStatement.executeUpdate();
+		} finally {
+			preparedStatement.close();
+		}
+	}
+
+	private static int getBlockSize() {
+		int blockSize = Integer.getInteger(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE);
+		return (blockSize > 0) ? blockSize : DEFAULT_BLOCK_SIZE;
+	}
+
+	private static class Block {
+
+		private final AtomicLong next;
+
+		private final long last;
+
+		Block(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
+		}
+	}
+
+}
@@ -21,7 +21,6 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.GregorianCalendar;
 
-import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import org.eclipse.dirigible.repository.ext.db.DBUtils;
@@ -42,7 +41,7 @@ public class StorageUtils extends AbstractStorageUtils {
 			+ "VALUES (?,?,?)";
 
 	private static final String UPDATE_DGB_STORAGE = "UPDATE " + DGB_STORAGE + " SET "
-			+ STORAGE_PATH + " = ?, " + STORAGE_DATA + " = ?, " + STORAGE_TIMESTAMP + " = ?";
+			+ STORAGE_DATA + " = ?, " + STORAGE_TIMESTAMP + " = ? WHERE " + STORAGE_PATH + " = ?";
 
 	private static final String DELETE_DGB_STORAGE = "DELETE FROM " + DGB_STORAGE;
 
@@ -53,9 +52,6 @@ public class StorageUtils extends AbstractStorageUtils {
 			+ STORAGE_PATH + " VARCHAR(2048) PRIMARY KEY, " + STORAGE_DATA + " BLOB, "
 			+ STORAGE_TIMESTAMP + " TIMESTAMP" + " )";
 
-	private static final String SELECT_COUNT_FROM_DGB_STORAGE = "SELECT COUNT(*) FROM "
-			+ DGB_STORAGE;
-
 	private static final String SELECT_DGB_STORAGE = "SELECT * FROM " + DGB_STORAGE + " WHERE "
 			+ STORAGE_PATH + " = ?";
 
@@ -66,37 +62,30 @@ public class StorageUtils extends AbstractStorageUtils {
 		super(dataSource);
 	}
 
-	private void checkDB() throws NamingException, SQLException {
-		super.checkDB(SELECT_COUNT_FROM_DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
-	}
-
 	public boolean exists(String path) throws SQLException {
-		return super.exists(path, SELECT_DGB_STORAGE_EXISTS, SELECT_COUNT_FROM_DGB_STORAGE,
-				CREATE_TABLE_DGB_STORAGE);
+		return super.exists(path, SELECT_DGB_STORAGE_EXISTS, DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
 	}
 
 	public void clear() throws SQLException {
-		super.clear(DELETE_DGB_STORAGE, SELECT_COUNT_FROM_DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
+		super.clear(DELETE_DGB_STORAGE, DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
 	}
 
 	public void delete(String path) throws SQLException {
-		super.delete(path, DELETE_DGB_STORAGE_PATH, SELECT_COUNT_FROM_DGB_STORAGE,
-				CREATE_TABLE_DGB_STORAGE);
+		super.delete(path, DELETE_DGB_STORAGE_PATH, DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
 	}
 
 	public void put(String path, byte[] data) throws SQLException {
 		checkMaxSize(data);
+		Connection connection = null;
 		try {
-			checkDB();
-
-			if (exists(path)) {
-				update(path, data);
+			connection = getConnection(DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
+			if (exists(connection, path, SELECT_DGB_STORAGE_EXISTS)) {
+				update(connection, path, data);
 			} else {
-				insert(path, data);
+				insert(connection, path, data);
 			}
-
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 	}
 
@@ -108,73 +97,53 @@ public class StorageUtils extends AbstractStorageUtils {
 		return data;
 	}
 
-	private void insert(String path, byte[] data) throws SQLException {
-		DataSource dataSource = this.dataSource;
-		Connection connection = null;
+	private void insert(Connection connection, String path, byte[] data) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_STORAGE);
 		try {
-			connection = dataSource.getConnection();
-			PreparedStatement pstmt = connection.prepareStatement(INSERT_INTO_DGB_STORAGE);
-
 			int i = 0;
 			pstmt.setString(++i, path);
 			pstmt.setBinaryStream(++i, new ByteArrayInputStream(data), data.length);
 			pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
 
 			pstmt.executeUpdate();
-
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeStatement(pstmt);
 		}
 	}
 
-	private void update(String path, byte[] data) throws SQLException {
-		DataSource dataSource = this.dataSource;
-		Connection connection = null;
+	private void update(Connection connection, String path, byte[] data) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(UPDATE_DGB_STORAGE);
 		try {
-			connection = dataSource.getConnection();
-			PreparedStatement pstmt = connection.prepareStatement(UPDATE_DGB_STORAGE);
-
 			int i = 0;
-			pstmt.setString(++i, path);
 			pstmt.setBinaryStream(++i, new ByteArrayInputStream(data), data.length);
 			pstmt.setTimestamp(++i, new Timestamp(GregorianCalendar.getInstance().getTime().getTime()));
+			pstmt.setString(++i, path);
 
 			pstmt.executeUpdate();
-
 		} finally {
-			if (connection != null) {
-				connection.close();
-			}
+			closeStatement(pstmt);
 		}
 	}
 
 	// Retrieve photo data from the cache
 	public byte[] get(String path) throws SQLException, IOException {
+		Connection connection = null;
 		try {
-			checkDB();
-
-			DataSource dataSource = this.dataSource;
-			Connection connection = null;
+			connection = getConnection(DGB_STORAGE, CREATE_TABLE_DGB_STORAGE);
+			PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_STORAGE);
 			try {
-				connection = dataSource.getConnection();
-				PreparedStatement pstmt = connection.prepareStatement(SELECT_DGB_STORAGE);
 				pstmt.setString(1, path);
 
 				ResultSet rs = pstmt.executeQuery();
 				if (rs.next()) {
 					return DBUtils.dbToDataBinary(connection, rs, STORAGE_DATA);
 				}
-
 			} finally {
-				if (connection != null) {
-					connection.close();
-				}
+				closeStatement(pstmt);
 			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
+		} finally {
+			closeConnection(connection);
 		}
 		return null;
 	}
-}
\ No newline at end of file
+}
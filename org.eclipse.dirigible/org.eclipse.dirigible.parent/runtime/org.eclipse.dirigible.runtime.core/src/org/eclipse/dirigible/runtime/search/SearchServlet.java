@@ -20,14 +20,13 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.lucene.index.IndexNotFoundException;
-
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.api.IRepositoryPaths;
 import org.eclipse.dirigible.repository.ext.lucene.RepositoryMemoryIndexer;
+import org.eclipse.dirigible.repository.ext.lucene.SearchResult;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.registry.AbstractRegistryServlet;
 
@@ -37,8 +36,14 @@ import org.eclipse.dirigible.runtime.registry.AbstractRegistryServlet;
 public class SearchServlet extends AbstractRegistryServlet {
 
 	private static final String REQUEST_PROCESSING_FAILED_S = ""; //$NON-NLS-1$
+	private static final String INVALID_PARAMETER_S = "Invalid value of parameter %s: %s"; //$NON-NLS-1$
 	private static final String SEARCH_TERM = "q"; //$NON-NLS-1$
 	private static final String REINDEX = "reindex"; //$NON-NLS-1$
+	private static final String FIELD = "field"; //$NON-NLS-1$
+	private static final String OFFSET = "offset"; //$NON-NLS-1$
+	private static final String LIMIT = "limit"; //$NON-NLS-1$
+	private static final String HEADER_TOTAL_COUNT = "X-Total-Count"; //$NON-NLS-1$
+	private static final int DEFAULT_LIMIT = 100;
 	//    private static final String CASE_INSENSITIVE_TERM = "caseInsensitive"; //$NON-NLS-1$
 
 	private static final long serialVersionUID = 7435479651482177443L;
@@ -71,15 +76,18 @@ public class SearchServlet extends AbstractRegistryServlet {
 			// caseInsensitive);
 			// enumerateEntities(response, entities);
 
-			List<String> paths = null;
-			try {
-				paths = RepositoryMemoryIndexer.search(searchTerm);
-			} catch (IndexNotFoundException e) {
-				RepositoryMemoryIndexer.indexRepository(repository);
+			String field = request.getParameter(FIELD);
+			if (field == null) {
+				field = RepositoryMemoryIndexer.FIELD_CONTENT;
 			}
-			paths = RepositoryMemoryIndexer.search(searchTerm);
-
-			enumeratePaths(response, paths);
+			int offset = getIntParameter(request, OFFSET, 0);
+			int limit = getIntParameter(request, LIMIT, DEFAULT_LIMIT);
+			// only the deployed resources are listed
+			SearchResult<String> result = RepositoryMemoryIndexer.search(searchTerm, field,
+					IRepositoryPaths.REGISTRY_DEPLOY_PATH, offset, limit);
+			response.setIntHeader(HEADER_TOTAL_COUNT, result.getTotalHits());
+
+			enumeratePaths(response, result.getHits());
 		} catch (final IllegalArgumentException ex) {
 			logger.error(String.format(REQUEST_PROCESSING_FAILED_S, searchTerm) + ex.getMessage(), ex);
 			response.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
@@ -89,6 +97,18 @@ public class SearchServlet extends AbstractRegistryServlet {
 		}
 	}
 
+	private int getIntParameter(HttpServletRequest request, String name, int defaultValue) {
+		String value = request.getParameter(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format(INVALID_PARAMETER_S, name, value));
+		}
+	}
+
 	private void enumeratePaths(final HttpServletResponse response, final List<String> paths)
 			throws IOException {
 		final PrintWriter writer = response.getWriter();
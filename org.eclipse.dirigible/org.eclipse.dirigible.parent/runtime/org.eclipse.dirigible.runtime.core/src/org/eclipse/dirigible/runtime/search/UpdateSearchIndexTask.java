@@ -22,7 +22,7 @@ public class UpdateSearchIndexTask implements IRunnableTask {
 
 	@Override
 	public String getName() {
-		return "Access Log Cleanup Task";
+		return "Update Search Index Task";
 	}
 
 	@Override
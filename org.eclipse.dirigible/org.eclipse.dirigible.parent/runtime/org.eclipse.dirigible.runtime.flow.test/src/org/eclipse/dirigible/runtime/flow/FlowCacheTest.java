@@ -0,0 +1,83 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Date;
+
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
+import org.junit.After;
+import org.junit.Test;
+
+public class FlowCacheTest {
+
+	private static final String FIRST = "/testFlowCache/first/a.flow"; //$NON-NLS-1$
+
+	private static final String SECOND = "/testFlowCache/first/b.flow"; //$NON-NLS-1$
+
+	private static final String THIRD = "/testFlowCache/second/c.flow"; //$NON-NLS-1$
+
+	@After
+	public void tearDown() {
+		FlowCache.getInstance().clear();
+	}
+
+	@Test
+	public void testInvalidationOnModification() {
+		FlowCache cache = new FlowCache(10);
+		Flow flow = new Flow();
+		Date modifiedAt = new Date(1000);
+		cache.put(FIRST, modifiedAt, flow);
+
+		assertSame(flow, cache.get(FIRST, new Date(1000)));
+		assertNull(cache.get(FIRST, new Date(2000)));
+		assertNull(cache.get(FIRST, null));
+		assertNull(cache.get(SECOND, modifiedAt));
+	}
+
+	@Test
+	public void testInvalidationOnRepositoryEvent() {
+		FlowCache cache = FlowCache.getInstance();
+		Date modifiedAt = new Date(1000);
+		cache.put(FIRST, modifiedAt, new Flow());
+		cache.put(SECOND, modifiedAt, new Flow());
+		Flow third = new Flow();
+		cache.put(THIRD, modifiedAt, third);
+
+		// e.g. the folder of the flows re-published
+		RepositoryListeners.fireChanged(null, "/testFlowCache/first"); //$NON-NLS-1$
+		assertNull(cache.get(FIRST, modifiedAt));
+		assertNull(cache.get(SECOND, modifiedAt));
+		assertSame(third, cache.get(THIRD, modifiedAt));
+
+		RepositoryListeners.fireRemoved(null, THIRD);
+		assertNull(cache.get(THIRD, modifiedAt));
+	}
+
+	@Test
+	public void testEviction() {
+		FlowCache cache = new FlowCache(2);
+		Date modifiedAt = new Date(1000);
+		cache.put(FIRST, modifiedAt, new Flow());
+		cache.put(SECOND, modifiedAt, new Flow());
+		cache.get(FIRST, modifiedAt);
+		cache.put(THIRD, modifiedAt, new Flow());
+
+		assertEquals(2, cache.size());
+		// the least recently used one
+		assertNull(cache.get(SECOND, modifiedAt));
+	}
+
+}
@@ -0,0 +1,217 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.eclipse.dirigible.runtime.scripting.IScriptExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FlowExecutorTest {
+
+	private static final String ROOT = "/testFlowExecutor"; //$NON-NLS-1$
+
+	private static final String MODULE = "test.flow"; //$NON-NLS-1$
+
+	private static final String STUB = "stub"; //$NON-NLS-1$
+
+	private static final String LAST = "last"; //$NON-NLS-1$
+
+	private IRepository repository;
+
+	private Map<Object, Object> executionContext;
+
+	private TestResponse response;
+
+	private AtomicInteger finished;
+
+	@Before
+	public void setUp() throws IOException {
+		EmbeddedDataSource dataSource = new EmbeddedDataSource();
+		dataSource.setDatabaseName("derby"); //$NON-NLS-1$
+		dataSource.setCreateDatabase("create"); //$NON-NLS-1$
+		repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		executionContext = new HashMap<Object, Object>();
+		response = new TestResponse();
+		finished = new AtomicInteger();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		repository.removeCollection(ROOT);
+		FlowCache.getInstance().clear();
+	}
+
+	@Test
+	public void testBranchesAreJoinedInOrder() throws IOException {
+		// the later branches finish first
+		execute("{\"steps\":[{\"type\":\"parallel\",\"branches\":[" //$NON-NLS-1$
+				+ "{\"properties\":{\"property\":\"a\"},\"steps\":[" + step("a:300") + "]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"steps\":[" + step("b:150") + "]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"steps\":[" + step("c:0") + "]}]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"type\":\"output\",\"message\":\".\"}]}"); //$NON-NLS-1$
+
+		assertEquals("abc.", response.getOutput()); //$NON-NLS-1$
+		assertEquals("c", executionContext.get(LAST)); //$NON-NLS-1$
+		assertEquals("a", executionContext.get("property")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(executionContext.containsKey("b")); //$NON-NLS-1$
+		assertEquals(-1, response.status);
+	}
+
+	@Test
+	public void testFailingBranchFailsTheStepAfterTheJoin() throws IOException {
+		execute("{\"steps\":[{\"type\":\"parallel\",\"branches\":[" //$NON-NLS-1$
+				+ "{\"steps\":[" + step("a:0:fail") + "]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"steps\":[" + step("b:300") + "]}]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"type\":\"output\",\"message\":\".\"}]}"); //$NON-NLS-1$
+
+		assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, response.status);
+		// reported only when the other branch was over
+		assertEquals(1, response.finishedOnError);
+		// nothing of the failed step is merged or written
+		assertFalse(executionContext.containsKey(LAST));
+		assertEquals(".", response.getOutput()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testNestedParallelStepRunsSequentially() throws IOException {
+		execute("{\"steps\":[{\"type\":\"parallel\",\"branches\":[" //$NON-NLS-1$
+				+ "{\"steps\":[" + step("a:0") + "]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"steps\":[" + step("outer:0") + ",{\"type\":\"parallel\",\"branches\":[" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"steps\":[" + step("n1:100") + "]}," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "{\"steps\":[" + step("n2:0") + "]}]}]}]}]}"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		assertEquals("aoutern1n2", response.getOutput()); //$NON-NLS-1$
+		Thread outer = (Thread) executionContext.get("outer"); //$NON-NLS-1$
+		assertNotSame(Thread.currentThread(), outer);
+		// in the thread of the enclosing branch
+		assertSame(outer, executionContext.get("n1")); //$NON-NLS-1$
+		assertSame(outer, executionContext.get("n2")); //$NON-NLS-1$
+		assertEquals("n2", executionContext.get(LAST)); //$NON-NLS-1$
+	}
+
+	private void execute(String flow) throws IOException {
+		repository.createResource(ROOT + IRepository.SEPARATOR + MODULE, flow.getBytes());
+		new TestFlowExecutor(repository).executeServiceModule(null, response.getProxy(), null, MODULE,
+				executionContext);
+	}
+
+	private static String step(String module) {
+		return "{\"type\":\"" + STUB + "\",\"module\":\"" + module + "\"}"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private class TestFlowExecutor extends FlowExecutor {
+
+		TestFlowExecutor(IRepository repository) {
+			super(repository, ROOT);
+		}
+
+		@Override
+		protected IScriptExecutor createExecutor(String stepType, HttpServletRequest request) throws IOException {
+			return STUB.equals(stepType) ? new StubExecutor() : null;
+		}
+	}
+
+	/**
+	 * Executes modules named <code>name:delay[:fail]</code> - waits for the
+	 * delay and then fails, or records the current thread under the name and
+	 * writes the name to the response
+	 */
+	private class StubExecutor implements IScriptExecutor {
+
+		@Override
+		public Object executeServiceModule(HttpServletRequest request, HttpServletResponse response, String module,
+				Map<Object, Object> executionContext) throws IOException {
+			String[] parts = module.split(":"); //$NON-NLS-1$
+			try {
+				Thread.sleep(Long.parseLong(parts[1]));
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			if (parts.length > 2) {
+				throw new IOException("Failing: " + parts[0]); //$NON-NLS-1$
+			}
+			executionContext.put(parts[0], Thread.currentThread());
+			executionContext.put(LAST, parts[0]);
+			response.getWriter().print(parts[0]);
+			finished.incrementAndGet();
+			return null;
+		}
+	}
+
+	private class TestResponse implements InvocationHandler {
+
+		private final StringWriter output = new StringWriter();
+
+		private final PrintWriter writer = new PrintWriter(output);
+
+		private int status = -1;
+
+		private int finishedOnError = -1;
+
+		HttpServletResponse getProxy() {
+			return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { HttpServletResponse.class }, this);
+		}
+
+		String getOutput() {
+			writer.flush();
+			return output.toString();
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("getWriter".equals(name)) { //$NON-NLS-1$
+				return writer;
+			}
+			if ("getCharacterEncoding".equals(name)) { //$NON-NLS-1$
+				return "UTF-8"; //$NON-NLS-1$
+			}
+			if ("sendError".equals(name)) { //$NON-NLS-1$
+				status = (Integer) args[0];
+				finishedOnError = finished.get();
+				return null;
+			}
+			if (method.getReturnType() == boolean.class) {
+				return Boolean.FALSE;
+			}
+			if (method.getReturnType() == int.class) {
+				return Integer.valueOf(0);
+			}
+			return null;
+		}
+	}
+
+}
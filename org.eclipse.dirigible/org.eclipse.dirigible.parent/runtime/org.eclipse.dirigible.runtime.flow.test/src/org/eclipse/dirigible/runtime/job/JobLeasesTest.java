@@ -0,0 +1,101 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JobLeasesTest {
+
+	private static final String PATH = "/testJobLeases/a.job"; //$NON-NLS-1$
+
+	private DataSource dataSource;
+
+	private JobLeases first;
+
+	private JobLeases second;
+
+	@Before
+	public void setUp() throws SQLException {
+		dataSource = createLocal();
+		first = new JobLeases(dataSource, "first"); //$NON-NLS-1$
+		second = new JobLeases(dataSource, "second"); //$NON-NLS-1$
+		first.cleanup(Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testAcquireOnce() throws SQLException {
+		Date fireTime = new Date(1000);
+		assertTrue(first.acquire(PATH, fireTime));
+		// the duplicate key is detected
+		assertFalse(second.acquire(PATH, fireTime));
+		assertFalse(first.acquire(PATH, fireTime));
+		assertTrue(second.acquire(PATH, new Date(2000)));
+
+		first.release(PATH, fireTime, 10, true);
+		second.release(PATH, fireTime, 10, false);
+		assertEquals(JobLeases.STATUS_SUCCEEDED, getStatus(dataSource, PATH, fireTime));
+		assertEquals(JobLeases.STATUS_RUNNING, getStatus(dataSource, PATH, new Date(2000)));
+	}
+
+	@Test
+	public void testCleanup() throws SQLException {
+		assertTrue(first.acquire(PATH, new Date(1000)));
+		assertTrue(first.acquire(PATH, new Date(2000)));
+		assertTrue(first.acquire(PATH, new Date(3000)));
+
+		assertEquals(2, first.cleanup(3000));
+		assertEquals(0, first.cleanup(3000));
+		assertEquals(JobLeases.STATUS_RUNNING, getStatus(dataSource, PATH, new Date(3000)));
+		// forgotten, so it could be taken again
+		assertTrue(second.acquire(PATH, new Date(1000)));
+	}
+
+	static DataSource createLocal() {
+		EmbeddedDataSource dataSource = new EmbeddedDataSource();
+		dataSource.setDatabaseName("derby"); //$NON-NLS-1$
+		dataSource.setCreateDatabase("create"); //$NON-NLS-1$
+		return dataSource;
+	}
+
+	static String getStatus(DataSource dataSource, String path, Date fireTime) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			PreparedStatement statement = connection.prepareStatement("SELECT JOBEX_STATUS FROM " //$NON-NLS-1$
+					+ JobLeases.DGB_JOB_EXECUTIONS + " WHERE JOBEX_PATH = ? AND JOBEX_FIRE_TIME = ?"); //$NON-NLS-1$
+			try {
+				statement.setString(1, path);
+				statement.setLong(2, fireTime.getTime());
+				ResultSet resultSet = statement.executeQuery();
+				return resultSet.next() ? resultSet.getString(1) : null;
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.db.DBRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JobRegistryTest {
+
+	private static final String LOCATION = "/testJobRegistry"; //$NON-NLS-1$
+
+	private static final String JOB = "{\"name\":\"%s\",\"description\":\"%s\",\"expression\":\"%s\",\"type\":\"javascript\",\"module\":\"/project/service.js\"}"; //$NON-NLS-1$
+
+	// never fires during the test
+	private static final String EXPRESSION = "0 0 0 1 1 ? 2099"; //$NON-NLS-1$
+
+	private DataSource dataSource;
+
+	private DBRepository repository;
+
+	private JobRegistry registry;
+
+	@Before
+	public void setUp() throws IOException {
+		dataSource = JobLeasesTest.createLocal();
+		repository = new DBRepository(dataSource, "guest", false); //$NON-NLS-1$
+		registry = new JobRegistry(LOCATION, 0, "JobRegistryTest", null, 0); //$NON-NLS-1$
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		registry.shutdown();
+		repository.removeCollection(LOCATION);
+	}
+
+	@Test
+	public void testInvalidExpressionDoesNotStopTheRescan() throws Exception {
+		createJob("a", EXPRESSION); //$NON-NLS-1$
+		registry.reconcile(repository);
+		assertEquals(Arrays.asList(LOCATION + "/a.job"), registry.getActiveJobs()); //$NON-NLS-1$
+
+		repository.removeResource(LOCATION + "/a.job"); //$NON-NLS-1$
+		createJob("b", "not a cron expression"); //$NON-NLS-1$ //$NON-NLS-2$
+		createJob("c", EXPRESSION); //$NON-NLS-1$
+		registry.rescan(repository);
+		// the removed one is unscheduled and the valid one scheduled
+		assertEquals(Arrays.asList(LOCATION + "/c.job"), registry.getActiveJobs()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testFailingUpdateIsRetried() throws Exception {
+		registry.reconcile(repository);
+		createJob("x", EXPRESSION); //$NON-NLS-1$
+		createJob("y", EXPRESSION); //$NON-NLS-1$
+		registry.changed(LOCATION + "/x.job"); //$NON-NLS-1$
+		registry.changed(LOCATION + "/y.job"); //$NON-NLS-1$
+
+		FailingRepository failing = new FailingRepository(repository, LOCATION + "/x.job"); //$NON-NLS-1$
+		registry.reconcile(failing.getProxy());
+		// the other changes are applied
+		assertEquals(Arrays.asList(LOCATION + "/y.job"), registry.getActiveJobs()); //$NON-NLS-1$
+
+		failing.failingPath = null;
+		registry.reconcile(failing.getProxy());
+		assertEquals(Arrays.asList(LOCATION + "/x.job", LOCATION + "/y.job"), registry.getActiveJobs()); //$NON-NLS-1$ //$NON-NLS-2$
+
+		repository.removeResource(LOCATION + "/x.job"); //$NON-NLS-1$
+		repository.removeResource(LOCATION + "/y.job"); //$NON-NLS-1$
+		registry.removed(LOCATION + "/x.job"); //$NON-NLS-1$
+		registry.removed(LOCATION + "/y.job"); //$NON-NLS-1$
+		registry.reconcile(repository);
+		assertEquals(Collections.emptyList(), registry.getActiveJobs());
+	}
+
+	@Test
+	public void testEachFireIsExecutedOnceInTheCluster() throws Exception {
+		JobLeases leases = new JobLeases(dataSource, "first"); //$NON-NLS-1$
+		leases.cleanup(Long.MAX_VALUE);
+		JobRegistry first = new JobRegistry(LOCATION, 0, "JobRegistryTestFirst", leases, 0); //$NON-NLS-1$
+		JobRegistry second = new JobRegistry(LOCATION, 0, "JobRegistryTestSecond", //$NON-NLS-1$
+				new JobLeases(dataSource, "second"), 0); //$NON-NLS-1$
+		try {
+			// the same fires offered to both nodes
+			String path = LOCATION + "/offered.job"; //$NON-NLS-1$
+			for (int i = 1; i <= 10; i++) {
+				Date fireTime = new Date(i * 1000L);
+				boolean byFirst = first.beforeExecution(path, fireTime);
+				boolean bySecond = second.beforeExecution(path, fireTime);
+				assertTrue(byFirst != bySecond);
+				(byFirst ? first : second).afterExecution(path, fireTime, 1, true);
+				assertFalse(first.beforeExecution(path, fireTime) || second.beforeExecution(path, fireTime));
+			}
+			assertEquals(10, getExecutions(first, path) + getExecutions(second, path));
+			assertEquals(10, countExecutions(path, JobLeases.STATUS_SUCCEEDED));
+
+			// fired every second by both schedulers
+			path = LOCATION + "/fired.job"; //$NON-NLS-1$
+			createJob("fired", "* * * * * ?"); //$NON-NLS-1$ //$NON-NLS-2$
+			first.reconcile(repository);
+			second.reconcile(repository);
+			Thread.sleep(3500);
+			first.getScheduler().standby();
+			second.getScheduler().standby();
+			for (int i = 0; (i < 50) && (countExecutions(path, JobLeases.STATUS_RUNNING) > 0); i++) {
+				Thread.sleep(100);
+			}
+			int fires = countExecutions(path, null);
+			assertTrue(fires >= 2);
+			assertEquals(fires, getExecutions(first, path) + getExecutions(second, path));
+		} finally {
+			first.shutdown();
+			second.shutdown();
+		}
+	}
+
+	@Test
+	public void testMetricsOfAllJobs() throws Exception {
+		createJob("first", EXPRESSION); //$NON-NLS-1$
+		String first = LOCATION + "/first.job"; //$NON-NLS-1$
+		String second = LOCATION + "/second.job"; //$NON-NLS-1$
+		Date fireTime = new Date(1000L);
+		registry.beforeExecution(second, fireTime);
+		registry.afterExecution(second, fireTime, 30, false);
+		registry.beforeExecution(first, fireTime);
+		registry.afterExecution(first, fireTime, 10, true);
+		registry.beforeExecution(first, fireTime);
+		registry.afterExecution(first, fireTime, 20, true);
+
+		Map<String, JobExecutionMetrics> metrics = registry.getMetrics();
+		assertEquals(Arrays.asList(first, second), new ArrayList<String>(metrics.keySet()));
+		Map<String, Object> map = JobMetricsServlet.toMap(first, metrics.get(first));
+		assertEquals(first, map.get("job")); //$NON-NLS-1$
+		assertEquals(2L, map.get("executions")); //$NON-NLS-1$
+		assertEquals(0L, map.get("failures")); //$NON-NLS-1$
+		assertEquals(15L, map.get("averageDuration")); //$NON-NLS-1$
+		assertEquals(1L, metrics.get(second).getFailures());
+	}
+
+	private static long getExecutions(JobRegistry registry, String path) {
+		JobExecutionMetrics metrics = registry.getMetrics(path);
+		return (metrics != null) ? metrics.getExecutions() : 0;
+	}
+
+	private int countExecutions(String path, String status) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM " //$NON-NLS-1$
+					+ JobLeases.DGB_JOB_EXECUTIONS + " WHERE JOBEX_PATH = ?" //$NON-NLS-1$
+					+ ((status != null) ? " AND JOBEX_STATUS = ?" : "")); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				statement.setString(1, path);
+				if (status != null) {
+					statement.setString(2, status);
+				}
+				ResultSet resultSet = statement.executeQuery();
+				resultSet.next();
+				return resultSet.getInt(1);
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private void createJob(String name, String expression) throws IOException {
+		repository.createResource(LOCATION + "/" + name + JobsUpdater.EXTENSION_JOB, //$NON-NLS-1$
+				String.format(JOB, name, name, expression).getBytes());
+	}
+
+	/**
+	 * Fails to read the information of the resource at the given path
+	 */
+	private static class FailingRepository implements InvocationHandler {
+
+		private final IRepository repository;
+
+		private volatile String failingPath;
+
+		FailingRepository(IRepository repository, String failingPath) {
+			this.repository = repository;
+			this.failingPath = failingPath;
+		}
+
+		IRepository getProxy() {
+			return (IRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { IRepository.class }, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = delegate(repository, method, args);
+			if ((result instanceof IResource) && ((IResource) result).getPath().equals(failingPath)) {
+				final IResource resource = (IResource) result;
+				return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { IResource.class },
+						new InvocationHandler() {
+							@Override
+							public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+								if ("getInformation".equals(method.getName())) { //$NON-NLS-1$
+									throw new IOException("Failing: " + resource.getPath()); //$NON-NLS-1$
+								}
+								return delegate(resource, method, args);
+							}
+						});
+			}
+			return result;
+		}
+
+		private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.flow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response of a branch of a parallel step - the body is collected in memory
+ * and written to the actual response after the branch has been joined, so
+ * the branches do not write to it concurrently. The headers and the status go
+ * to the actual response directly.
+ */
+class BufferedResponse extends HttpServletResponseWrapper {
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+	private ServletOutputStream outputStream;
+
+	private PrintWriter writer;
+
+	BufferedResponse(HttpServletResponse response) {
+		super(response);
+	}
+
+	@Override
+	public synchronized ServletOutputStream getOutputStream() {
+		if (outputStream == null) {
+			outputStream = new ServletOutputStream() {
+				@Override
+				public void write(int b) {
+					buffer.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					buffer.write(b, off, len);
+				}
+			};
+		}
+		return outputStream;
+	}
+
+	@Override
+	public synchronized PrintWriter getWriter() throws UnsupportedEncodingException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(buffer, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void flushBuffer() {
+		// nothing is sent before the join
+	}
+
+	/**
+	 * Writes the collected body to the actual response
+	 * 
+	 * @param response
+	 * @throws IOException
+	 */
+	synchronized void writeTo(HttpServletResponse response) throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (buffer.size() == 0) {
+			return;
+		}
+		// the actual response may be in use already, through the other one
+		// of its writer and output stream
+		if (writer != null) {
+			try {
+				response.getWriter().write(buffer.toString(getCharacterEncoding()));
+			} catch (IllegalStateException e) {
+				buffer.writeTo(response.getOutputStream());
+			}
+		} else {
+			try {
+				buffer.writeTo(response.getOutputStream());
+			} catch (IllegalStateException e) {
+				response.getWriter().write(buffer.toString(getCharacterEncoding()));
+			}
+		}
+	}
+
+}
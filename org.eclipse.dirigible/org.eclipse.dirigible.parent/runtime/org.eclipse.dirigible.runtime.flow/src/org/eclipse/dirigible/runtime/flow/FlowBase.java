@@ -38,10 +38,8 @@ public class FlowBase {
 	}
 	
 	public Properties getProperties() {
-		if (properties == null) {
-			properties = new Properties();
-		}
-		return properties;
+		// not created lazily, as the parsed flows are shared between threads
+		return (properties != null) ? properties : new Properties();
 	}
 
 }
@@ -0,0 +1,150 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.flow;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.ext.events.IRepositoryListener;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Shared, bounded cache of the parsed flow definitions. The entries are keyed
+ * by the repository path of the flow and are valid only as long as the
+ * modification time of the resource stays the same. They are also dropped as
+ * soon as the repository reports a change under their path, e.g. on
+ * re-publish. The cached flows are shared between the executions and must not
+ * be modified.
+ */
+public class FlowCache {
+
+	private static final Logger logger = Logger.getLogger(FlowCache.class);
+
+	/**
+	 * System property for the maximum number of parsed flows kept in memory
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "dirigible.flow.cache.size"; //$NON-NLS-1$
+
+	private static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private static FlowCache instance;
+
+	private final Map<String, CacheEntry> cache;
+
+	public static synchronized FlowCache getInstance() {
+		if (instance == null) {
+			instance = new FlowCache(Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+			RepositoryListeners.addListener(new InvalidationListener(instance));
+		}
+		return instance;
+	}
+
+	FlowCache(final int maxSize) {
+		this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -3404128796484127207L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the parsed flow for the given path, or <code>null</code> if
+	 * there is no such entry or it has been parsed from a different version of
+	 * the resource
+	 * 
+	 * @param path
+	 * @param modifiedAt
+	 * @return
+	 */
+	public synchronized Flow get(String path, Date modifiedAt) {
+		CacheEntry entry = cache.get(path);
+		if ((entry != null) && entry.isValid(modifiedAt)) {
+			return entry.getFlow();
+		}
+		return null;
+	}
+
+	public synchronized void put(String path, Date modifiedAt, Flow flow) {
+		logger.debug("parsed flow cached for: " + path); //$NON-NLS-1$
+		cache.put(path, new CacheEntry(flow, modifiedAt));
+	}
+
+	/**
+	 * Removes all the parsed flows located under the given path
+	 * 
+	 * @param pathPrefix
+	 */
+	public synchronized void invalidate(String pathPrefix) {
+		for (Iterator<String> iterator = cache.keySet().iterator(); iterator.hasNext();) {
+			if (iterator.next().startsWith(pathPrefix)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	private static class CacheEntry {
+
+		private final Flow flow;
+
+		private final long modifiedAt;
+
+		CacheEntry(Flow flow, Date modifiedAt) {
+			this.flow = flow;
+			this.modifiedAt = (modifiedAt != null) ? modifiedAt.getTime() : 0;
+		}
+
+		Flow getFlow() {
+			return flow;
+		}
+
+		boolean isValid(Date currentModifiedAt) {
+			return (currentModifiedAt != null) && (currentModifiedAt.getTime() == modifiedAt);
+		}
+	}
+
+	private static class InvalidationListener implements IRepositoryListener {
+
+		private final FlowCache cache;
+
+		InvalidationListener(FlowCache cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public void changed(IRepository repository, String path) {
+			cache.invalidate(path);
+		}
+
+		@Override
+		public void removed(IRepository repository, String path) {
+			cache.invalidate(path);
+		}
+
+	}
+
+}
@@ -12,8 +12,24 @@
 package org.eclipse.dirigible.runtime.flow;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -21,19 +37,42 @@ import javax.servlet.http.HttpServletResponse;
 import com.google.gson.Gson;
 import org.eclipse.dirigible.repository.api.ICommonConstants;
 import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.scripting.AbstractScriptExecutor;
 import org.eclipse.dirigible.runtime.scripting.IScriptExecutor;
 import org.eclipse.dirigible.runtime.scripting.utils.EngineUtils;
 
 public class FlowExecutor extends AbstractScriptExecutor {
-	
+
+	/**
+	 * System property for the maximum number of branches of the parallel steps
+	 * executed at the same time, by all the flows
+	 */
+	public static final String PARALLEL_THREADS_PROPERTY = "dirigible.flow.parallel.threads"; //$NON-NLS-1$
+
+	public static final int DEFAULT_PARALLEL_THREADS = 16;
+
 	private static final String CONDITION_PARAMETER_ANY = "any";
 
 	private static final String CONDITION_PARAMETER_NULL = "null";
 
 	private static final Logger logger = Logger.getLogger(FlowExecutor.class);
 
+	/**
+	 * The variables of the execution context which are bound to a single
+	 * thread of execution - a branch gets its own ones, and they are not
+	 * merged back on join
+	 */
+	private static final Set<Object> BRANCH_VARIABLES = new HashSet<Object>(Arrays.asList("response", "base64", //$NON-NLS-1$ //$NON-NLS-2$
+			"upload", "db", "extensionManager")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final String RESPONSE_VARIABLE = "response"; //$NON-NLS-1$
+
+	private static final ThreadLocal<Boolean> inBranchThread = new ThreadLocal<Boolean>();
+
+	private static ExecutorService branchExecutor;
+
 	private IRepository repository;
 	private String[] rootPaths;
 	
@@ -62,14 +101,12 @@ public class FlowExecutor extends AbstractScriptExecutor {
 		}
 		
 		String result = null; 
-		String flowSource = new String(retrieveModule(repository, module, "", rootPaths).getContent());
-		
-		Flow flow = gson.fromJson(flowSource, Flow.class);
+		Flow flow = getFlow(module);
 		
 		Object inputOutput = null;
 		
 		inputOutput = processFlow(request, response, module, executionContext,
-				flow, inputOutput);
+				flow, inputOutput, new HashMap<String, IScriptExecutor>(), false);
 
 		result = (inputOutput != null) ? inputOutput.toString() : "";
 		
@@ -77,9 +114,35 @@ public class FlowExecutor extends AbstractScriptExecutor {
 		return result;
 	}
 
+	/**
+	 * The parsed definition of the flow, taken from the shared
+	 * {@link FlowCache} unless the resource has been modified since it was
+	 * parsed
+	 */
+	Flow getFlow(String module) throws IOException {
+		IResource resource = retrieveModuleResource(repository, module, "", rootPaths);
+		FlowCache cache = FlowCache.getInstance();
+		Date modifiedAt = resource.getInformation().getModifiedAt();
+		Flow flow = cache.get(resource.getPath(), modifiedAt);
+		if (flow == null) {
+			flow = gson.fromJson(new String(resource.getContent()), Flow.class);
+			cache.put(resource.getPath(), modifiedAt, flow);
+		}
+		return flow;
+	}
+
+	/**
+	 * @param executors
+	 *            the executors created so far by type, reused by the next steps
+	 *            of the same thread of execution
+	 * @param branch
+	 *            whether the flow is a branch of a parallel step - the failures
+	 *            are reported by the step itself after the join
+	 */
 	private Object processFlow(HttpServletRequest request,
 			HttpServletResponse response, String module,
-			Map<Object, Object> executionContext, Flow flow, Object inputOutput)
+			Map<Object, Object> executionContext, Flow flow, Object inputOutput,
+			Map<String, IScriptExecutor> executors, boolean branch)
 			throws IOException {
 		executionContext.putAll(flow.getProperties());
 		
@@ -87,8 +150,11 @@ public class FlowExecutor extends AbstractScriptExecutor {
 		for (FlowStep flowStep : flow.getSteps()) {
 			try {
 				inputOutput = executeByEngineType(request, response, module,
-						executionContext, flow, inputOutput, flowStep);
+						executionContext, flow, inputOutput, flowStep, executors, branch);
 			} catch (Exception e) {
+				if (branch) {
+					throw (e instanceof IOException) ? (IOException) e : new IOException(e);
+				}
 				logger.error(e.getMessage(), e);
 				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
 			}
@@ -99,7 +165,8 @@ public class FlowExecutor extends AbstractScriptExecutor {
 	private Object executeByEngineType(HttpServletRequest request,
 			HttpServletResponse response, String module,
 			Map<Object, Object> executionContext, Flow flow,
-			Object inputOutput, FlowStep flowStep) throws IOException {
+			Object inputOutput, FlowStep flowStep, Map<String, IScriptExecutor> executors,
+			boolean branch) throws IOException {
 		
 		
 		// CONDITION
@@ -127,11 +194,16 @@ public class FlowExecutor extends AbstractScriptExecutor {
 						(flowCase.getValue() != null
 						&& flowCase.getValue().equalsIgnoreCase(CONDITION_PARAMETER_ANY)
 						&& value != null)) {
-					processFlow(request, response, module, executionContext, flowCase.getFlow(), inputOutput);
+					processFlow(request, response, module, executionContext, flowCase.getFlow(), inputOutput,
+							executors, branch);
 					break;
 				}
 			}
 			
+		// PARALLEL
+		} else if (ICommonConstants.ENGINE_TYPE.PARALLEL.equalsIgnoreCase(flowStep.getType())) {
+			executeBranches(request, response, module, executionContext, flowStep.getBranches());
+			
 		// OUTPUT
 		} else if (ICommonConstants.ENGINE_TYPE.OUTPUT.equalsIgnoreCase(flowStep.getType())) {
 			if (response != null) {
@@ -141,20 +213,199 @@ public class FlowExecutor extends AbstractScriptExecutor {
 			}
 		// ENGINE BY TYPE
 		} else {
-			Set<String> types = EngineUtils.getTypes();
-			for (String type : types) {
-				if (type != null
-						&& type.equalsIgnoreCase(flowStep.getType())) {
-					IScriptExecutor scriptExecutor = EngineUtils.createExecutor(type, request);
-					scriptExecutor.executeServiceModule(request, response, flowStep.getModule(), executionContext);
-					break;
-				}
+			IScriptExecutor scriptExecutor = getExecutor(flowStep.getType(), request, executors);
+			if (scriptExecutor != null) {
+				scriptExecutor.executeServiceModule(request, response, flowStep.getModule(), executionContext);
 			}
 		}
 		
 		return inputOutput;
 	}
 
+	private IScriptExecutor getExecutor(String stepType, HttpServletRequest request,
+			Map<String, IScriptExecutor> executors) throws IOException {
+		IScriptExecutor scriptExecutor = executors.get(stepType);
+		if (scriptExecutor == null) {
+			scriptExecutor = createExecutor(stepType, request);
+			if (scriptExecutor != null) {
+				executors.put(stepType, scriptExecutor);
+			}
+		}
+		return scriptExecutor;
+	}
+
+	/**
+	 * A new executor of the steps of the given type, or <code>null</code> if
+	 * there is no such engine
+	 * 
+	 * @param stepType
+	 * @param request
+	 * @return
+	 * @throws IOException
+	 */
+	protected IScriptExecutor createExecutor(String stepType, HttpServletRequest request) throws IOException {
+		Set<String> types = EngineUtils.getTypes();
+		for (String type : types) {
+			if (type != null
+					&& type.equalsIgnoreCase(stepType)) {
+				return EngineUtils.createExecutor(type, request);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Executes the branches concurrently and waits for all of them. Each one
+	 * works on a copy of the execution context, merged back in the order of
+	 * the branches, and its output is written in the same order.
+	 */
+	private void executeBranches(HttpServletRequest request, HttpServletResponse response, String module,
+			Map<Object, Object> executionContext, Flow[] branches) throws IOException {
+		if ((branches == null) || (branches.length == 0)) {
+			return;
+		}
+		if (request != null) {
+			// parsed once, before the request is shared between the threads
+			request.getParameterMap();
+		}
+		List<Branch> runs = new ArrayList<Branch>();
+		for (Flow flow : branches) {
+			runs.add(new Branch(request, response, module, executionContext, flow));
+		}
+		
+		Exception failure = null;
+		if (Boolean.TRUE.equals(inBranchThread.get())) {
+			// nested in a branch - waiting for the bounded executor from one
+			// of its own threads may never end
+			for (Branch run : runs) {
+				try {
+					run.call();
+				} catch (Exception e) {
+					failure = (failure != null) ? failure : e;
+				}
+			}
+		} else {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			ExecutorService executor = getBranchExecutor();
+			for (int i = 1; i < runs.size(); i++) {
+				futures.add(executor.submit(runs.get(i)));
+			}
+			// the current thread would wait anyway
+			try {
+				runs.get(0).call();
+			} catch (Exception e) {
+				failure = e;
+			}
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (failure == null) {
+						failure = (cause instanceof Exception) ? (Exception) cause : new IOException(cause);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					for (Future<Void> next : futures) {
+						next.cancel(true);
+					}
+					throw new InterruptedIOException(e.getMessage());
+				}
+			}
+		}
+		if (failure != null) {
+			throw (failure instanceof IOException) ? (IOException) failure : new IOException(failure);
+		}
+		
+		for (Branch run : runs) {
+			run.join(executionContext, response);
+		}
+	}
+
+	private static synchronized ExecutorService getBranchExecutor() {
+		if (branchExecutor == null) {
+			int threads = Integer.getInteger(PARALLEL_THREADS_PROPERTY, DEFAULT_PARALLEL_THREADS);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(final Runnable runnable) {
+							Thread thread = new Thread(new Runnable() {
+								@Override
+								public void run() {
+									inBranchThread.set(Boolean.TRUE);
+									runnable.run();
+								}
+							}, "Dirigible Flow Branch " + count.incrementAndGet()); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			branchExecutor = executor;
+		}
+		return branchExecutor;
+	}
+
+	/**
+	 * A branch of a parallel step, with its own copy of the execution context
+	 * and its own response buffer
+	 */
+	private class Branch implements Callable<Void> {
+
+		private final HttpServletRequest request;
+
+		private final BufferedResponse response;
+
+		private final String module;
+
+		private final Flow flow;
+
+		private final Map<Object, Object> initialContext;
+
+		private final Map<Object, Object> executionContext;
+
+		Branch(HttpServletRequest request, HttpServletResponse response, String module,
+				Map<Object, Object> executionContext, Flow flow) {
+			this.request = request;
+			this.response = (response != null) ? new BufferedResponse(response) : null;
+			this.module = module;
+			this.flow = flow;
+			this.initialContext = new HashMap<Object, Object>(executionContext);
+			this.executionContext = new HashMap<Object, Object>(executionContext);
+			this.executionContext.keySet().removeAll(BRANCH_VARIABLES);
+			if (this.response != null) {
+				this.executionContext.put(RESPONSE_VARIABLE, this.response);
+			}
+		}
+
+		@Override
+		public Void call() throws Exception {
+			// the executors are not shared between the threads
+			processFlow(request, response, module, executionContext, flow, null,
+					new HashMap<String, IScriptExecutor>(), true);
+			return null;
+		}
+
+		/**
+		 * Merges the variables set or replaced by the branch and writes its
+		 * output
+		 */
+		void join(Map<Object, Object> targetContext, HttpServletResponse targetResponse) throws IOException {
+			for (Map.Entry<Object, Object> entry : executionContext.entrySet()) {
+				Object key = entry.getKey();
+				if (!BRANCH_VARIABLES.contains(key)
+						&& (!initialContext.containsKey(key) || (initialContext.get(key) != entry.getValue()))) {
+					targetContext.put(key, entry.getValue());
+				}
+			}
+			if (response != null) {
+				response.writeTo(targetResponse);
+			}
+		}
+	}
+
 	@Override
 	protected void registerDefaultVariable(Object scope, String name,
 			Object value) {
@@ -21,6 +21,8 @@ public class FlowStep extends FlowBase {
 	
 	private String message;
 
+	private Flow[] branches;
+
 	public String getType() {
 		return type;
 	}
@@ -52,4 +54,17 @@ public class FlowStep extends FlowBase {
 	public void setMessage(String message) {
 		this.message = message;
 	}
+
+	/**
+	 * The flows executed concurrently by a parallel step
+	 * 
+	 * @return
+	 */
+	public Flow[] getBranches() {
+		return branches;
+	}
+
+	public void setBranches(Flow[] branches) {
+		this.branches = branches;
+	}
 }
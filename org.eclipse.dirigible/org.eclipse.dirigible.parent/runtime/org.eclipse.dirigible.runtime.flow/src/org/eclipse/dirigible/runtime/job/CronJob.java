@@ -12,6 +12,7 @@
 package org.eclipse.dirigible.runtime.job;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -40,13 +41,24 @@ public class CronJob implements Job {
 		JobDataMap dataMap = context.getJobDetail().getJobDataMap();
 		String jobType = dataMap.getString(JobParser.NODE_TYPE);
 		String jobModule = dataMap.getString(JobParser.NODE_MODULE);
+		JobRegistry jobRegistry = JobRegistry.getRegistry(context);
+		Date fireTime = context.getScheduledFireTime();
+		if (!jobRegistry.beforeExecution(instName, fireTime)) {
+			logger.debug(String.format("Job name: %s fired at: %s skipped.", instName, fireTime));
+			return;
+		}
 		logger.debug(String.format("Job processing name: %s, type: %s, module: %s ...", instName, jobType, jobModule));
 		Map<Object, Object> executionContext = new HashMap<Object, Object>();
 		Object inputOutput = null;
+		long start = System.currentTimeMillis();
+		boolean success = false;
 		try {
 			inputOutput = executeByEngineType(null, null, jobModule, executionContext, instName, inputOutput, jobType);
+			success = true;
 		} catch (IOException e) {
 			logger.error(e.getMessage(), e);
+		} finally {
+			jobRegistry.afterExecution(instName, fireTime, System.currentTimeMillis() - start, success);
 		}
 		logger.debug(String.format("Job name: %s, type: %s, module: %s finished.", instName, jobType, jobModule));
 	}
@@ -0,0 +1,82 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.job;
+
+import java.util.Date;
+
+/**
+ * The executions of a job on this node. The fires skipped because another
+ * node of the cluster has taken them are counted separately.
+ */
+public class JobExecutionMetrics {
+
+	private long executions;
+
+	private long failures;
+
+	private long skipped;
+
+	private long totalDuration;
+
+	private long lastDuration;
+
+	private Date lastFireTime;
+
+	synchronized void executed(Date fireTime, long duration, boolean success) {
+		executions++;
+		if (!success) {
+			failures++;
+		}
+		totalDuration += duration;
+		lastDuration = duration;
+		lastFireTime = fireTime;
+	}
+
+	synchronized void skipped() {
+		skipped++;
+	}
+
+	public synchronized long getExecutions() {
+		return executions;
+	}
+
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+	public synchronized long getSkipped() {
+		return skipped;
+	}
+
+	public synchronized long getTotalDuration() {
+		return totalDuration;
+	}
+
+	public synchronized long getAverageDuration() {
+		return (executions > 0) ? totalDuration / executions : 0;
+	}
+
+	public synchronized long getLastDuration() {
+		return lastDuration;
+	}
+
+	public synchronized Date getLastFireTime() {
+		return lastFireTime;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("executions: %d, failures: %d, skipped: %d, average duration: %d ms", //$NON-NLS-1$
+				executions, failures, skipped, getAverageDuration());
+	}
+
+}
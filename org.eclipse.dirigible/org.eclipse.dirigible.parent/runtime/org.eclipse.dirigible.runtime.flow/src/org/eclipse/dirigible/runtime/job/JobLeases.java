@@ -0,0 +1,211 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.job;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Makes sure that each fire of a job trigger is executed by a single node of
+ * the cluster. The nodes share a table of the executions in the data source.
+ * The first node, which inserts the row of a given job and scheduled fire
+ * time, executes it and the other nodes skip it. The rows are kept as the
+ * cluster-wide history of the executions until they are cleaned up.
+ */
+class JobLeases {
+
+	private static final Logger logger = Logger.getLogger(JobLeases.class);
+
+	static final String DGB_JOB_EXECUTIONS = "DGB_JOB_EXECUTIONS"; //$NON-NLS-1$
+
+	static final String STATUS_RUNNING = "RUNNING"; //$NON-NLS-1$
+
+	static final String STATUS_SUCCEEDED = "SUCCEEDED"; //$NON-NLS-1$
+
+	static final String STATUS_FAILED = "FAILED"; //$NON-NLS-1$
+
+	private static final String CREATE_TABLE_DGB_JOB_EXECUTIONS = "CREATE TABLE DGB_JOB_EXECUTIONS (" //$NON-NLS-1$
+			+ "JOBEX_PATH VARCHAR(1000) NOT NULL, " //$NON-NLS-1$
+			+ "JOBEX_FIRE_TIME BIGINT NOT NULL, " //$NON-NLS-1$
+			+ "JOBEX_NODE VARCHAR(255), " //$NON-NLS-1$
+			+ "JOBEX_STARTED TIMESTAMP, " //$NON-NLS-1$
+			+ "JOBEX_DURATION BIGINT, " //$NON-NLS-1$
+			+ "JOBEX_STATUS VARCHAR(16), " //$NON-NLS-1$
+			+ "PRIMARY KEY (JOBEX_PATH, JOBEX_FIRE_TIME))"; //$NON-NLS-1$
+
+	private static final String INSERT_EXECUTION = "INSERT INTO DGB_JOB_EXECUTIONS " //$NON-NLS-1$
+			+ "(JOBEX_PATH, JOBEX_FIRE_TIME, JOBEX_NODE, JOBEX_STARTED, JOBEX_DURATION, JOBEX_STATUS) " //$NON-NLS-1$
+			+ "VALUES (?, ?, ?, ?, 0, ?)"; //$NON-NLS-1$
+
+	private static final String UPDATE_EXECUTION = "UPDATE DGB_JOB_EXECUTIONS SET JOBEX_DURATION = ?, JOBEX_STATUS = ? " //$NON-NLS-1$
+			+ "WHERE JOBEX_PATH = ? AND JOBEX_FIRE_TIME = ? AND JOBEX_NODE = ?"; //$NON-NLS-1$
+
+	private static final String SELECT_NODE = "SELECT JOBEX_NODE FROM DGB_JOB_EXECUTIONS " //$NON-NLS-1$
+			+ "WHERE JOBEX_PATH = ? AND JOBEX_FIRE_TIME = ?"; //$NON-NLS-1$
+
+	private static final String DELETE_OLDER = "DELETE FROM DGB_JOB_EXECUTIONS WHERE JOBEX_FIRE_TIME < ?"; //$NON-NLS-1$
+
+	private final DataSource dataSource;
+
+	private final String node;
+
+	JobLeases(DataSource dataSource, String node) {
+		this.dataSource = dataSource;
+		this.node = node;
+	}
+
+	String getNode() {
+		return node;
+	}
+
+	/**
+	 * Takes the execution of the given fire of the job, if no other node has
+	 * taken it already
+	 * 
+	 * @param path
+	 * @param fireTime
+	 *            the scheduled fire time, the same on all the nodes
+	 * @return whether this node has to execute it
+	 * @throws SQLException
+	 */
+	boolean acquire(String path, Date fireTime) throws SQLException {
+		Connection connection = getConnection();
+		try {
+			PreparedStatement statement = connection.prepareStatement(INSERT_EXECUTION);
+			try {
+				statement.setString(1, path);
+				statement.setLong(2, fireTime.getTime());
+				statement.setString(3, node);
+				statement.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+				statement.setString(5, STATUS_RUNNING);
+				statement.executeUpdate();
+				commit(connection);
+				return true;
+			} catch (SQLException e) {
+				// the databases report the duplicate key differently, so look
+				rollback(connection);
+				String owner = getOwner(connection, path, fireTime);
+				if (owner == null) {
+					throw e;
+				}
+				logger.debug(String.format("Job: %s fired at: %s taken by: %s", path, fireTime, owner)); //$NON-NLS-1$
+				return false;
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Records the result of an execution taken by this node
+	 * 
+	 * @param path
+	 * @param fireTime
+	 * @param duration
+	 * @param success
+	 * @throws SQLException
+	 */
+	void release(String path, Date fireTime, long duration, boolean success) throws SQLException {
+		Connection connection = getConnection();
+		try {
+			PreparedStatement statement = connection.prepareStatement(UPDATE_EXECUTION);
+			try {
+				statement.setLong(1, duration);
+				statement.setString(2, success ? STATUS_SUCCEEDED : STATUS_FAILED);
+				statement.setString(3, path);
+				statement.setLong(4, fireTime.getTime());
+				statement.setString(5, node);
+				statement.executeUpdate();
+				commit(connection);
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Removes the history of the executions fired before the given time
+	 * 
+	 * @param before
+	 * @return the number of the removed executions
+	 * @throws SQLException
+	 */
+	int cleanup(long before) throws SQLException {
+		Connection connection = getConnection();
+		try {
+			PreparedStatement statement = connection.prepareStatement(DELETE_OLDER);
+			try {
+				statement.setLong(1, before);
+				int removed = statement.executeUpdate();
+				commit(connection);
+				return removed;
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private String getOwner(Connection connection, String path, Date fireTime) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(SELECT_NODE);
+		try {
+			statement.setString(1, path);
+			statement.setLong(2, fireTime.getTime());
+			ResultSet resultSet = statement.executeQuery();
+			try {
+				return resultSet.next() ? resultSet.getString(1) : null;
+			} finally {
+				resultSet.close();
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	private Connection getConnection() throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			TableBootstrap.ensureTable(dataSource, connection, DGB_JOB_EXECUTIONS, CREATE_TABLE_DGB_JOB_EXECUTIONS);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		return connection;
+	}
+
+	private static void commit(Connection connection) throws SQLException {
+		if (!connection.getAutoCommit()) {
+			connection.commit();
+		}
+	}
+
+	private static void rollback(Connection connection) throws SQLException {
+		if (!connection.getAutoCommit()) {
+			connection.rollback();
+		}
+	}
+
+}
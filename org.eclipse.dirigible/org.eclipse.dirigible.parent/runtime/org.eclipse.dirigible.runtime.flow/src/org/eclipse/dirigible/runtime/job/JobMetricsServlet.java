@@ -0,0 +1,73 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+
+package org.eclipse.dirigible.runtime.job;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.gson.Gson;
+import org.eclipse.dirigible.repository.api.ContentTypeHelper;
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * The metrics of the job executions on this node, as a list of one entry per
+ * scheduled job or only the entry of the job given by the <code>job</code>
+ * parameter
+ */
+public class JobMetricsServlet extends HttpServlet {
+
+	private static final long serialVersionUID = -3175412283840522170L;
+
+	private static final Logger logger = Logger.getLogger(JobMetricsServlet.class);
+
+	private static final String PARAM_JOB = "job"; //$NON-NLS-1$
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		logger.debug("entering JobMetricsServlet doGet..."); //$NON-NLS-1$
+
+		String job = req.getParameter(PARAM_JOB);
+		List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+		for (Map.Entry<String, JobExecutionMetrics> entry : JobRegistry.getInstance().getMetrics().entrySet()) {
+			if ((job == null) || job.equals(entry.getKey())) {
+				result.add(toMap(entry.getKey(), entry.getValue()));
+			}
+		}
+		resp.setContentType(ContentTypeHelper.getContentType("json")); //$NON-NLS-1$
+		resp.getWriter().print(new Gson().toJson(result));
+		resp.getWriter().flush();
+		resp.getWriter().close();
+		logger.debug("exiting JobMetricsServlet doGet"); //$NON-NLS-1$
+	}
+
+	static Map<String, Object> toMap(String job, JobExecutionMetrics metrics) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("job", job); //$NON-NLS-1$
+		map.put("executions", metrics.getExecutions()); //$NON-NLS-1$
+		map.put("failures", metrics.getFailures()); //$NON-NLS-1$
+		map.put("skipped", metrics.getSkipped()); //$NON-NLS-1$
+		map.put("averageDuration", metrics.getAverageDuration()); //$NON-NLS-1$
+		map.put("lastDuration", metrics.getLastDuration()); //$NON-NLS-1$
+		map.put("lastFireTime", metrics.getLastFireTime()); //$NON-NLS-1$
+		return map;
+	}
+
+}
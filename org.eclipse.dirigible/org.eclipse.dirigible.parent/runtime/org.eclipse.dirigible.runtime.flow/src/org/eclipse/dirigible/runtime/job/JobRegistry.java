@@ -0,0 +1,711 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.job;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.simpl.SimpleThreadPool;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.eclipse.dirigible.repository.api.IEntity;
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
+import org.eclipse.dirigible.repository.ext.events.IRepositoryListener;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
+import org.eclipse.dirigible.repository.logging.Logger;
+import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
+
+/**
+ * Process-wide registry of the scheduled jobs. It holds a single long-lived
+ * Quartz scheduler and indexes the scheduled job definitions by their
+ * repository path and modification time.
+ * <p>
+ * Changes to the definitions are learned from the repository events and
+ * applied on the next reconcile, so a run without changes does not touch the
+ * database. A full check runs on the first reconcile and then only every
+ * {@link #RESCAN_INTERVAL_PROPERTY} minutes. It is a single query for the
+ * job definitions under the integration registry, and it catches the
+ * changes made by other nodes. Only definitions with a new modification
+ * time are read and parsed again.
+ * <p>
+ * In the clustered mode ({@link #CLUSTER_PROPERTY}) each node schedules all
+ * the jobs, but each fire is executed by only one node, see {@link JobLeases}.
+ * A node that is already busy with jobs backs off a little before taking a
+ * fire, so the executions spread over the nodes. A missed fire is not made
+ * up for, as another node has most likely executed it.
+ */
+public class JobRegistry {
+
+	private static final Logger logger = Logger.getLogger(JobRegistry.class);
+
+	private static final String JOB_S_NOT_UPDATED_RETRIED = "Job: %s not updated, retried on the next reconcile"; //$NON-NLS-1$
+
+	/**
+	 * System property for the interval in minutes of the full check of the
+	 * job definitions, zero for the first reconcile only
+	 */
+	public static final String RESCAN_INTERVAL_PROPERTY = "dirigible.job.rescan.interval"; //$NON-NLS-1$
+
+	private static final int DEFAULT_RESCAN_INTERVAL = 10;
+
+	/**
+	 * System property, which enables the execution of each fire of the jobs by
+	 * a single node of the cluster
+	 */
+	public static final String CLUSTER_PROPERTY = "dirigible.job.cluster"; //$NON-NLS-1$
+
+	/**
+	 * System property for the name of this node in the cluster, the process
+	 * and host names by default
+	 */
+	public static final String CLUSTER_NODE_PROPERTY = "dirigible.job.cluster.node"; //$NON-NLS-1$
+
+	/**
+	 * System property for the back-off in milliseconds per job running on
+	 * this node, before it takes a fire in the cluster
+	 */
+	public static final String CLUSTER_BACKOFF_PROPERTY = "dirigible.job.cluster.backoff"; //$NON-NLS-1$
+
+	/**
+	 * System property for the number of threads executing the jobs
+	 */
+	public static final String THREADS_PROPERTY = "dirigible.job.threads"; //$NON-NLS-1$
+
+	/**
+	 * System property for the number of days the history of the executions is
+	 * kept in the cluster
+	 */
+	public static final String HISTORY_DAYS_PROPERTY = "dirigible.job.history.days"; //$NON-NLS-1$
+
+	static final String SCHEDULER_CONTEXT_REGISTRY = JobRegistry.class.getName();
+
+	private static final String SCHEDULER_NAME = "DirigibleJobs"; //$NON-NLS-1$
+
+	private static final int DEFAULT_BACKOFF = 100;
+
+	private static final int MAX_BACKOFF_STEPS = 10;
+
+	private static final int DEFAULT_THREADS = 10;
+
+	private static final String THREAD_POOL_THREAD_COUNT = "org.quartz.threadPool.threadCount"; //$NON-NLS-1$
+
+	private static final int DEFAULT_HISTORY_DAYS = 7;
+
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+
+	private static final long CLEANUP_INTERVAL = 60 * 60 * 1000L;
+
+	private static JobRegistry instance;
+
+	private final String location;
+
+	private final long rescanInterval;
+
+	private final String schedulerName;
+
+	// null unless clustered
+	private final JobLeases leases;
+
+	private final long backoff;
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final ConcurrentMap<String, JobExecutionMetrics> metrics = new ConcurrentHashMap<String, JobExecutionMetrics>();
+
+	private long lastCleanup;
+
+	private final Map<String, JobEntry> jobs = new HashMap<String, JobEntry>();
+
+	private Scheduler scheduler;
+
+	private long lastRescan;
+
+	// the reported changes, guarded by themselves
+	private final Set<String> changedPaths = new HashSet<String>();
+
+	private final Set<String> removedPaths = new HashSet<String>();
+
+	private boolean rescanRequested = true;
+
+	public static synchronized JobRegistry getInstance() {
+		if (instance == null) {
+			JobLeases leases = null;
+			if (Boolean.getBoolean(CLUSTER_PROPERTY)) {
+				String node = System.getProperty(CLUSTER_NODE_PROPERTY,
+						ManagementFactory.getRuntimeMXBean().getName());
+				leases = new JobLeases(RepositoryFacade.getInstance().getDataSource(), node);
+				logger.info(String.format("Jobs executed in cluster mode by node: %s", node)); //$NON-NLS-1$
+			}
+			instance = new JobRegistry(JobsUpdater.REGISTRY_INTEGRATION_DEFAULT,
+					Integer.getInteger(RESCAN_INTERVAL_PROPERTY, DEFAULT_RESCAN_INTERVAL) * 60 * 1000L,
+					SCHEDULER_NAME, leases, Integer.getInteger(CLUSTER_BACKOFF_PROPERTY, DEFAULT_BACKOFF));
+			RepositoryListeners.addListener(new ChangeListener(instance));
+		}
+		return instance;
+	}
+
+	JobRegistry(String location, long rescanInterval, String schedulerName, JobLeases leases, long backoff) {
+		this.location = location;
+		this.rescanInterval = rescanInterval;
+		this.schedulerName = schedulerName;
+		this.leases = leases;
+		this.backoff = backoff;
+	}
+
+	/**
+	 * The registry, which has scheduled the job of the given execution
+	 * 
+	 * @param context
+	 * @return
+	 */
+	static JobRegistry getRegistry(JobExecutionContext context) {
+		try {
+			JobRegistry registry = (JobRegistry) context.getScheduler().getContext().get(SCHEDULER_CONTEXT_REGISTRY);
+			if (registry != null) {
+				return registry;
+			}
+		} catch (SchedulerException e) {
+			logger.error(e.getMessage(), e);
+		}
+		return getInstance();
+	}
+
+	public boolean isClustered() {
+		return leases != null;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	/**
+	 * Applies the changes reported since the last call, or makes a full check
+	 * if one is due
+	 * 
+	 * @param repository
+	 * @throws JobsException
+	 */
+	public synchronized void reconcile(IRepository repository) throws JobsException {
+		Set<String> changed;
+		Set<String> removed;
+		boolean rescan;
+		synchronized (changedPaths) {
+			changed = new HashSet<String>(changedPaths);
+			removed = new HashSet<String>(removedPaths);
+			changedPaths.clear();
+			removedPaths.clear();
+			rescan = rescanRequested
+					|| ((rescanInterval > 0) && (System.currentTimeMillis() - lastRescan >= rescanInterval));
+			rescanRequested = false;
+		}
+		cleanupHistory();
+		if (rescan) {
+			rescan(repository);
+			return;
+		}
+		for (String removedPath : removed) {
+			for (String path : getPathsUnder(removedPath)) {
+				changed.add(path);
+			}
+		}
+		for (String path : changed) {
+			try {
+				update(repository, path);
+			} catch (JobsException e) {
+				logger.error(String.format(JOB_S_NOT_UPDATED_RETRIED, path), e);
+				synchronized (changedPaths) {
+					changedPaths.add(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks all the job definitions under the location with a single query,
+	 * schedules the new and the modified ones and removes the ones, which do
+	 * not exist anymore
+	 * 
+	 * @param repository
+	 * @throws JobsException
+	 */
+	public synchronized void rescan(IRepository repository) throws JobsException {
+		lastRescan = System.currentTimeMillis();
+		List<IResource> definitions;
+		try {
+			definitions = findJobDefinitions(repository, location);
+		} catch (IOException e) {
+			// retried on the next reconcile
+			requestRescan();
+			throw new JobsException(e);
+		}
+		// a failing definition does not stop the others, the whole check is retried
+		boolean failed = false;
+		Set<String> found = new HashSet<String>();
+		for (IResource resource : definitions) {
+			String path = resource.getPath();
+			found.add(path);
+			try {
+				Date modifiedAt = resource.getInformation().getModifiedAt();
+				JobEntry entry = jobs.get(path);
+				if ((entry == null) || !entry.isValid(modifiedAt)) {
+					schedule(resource, modifiedAt);
+				}
+			} catch (IOException e) {
+				logger.error(String.format(JOB_S_NOT_UPDATED_RETRIED, path), e);
+				failed = true;
+			} catch (JobsException e) {
+				logger.error(String.format(JOB_S_NOT_UPDATED_RETRIED, path), e);
+				failed = true;
+			}
+		}
+		for (String path : new ArrayList<String>(jobs.keySet())) {
+			if (!found.contains(path)) {
+				try {
+					unschedule(path);
+				} catch (JobsException e) {
+					logger.error(String.format(JOB_S_NOT_UPDATED_RETRIED, path), e);
+					failed = true;
+				}
+			}
+		}
+		if (failed) {
+			requestRescan();
+		}
+		logger.debug(String.format("Job definitions checked: %d, scheduled: %d", found.size(), jobs.size())); //$NON-NLS-1$
+	}
+
+	/**
+	 * Schedules, re-schedules or removes the job of the definition at the
+	 * given path, depending on its current state in the repository
+	 * 
+	 * @param repository
+	 * @param path
+	 * @throws JobsException
+	 */
+	public synchronized void update(IRepository repository, String path) throws JobsException {
+		try {
+			IResource resource = repository.getResource(path);
+			if (!resource.exists()) {
+				unschedule(path);
+				return;
+			}
+			Date modifiedAt = resource.getInformation().getModifiedAt();
+			JobEntry entry = jobs.get(path);
+			if ((entry == null) || !entry.isValid(modifiedAt)) {
+				schedule(resource, modifiedAt);
+			}
+		} catch (IOException e) {
+			throw new JobsException(e);
+		}
+	}
+
+	/**
+	 * The paths of the definitions of the currently scheduled jobs
+	 * 
+	 * @return
+	 */
+	public synchronized List<String> getActiveJobs() {
+		List<String> activeJobs = new ArrayList<String>();
+		for (Map.Entry<String, JobEntry> entry : jobs.entrySet()) {
+			if (entry.getValue().isScheduled()) {
+				activeJobs.add(entry.getKey());
+			}
+		}
+		Collections.sort(activeJobs);
+		return activeJobs;
+	}
+
+	/**
+	 * The metrics of the executions on this node of the job of the definition
+	 * at the given path, or <code>null</code> if it is not scheduled
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public JobExecutionMetrics getMetrics(String path) {
+		return metrics.get(path);
+	}
+
+	/**
+	 * The metrics of the executions on this node of all the scheduled jobs,
+	 * sorted by the path of their definition
+	 * 
+	 * @return
+	 */
+	public SortedMap<String, JobExecutionMetrics> getMetrics() {
+		return new TreeMap<String, JobExecutionMetrics>(metrics);
+	}
+
+	/**
+	 * Called by the job before its execution
+	 * 
+	 * @param path
+	 * @param fireTime
+	 * @return whether the job has to be executed by this node
+	 */
+	boolean beforeExecution(String path, Date fireTime) {
+		if (leases != null) {
+			// the busy nodes leave the fire to the others
+			int steps = Math.min(running.get(), MAX_BACKOFF_STEPS);
+			if ((steps > 0) && (backoff > 0)) {
+				try {
+					Thread.sleep(steps * backoff);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			try {
+				if (!leases.acquire(path, fireTime)) {
+					getOrCreateMetrics(path).skipped();
+					return false;
+				}
+			} catch (SQLException e) {
+				// better skipped than executed twice
+				logger.error(String.format("Job: %s skipped, the cluster cannot be reached", path), e); //$NON-NLS-1$
+				getOrCreateMetrics(path).skipped();
+				return false;
+			}
+		}
+		running.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Called by the job after its execution
+	 * 
+	 * @param path
+	 * @param fireTime
+	 * @param duration
+	 * @param success
+	 */
+	void afterExecution(String path, Date fireTime, long duration, boolean success) {
+		running.decrementAndGet();
+		getOrCreateMetrics(path).executed(fireTime, duration, success);
+		if (leases != null) {
+			try {
+				leases.release(path, fireTime, duration, success);
+			} catch (SQLException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	private JobExecutionMetrics getOrCreateMetrics(String path) {
+		JobExecutionMetrics current = metrics.get(path);
+		if (current == null) {
+			JobExecutionMetrics created = new JobExecutionMetrics();
+			current = metrics.putIfAbsent(path, created);
+			if (current == null) {
+				current = created;
+			}
+		}
+		return current;
+	}
+
+	private void cleanupHistory() {
+		long now = System.currentTimeMillis();
+		if ((leases == null) || (now - lastCleanup < CLEANUP_INTERVAL)) {
+			return;
+		}
+		lastCleanup = now;
+		try {
+			int removed = leases.cleanup(now - Integer.getInteger(HISTORY_DAYS_PROPERTY, DEFAULT_HISTORY_DAYS) * DAY);
+			logger.debug(String.format("Job executions removed from the history: %d", removed)); //$NON-NLS-1$
+		} catch (SQLException e) {
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Stops the scheduler and forgets the scheduled jobs, the next reconcile
+	 * starts them again
+	 */
+	public synchronized void shutdown() {
+		if (scheduler != null) {
+			try {
+				scheduler.shutdown();
+			} catch (SchedulerException e) {
+				logger.error(e.getMessage(), e);
+			}
+			scheduler = null;
+		}
+		jobs.clear();
+		metrics.clear();
+		requestRescan();
+	}
+
+	/**
+	 * The job definitions under the given location, found with a single query
+	 * 
+	 * @param repository
+	 * @param location
+	 * @return
+	 * @throws IOException
+	 */
+	static List<IResource> findJobDefinitions(IRepository repository, String location) throws IOException {
+		List<IResource> definitions = new ArrayList<IResource>();
+		List<IEntity> entities = repository.searchName(location + IRepository.SEPARATOR,
+				JobsUpdater.EXTENSION_JOB, false);
+		if (entities != null) {
+			for (IEntity entity : entities) {
+				if ((entity instanceof IResource) && entity.getName().endsWith(JobsUpdater.EXTENSION_JOB)) {
+					definitions.add((IResource) entity);
+				}
+			}
+		}
+		return definitions;
+	}
+
+	synchronized Scheduler getScheduler() throws JobsException {
+		if (scheduler == null) {
+			try {
+				logger.debug("Creating quartz scheduler..."); //$NON-NLS-1$
+				Properties properties = new Properties();
+				properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, schedulerName);
+				properties.setProperty(StdSchedulerFactory.PROP_SCHED_SKIP_UPDATE_CHECK, Boolean.TRUE.toString());
+				properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, SimpleThreadPool.class.getName());
+				properties.setProperty(THREAD_POOL_THREAD_COUNT,
+						Integer.toString(Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS)));
+				properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, RAMJobStore.class.getName());
+				Scheduler created = new StdSchedulerFactory(properties).getScheduler();
+				created.getContext().put(SCHEDULER_CONTEXT_REGISTRY, this);
+				created.start();
+				logger.debug("Quartz scheduler started."); //$NON-NLS-1$
+				scheduler = created;
+			} catch (SchedulerException e) {
+				throw new JobsException(e);
+			}
+		}
+		return scheduler;
+	}
+
+	private void schedule(IResource resource, Date modifiedAt) throws IOException, JobsException {
+		String path = resource.getPath();
+		JobEntry entry;
+		try {
+			entry = new JobEntry(JobParser.parseJob(new String(resource.getContent())), modifiedAt);
+		} catch (RuntimeException e) {
+			// not read again until it is modified
+			logger.error(String.format("Invalid job definition: %s", path), e); //$NON-NLS-1$
+			unschedule(path);
+			jobs.put(path, new JobEntry(modifiedAt));
+			return;
+		}
+
+		JobEntry current = jobs.get(path);
+		if ((current != null) && current.isScheduled() && current.hasSameDefinition(entry)) {
+			logger.debug(String.format("Job: %s already exists.", entry)); //$NON-NLS-1$
+			jobs.put(path, entry);
+			return;
+		}
+		unschedule(path);
+
+		logger.debug(String.format("Creating quartz job: %s ...", entry)); //$NON-NLS-1$
+		JobDetail jobDetail = new JobDetail(path, null, CronJob.class);
+		jobDetail.getJobDataMap().put(JobParser.NODE_NAME, entry.name);
+		jobDetail.getJobDataMap().put(JobParser.NODE_DESCRIPTION, entry.description);
+		jobDetail.getJobDataMap().put(JobParser.NODE_TYPE, entry.type);
+		jobDetail.getJobDataMap().put(JobParser.NODE_MODULE, entry.module);
+		jobDetail.getJobDataMap().put(JobParser.NODE_EXPRESSION, entry.expression);
+		try {
+			// named after the definition, the names of the jobs do not have to be unique
+			CronTrigger trigger = new CronTrigger(path, null, entry.expression);
+			if (leases != null) {
+				trigger.setMisfireInstruction(CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING);
+			}
+			getScheduler().scheduleJob(jobDetail, trigger);
+			jobs.put(path, entry);
+		} catch (ParseException e) {
+			// not read again until it is modified
+			logger.error(String.format("Invalid expression of job: %s", path), e); //$NON-NLS-1$
+			jobs.put(path, new JobEntry(modifiedAt));
+		} catch (SchedulerException e) {
+			throw new JobsException(e);
+		}
+	}
+
+	private void unschedule(String path) throws JobsException {
+		JobEntry entry = jobs.get(path);
+		if ((entry != null) && entry.isScheduled()) {
+			try {
+				getScheduler().deleteJob(path, null);
+				logger.debug(String.format("Delete job: %s", path)); //$NON-NLS-1$
+			} catch (SchedulerException e) {
+				// kept, so that the removal is retried
+				throw new JobsException(e);
+			}
+		}
+		jobs.remove(path);
+		metrics.remove(path);
+	}
+
+	private List<String> getPathsUnder(String removedPath) {
+		List<String> paths = new ArrayList<String>();
+		for (String path : jobs.keySet()) {
+			if (path.equals(removedPath) || path.startsWith(removedPath + IRepository.SEPARATOR)) {
+				paths.add(path);
+			}
+		}
+		return paths;
+	}
+
+	private boolean isUnderLocation(String path) {
+		return path.startsWith(location + IRepository.SEPARATOR);
+	}
+
+	private void requestRescan() {
+		synchronized (changedPaths) {
+			rescanRequested = true;
+		}
+	}
+
+	void changed(String path) {
+		if (!isUnderLocation(path)) {
+			return;
+		}
+		synchronized (changedPaths) {
+			if (path.endsWith(JobsUpdater.EXTENSION_JOB)) {
+				changedPaths.add(path);
+			} else {
+				// e.g. the target of a rename, with unknown definitions in it
+				rescanRequested = true;
+			}
+		}
+	}
+
+	void removed(String path) {
+		if (isUnderLocation(path)) {
+			synchronized (changedPaths) {
+				removedPaths.add(path);
+			}
+		} else if (location.startsWith(path)) {
+			// the whole registry
+			requestRescan();
+		}
+	}
+
+	private static class JobEntry {
+
+		private final long modifiedAt;
+
+		private final String name;
+
+		private final String description;
+
+		private final String expression;
+
+		private final String type;
+
+		private final String module;
+
+		/**
+		 * An invalid definition, which is not scheduled
+		 */
+		JobEntry(Date modifiedAt) {
+			this.modifiedAt = getTime(modifiedAt);
+			this.name = null;
+			this.description = null;
+			this.expression = null;
+			this.type = null;
+			this.module = null;
+		}
+
+		JobEntry(JsonObject definition, Date modifiedAt) {
+			this.modifiedAt = getTime(modifiedAt);
+			this.name = getString(definition, JobParser.NODE_NAME);
+			this.description = getString(definition, JobParser.NODE_DESCRIPTION);
+			this.expression = getString(definition, JobParser.NODE_EXPRESSION);
+			this.type = getString(definition, JobParser.NODE_TYPE);
+			this.module = getString(definition, JobParser.NODE_MODULE);
+		}
+
+		private static long getTime(Date date) {
+			return (date != null) ? date.getTime() : 0;
+		}
+
+		private static String getString(JsonObject definition, String name) {
+			JsonElement element = definition.get(name);
+			if ((element == null) || element.isJsonNull()) {
+				throw new IllegalArgumentException(String.format("Missing property of job definition: %s", name)); //$NON-NLS-1$
+			}
+			return element.getAsString();
+		}
+
+		boolean isScheduled() {
+			return expression != null;
+		}
+
+		boolean isValid(Date currentModifiedAt) {
+			return (currentModifiedAt != null) && (currentModifiedAt.getTime() == modifiedAt);
+		}
+
+		boolean hasSameDefinition(JobEntry other) {
+			return name.equals(other.name) && description.equals(other.description)
+					&& expression.equals(other.expression) && type.equals(other.type)
+					&& module.equals(other.module);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("name: %s, description: %s, expression: %s, type: %s, module: %s", //$NON-NLS-1$
+					name, description, expression, type, module);
+		}
+	}
+
+	private static class ChangeListener implements IRepositoryListener {
+
+		private final JobRegistry registry;
+
+		ChangeListener(JobRegistry registry) {
+			this.registry = registry;
+		}
+
+		@Override
+		public void changed(IRepository repository, String path) {
+			registry.changed(path);
+		}
+
+		@Override
+		public void removed(IRepository repository, String path) {
+			registry.removed(path);
+		}
+
+	}
+
+}
@@ -14,12 +14,15 @@ package org.eclipse.dirigible.runtime.job;
 import java.util.List;
 
 import javax.servlet.ServletException;
-import javax.sql.DataSource;
 
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
 
+/**
+ * Runs periodically and applies the changes of the job definitions reported
+ * since the last run, see {@link JobRegistry}
+ */
 public class JobsSynchronizer implements Runnable {
 
 	private static final Logger logger = Logger.getLogger(JobsSynchronizer.class);
@@ -33,7 +36,7 @@ public class JobsSynchronizer implements Runnable {
 		try {
 			refreshJobs();
 			logger.debug("Refresh of jobs locations successful for: " //$NON-NLS-1$
-					+ JobsUpdater.activeJobs.size());
+					+ JobRegistry.getInstance().getActiveJobs().size());
 		} catch (Exception e) {
 			logger.error("Refreshing Jobs failed.", e);
 		}
@@ -43,19 +46,15 @@ public class JobsSynchronizer implements Runnable {
 	}
 
 	public static List<String> getActiveJobs() {
-		return JobsUpdater.activeJobs;
+		return JobRegistry.getInstance().getActiveJobs();
 	}
 
 	private void refreshJobs() throws ServletException {
 
 		try {
-			DataSource dataSource = RepositoryFacade.getInstance().getDataSource();
 			IRepository repository = RepositoryFacade.getInstance().getRepository(null);
 			// TODO
-			JobsUpdater jobsUpdater = new JobsUpdater(repository, dataSource,
-					JobsUpdater.REGISTRY_INTEGRATION_DEFAULT);
-			jobsUpdater.applyUpdates();
-			jobsUpdater.cleanDeletedJobs();
+			JobRegistry.getInstance().reconcile(repository);
 		} catch (Exception e) {
 			throw new ServletException(e);
 		}
@@ -0,0 +1,153 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class UpdatePipelineTest {
+
+	private final List<String> completed = Collections.synchronizedList(new ArrayList<String>());
+
+	@Test
+	public void testDependencyOrder() throws Exception {
+		final CyclicBarrier parallel = new CyclicBarrier(2);
+		UpdatePipeline pipeline = new UpdatePipeline();
+		pipeline.add("d", complete("d", 100)); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.add("a", complete("a", 100)); //$NON-NLS-1$ //$NON-NLS-2$
+		// b and c wait for each other, so they have to run in parallel
+		pipeline.add("b", await("b", parallel), "a"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		pipeline.add("c", await("c", parallel), "a", "d"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		pipeline.add("e", complete("e", 0), "b", "c"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		pipeline.run();
+
+		assertEquals(5, completed.size());
+		assertBefore("a", "b"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertBefore("a", "c"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertBefore("d", "c"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertBefore("b", "e"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertBefore("c", "e"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void testDependentsSkippedOnFailure() throws Exception {
+		UpdatePipeline pipeline = new UpdatePipeline();
+		pipeline.add("a", failing("a")); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.add("b", complete("b", 0), "a"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		pipeline.add("c", complete("c", 0), "b"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		pipeline.add("d", complete("d", 0)); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			pipeline.run();
+			fail("The failure of the stage is not thrown"); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			assertEquals("a", e.getMessage()); //$NON-NLS-1$
+		}
+		assertEquals("[d]", completed.toString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testDependentsSkippedOnErrors() throws Exception {
+		UpdatePipeline pipeline = new UpdatePipeline();
+		// the errors are reported by the stage itself
+		pipeline.add("a", withErrors("a")); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.add("b", complete("b", 0), "a"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		pipeline.add("c", complete("c", 0), "b"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		pipeline.add("d", complete("d", 0)); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.run();
+		assertEquals("[a, d]", new TreeSet<String>(completed).toString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testFirstFailureThrownAfterAllStages() throws Exception {
+		UpdatePipeline pipeline = new UpdatePipeline();
+		pipeline.add("a", complete("a", 200)); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.add("b", failing("b")); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.add("c", failing("c")); //$NON-NLS-1$ //$NON-NLS-2$
+		pipeline.add("d", complete("d", 200), "a"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		try {
+			pipeline.run();
+			fail("The failure of the stage is not thrown"); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			assertEquals("b", e.getMessage()); //$NON-NLS-1$
+		}
+		// the slower independent stages are not abandoned
+		assertEquals("[a, d]", completed.toString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testUnknownDependency() {
+		UpdatePipeline pipeline = new UpdatePipeline();
+		try {
+			pipeline.add("b", complete("b", 0), "a"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			fail("The unknown dependency is accepted"); //$NON-NLS-1$
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("a")); //$NON-NLS-1$
+		}
+	}
+
+	private void assertBefore(String first, String second) {
+		assertTrue(first + " not before " + second, completed.indexOf(first) < completed.indexOf(second)); //$NON-NLS-1$
+	}
+
+	private Callable<Boolean> complete(final String name, final long delay) {
+		return new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				Thread.sleep(delay);
+				completed.add(name);
+				return true;
+			}
+		};
+	}
+
+	private Callable<Boolean> await(final String name, final CyclicBarrier barrier) {
+		return new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				barrier.await(10, TimeUnit.SECONDS);
+				completed.add(name);
+				return true;
+			}
+		};
+	}
+
+	private Callable<Boolean> withErrors(final String name) {
+		return new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				completed.add(name);
+				return false;
+			}
+		};
+	}
+
+	private static Callable<Boolean> failing(final String name) {
+		return new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				throw new IllegalStateException(name);
+			}
+		};
+	}
+
+}
@@ -12,19 +12,54 @@
 package org.eclipse.dirigible.runtime.content;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
 
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.repository.ext.db.DatabaseUpdater;
 import org.eclipse.dirigible.repository.ext.db.DsvUpdater;
+import org.eclipse.dirigible.repository.ext.db.IDataUpdater;
 import org.eclipse.dirigible.repository.ext.extensions.ExtensionUpdater;
 import org.eclipse.dirigible.repository.ext.security.SecurityUpdater;
+import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.job.JobsUpdater;
 import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
 
+/**
+ * Applies the imported registry content to the database and the runtime. The
+ * artifacts are found with a query per kind, see {@link RegistryArtifacts}.
+ * The stages run in parallel, except that the DSV data is imported only
+ * after the tables and views have been created or updated without errors.
+ */
 public class ContentPostImportUpdater {
 
+	private static final Logger logger = Logger.getLogger(ContentPostImportUpdater.class);
+
+	private static final String STAGE_DATA_STRUCTURES = "data structures"; //$NON-NLS-1$
+	private static final String STAGE_SECURITY = "security"; //$NON-NLS-1$
+	private static final String STAGE_DSV = "dsv"; //$NON-NLS-1$
+	private static final String STAGE_EXTENSIONS = "extensions"; //$NON-NLS-1$
+	private static final String STAGE_JOBS = "jobs"; //$NON-NLS-1$
+
+	private static final Map<String, String[]> ARTIFACTS = new LinkedHashMap<String, String[]>();
+
+	static {
+		ARTIFACTS.put(DatabaseUpdater.REGISTRY_DATA_STRUCTURES_DEFAULT, new String[] {
+				DatabaseUpdater.EXTENSION_TABLE, DatabaseUpdater.EXTENSION_VIEW, DsvUpdater.EXTENSION_DSV });
+		ARTIFACTS.put(SecurityUpdater.REGISTRY_SECURITY_CONSTRAINTS_DEFAULT,
+				new String[] { SecurityUpdater.EXTENSION_ACCESS });
+		ARTIFACTS.put(ExtensionUpdater.REGISTRY_EXTENSION_DEFINITIONS_DEFAULT, new String[] {
+				ExtensionUpdater.EXTENSION_EXTENSION, ExtensionUpdater.EXTENSION_EXTENSION_POINT });
+		ARTIFACTS.put(JobsUpdater.REGISTRY_INTEGRATION_DEFAULT, new String[] { JobsUpdater.EXTENSION_JOB });
+	}
+
 	private IRepository repository;
 
 	public ContentPostImportUpdater(IRepository repository) {
@@ -36,35 +71,74 @@ public class ContentPostImportUpdater {
 	}
 
 	public void update(HttpServletRequest request) throws IOException, Exception {
-		// 1. Execute the real database "create or update"
-		DatabaseUpdater databaseUpdater = new DatabaseUpdater(getRepository(), RepositoryFacade
-				.getInstance().getDataSource(request), DatabaseUpdater.REGISTRY_DATA_STRUCTURES_DEFAULT);
-		databaseUpdater.applyUpdates();
+		DataSource dataSource = RepositoryFacade.getInstance().getDataSource(request);
+		RegistryArtifacts artifacts = RegistryArtifacts.scan(getRepository(), ARTIFACTS);
+		List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+		UpdatePipeline pipeline = new UpdatePipeline();
+
+		// 1. Execute the real database "create or update", the tables before the views
+		pipeline.add(STAGE_DATA_STRUCTURES, new UpdateTask(new DatabaseUpdater(getRepository(), dataSource,
+				DatabaseUpdater.REGISTRY_DATA_STRUCTURES_DEFAULT), artifacts.get(DatabaseUpdater.EXTENSION_TABLE,
+				DatabaseUpdater.EXTENSION_VIEW), request, errors));
 
 		// 2. Execute the real security "create or update"
-		SecurityUpdater securityUpdater = new SecurityUpdater(getRepository(), RepositoryFacade
-				.getInstance().getDataSource(request),
-				SecurityUpdater.REGISTRY_SECURITY_CONSTRAINTS_DEFAULT);
-		securityUpdater.applyUpdates();
+		pipeline.add(STAGE_SECURITY, new UpdateTask(new SecurityUpdater(getRepository(), dataSource,
+				SecurityUpdater.REGISTRY_SECURITY_CONSTRAINTS_DEFAULT),
+				artifacts.get(SecurityUpdater.EXTENSION_ACCESS), request, errors));
 
-		// 3. Execute the real import from DSV files
-		DsvUpdater dsvUpdater = new DsvUpdater(getRepository(), RepositoryFacade.getInstance()
-				.getDataSource(request), DatabaseUpdater.REGISTRY_DATA_STRUCTURES_DEFAULT);
-		dsvUpdater.applyUpdates();
+		// 3. Execute the real import from DSV files, into the updated tables
+		pipeline.add(STAGE_DSV, new UpdateTask(new DsvUpdater(getRepository(), dataSource,
+				DatabaseUpdater.REGISTRY_DATA_STRUCTURES_DEFAULT), artifacts.get(DsvUpdater.EXTENSION_DSV),
+				request, errors), STAGE_DATA_STRUCTURES);
 
 		// 4. Extensions
-		ExtensionUpdater extensionUpdater = new ExtensionUpdater(getRepository(), RepositoryFacade
-				.getInstance().getDataSource(request),
-				ExtensionUpdater.REGISTRY_EXTENSION_DEFINITIONS_DEFAULT);
-		extensionUpdater.applyUpdates();
-		
+		pipeline.add(STAGE_EXTENSIONS, new UpdateTask(new ExtensionUpdater(getRepository(), dataSource,
+				ExtensionUpdater.REGISTRY_EXTENSION_DEFINITIONS_DEFAULT), artifacts.get(
+				ExtensionUpdater.EXTENSION_EXTENSION_POINT, ExtensionUpdater.EXTENSION_EXTENSION), request, errors));
+
 		// 5. Jobs
-		JobsUpdater jobsUpdater = new JobsUpdater(getRepository(), RepositoryFacade
-				.getInstance().getDataSource(request),
-				JobsUpdater.REGISTRY_INTEGRATION_DEFAULT);
-		jobsUpdater.applyUpdates();
+		pipeline.add(STAGE_JOBS, new UpdateTask(new JobsUpdater(getRepository(),
+				JobsUpdater.REGISTRY_INTEGRATION_DEFAULT), artifacts.get(JobsUpdater.EXTENSION_JOB), request, errors));
+
+		pipeline.run();
+
+		for (String error : errors) {
+			logger.warn(String.format("Post import update failed: %s", error)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Runs an updater and reports whether it has completed without errors
+	 */
+	private static class UpdateTask implements Callable<Boolean> {
+
+		private final IDataUpdater updater;
+
+		private final List<String> knownFiles;
+
+		private final HttpServletRequest request;
+
+		private final List<String> errors;
 
+		UpdateTask(IDataUpdater updater, List<String> knownFiles, HttpServletRequest request, List<String> errors) {
+			this.updater = updater;
+			this.knownFiles = knownFiles;
+			this.request = request;
+			this.errors = errors;
+		}
 
+		@Override
+		public Boolean call() throws Exception {
+			// the errors of the other stages, running in parallel, are not counted
+			List<String> stageErrors = new ArrayList<String>();
+			try {
+				updater.executeUpdate(knownFiles, request, stageErrors);
+			} finally {
+				errors.addAll(stageErrors);
+			}
+			return stageErrors.isEmpty();
+		}
 	}
 
 }
@@ -0,0 +1,84 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.content;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dirigible.repository.api.IEntity;
+import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.api.IResource;
+
+/**
+ * The artifacts of the registry, which are applied after a content import,
+ * classified by their extension. They are found with a single query per kind
+ * of artifact, instead of walking the registry tree once per updater.
+ */
+class RegistryArtifacts {
+
+	private final Map<String, List<String>> artifacts = new HashMap<String, List<String>>();
+
+	/**
+	 * Scans the given locations for the artifacts with the given extensions
+	 * 
+	 * @param repository
+	 * @param extensionsByLocation
+	 *            the extensions of the artifacts looked for under each location
+	 * @return
+	 * @throws IOException
+	 */
+	static RegistryArtifacts scan(IRepository repository, Map<String, String[]> extensionsByLocation)
+			throws IOException {
+		RegistryArtifacts registryArtifacts = new RegistryArtifacts();
+		for (Map.Entry<String, String[]> next : extensionsByLocation.entrySet()) {
+			for (String extension : next.getValue()) {
+				List<String> paths = new ArrayList<String>();
+				List<IEntity> entities = repository.searchName(next.getKey() + IRepository.SEPARATOR, extension, false);
+				if (entities != null) {
+					for (IEntity entity : entities) {
+						// the name pattern matches more than the extension
+						if ((entity instanceof IResource) && entity.getName().endsWith(extension)) {
+							paths.add(entity.getPath());
+						}
+					}
+				}
+				registryArtifacts.artifacts.put(extension, paths);
+			}
+		}
+		return registryArtifacts;
+	}
+
+	/**
+	 * The paths of the artifacts with the given extensions, grouped in the
+	 * order of the extensions and sorted within each group
+	 * 
+	 * @param extensions
+	 * @return
+	 */
+	List<String> get(String... extensions) {
+		List<String> result = new ArrayList<String>();
+		for (String extension : extensions) {
+			List<String> paths = artifacts.get(extension);
+			if (paths != null) {
+				List<String> sorted = new ArrayList<String>(paths);
+				Collections.sort(sorted);
+				result.addAll(sorted);
+			}
+		}
+		return result;
+	}
+
+}
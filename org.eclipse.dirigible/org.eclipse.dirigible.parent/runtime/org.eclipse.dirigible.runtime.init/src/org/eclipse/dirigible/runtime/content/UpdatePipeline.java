@@ -0,0 +1,129 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.content;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Runs a set of dependent stages in parallel. A stage starts as soon as all
+ * the stages it depends on have completed successfully, and it is skipped if
+ * any of them has failed. A stage fails either by throwing an exception or by
+ * returning <code>false</code> after it has reported its errors itself. The
+ * first exception is thrown after all the stages have finished.
+ */
+class UpdatePipeline {
+
+	private static final Logger logger = Logger.getLogger(UpdatePipeline.class);
+
+	private final Map<String, Stage> stages = new LinkedHashMap<String, Stage>();
+
+	/**
+	 * Adds a stage, the stages it depends on have to be added before it
+	 * 
+	 * @param name
+	 * @param task
+	 * @param dependencies
+	 */
+	void add(String name, Callable<Boolean> task, String... dependencies) {
+		List<Stage> required = new ArrayList<Stage>();
+		for (String dependency : dependencies) {
+			Stage stage = stages.get(dependency);
+			if (stage == null) {
+				throw new IllegalArgumentException(String.format("Unknown stage: %s required by: %s", dependency, name)); //$NON-NLS-1$
+			}
+			required.add(stage);
+		}
+		stages.put(name, new Stage(name, task, required));
+	}
+
+	void run() throws Exception {
+		if (stages.isEmpty()) {
+			return;
+		}
+		// a thread per stage, so the waiting ones never hold back the others
+		ExecutorService executor = Executors.newFixedThreadPool(stages.size());
+		try {
+			for (Stage stage : stages.values()) {
+				stage.future = executor.submit(stage);
+			}
+			Exception failure = null;
+			for (Stage stage : stages.values()) {
+				try {
+					stage.future.get();
+				} catch (ExecutionException e) {
+					if (failure == null && !(e.getCause() instanceof SkippedException)) {
+						failure = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static class Stage implements Callable<Boolean> {
+
+		private final String name;
+
+		private final Callable<Boolean> task;
+
+		private final List<Stage> dependencies;
+
+		private volatile Future<Boolean> future;
+
+		Stage(String name, Callable<Boolean> task, List<Stage> dependencies) {
+			this.name = name;
+			this.task = task;
+			this.dependencies = dependencies;
+		}
+
+		@Override
+		public Boolean call() throws Exception {
+			for (Stage dependency : dependencies) {
+				boolean completed = false;
+				try {
+					completed = Boolean.TRUE.equals(dependency.future.get());
+				} catch (ExecutionException e) {
+					// failed or skipped itself
+				}
+				if (!completed) {
+					logger.error(String.format("Stage: %s skipped, as: %s failed", name, dependency.name)); //$NON-NLS-1$
+					throw new SkippedException();
+				}
+			}
+			long start = System.currentTimeMillis();
+			Boolean completed = task.call();
+			logger.debug(String.format("Stage: %s done in: %d ms", name, System.currentTimeMillis() - start)); //$NON-NLS-1$
+			return completed;
+		}
+	}
+
+	private static class SkippedException extends Exception {
+
+		private static final long serialVersionUID = 4218693517364052261L;
+
+	}
+
+}
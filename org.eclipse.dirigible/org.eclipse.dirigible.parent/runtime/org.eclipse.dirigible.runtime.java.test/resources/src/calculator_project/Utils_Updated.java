@@ -0,0 +1,12 @@
+package calculator_project;
+
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class Utils {
+	
+	public static long sum(long x, long y) {
+		return x + y;
+	}
+}
\ No newline at end of file
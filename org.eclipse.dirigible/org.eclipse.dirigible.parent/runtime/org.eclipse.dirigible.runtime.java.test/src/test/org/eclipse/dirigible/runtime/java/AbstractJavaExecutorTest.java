@@ -11,7 +11,6 @@
 
 package test.org.eclipse.dirigible.runtime.java;
 
-import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
@@ -20,6 +19,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 
 import javax.sql.DataSource;
+import javax.tools.JavaFileObject;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.derby.jdbc.EmbeddedDataSource;
@@ -113,12 +113,6 @@ public abstract class AbstractJavaExecutorTest implements IJavaExecutorTestResor
 		return FileUtils.readFileToString(source).getBytes();
 	}
 	
-	protected long getExecutionTime(String module) throws IOException {
-		long startTime = System.currentTimeMillis();
-		execute(module);
-		return System.currentTimeMillis() - startTime;
-	}
-	
 	protected Object execute(String module) throws IOException {
 		return executor.executeServiceModule(null, null, module, null);
 	}
@@ -127,10 +121,13 @@ public abstract class AbstractJavaExecutorTest implements IJavaExecutorTestResor
 		getRepository().createResource(path, readSource(source));
 	}
 	
-	protected void assertCacheExecutionTime(long firstExecutionTime, long secondExecutionTime) {
-		String format = "Java's compiler cache is not working. Second execution time \"%d ms\" (execution with cache) should be less than first execution time \"%d ms\""; 
-		String message = String.format(format, secondExecutionTime, firstExecutionTime);
-		assertTrue(message, firstExecutionTime > secondExecutionTime);
+	/**
+	 * Returns the compiled class of the given module, which stays the same
+	 * instance as long as the class is not compiled again
+	 */
+	protected JavaFileObject getClassFile(String module) {
+		ClassFileManager fileManager = ((JavaExecutorStub) executor).getCachedFileManager();
+		return (fileManager != null) ? fileManager.getClassFile(ClassFileManager.getFQN(module)) : null;
 	}
 	
 }
@@ -12,21 +12,28 @@
 package test.org.eclipse.dirigible.runtime.java;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import javax.tools.JavaFileObject;
 
 import org.junit.Test;
 
 public class CaclulatorProjectJavaExecutorTest extends AbstractJavaExecutorTest {
 
 	@Test
-	public void testCalculatorAndUtilsClassesWithCacheExecutionTime() throws Exception {
+	public void testOnlyTheUpdatedClassIsCompiledAgain() throws Exception {
 		createResource(RESOURCE_PATH_UTILS, SOURCЕ_UTILS);
 		createResource(PATH_CALCULATOR_RESOURCE, SOURCЕ_CALCULATOR);
-		long firstExecutionTime = getExecutionTime(MODULE_CALCULATOR);
+		execute(MODULE_CALCULATOR);
+		JavaFileObject utils = getClassFile(MODULE_UTILS);
+		JavaFileObject calculator = getClassFile(MODULE_CALCULATOR);
 		
 		createResource(PATH_CALCULATOR_RESOURCE, SOURCE_CALCULATOR_UPDATED);
-		long secondExecutionTime = getExecutionTime(MODULE_CALCULATOR);
+		execute(MODULE_CALCULATOR);
 		
-		assertCacheExecutionTime(firstExecutionTime, secondExecutionTime);
+		assertSame("Utils was compiled again", utils, getClassFile(MODULE_UTILS));
+		assertNotSame("Calculator was not compiled again", calculator, getClassFile(MODULE_CALCULATOR));
 	}
 	
 	@Test
@@ -40,4 +47,33 @@ public class CaclulatorProjectJavaExecutorTest extends AbstractJavaExecutorTest
 		execute(MODULE_CALCULATOR);
 		assertEquals("Cache was not updated", "Sum of 5 + 5 = 10", getOutput());
 	}
+
+	@Test
+	public void testUnchangedClassesAreNotCompiledAgain() throws Exception {
+		createResource(RESOURCE_PATH_UTILS, SOURCЕ_UTILS);
+		createResource(PATH_CALCULATOR_RESOURCE, SOURCЕ_CALCULATOR);
+		execute(MODULE_CALCULATOR);
+		JavaFileObject utils = getClassFile(MODULE_UTILS);
+		JavaFileObject calculator = getClassFile(MODULE_CALCULATOR);
+		execute(MODULE_CALCULATOR);
+		assertEquals("Sum of 3 + 5 = 8Sum of 3 + 5 = 8", getOutput());
+
+		assertSame("Utils was compiled again", utils, getClassFile(MODULE_UTILS));
+		assertSame("Calculator was compiled again", calculator, getClassFile(MODULE_CALCULATOR));
+	}
+
+	@Test
+	public void testDependentClassesAreCompiledAgain() throws Exception {
+		createResource(RESOURCE_PATH_UTILS, SOURCЕ_UTILS);
+		createResource(PATH_CALCULATOR_RESOURCE, SOURCЕ_CALCULATOR);
+		execute(MODULE_CALCULATOR);
+		assertEquals("Sum of 3 + 5 = 8", getOutput());
+		JavaFileObject calculator = getClassFile(MODULE_CALCULATOR);
+
+		// the signature of Utils.sum changes, so the unchanged Calculator has to be compiled again
+		createResource(RESOURCE_PATH_UTILS, SOURCE_UTILS_UPDATED);
+		execute(MODULE_CALCULATOR);
+		assertEquals("Sum of 3 + 5 = 8", getOutput());
+		assertNotSame("Calculator was not compiled again", calculator, getClassFile(MODULE_CALCULATOR));
+	}
 }
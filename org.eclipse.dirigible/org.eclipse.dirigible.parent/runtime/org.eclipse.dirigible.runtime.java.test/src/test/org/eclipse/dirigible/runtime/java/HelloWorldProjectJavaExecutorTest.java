@@ -12,20 +12,41 @@
 package test.org.eclipse.dirigible.runtime.java;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import javax.tools.JavaFileObject;
+
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
 import org.junit.Test;
 
 
 public class HelloWorldProjectJavaExecutorTest extends AbstractJavaExecutorTest {
 	
 	@Test
-	public void testHelloWorldClassWithCacheExecutionTime() throws Exception {
+	public void testHelloWorldClassWithCache() throws Exception {
 		createResource(RESOURCE_PATH_HELLO_WORLD, SOURCЕ_HELLO_WORLD);
 		
-		long firstExecutionTime = getExecutionTime(MODULE_HELLO_WORLD);
-		long secondExecutionTime = getExecutionTime(MODULE_HELLO_WORLD);
+		execute(MODULE_HELLO_WORLD);
+		JavaFileObject helloWorld = getClassFile(MODULE_HELLO_WORLD);
+		execute(MODULE_HELLO_WORLD);
 		
-		assertCacheExecutionTime(firstExecutionTime, secondExecutionTime);
+		assertNotNull(helloWorld);
+		assertSame("HelloWorld was compiled again", helloWorld, getClassFile(MODULE_HELLO_WORLD));
+	}
+
+	@Test
+	public void testRemovedRootPathIsDropped() throws Exception {
+		createResource(RESOURCE_PATH_HELLO_WORLD, SOURCЕ_HELLO_WORLD);
+		execute(MODULE_HELLO_WORLD);
+		assertNotNull(getClassFile(MODULE_HELLO_WORLD));
+
+		RepositoryListeners.fireChanged(getRepository(), RESOURCE_PATH_HELLO_WORLD);
+		assertNotNull("Changed source dropped the whole root path", getClassFile(MODULE_HELLO_WORLD));
+
+		RepositoryListeners.fireRemoved(getRepository(), REPOSITORY_PUBLIC_DEPLOY_PATH);
+		assertNull(getClassFile(MODULE_HELLO_WORLD));
 	}
 
 	@Test
@@ -37,6 +37,7 @@ public interface IJavaExecutorTestResorces {
 	public static final String PATH_CALCULATOR_RESOURCE = REPOSITORY_PUBLIC_DEPLOY_PATH + MODULE_CALCULATOR;
 
 	public static final File SOURCЕ_UTILS = new File("resources/src/calculator_project/Utils.java");
+	public static final File SOURCE_UTILS_UPDATED = new File("resources/src/calculator_project/Utils_Updated.java");
 	public static final String MODULE_UTILS = "/calculator_project/Utils.java";
 	public static final String RESOURCE_PATH_UTILS = REPOSITORY_PUBLIC_DEPLOY_PATH + MODULE_UTILS;
 	
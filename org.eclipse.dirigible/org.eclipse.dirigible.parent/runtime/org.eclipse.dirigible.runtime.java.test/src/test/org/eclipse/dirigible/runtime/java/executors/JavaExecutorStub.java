@@ -18,6 +18,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.dirigible.repository.api.IRepository;
 import org.eclipse.dirigible.runtime.java.JavaExecutor;
+import org.eclipse.dirigible.runtime.java.dynamic.compilation.ClassFileManager;
 
 public class JavaExecutorStub extends JavaExecutor {
 
@@ -34,4 +35,9 @@ public class JavaExecutorStub extends JavaExecutor {
 		// Do nothing in addition
 	}
 
+	@Override
+	public ClassFileManager getCachedFileManager() {
+		return super.getCachedFileManager();
+	}
+
 }
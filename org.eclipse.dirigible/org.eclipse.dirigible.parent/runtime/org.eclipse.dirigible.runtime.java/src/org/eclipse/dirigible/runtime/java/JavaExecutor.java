@@ -18,7 +18,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,11 +32,16 @@ import javax.tools.ToolProvider;
 
 import org.eclipse.dirigible.repository.api.ICommonConstants;
 import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.ext.events.IRepositoryListener;
+import org.eclipse.dirigible.repository.ext.events.RepositoryListeners;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.java.dynamic.compilation.ClassFileManager;
 import org.eclipse.dirigible.runtime.java.dynamic.compilation.InMemoryCompilationException;
 import org.eclipse.dirigible.runtime.java.dynamic.compilation.InMemoryDiagnosticListener;
 import org.eclipse.dirigible.runtime.scripting.AbstractScriptExecutor;
+import org.eclipse.dirigible.runtime.scripting.ILazyVariable;
+import org.eclipse.dirigible.runtime.scripting.LazyVariablesMap;
+import org.eclipse.dirigible.runtime.scripting.Module;
 
 public class JavaExecutor extends AbstractScriptExecutor {
 	
@@ -43,19 +49,51 @@ public class JavaExecutor extends AbstractScriptExecutor {
 
 	private static final String JAVA_EXTENSION = ".java"; //$NON-NLS-1$
 	private static final String CLASSPATH = "-classpath"; //$NON-NLS-1$
+	private static final String SLASH = "/"; //$NON-NLS-1$
+	private static final String SERVICE_METHOD = "service"; //$NON-NLS-1$
+	private static final Class<?>[] SERVICE_PARAMETERS = new Class<?>[] { HttpServletRequest.class, HttpServletResponse.class, Map.class };
+
+	/**
+	 * System property for the maximum number of sets of root paths, which
+	 * compiled classes are kept in memory
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "dirigible.java.cache.size"; //$NON-NLS-1$
+
+	private static final int DEFAULT_CACHE_SIZE = 100;
+
+	/**
+	 * The in-memory compiled classes per set of root paths, kept between the
+	 * requests and compiled again only when a source has been changed. The
+	 * least recently used ones are dropped above the maximum size, and the
+	 * ones, which root path has been replaced or removed in the repository.
+	 */
+	private static final Map<List<String>, ClassFileManager> fileManagers = new LinkedHashMap<List<String>, ClassFileManager>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 2484630795482839425L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<String>, ClassFileManager> eldest) {
+			return size() > Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE);
+		}
+	};
+
+	static {
+		RepositoryListeners.addListener(new InvalidationListener());
+	}
 	
 	public static final String JAVA_TOOLS_COMPILER = "JAVA_TOOLS_COMPILER"; //$NON-NLS-1$
 
 	private IRepository repository;
 	private String[] rootPaths;
-	private Map<String, Object> defaultVariables;
+	private LazyVariablesMap defaultVariables;
 	
 	private String classpath;
 
 	public JavaExecutor(IRepository repository, String classpath, String... rootPaths) {
 		this.repository = repository;
 		this.rootPaths = rootPaths;
-		this.defaultVariables = new HashMap<String, Object>();
+		this.defaultVariables = new LazyVariablesMap();
 		this.classpath = classpath;
 	}
 
@@ -76,23 +114,82 @@ public class JavaExecutor extends AbstractScriptExecutor {
 
 	private ClassFileManager compile(HttpServletRequest request) throws IOException, ClassNotFoundException,
 			URISyntaxException {
-		List<JavaFileObject> sourceFiles = ClassFileManager.getSourceFiles(retrieveModulesByExtension(repository, JAVA_EXTENSION, rootPaths));
-
 		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
 		
 		if(compiler == null) {
 			throw new InMemoryCompilationException("Use JDK instead of JRE");
 		}
-		InMemoryDiagnosticListener diagnosticListener = new InMemoryDiagnosticListener();
-		ClassFileManager fileManager = ClassFileManager.getInstance(compiler.getStandardFileManager(diagnosticListener, null, null));
-		CompilationTask compilationTask = compiler.getTask(null, fileManager, diagnosticListener, Arrays.asList(CLASSPATH, getClasspath()), null, sourceFiles);
+		ClassFileManager fileManager = getFileManager(compiler);
+		synchronized (fileManager) {
+			List<Module> modules = retrieveModuleInformationByExtension(repository, JAVA_EXTENSION, rootPaths);
+			if (fileManager.isUpToDate(modules)) {
+				return fileManager;
+			}
+			for (Module module : fileManager.getModifiedModules(modules)) {
+				modules.set(modules.indexOf(module), new Module(module.getName(), module.getPath(),
+						readResourceData(repository, module.getPath()), module.getEntityInformation()));
+			}
+			List<JavaFileObject> sourceFiles = fileManager.getSourceFiles(modules);
+			if (!sourceFiles.isEmpty()) {
+				logger.debug(String.format("compiling %d of %d java sources in %s", sourceFiles.size(), modules.size(), //$NON-NLS-1$
+						Arrays.toString(rootPaths)));
+				InMemoryDiagnosticListener diagnosticListener = new InMemoryDiagnosticListener();
+				CompilationTask compilationTask = compiler.getTask(null, fileManager, diagnosticListener, Arrays.asList(CLASSPATH, getClasspath()), null, sourceFiles);
+
+				Boolean compilationTaskResult = compilationTask.call();
+
+				if (compilationTaskResult == null || !compilationTaskResult.booleanValue()) {
+					// the next request starts over with all the sources
+					fileManager.clear();
+					throw new InMemoryCompilationException(diagnosticListener);
+				}
+			}
+			fileManager.newGeneration();
+		}
+		return fileManager;
+	}
 
-		Boolean compilationTaskResult = compilationTask.call();
+	private ClassFileManager getFileManager(JavaCompiler compiler) {
+		List<String> key = Arrays.asList(rootPaths);
+		synchronized (fileManagers) {
+			ClassFileManager fileManager = fileManagers.get(key);
+			if (fileManager == null) {
+				fileManager = ClassFileManager.getInstance(compiler.getStandardFileManager(null, null, null));
+				fileManagers.put(key, fileManager);
+			}
+			return fileManager;
+		}
+	}
 
-		if (compilationTaskResult == null || !compilationTaskResult.booleanValue()) {
-			throw new InMemoryCompilationException(diagnosticListener);
+	/**
+	 * Returns the compiled classes kept for the root paths of this executor,
+	 * or <code>null</code> if there are none
+	 * 
+	 * @return
+	 */
+	protected ClassFileManager getCachedFileManager() {
+		synchronized (fileManagers) {
+			return fileManagers.get(Arrays.asList(rootPaths));
+		}
+	}
+
+	/**
+	 * Drops the compiled classes of all the sets of root paths, which contain
+	 * a root path located under the given path
+	 * 
+	 * @param path
+	 */
+	static void invalidate(String path) {
+		synchronized (fileManagers) {
+			for (Iterator<List<String>> iterator = fileManagers.keySet().iterator(); iterator.hasNext();) {
+				for (String rootPath : iterator.next()) {
+					if (rootPath.equals(path) || rootPath.startsWith(path + SLASH)) {
+						iterator.remove();
+						break;
+					}
+				}
+			}
 		}
-		return fileManager;
 	}
 	
 	public String getClasspath() {
@@ -102,21 +199,41 @@ public class JavaExecutor extends AbstractScriptExecutor {
 	private Object execute(HttpServletRequest request, HttpServletResponse response, String module,
 			ClassFileManager fileManager) throws ClassNotFoundException, NoSuchMethodException,
 			IllegalAccessException, InvocationTargetException, InstantiationException {
-		Class<?> loadedClass = fileManager.getClassLoader(null).loadClass(ClassFileManager.getFQN(module));
-
-		Class<?>[] inputParameters = new Class<?>[] { HttpServletRequest.class, HttpServletResponse.class, Map.class };
-
-		Method serviceMethod = loadedClass.getMethod("service", inputParameters);
-		return serviceMethod.invoke(loadedClass.newInstance(), request, response, defaultVariables);
+		Method serviceMethod = fileManager.getMethod(ClassFileManager.getFQN(module), SERVICE_METHOD, SERVICE_PARAMETERS);
+		return serviceMethod.invoke(serviceMethod.getDeclaringClass().newInstance(), request, response, defaultVariables);
 	}
 	
 	@Override
 	protected void registerDefaultVariable(Object scope, String name, Object value) {
 		defaultVariables.put(name, value);
 	}
+
+	@Override
+	protected void registerLazyVariable(Object scope, String name, ILazyVariable variable) {
+		defaultVariables.putLazy(name, variable);
+	}
 	
 	@Override
 	protected String getModuleType(String path) {
 		return ICommonConstants.ARTIFACT_TYPE.SCRIPTING_SERVICES;
 	}
+
+	/**
+	 * The changes of single sources under the root paths are detected by the
+	 * file managers themselves, so only the replaced or removed root paths are
+	 * dropped here
+	 */
+	private static class InvalidationListener implements IRepositoryListener {
+
+		@Override
+		public void changed(IRepository repository, String path) {
+			invalidate(path);
+		}
+
+		@Override
+		public void removed(IRepository repository, String path) {
+			invalidate(path);
+		}
+
+	}
 }
@@ -13,13 +13,17 @@ package org.eclipse.dirigible.runtime.java.dynamic.compilation;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.security.SecureClassLoader;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import javax.servlet.Servlet;
 import javax.tools.FileObject;
@@ -28,27 +32,38 @@ import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.JavaFileObject.Kind;
 import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 
 import org.eclipse.dirigible.repository.api.IEntityInformation;
 import org.eclipse.dirigible.runtime.scripting.Module;
 
+/**
+ * In-memory file manager holding the sources and the compiled classes of one
+ * set of root paths (project generation). The sources are compared with the
+ * last known ones by their modification time, so that only the changed sources
+ * and the ones referring to them are compiled again, while the unchanged
+ * classes are provided to the compiler from memory. Every successful
+ * compilation starts a new generation with its own class loader, which is
+ * reused by all the executions until the next change.
+ */
 public class ClassFileManager extends ForwardingJavaFileManager<JavaFileManager> {
 
 	private static final String DOT = ".";
 	private static final String SLASH = "/";
+	private static final String DOLLAR = "$";
 	private static final String PATH_SEPARATOR = "path.separator";
 	private static final String separator = System.getProperty(PATH_SEPARATOR);
-	
-	private static ClassFileManager instance;
-	private static final Map<String, JavaFileObject> lastKnownSourceFiles = Collections.synchronizedMap(new HashMap<String, JavaFileObject>());
-	
-	public synchronized static ClassFileManager getInstance(StandardJavaFileManager standardManager) {
-		if (instance == null) {
-			instance = new ClassFileManager(standardManager);
-		}
+	private static final String WORD_BOUNDARY = "\\b";
+
+	private final Map<String, JavaClassObject> lastKnownSourceFiles = new HashMap<String, JavaClassObject>();
+	private final Map<String, JavaClassObject> classFiles = new HashMap<String, JavaClassObject>();
+	private final Map<String, Method> methods = new HashMap<String, Method>();
+	private ClassLoader classLoader;
+
+	public static ClassFileManager getInstance(StandardJavaFileManager standardManager) {
 		return new ClassFileManager(standardManager);
 	}
-	
+
 	public static String getFQN(String module) {
 		StringBuilder fqn = new StringBuilder(module);
 		if (fqn.charAt(0) == SLASH.charAt(0)) {
@@ -98,25 +113,121 @@ public class ClassFileManager extends ForwardingJavaFileManager<JavaFileManager>
 			return jars.toString();
 	}
 	
-	public static JavaFileObject getSourceFile(String className) {
-		return lastKnownSourceFiles.get(className);
+	private ClassFileManager(StandardJavaFileManager standardManager) {
+		super(standardManager);
 	}
-	
-	public static List<JavaFileObject> getSourceFiles(List<Module> modules) throws IOException {
+
+	/**
+	 * Checks whether the given modules are exactly the ones compiled in the
+	 * current generation
+	 *
+	 * @param modules
+	 * @return
+	 */
+	public synchronized boolean isUpToDate(List<Module> modules) {
+		if (classLoader == null || modules.size() != lastKnownSourceFiles.size()) {
+			return false;
+		}
+		return getModifiedModules(modules).isEmpty();
+	}
+
+	/**
+	 * Returns the modules, which are new or modified since the last successful
+	 * compilation
+	 *
+	 * @param modules
+	 * @return
+	 */
+	public synchronized List<Module> getModifiedModules(List<Module> modules) {
+		List<Module> modifiedModules = new ArrayList<Module>();
 		for (Module module : modules) {
-			String fqn = getFQN(module.getName());
-			long lastModified = getLastModified(module);
+			JavaClassObject lastKnownSourceFile = lastKnownSourceFiles.get(getFQN(module.getName()));
+			if (lastKnownSourceFile == null || lastKnownSourceFile.getLastModified() != getLastModified(module)) {
+				modifiedModules.add(module);
+			}
+		}
+		return modifiedModules;
+	}
 
-			JavaClassObject lastKnownSoruceFile = (JavaClassObject) getSourceFile(fqn);
-			if(lastKnownSoruceFile == null || lastKnownSoruceFile.getLastModified() < lastModified) {
+	/**
+	 * Updates the last known sources with the given modules and returns the
+	 * ones, which have to be compiled - the modified sources and all the
+	 * sources referring to a modified or removed class. The modules with
+	 * content are considered modified.
+	 *
+	 * @param modules
+	 * @return
+	 */
+	public synchronized List<JavaFileObject> getSourceFiles(List<Module> modules) {
+		Set<String> changed = new HashSet<String>();
+		Set<String> current = new HashSet<String>();
+		for (Module module : modules) {
+			String fqn = getFQN(module.getName());
+			current.add(fqn);
+			if (module.getContent() != null) {
 				String content = new String(module.getContent());
-				lastKnownSourceFiles.put(fqn, new JavaClassObject(fqn, Kind.SOURCE, content, lastModified));
+				lastKnownSourceFiles.put(fqn, new JavaClassObject(fqn, Kind.SOURCE, content, getLastModified(module)));
+				changed.add(fqn);
+			}
+		}
+		for (Iterator<String> iterator = lastKnownSourceFiles.keySet().iterator(); iterator.hasNext();) {
+			String fqn = iterator.next();
+			if (!current.contains(fqn)) {
+				iterator.remove();
+				changed.add(fqn);
+			}
+		}
+
+		Set<String> affected = new HashSet<String>(changed);
+		Set<String> added = new HashSet<String>(changed);
+		while (!added.isEmpty()) {
+			List<Pattern> references = new ArrayList<Pattern>();
+			for (String fqn : added) {
+				references.add(Pattern.compile(WORD_BOUNDARY + Pattern.quote(getSimpleName(fqn)) + WORD_BOUNDARY));
+			}
+			added = new HashSet<String>();
+			for (JavaClassObject sourceFile : lastKnownSourceFiles.values()) {
+				if (!affected.contains(sourceFile.getName()) && refersTo(sourceFile, references)) {
+					added.add(sourceFile.getName());
+				}
 			}
+			affected.addAll(added);
 		}
-		JavaFileObject[] array = lastKnownSourceFiles.values().toArray(new JavaFileObject[]{});
-		return Arrays.asList(array);
+
+		List<JavaFileObject> sourceFiles = new ArrayList<JavaFileObject>();
+		for (String fqn : affected) {
+			removeClassFiles(fqn);
+			JavaClassObject sourceFile = lastKnownSourceFiles.get(fqn);
+			if (sourceFile != null) {
+				sourceFiles.add(sourceFile);
+			}
+		}
+		return sourceFiles;
 	}
-	
+
+	private static boolean refersTo(JavaClassObject sourceFile, List<Pattern> references) {
+		String content = sourceFile.getContent();
+		for (Pattern reference : references) {
+			if (reference.matcher(content).find()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String getSimpleName(String fqn) {
+		return fqn.substring(fqn.lastIndexOf(DOT) + 1);
+	}
+
+	private void removeClassFiles(String fqn) {
+		for (Iterator<String> iterator = classFiles.keySet().iterator(); iterator.hasNext();) {
+			String className = iterator.next();
+			if (className.equals(fqn) || className.startsWith(fqn + DOLLAR)) {
+				iterator.remove();
+			}
+		}
+	}
+
 	private static long getLastModified(Module module) {
 		Date lastModified = null;
 		IEntityInformation entityInformation = module.getEntityInformation();
@@ -128,20 +239,23 @@ public class ClassFileManager extends ForwardingJavaFileManager<JavaFileManager>
 		return lastModified.getTime();
 	}
 
-	private ClassFileManager(StandardJavaFileManager standardManager) {
-		super(standardManager);
-	}
+	/**
+	 * Starts a new generation after a successful compilation - the classes
+	 * compiled so far are loaded by a new class loader
+	 */
+	public synchronized void newGeneration() {
+		final Map<String, byte[]> classes = new HashMap<String, byte[]>();
+		for (Map.Entry<String, JavaClassObject> classFile : classFiles.entrySet()) {
+			classes.put(classFile.getKey(), classFile.getValue().getBytes());
+		}
+		methods.clear();
+		classLoader = new SecureClassLoader(ClassLoader.getSystemClassLoader()) {
 
-	@Override
-	public ClassLoader getClassLoader(final Location location) {
-		return new SecureClassLoader(ClassLoader.getSystemClassLoader()) {
-			
 			@Override
 			protected Class<?> findClass(String name) throws ClassNotFoundException {
 				Class<?> clazz = null;
-				JavaClassObject javaClassObject = (JavaClassObject) lastKnownSourceFiles.get(name);
-				if (javaClassObject != null) {
-					byte[] bytes = javaClassObject.getBytes();
+				byte[] bytes = classes.get(name);
+				if (bytes != null) {
 					clazz = super.defineClass(name, bytes, 0, bytes.length);
 				} else {
 					clazz = Servlet.class.getClassLoader().loadClass(name);
@@ -151,8 +265,95 @@ public class ClassFileManager extends ForwardingJavaFileManager<JavaFileManager>
 		};
 	}
 
+	/**
+	 * Discards all the sources and the classes, e.g. after a failed
+	 * compilation, so that the next request compiles everything again
+	 */
+	public synchronized void clear() {
+		lastKnownSourceFiles.clear();
+		classFiles.clear();
+		methods.clear();
+		classLoader = null;
+	}
+
+	/**
+	 * Returns the method of the given class, loaded by the class loader of the
+	 * current generation. The resolved methods are cached until the next
+	 * generation.
+	 *
+	 * @param className
+	 * @param methodName
+	 * @param parameterTypes
+	 * @return
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 */
+	public synchronized Method getMethod(String className, String methodName, Class<?>... parameterTypes)
+			throws ClassNotFoundException, NoSuchMethodException {
+		String key = className + DOT + methodName;
+		Method method = methods.get(key);
+		if (method == null) {
+			Class<?> loadedClass = getClassLoader(null).loadClass(className);
+			method = loadedClass.getMethod(methodName, parameterTypes);
+			methods.put(key, method);
+		}
+		return method;
+	}
+
+	/**
+	 * Returns the compiled class with the given name, which stays the same
+	 * instance until the class is compiled again, or <code>null</code> if
+	 * there is no such class
+	 *
+	 * @param className
+	 * @return
+	 */
+	public synchronized JavaFileObject getClassFile(String className) {
+		return classFiles.get(className);
+	}
+
+	@Override
+	public synchronized ClassLoader getClassLoader(Location location) {
+		if (classLoader == null) {
+			newGeneration();
+		}
+		return classLoader;
+	}
+
+	@Override
+	public synchronized JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) throws IOException {
+		JavaClassObject classFile = new JavaClassObject(className, kind, "", System.currentTimeMillis()); //$NON-NLS-1$
+		classFiles.put(className, classFile);
+		return classFile;
+	}
+
 	@Override
-	public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) throws IOException {
-		return lastKnownSourceFiles.get(className);
+	public synchronized Iterable<JavaFileObject> list(Location location, String packageName, Set<Kind> kinds,
+			boolean recurse) throws IOException {
+		Iterable<JavaFileObject> files = super.list(location, packageName, kinds, recurse);
+		if (location != StandardLocation.CLASS_PATH || !kinds.contains(Kind.CLASS)) {
+			return files;
+		}
+		List<JavaFileObject> result = new ArrayList<JavaFileObject>();
+		for (JavaFileObject file : files) {
+			result.add(file);
+		}
+		for (JavaClassObject classFile : classFiles.values()) {
+			String className = classFile.getName();
+			int lastDot = className.lastIndexOf(DOT);
+			String classPackage = (lastDot > 0) ? className.substring(0, lastDot) : ""; //$NON-NLS-1$
+			if (classPackage.equals(packageName) || (recurse && classPackage.startsWith(packageName + DOT))) {
+				result.add(classFile);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public String inferBinaryName(Location location, JavaFileObject file) {
+		if (file instanceof JavaClassObject) {
+			return ((JavaClassObject) file).getName();
+		}
+		return super.inferBinaryName(location, file);
 	}
 }
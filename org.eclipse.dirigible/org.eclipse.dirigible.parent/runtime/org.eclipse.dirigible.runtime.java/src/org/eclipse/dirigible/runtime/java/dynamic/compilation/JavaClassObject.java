@@ -11,8 +11,10 @@
 
 package org.eclipse.dirigible.runtime.java.dynamic.compilation;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 
@@ -41,6 +43,10 @@ public class JavaClassObject extends SimpleJavaFileObject {
 		return bos.toByteArray();
 	}
 
+	public String getContent() {
+		return content;
+	}
+
 	@Override
 	public String getName() {
 		return name;
@@ -56,6 +62,11 @@ public class JavaClassObject extends SimpleJavaFileObject {
 		return content != null ? content : super.getCharContent(ignoreEncodingErrors);
 	}
 
+	@Override
+	public InputStream openInputStream() throws IOException {
+		return new ByteArrayInputStream(getBytes());
+	}
+
 	@Override
 	public OutputStream openOutputStream() throws IOException {
 		bos.reset();
@@ -0,0 +1,108 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class AccessLogRingBufferTest {
+
+	private static final int PRODUCERS = 4;
+
+	private static final int PER_PRODUCER = 20000;
+
+	@Test
+	public void testOverflow() {
+		AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<Integer>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4, buffer.size());
+
+		List<Integer> drained = new ArrayList<Integer>();
+		assertEquals(2, buffer.drainTo(drained, 2));
+		assertTrue(buffer.offer(5));
+		assertTrue(buffer.offer(6));
+		assertFalse(buffer.offer(7));
+
+		assertEquals(4, buffer.drainTo(drained, 10));
+		assertEquals(0, buffer.size());
+		assertEquals(0, buffer.drainTo(drained, 10));
+		// the rejected elements are not in the buffer
+		assertEquals("[0, 1, 2, 3, 5, 6]", drained.toString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testConcurrentProducers() throws InterruptedException {
+		final AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<Integer>(64);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int producer = p;
+			producers[p] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < PER_PRODUCER; i++) {
+						Integer element = (producer * PER_PRODUCER) + i;
+						while (!buffer.offer(element)) {
+							Thread.yield();
+						}
+					}
+				}
+			};
+			producers[p].start();
+		}
+		start.countDown();
+
+		int[] next = new int[PRODUCERS];
+		List<Integer> drained = new ArrayList<Integer>();
+		int total = 0;
+		long deadline = System.currentTimeMillis() + 30000;
+		while ((total < PRODUCERS * PER_PRODUCER) && (System.currentTimeMillis() < deadline)) {
+			drained.clear();
+			if (buffer.drainTo(drained, 16) == 0) {
+				Thread.yield();
+				continue;
+			}
+			for (Integer element : drained) {
+				int producer = element / PER_PRODUCER;
+				// neither lost nor duplicated, in the order of each producer
+				assertEquals(next[producer], element % PER_PRODUCER);
+				next[producer]++;
+				total++;
+			}
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		assertEquals(PRODUCERS * PER_PRODUCER, total);
+		for (int p = 0; p < PRODUCERS; p++) {
+			assertEquals(PER_PRODUCER, next[p]);
+		}
+		assertEquals(0, buffer.size());
+		assertEquals(0, buffer.drainTo(drained, 16));
+	}
+
+}
@@ -0,0 +1,181 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AccessLogWriterTest {
+
+	private static final long NEVER = 60 * 60 * 1000L;
+
+	@Test
+	public void testDrainsInBatches() {
+		TestAccessLogWriter writer = new TestAccessLogWriter(100, 10, NEVER, false);
+		List<AccessLogRecord> records = createRecords(25);
+		for (AccessLogRecord record : records) {
+			assertTrue(writer.submit(record));
+		}
+		assertEquals(25, writer.getPendingCount());
+
+		writer.start();
+		// the full batches are written right away, the rest waits for the
+		// flush interval or the stop
+		writer.waitForWritten(20);
+		assertEquals("[10, 10]", writer.getBatchSizes().toString()); //$NON-NLS-1$
+		writer.stop();
+
+		assertEquals("[10, 10, 5]", writer.getBatchSizes().toString()); //$NON-NLS-1$
+		assertEquals(records, writer.getWritten());
+		assertEquals(25, writer.getSubmittedCount());
+		assertEquals(25, writer.getWrittenCount());
+		assertEquals(0, writer.getPendingCount());
+	}
+
+	@Test
+	public void testFlushInterval() {
+		TestAccessLogWriter writer = new TestAccessLogWriter(100, 100, 50, false);
+		writer.start();
+		try {
+			List<AccessLogRecord> records = createRecords(3);
+			for (AccessLogRecord record : records) {
+				assertTrue(writer.submit(record));
+			}
+			writer.waitForWritten(3);
+			assertEquals("[3]", writer.getBatchSizes().toString()); //$NON-NLS-1$
+			assertEquals(records, writer.getWritten());
+		} finally {
+			writer.stop();
+		}
+	}
+
+	@Test
+	public void testDropOnOverload() {
+		TestAccessLogWriter writer = new TestAccessLogWriter(2, 10, NEVER, false);
+		List<AccessLogRecord> records = createRecords(3);
+		assertTrue(writer.submit(records.get(0)));
+		assertTrue(writer.submit(records.get(1)));
+		assertFalse(writer.submit(records.get(2)));
+		assertEquals(1, writer.getDroppedCount());
+		assertEquals(2, writer.getSubmittedCount());
+
+		writer.start();
+		writer.stop();
+		assertEquals(records.subList(0, 2), writer.getWritten());
+	}
+
+	@Test
+	public void testBlockOnOverload() {
+		TestAccessLogWriter writer = new TestAccessLogWriter(1, 1, NEVER, true);
+		writer.start();
+		List<AccessLogRecord> records = createRecords(50);
+		try {
+			for (AccessLogRecord record : records) {
+				assertTrue(writer.submit(record));
+			}
+		} finally {
+			writer.stop();
+		}
+		assertEquals(0, writer.getDroppedCount());
+		assertEquals(records, writer.getWritten());
+	}
+
+	@Test
+	public void testFailedBatchIsCounted() {
+		TestAccessLogWriter writer = new TestAccessLogWriter(100, 10, NEVER, false);
+		writer.failing = true;
+		for (AccessLogRecord record : createRecords(15)) {
+			writer.submit(record);
+		}
+		writer.start();
+		writer.stop();
+		assertEquals(15, writer.getFailedCount());
+		assertEquals(0, writer.getWrittenCount());
+	}
+
+	private static List<AccessLogRecord> createRecords(int count) {
+		List<AccessLogRecord> records = new ArrayList<AccessLogRecord>();
+		Date now = new Date();
+		for (int i = 0; i < count; i++) {
+			records.add(new AccessLogRecord("/services/js/a/" + i, null, null, null, "GET", null, 200, now, //$NON-NLS-1$ //$NON-NLS-2$
+					TimeUtils.roundCeilingHour(now), "/services/js/a", "a", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return records;
+	}
+
+	/**
+	 * Keeps the written batches instead of inserting them with the DAO
+	 */
+	private static class TestAccessLogWriter extends AccessLogWriter {
+
+		private final List<List<AccessLogRecord>> batches = Collections
+				.synchronizedList(new ArrayList<List<AccessLogRecord>>());
+
+		private volatile boolean failing;
+
+		TestAccessLogWriter(int bufferSize, int flushSize, long flushInterval, boolean blockOnOverload) {
+			super(bufferSize, flushSize, flushInterval, blockOnOverload);
+		}
+
+		@Override
+		protected void write(List<AccessLogRecord> batch) throws SQLException {
+			if (failing) {
+				throw new SQLException("failing"); //$NON-NLS-1$
+			}
+			// the writer reuses the batch list
+			batches.add(new ArrayList<AccessLogRecord>(batch));
+		}
+
+		List<Integer> getBatchSizes() {
+			List<Integer> sizes = new ArrayList<Integer>();
+			synchronized (batches) {
+				for (List<AccessLogRecord> batch : batches) {
+					sizes.add(batch.size());
+				}
+			}
+			return sizes;
+		}
+
+		List<AccessLogRecord> getWritten() {
+			List<AccessLogRecord> written = new ArrayList<AccessLogRecord>();
+			synchronized (batches) {
+				for (List<AccessLogRecord> batch : batches) {
+					written.addAll(batch);
+				}
+			}
+			return written;
+		}
+
+		void waitForWritten(int count) {
+			long deadline = System.currentTimeMillis() + 10000;
+			while ((getWrittenCount() < count) && (System.currentTimeMillis() < deadline)) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
+import org.eclipse.dirigible.runtime.metrics.AccessMetrics.Dimension;
+import org.eclipse.dirigible.runtime.metrics.AccessMetrics.Statistic;
+import org.eclipse.dirigible.runtime.metrics.AccessMetricsSummaryDAO.Summary;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccessMetricsTest {
+
+	private static final long HOUR = 60 * 60 * 1000L;
+
+	private AccessMetricsSummaryDAO summaryDAO;
+
+	private AccessMetrics accessMetrics;
+
+	private EmbeddedDataSource dataSource;
+
+	@Before
+	public void setUp() throws SQLException {
+		dataSource = new EmbeddedDataSource();
+		dataSource.setDatabaseName("derby"); //$NON-NLS-1$
+		dataSource.setCreateDatabase("create"); //$NON-NLS-1$
+		TableBootstrap.ensureTable(dataSource, AccessLogRecordDAO.DGB_ACCESS_LOG,
+				AccessLogRecordDAO.CREATE_TABLE_DGB_ACCESS_LOG);
+		execute("DELETE FROM DGB_ACCESS_LOG"); //$NON-NLS-1$
+		summaryDAO = new AccessMetricsSummaryDAO(dataSource);
+		summaryDAO.cleanupOlderRecords(new Date(System.currentTimeMillis() + 1000 * HOUR));
+		accessMetrics = new AccessMetrics(summaryDAO);
+	}
+
+	@Test
+	public void testHourlySeries() throws SQLException {
+		Date now = new Date();
+		for (int i = 1; i <= 100; i++) {
+			accessMetrics.record(createRecord("/services/js/a", "a", now, i));
+		}
+		accessMetrics.record(createRecord("/services/js/b", "b", now, 1000));
+
+		String[][] counts = accessMetrics.getHourlySeries(Dimension.PATTERN, Statistic.COUNT);
+		String[] last = counts[counts.length - 1];
+		assertEquals("date", counts[0][0]);
+		assertEquals("/services/js/a", counts[0][1]);
+		assertEquals("100", last[1]);
+		assertEquals("1", last[2]);
+
+		String[][] averages = accessMetrics.getHourlySeries(Dimension.PROJECT, Statistic.AVERAGE);
+		assertEquals("50", averages[averages.length - 1][1]);
+
+		String[][] percentiles = accessMetrics.getHourlySeries(Dimension.PATTERN, Statistic.P99);
+		assertEquals("103", percentiles[percentiles.length - 1][1]);
+	}
+
+	@Test
+	public void testMinuteSeries() {
+		assertNull(accessMetrics.getMinuteSeries(Dimension.URI));
+		Date now = new Date();
+		accessMetrics.record(createRecord("/services/js/a", "a", now, 1));
+		accessMetrics.record(createRecord("/services/js/a", "a", now, 1));
+
+		String[][] minutes = accessMetrics.getMinuteSeries(Dimension.URI);
+		assertEquals(61, minutes.length);
+		assertEquals("/services/js/a/uri", minutes[0][1]);
+		assertEquals("2", minutes[60][1]);
+		assertEquals("0", minutes[59][1]);
+	}
+
+	@Test
+	public void testCompaction() throws SQLException {
+		Date now = new Date();
+		Date completed = new Date(now.getTime() - 2 * HOUR);
+		accessMetrics.record(createRecord("/services/js/a", "a", completed, 10));
+		accessMetrics.record(createRecord("/services/js/a", "a", now, 10));
+
+		accessMetrics.compact(now.getTime());
+		List<Summary> summaries = summaryDAO.read(Dimension.PATTERN.name(), new Date(0));
+		assertEquals(1, summaries.size());
+		assertEquals(TimeUtils.roundCeilingHour(completed).getTime(), summaries.get(0).getPeriod());
+		assertEquals(1, summaries.get(0).getCount());
+
+		// late records replace the written summary
+		accessMetrics.record(createRecord("/services/js/a", "a", completed, 10));
+		accessMetrics.compact(now.getTime());
+		summaries = summaryDAO.read(Dimension.PATTERN.name(), new Date(0));
+		assertEquals(1, summaries.size());
+		assertEquals(2, summaries.get(0).getCount());
+
+		// evicted from memory, but still read from the summary table
+		accessMetrics.compact(now.getTime() + 48 * HOUR);
+		String[][] counts = new AccessMetrics(summaryDAO).getHourlySeries(Dimension.PATTERN, Statistic.COUNT);
+		assertEquals("/services/js/a", counts[0][1]);
+		assertEquals("2", counts[1][1]);
+	}
+
+	@Test
+	public void testNodesAreMerged() throws SQLException {
+		Date now = new Date();
+		Date completed = new Date(now.getTime() - 2 * HOUR);
+		AccessMetrics otherNode = new AccessMetrics(summaryDAO);
+		accessMetrics.record(createRecord("/services/js/a", "a", completed, 10));
+		otherNode.record(createRecord("/services/js/a", "a", completed, 1000));
+		otherNode.record(createRecord("/services/js/a", "a", completed, 1000));
+
+		accessMetrics.compact(now.getTime());
+		otherNode.compact(now.getTime());
+		assertEquals(2, summaryDAO.read(Dimension.PATTERN.name(), new Date(0)).size());
+
+		// the hours of the other node are added to the ones in memory
+		String[][] counts = accessMetrics.getHourlySeries(Dimension.PATTERN, Statistic.COUNT);
+		assertEquals("3", counts[1][1]);
+		String[][] percentiles = accessMetrics.getHourlySeries(Dimension.PATTERN, Statistic.P50);
+		assertEquals("1023", percentiles[1][1]);
+	}
+
+	@Test
+	public void testAccessLogIsMigrated() throws SQLException {
+		Timestamp period = new Timestamp(TimeUtils.roundCeilingHour(new Date()).getTime() - 3 * HOUR);
+		for (int i = 0; i < 2; i++) {
+			execute("INSERT INTO DGB_ACCESS_LOG (ACCLOG_REQUEST_URI, ACCLOG_TIMESTAMP, ACCLOG_PERIOD," //$NON-NLS-1$
+					+ " ACCLOG_PATTERN, ACCLOG_PROJECT, ACCLOG_RESPONSE_TIME) VALUES ('/services/js/h/uri', '" //$NON-NLS-1$
+					+ period + "', '" + period + "', '/services/js/h', 'h', 10)"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		// a record of the hour in memory is not migrated
+		Timestamp current = new Timestamp(TimeUtils.roundCeilingHour(new Date()).getTime());
+		execute("INSERT INTO DGB_ACCESS_LOG (ACCLOG_REQUEST_URI, ACCLOG_TIMESTAMP, ACCLOG_PERIOD," //$NON-NLS-1$
+				+ " ACCLOG_PATTERN, ACCLOG_PROJECT, ACCLOG_RESPONSE_TIME) VALUES ('/services/js/h/uri', '" //$NON-NLS-1$
+				+ current + "', '" + current + "', '/services/js/h', 'h', 10)"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		String[][] counts = accessMetrics.getHourlySeries(Dimension.PROJECT, Statistic.COUNT);
+		assertEquals("h", counts[0][1]); //$NON-NLS-1$
+		assertEquals("2", counts[1][1]); //$NON-NLS-1$
+		assertEquals("0", counts[counts.length - 1][1]); //$NON-NLS-1$
+
+		// once only
+		counts = new AccessMetrics(summaryDAO).getHourlySeries(Dimension.PROJECT, Statistic.COUNT);
+		assertEquals("2", counts[1][1]); //$NON-NLS-1$
+		assertEquals(1, summaryDAO.read(Dimension.URI.name(), new Date(0)).size());
+	}
+
+	private void execute(String sql) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				statement.executeUpdate(sql);
+			} finally {
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private static AccessLogRecord createRecord(String pattern, String project, Date timestamp, int responseTime) {
+		return new AccessLogRecord(pattern + "/uri", null, null, null, "GET", null, 200, timestamp,
+				TimeUtils.roundCeilingHour(timestamp), pattern, project, responseTime);
+	}
+
+}
@@ -0,0 +1,90 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 8; i++) {
+			histogram.record(i);
+		}
+		assertEquals(8, histogram.getCount());
+		assertEquals(28, histogram.getTotal());
+		assertEquals(3, histogram.getPercentile(50));
+		assertEquals(7, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void testPercentilesWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(500, histogram.getAverage());
+		assertWithin(500, histogram.getPercentile(50));
+		assertWithin(950, histogram.getPercentile(95));
+		assertWithin(990, histogram.getPercentile(99));
+	}
+
+	@Test
+	public void testBucketBounds() {
+		for (long value = 0; value < 100000; value++) {
+			int index = LatencyHistogram.indexOf(value);
+			assertTrue(value <= LatencyHistogram.upperBoundOf(index));
+			assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(index - 1));
+		}
+	}
+
+	@Test
+	public void testAdd() {
+		LatencyHistogram first = new LatencyHistogram();
+		first.record(10);
+		LatencyHistogram second = new LatencyHistogram();
+		second.record(1000);
+		second.record(Long.MAX_VALUE / 2);
+		first.add(second);
+		assertEquals(3, first.getCount());
+		assertWithin(10, first.getPercentile(1));
+		assertTrue(first.getPercentile(100) > 1000);
+	}
+
+	@Test
+	public void testBuckets() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		LatencyHistogram restored = new LatencyHistogram();
+		restored.add(histogram.getBuckets(), histogram.getTotal());
+		assertEquals(histogram.getCount(), restored.getCount());
+		assertEquals(histogram.getTotal(), restored.getTotal());
+		assertEquals(histogram.getPercentile(95), restored.getPercentile(95));
+		assertEquals(histogram.getBuckets(), restored.getBuckets());
+
+		restored = new LatencyHistogram();
+		restored.add("", 0); //$NON-NLS-1$
+		assertEquals(0, restored.getCount());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(actual + " is not within 12.5% of " + expected, //$NON-NLS-1$
+				actual >= expected && actual <= expected * 1.125);
+	}
+
+}
@@ -12,7 +12,6 @@
 package org.eclipse.dirigible.runtime.filter;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.util.GregorianCalendar;
 
 import javax.servlet.Filter;
@@ -27,7 +26,8 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.metrics.AccessLogLocationsSynchronizer;
 import org.eclipse.dirigible.runtime.metrics.AccessLogRecord;
-import org.eclipse.dirigible.runtime.metrics.AccessLogRecordDAO;
+import org.eclipse.dirigible.runtime.metrics.AccessLogWriter;
+import org.eclipse.dirigible.runtime.metrics.AccessMetrics;
 import org.eclipse.dirigible.runtime.registry.PathUtils;
 
 public class AccessLogFilter implements Filter {
@@ -58,16 +58,14 @@ public class AccessLogFilter implements Filter {
 			chain.doFilter(request, response);
 		} finally {
 			if (logLocation) {
-				try {
-					accessLogRecord.setResponseStatus(((HttpServletResponse) response).getStatus());
-					accessLogRecord
-							.setResponseTime((int) (GregorianCalendar.getInstance().getTime().getTime() - accessLogRecord
-									.getTimestamp().getTime()));
-
-					AccessLogRecordDAO.insert(accessLogRecord);
-				} catch (SQLException e) {
-					logger.error(e.getMessage(), e);
-				}
+				accessLogRecord.setResponseStatus(((HttpServletResponse) response).getStatus());
+				accessLogRecord
+						.setResponseTime((int) (GregorianCalendar.getInstance().getTime().getTime() - accessLogRecord
+								.getTimestamp().getTime()));
+
+				AccessMetrics.getInstance().record(accessLogRecord);
+				// written in the background
+				AccessLogWriter.getInstance().submit(accessLogRecord);
 			}
 		}
 
@@ -15,7 +15,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -29,6 +28,7 @@ import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import com.google.gson.Gson;
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
 
@@ -43,8 +43,6 @@ public class MemoryLogRecordDAO {
 	private static final String CREATE_TABLE_DGB_MEMORY_LOG = "CREATE TABLE DGB_MEMORY_LOG ("
 			+ "MEMLOG_FREE_MEMORY BIGINT, " + "MEMLOG_TOTAL_MEMORY BIGINT, "
 			+ "MEMLOG_MAX_MEMORY BIGINT, " + "MEMLOG_TIMESTAMP TIMESTAMP" + " )";
-	private static final String SELECT_COUNT_FROM_DGB_MEMORY_LOG = "SELECT COUNT(*) FROM DGB_MEMORY_LOG";
-
 	private static final String SELECT_ALL_DGB_MEMORY_LOG = "SELECT * FROM DGB_MEMORY_LOG";
 
 	private static final String AVAILABLE_PROCESSORS = "availableProcessors"; //$NON-NLS-1$
@@ -93,23 +91,7 @@ public class MemoryLogRecordDAO {
 
 	private static void checkDB() throws NamingException, SQLException {
 		DataSource dataSource = RepositoryFacade.getInstance().getDataSource();
-		Connection connection = null;
-		try {
-			connection = dataSource.getConnection();
-			Statement stmt = connection.createStatement();
-
-			try {
-				stmt.executeQuery(SELECT_COUNT_FROM_DGB_MEMORY_LOG);
-			} catch (Exception e) {
-				logger.error("DGB_MEMORY_LOG does not exist?" + e.getMessage(), e);
-				// Create Memory Log Table
-				stmt.executeUpdate(CREATE_TABLE_DGB_MEMORY_LOG);
-			}
-		} finally {
-			if (connection != null) {
-				connection.close();
-			}
-		}
+		TableBootstrap.ensureTable(dataSource, "DGB_MEMORY_LOG", CREATE_TABLE_DGB_MEMORY_LOG);
 	}
 
 	public static void cleanupOlderRecords() throws SQLException {
@@ -31,6 +31,7 @@ public class AccessLogCleanupTask implements IRunnableTask {
 				+ "start()"); //$NON-NLS-1$
 		try {
 			AccessLogRecordDAO.cleanupOlderRecords();
+			AccessMetrics.getInstance().cleanupOlderSummaries();
 		} catch (SQLException e) {
 			logger.error(e.getMessage(), e);
 		}
@@ -15,11 +15,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
 
@@ -36,8 +36,6 @@ public class AccessLogLocationsDAO {
 	private static final String CREATE_TABLE_DGB_ACCESS_LOG_LOCATIONS = "CREATE TABLE DGB_ACCESS_LOG_LOCATIONS ("
 			+ " ACCLOGLOC_LOCATION VARCHAR(256))";
 
-	private static final String SELECT_COUNT_FROM_DGB_ACCESS_LOG_LOCATIONS = "SELECT COUNT(*) FROM DGB_ACCESS_LOG_LOCATIONS";
-
 	private static final Logger logger = Logger.getLogger(AccessLogLocationsDAO.class);
 
 	public static void refreshLocations() throws SQLException {
@@ -150,23 +148,7 @@ public class AccessLogLocationsDAO {
 
 	private static void checkDB() throws NamingException, SQLException {
 		DataSource dataSource = RepositoryFacade.getInstance().getDataSource();
-		Connection connection = null;
-		try {
-			connection = dataSource.getConnection();
-			Statement stmt = connection.createStatement();
-
-			try {
-				stmt.executeQuery(SELECT_COUNT_FROM_DGB_ACCESS_LOG_LOCATIONS);
-			} catch (Exception e) {
-				logger.error("DGB_ACCESS_LOG does not exist?" + e.getMessage(), e);
-				// Create Access Log Table
-				stmt.executeUpdate(CREATE_TABLE_DGB_ACCESS_LOG_LOCATIONS);
-			}
-		} finally {
-			if (connection != null) {
-				connection.close();
-			}
-		}
+		TableBootstrap.ensureTable(dataSource, "DGB_ACCESS_LOG_LOCATIONS", CREATE_TABLE_DGB_ACCESS_LOG_LOCATIONS);
 	}
 
 }
@@ -85,6 +85,7 @@ public class AccessLogRecord {
 		this.method = method;
 		this.userAgent = userAgent;
 		this.timestamp = timestamp;
+		this.period = period;
 		this.responseStatus = responseStatus;
 		this.responseTime = responseTime;
 		this.sessionId = sessionId;
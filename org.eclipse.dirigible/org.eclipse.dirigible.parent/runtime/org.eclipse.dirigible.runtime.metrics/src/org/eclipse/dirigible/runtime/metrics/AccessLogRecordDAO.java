@@ -15,11 +15,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
@@ -30,6 +30,7 @@ import java.util.TreeMap;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
 
@@ -52,7 +53,8 @@ public class AccessLogRecordDAO {
 			+ "ACCLOG_PROJECT,"
 			+ "ACCLOG_RESPONSE_TIME) "
 			+ "VALUES (?,?,?,?,?,?,?,?,?,?,?,?)";
-	private static final String CREATE_TABLE_DGB_ACCESS_LOG = "CREATE TABLE DGB_ACCESS_LOG ("
+	static final String DGB_ACCESS_LOG = "DGB_ACCESS_LOG";
+	static final String CREATE_TABLE_DGB_ACCESS_LOG = "CREATE TABLE DGB_ACCESS_LOG ("
 			+ " ACCLOG_REQUEST_URI VARCHAR(256), "
 			+ " ACCLOG_REMOTE_USER VARCHAR(128), "
 			+ " ACCLOG_REMOTE_HOST VARCHAR(128), "
@@ -66,28 +68,23 @@ public class AccessLogRecordDAO {
 			+ " ACCLOG_PROJECT VARCHAR(128), "
 			+ " ACCLOG_RESPONSE_TIME INTEGER "
 			+ " )";
-	private static final String SELECT_COUNT_FROM_DGB_ACCESS_LOG = "SELECT COUNT(*) FROM DGB_ACCESS_LOG";
 	
 	private static final String SELECT_ALL_DGB_ACCESS_LOG = "SELECT * FROM DGB_ACCESS_LOG";
 	
-	// hit count related 
-	private static final String SELECT_LAST_BY_PATTERN = "SELECT ACCLOG_PATTERN, ACCLOG_PERIOD, COUNT(*) AS ACCLOG_COUNT FROM DGB_ACCESS_LOG WHERE ACCLOG_PERIOD > ? GROUP BY ACCLOG_PATTERN, ACCLOG_PERIOD ORDER BY ACCLOG_PATTERN, ACCLOG_PERIOD";
-	
-	private static final String SELECT_LAST_BY_PROJECT = "SELECT ACCLOG_PROJECT, ACCLOG_PERIOD, COUNT(*) AS ACCLOG_COUNT FROM DGB_ACCESS_LOG WHERE ACCLOG_PERIOD > ? GROUP BY ACCLOG_PROJECT, ACCLOG_PERIOD ORDER BY ACCLOG_PROJECT, ACCLOG_PERIOD";
-	
-	private static final String SELECT_LAST_BY_URI = "SELECT ACCLOG_REQUEST_URI, ACCLOG_PERIOD, COUNT(*) AS ACCLOG_COUNT FROM DGB_ACCESS_LOG WHERE ACCLOG_PERIOD > ? GROUP BY ACCLOG_REQUEST_URI, ACCLOG_PERIOD ORDER BY ACCLOG_REQUEST_URI, ACCLOG_PERIOD";
-	
-	// response time related 
-	private static final String SELECT_RT_BY_PATTERN = "SELECT ACCLOG_PATTERN, ACCLOG_PERIOD, AVG(ACCLOG_RESPONSE_TIME) AS RESPONSE_TIME FROM DGB_ACCESS_LOG WHERE ACCLOG_PERIOD > ? GROUP BY ACCLOG_PATTERN, ACCLOG_PERIOD ORDER BY ACCLOG_PATTERN, ACCLOG_PERIOD";
-	
-	private static final String SELECT_RT_BY_PROJECT = "SELECT ACCLOG_PROJECT, ACCLOG_PERIOD, AVG(ACCLOG_RESPONSE_TIME) AS RESPONSE_TIME FROM DGB_ACCESS_LOG WHERE ACCLOG_PERIOD > ? GROUP BY ACCLOG_PROJECT, ACCLOG_PERIOD ORDER BY ACCLOG_PROJECT, ACCLOG_PERIOD";
-	
-	private static final String SELECT_RT_BY_URI = "SELECT ACCLOG_REQUEST_URI, ACCLOG_PERIOD, AVG(ACCLOG_RESPONSE_TIME) AS RESPONSE_TIME FROM DGB_ACCESS_LOG WHERE ACCLOG_PERIOD > ? GROUP BY ACCLOG_REQUEST_URI, ACCLOG_PERIOD ORDER BY ACCLOG_REQUEST_URI, ACCLOG_PERIOD";
-	
 	// hits grouped
 	private static final String SELECT_HITS_BY_URI = "SELECT ACCLOG_REQUEST_URI, COUNT(*) AS ACCLOG_COUNT FROM DGB_ACCESS_LOG GROUP BY ACCLOG_REQUEST_URI ORDER BY ACCLOG_REQUEST_URI";
 	
 	public static void insert(AccessLogRecord accessLogRecord) throws SQLException {
+		insert(Collections.singletonList(accessLogRecord));
+	}
+
+	/**
+	 * Inserts the records as a single JDBC batch
+	 * 
+	 * @param accessLogRecords
+	 * @throws SQLException
+	 */
+	public static void insert(List<AccessLogRecord> accessLogRecords) throws SQLException {
 		try {
 			checkDB();
 			
@@ -98,23 +95,27 @@ public class AccessLogRecordDAO {
 				connection = dataSource.getConnection();
 				PreparedStatement pstmt = connection.prepareStatement(
 						INSERT_INTO_DGB_ACCESS_LOG);
-				
-				int i=0;
-				pstmt.setString(++i, accessLogRecord.getRequestUri());
-				pstmt.setString(++i, accessLogRecord.getRemoteUser());
-				pstmt.setString(++i, accessLogRecord.getRemoteHost());
-				pstmt.setString(++i, accessLogRecord.getSessionId());
-				pstmt.setString(++i, accessLogRecord.getMethod());
-				pstmt.setString(++i, accessLogRecord.getUserAgent());
-				pstmt.setInt(++i, accessLogRecord.getResponseStatus());
-				pstmt.setTimestamp(++i, new Timestamp(accessLogRecord.getTimestamp().getTime()));
-				pstmt.setTimestamp(++i, new Timestamp(accessLogRecord.getPeriod().getTime()));
-				pstmt.setString(++i, accessLogRecord.getPattern());
-				pstmt.setString(++i, accessLogRecord.getProjectName());
-				pstmt.setInt(++i, accessLogRecord.getResponseTime());
-				
-				pstmt.executeUpdate();
-				
+				try {
+					for (AccessLogRecord accessLogRecord : accessLogRecords) {
+						int i=0;
+						pstmt.setString(++i, accessLogRecord.getRequestUri());
+						pstmt.setString(++i, accessLogRecord.getRemoteUser());
+						pstmt.setString(++i, accessLogRecord.getRemoteHost());
+						pstmt.setString(++i, accessLogRecord.getSessionId());
+						pstmt.setString(++i, accessLogRecord.getMethod());
+						pstmt.setString(++i, accessLogRecord.getUserAgent());
+						pstmt.setInt(++i, accessLogRecord.getResponseStatus());
+						pstmt.setTimestamp(++i, new Timestamp(accessLogRecord.getTimestamp().getTime()));
+						pstmt.setTimestamp(++i, new Timestamp(accessLogRecord.getPeriod().getTime()));
+						pstmt.setString(++i, accessLogRecord.getPattern());
+						pstmt.setString(++i, accessLogRecord.getProjectName());
+						pstmt.setInt(++i, accessLogRecord.getResponseTime());
+						pstmt.addBatch();
+					}
+					pstmt.executeBatch();
+				} finally {
+					pstmt.close();
+				}
 			} finally {
 				if (connection != null) {
 					connection.close();
@@ -125,26 +126,9 @@ public class AccessLogRecordDAO {
 		}
 	}
 
-	private static  void checkDB() throws NamingException, SQLException {
-		DataSource dataSource = RepositoryFacade.getInstance()
-				.getDataSource();
-		Connection connection = null;
-		try {
-			connection = dataSource.getConnection();
-			Statement stmt = connection.createStatement();
-			
-			try {
-				stmt.executeQuery(SELECT_COUNT_FROM_DGB_ACCESS_LOG);
-			} catch (Exception e) {
-				logger.error("DGB_ACCESS_LOG does not exist?" + e.getMessage(), e);
-				// Create Access Log Table
-				stmt.executeUpdate(CREATE_TABLE_DGB_ACCESS_LOG);
-			}
-		} finally {
-			if (connection != null) {
-				connection.close();
-			}
-		}
+	private static void checkDB() throws NamingException, SQLException {
+		DataSource dataSource = RepositoryFacade.getInstance().getDataSource();
+		TableBootstrap.ensureTable(dataSource, DGB_ACCESS_LOG, CREATE_TABLE_DGB_ACCESS_LOG);
 	}
 
 	public static void cleanupOlderRecords() throws SQLException {
@@ -221,75 +205,6 @@ public class AccessLogRecordDAO {
 	}
 
 	
-	public String[][] getLastRecordsByPattern() throws SQLException {
-		return getLastRecords(SELECT_LAST_BY_PATTERN, "ACCLOG_PATTERN", "ACCLOG_COUNT");
-	}
-	
-	public String[][] getLastRecordsByProject() throws SQLException {
-		return getLastRecords(SELECT_LAST_BY_PROJECT, "ACCLOG_PROJECT", "ACCLOG_COUNT");
-	}
-	
-	public String[][] getLastRecordsByURI() throws SQLException {
-		return getLastRecords(SELECT_LAST_BY_URI, "ACCLOG_REQUEST_URI", "ACCLOG_COUNT");
-	}
-	
-	public String[][] getRTRecordsByPattern() throws SQLException {
-		return getLastRecords(SELECT_RT_BY_PATTERN, "ACCLOG_PATTERN", "RESPONSE_TIME");
-	}
-	
-	public String[][] getRTRecordsByProject() throws SQLException {
-		return getLastRecords(SELECT_RT_BY_PROJECT, "ACCLOG_PROJECT", "RESPONSE_TIME");
-	}
-	
-	public String[][] getRTRecordsByURI() throws SQLException {
-		return getLastRecords(SELECT_RT_BY_URI, "ACCLOG_REQUEST_URI", "RESPONSE_TIME");
-	}
-	
-	private String[][] getLastRecords(String sql, String fieldSeries, String fieldNumber) throws SQLException {
-		try {
-			checkDB();
-			
-			DataSource dataSource = RepositoryFacade.getInstance()
-					.getDataSource();
-			Connection connection = null;
-			try {
-				connection = dataSource.getConnection();
-				PreparedStatement pstmt = connection.prepareStatement(
-						sql);
-				
-				GregorianCalendar last = new GregorianCalendar();
-				last.add(Calendar.YEAR, -1);
-				pstmt.setTimestamp(1, new Timestamp(last.getTime().getTime()));
-				
-				ResultSet rs = pstmt.executeQuery();
-				List<List<Object>> allRecords = new ArrayList<List<Object>>();
-				while (rs.next()) {
-					String thisPattern = rs.getString(fieldSeries);
-					Date thisPeriod = rs.getTimestamp("ACCLOG_PERIOD");
-					int thisCount = rs.getInt(fieldNumber);
-					
-					List<Object> record = new ArrayList<Object>();
-					record.add(thisPattern);
-					record.add(thisPeriod);
-					record.add(thisCount);
-					
-					allRecords.add(record);
-				}
-				
-				String[][] result = prepareData(allRecords);
-				
-				return result;
-				
-			} finally {
-				if (connection != null) {
-					connection.close();
-				}
-			}
-		} catch (NamingException e) {
-			throw new SQLException(e);
-		}
-	}
-
 	public String[][] prepareData(List<List<Object>> allRecords) {
 		
 		if (allRecords == null
@@ -298,7 +213,8 @@ public class AccessLogRecordDAO {
 		}
 		
 		// add the monitored patterns and meanwhile take the min date
-		Date minDate = new Date();
+		Date lastDate = TimeUtils.roundCeilingHour(new Date());
+		Date minDate = lastDate;
 		List<String> patterns = new ArrayList<String>();
 		patterns.add("date");
 		for (List<Object> patternRecord : allRecords) {
@@ -315,15 +231,14 @@ public class AccessLogRecordDAO {
 		// prepare date formats and beginning date 
 		Calendar calendar = new GregorianCalendar();
 		calendar.setTime(minDate);
-		Date now = new Date();
 		Map<String, String[]> prepared = new TreeMap<String, String[]>();
 		SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHH");
 		
 		// create header record
 		String[] headerRecord = patterns.toArray(new String[]{});
 		
-		// prepare the empty matrix
-		while (calendar.getTime().before(now)) {
+		// prepare the empty matrix, up to the current period
+		while (!calendar.getTime().after(lastDate)) {
 			String[] record = new String[patterns.size()];
 			String dateKey = format.format(calendar.getTime());
 			record[0] = dateKey;
@@ -0,0 +1,93 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free buffer for many producers and a single consumer. The
+ * producers reserve a slot by advancing the tail with a compare-and-set and
+ * publish the element into it afterwards, the consumer frees the slot before
+ * advancing the head, so a slot is never reused before it has been consumed.
+ */
+class AccessLogRingBuffer<E> {
+
+	private final int capacity;
+
+	private final AtomicReferenceArray<E> slots;
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private volatile long head;
+
+	AccessLogRingBuffer(int capacity) {
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<E>(capacity);
+	}
+
+	/**
+	 * Adds the element if there is a free slot
+	 * 
+	 * @param element
+	 * @return false if the buffer is full
+	 */
+	boolean offer(E element) {
+		while (true) {
+			long current = tail.get();
+			if (current - head >= capacity) {
+				return false;
+			}
+			if (tail.compareAndSet(current, current + 1)) {
+				slots.set((int) (current % capacity), element);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Moves up to the given number of published elements to the list - to be
+	 * called by the consumer thread only
+	 * 
+	 * @param target
+	 * @param maxCount
+	 * @return the number of elements moved
+	 */
+	int drainTo(List<E> target, int maxCount) {
+		int count = 0;
+		long current = head;
+		while (count < maxCount) {
+			int index = (int) (current % capacity);
+			E element = slots.get(index);
+			if (element == null) {
+				// empty or the slot is reserved but not published yet
+				break;
+			}
+			slots.set(index, null);
+			current++;
+			head = current;
+			target.add(element);
+			count++;
+		}
+		return count;
+	}
+
+	int size() {
+		return (int) Math.max(tail.get() - head, 0);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+}
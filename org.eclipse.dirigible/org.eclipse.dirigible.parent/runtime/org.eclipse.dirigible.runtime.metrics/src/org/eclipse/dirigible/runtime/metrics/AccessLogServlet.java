@@ -14,6 +14,8 @@ package org.eclipse.dirigible.runtime.metrics;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -23,6 +25,8 @@ import javax.servlet.http.HttpServletResponse;
 import com.google.gson.Gson;
 import org.eclipse.dirigible.repository.api.ContentTypeHelper;
 import org.eclipse.dirigible.repository.logging.Logger;
+import org.eclipse.dirigible.runtime.metrics.AccessMetrics.Dimension;
+import org.eclipse.dirigible.runtime.metrics.AccessMetrics.Statistic;
 import org.eclipse.dirigible.runtime.registry.PathUtils;
 
 public class AccessLogServlet extends HttpServlet {
@@ -45,7 +49,15 @@ public class AccessLogServlet extends HttpServlet {
 		String paramRTimePerPattern = req.getParameter("rtimePerPattern");
 		String paramRTimePerProject = req.getParameter("rtimePerProject");
 		String paramRTimePerURI = req.getParameter("rtimePerURI");
+		String paramPercentilePerPattern = req.getParameter("percentilePerPattern");
+		String paramPercentilePerProject = req.getParameter("percentilePerProject");
+		String paramPercentilePerURI = req.getParameter("percentilePerURI");
+		String paramPercentile = req.getParameter("percentile");
+		String paramMinutesPerPattern = req.getParameter("minutesPerPattern");
+		String paramMinutesPerProject = req.getParameter("minutesPerProject");
+		String paramMinutesPerURI = req.getParameter("minutesPerURI");
 		String paramHitsByURI = req.getParameter("hitsByURI");
+		String paramWriter = req.getParameter("writer");
 
 		Gson gson = new Gson();
 		String path = PathUtils.extractPath(req);
@@ -53,19 +65,33 @@ public class AccessLogServlet extends HttpServlet {
 		if (LOCATIONS.endsWith(path)) {
 			listLocations(resp, gson);
 		} else if (paramHitsPerPattern != null) {
-			listHitsPerPattern(resp);
+			listHourlySeries(resp, Dimension.PATTERN, Statistic.COUNT);
 		} else if (paramHitsPerProject != null) {
-			listHitsPerProject(resp);
+			listHourlySeries(resp, Dimension.PROJECT, Statistic.COUNT);
 		} else if (paramHitsPerURI != null) {
-			listHitsPerURI(resp);
+			listHourlySeries(resp, Dimension.URI, Statistic.COUNT);
 		} else if (paramRTimePerPattern != null) {
-			listRTimePerPattern(resp);
+			listHourlySeries(resp, Dimension.PATTERN, Statistic.AVERAGE);
 		} else if (paramRTimePerProject != null) {
-			listRTimePerProject(resp);
+			listHourlySeries(resp, Dimension.PROJECT, Statistic.AVERAGE);
 		} else if (paramRTimePerURI != null) {
-			listRTimePerURI(resp);
+			listHourlySeries(resp, Dimension.URI, Statistic.AVERAGE);
+		} else if (paramPercentilePerPattern != null) {
+			listHourlySeries(resp, Dimension.PATTERN, getPercentile(paramPercentile));
+		} else if (paramPercentilePerProject != null) {
+			listHourlySeries(resp, Dimension.PROJECT, getPercentile(paramPercentile));
+		} else if (paramPercentilePerURI != null) {
+			listHourlySeries(resp, Dimension.URI, getPercentile(paramPercentile));
+		} else if (paramMinutesPerPattern != null) {
+			listMinuteSeries(resp, Dimension.PATTERN);
+		} else if (paramMinutesPerProject != null) {
+			listMinuteSeries(resp, Dimension.PROJECT);
+		} else if (paramMinutesPerURI != null) {
+			listMinuteSeries(resp, Dimension.URI);
 		} else if (paramHitsByURI != null) {
 			listHitsByURI(resp);
+		} else if (paramWriter != null) {
+			listWriterStatistics(resp, gson);
 		} else {
 			listLog(resp, gson);
 		}
@@ -74,46 +100,10 @@ public class AccessLogServlet extends HttpServlet {
 		logger.debug("existing AccessLogServlet doGet");
 	}
 
-	private void listHitsPerPattern(HttpServletResponse resp) throws IOException {
+	private void listHourlySeries(HttpServletResponse resp, Dimension dimension, Statistic statistic)
+			throws IOException {
 		try {
-			AccessLogRecordDAO accessLogRecordDAO = new AccessLogRecordDAO();
-			String[][] result = accessLogRecordDAO.getLastRecordsByPattern();
-			printChartData(resp, result);
-		} catch (SQLException e) {
-			logger.error(e.getMessage(), e);
-			resp.getWriter().print(e.getMessage());
-			resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-		}
-	}
-
-	private void listHitsPerProject(HttpServletResponse resp) throws IOException {
-		try {
-			AccessLogRecordDAO accessLogRecordDAO = new AccessLogRecordDAO();
-			String[][] result = accessLogRecordDAO.getLastRecordsByProject();
-			printChartData(resp, result);
-		} catch (SQLException e) {
-			logger.error(e.getMessage(), e);
-			resp.getWriter().print(e.getMessage());
-			resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-		}
-	}
-
-	private void listHitsPerURI(HttpServletResponse resp) throws IOException {
-		try {
-			AccessLogRecordDAO accessLogRecordDAO = new AccessLogRecordDAO();
-			String[][] result = accessLogRecordDAO.getLastRecordsByURI();
-			printChartData(resp, result);
-		} catch (SQLException e) {
-			logger.error(e.getMessage(), e);
-			resp.getWriter().print(e.getMessage());
-			resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-		}
-	}
-
-	private void listRTimePerPattern(HttpServletResponse resp) throws IOException {
-		try {
-			AccessLogRecordDAO accessLogRecordDAO = new AccessLogRecordDAO();
-			String[][] result = accessLogRecordDAO.getRTRecordsByPattern();
+			String[][] result = AccessMetrics.getInstance().getHourlySeries(dimension, statistic);
 			printChartData(resp, result);
 		} catch (SQLException e) {
 			logger.error(e.getMessage(), e);
@@ -122,28 +112,18 @@ public class AccessLogServlet extends HttpServlet {
 		}
 	}
 
-	private void listRTimePerProject(HttpServletResponse resp) throws IOException {
-		try {
-			AccessLogRecordDAO accessLogRecordDAO = new AccessLogRecordDAO();
-			String[][] result = accessLogRecordDAO.getRTRecordsByProject();
-			printChartData(resp, result);
-		} catch (SQLException e) {
-			logger.error(e.getMessage(), e);
-			resp.getWriter().print(e.getMessage());
-			resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-		}
+	private void listMinuteSeries(HttpServletResponse resp, Dimension dimension) throws IOException {
+		String[][] result = AccessMetrics.getInstance().getMinuteSeries(dimension);
+		printChartData(resp, result);
 	}
 
-	private void listRTimePerURI(HttpServletResponse resp) throws IOException {
-		try {
-			AccessLogRecordDAO accessLogRecordDAO = new AccessLogRecordDAO();
-			String[][] result = accessLogRecordDAO.getRTRecordsByURI();
-			printChartData(resp, result);
-		} catch (SQLException e) {
-			logger.error(e.getMessage(), e);
-			resp.getWriter().print(e.getMessage());
-			resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+	private static Statistic getPercentile(String paramPercentile) {
+		if ("50".equals(paramPercentile)) {
+			return Statistic.P50;
+		} else if ("99".equals(paramPercentile)) {
+			return Statistic.P99;
 		}
+		return Statistic.P95;
 	}
 
 	private void listHitsByURI(HttpServletResponse resp) throws IOException {
@@ -187,6 +167,18 @@ public class AccessLogServlet extends HttpServlet {
 		}
 	}
 
+	private void listWriterStatistics(HttpServletResponse resp, Gson gson) throws IOException {
+		logger.debug("printing the access log writer statistics");
+		AccessLogWriter writer = AccessLogWriter.getInstance();
+		Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+		statistics.put("submitted", writer.getSubmittedCount());
+		statistics.put("written", writer.getWrittenCount());
+		statistics.put("pending", (long) writer.getPendingCount());
+		statistics.put("dropped", writer.getDroppedCount());
+		statistics.put("failed", writer.getFailedCount());
+		printJson(resp, gson.toJson(statistics));
+	}
+
 	private void listLocations(HttpServletResponse resp, Gson gson) throws IOException {
 		logger.debug("listing registered access locations");
 		try {
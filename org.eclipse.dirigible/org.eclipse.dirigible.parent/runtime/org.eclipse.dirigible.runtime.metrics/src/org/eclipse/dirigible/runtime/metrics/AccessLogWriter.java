@@ -0,0 +1,246 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+
+/**
+ * Writes the access log records in the background. The request threads only
+ * put the records into a bounded buffer, which is drained by a single writer
+ * thread inserting them in JDBC batches - when a batch is full or when the
+ * flush interval has elapsed. If the buffer is full, the records are either
+ * dropped or the request thread waits for a free slot, depending on the
+ * configured overload policy.
+ */
+public class AccessLogWriter implements Runnable {
+
+	private static final Logger logger = Logger.getLogger(AccessLogWriter.class);
+
+	/**
+	 * System property for the maximum number of records waiting to be written
+	 */
+	public static final String BUFFER_SIZE_PROPERTY = "dirigible.acclog.buffer.size"; //$NON-NLS-1$
+
+	/**
+	 * System property for the maximum number of records written in a batch
+	 */
+	public static final String FLUSH_SIZE_PROPERTY = "dirigible.acclog.flush.size"; //$NON-NLS-1$
+
+	/**
+	 * System property for the maximum time in milliseconds a record waits for
+	 * its batch to be filled
+	 */
+	public static final String FLUSH_INTERVAL_PROPERTY = "dirigible.acclog.flush.interval"; //$NON-NLS-1$
+
+	/**
+	 * System property for the policy on a full buffer - "drop" (the default) or
+	 * "block"
+	 */
+	public static final String OVERLOAD_POLICY_PROPERTY = "dirigible.acclog.overload"; //$NON-NLS-1$
+
+	public static final String OVERLOAD_POLICY_BLOCK = "block"; //$NON-NLS-1$
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private static final int DEFAULT_FLUSH_SIZE = 100;
+
+	private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+	private static final long BLOCK_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final String WRITER_THREAD_NAME = "Dirigible Access Log Writer"; //$NON-NLS-1$
+
+	private static final String RECORDS_DROPPED = "Access log buffer is full, records dropped so far: %d"; //$NON-NLS-1$
+
+	private static final String RECORDS_FAILED = "Writing %d access log records failed: %s"; //$NON-NLS-1$
+
+	private static AccessLogWriter instance;
+
+	private final AccessLogRingBuffer<AccessLogRecord> buffer;
+
+	private final int flushSize;
+
+	private final long flushInterval;
+
+	private final boolean blockOnOverload;
+
+	private final AtomicLong submitted = new AtomicLong();
+
+	private final AtomicLong written = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private volatile Thread writerThread;
+
+	private volatile boolean running;
+
+	private long droppedReported;
+
+	public static synchronized AccessLogWriter getInstance() {
+		if (instance == null) {
+			instance = new AccessLogWriter(Integer.getInteger(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE),
+					Integer.getInteger(FLUSH_SIZE_PROPERTY, DEFAULT_FLUSH_SIZE), Long.getLong(
+							FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL),
+					OVERLOAD_POLICY_BLOCK.equalsIgnoreCase(System.getProperty(OVERLOAD_POLICY_PROPERTY)));
+			instance.start();
+		}
+		return instance;
+	}
+
+	/**
+	 * Stops the shared writer, if started, writing the records left in the
+	 * buffer
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.stop();
+			instance = null;
+		}
+	}
+
+	AccessLogWriter(int bufferSize, int flushSize, long flushInterval, boolean blockOnOverload) {
+		this.buffer = new AccessLogRingBuffer<AccessLogRecord>(Math.max(bufferSize, 1));
+		this.flushSize = Math.max(flushSize, 1);
+		this.flushInterval = Math.max(flushInterval, 1);
+		this.blockOnOverload = blockOnOverload;
+	}
+
+	synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		Thread thread = new Thread(this, WRITER_THREAD_NAME);
+		thread.setDaemon(true);
+		writerThread = thread;
+		thread.start();
+	}
+
+	synchronized void stop() {
+		running = false;
+		Thread thread = writerThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			try {
+				thread.join(flushInterval + TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writerThread = null;
+		}
+	}
+
+	/**
+	 * Queues the record for writing, without any database access in the
+	 * calling thread
+	 * 
+	 * @param accessLogRecord
+	 * @return false if the record has been dropped
+	 */
+	public boolean submit(AccessLogRecord accessLogRecord) {
+		while (!buffer.offer(accessLogRecord)) {
+			if (!blockOnOverload || !running) {
+				dropped.incrementAndGet();
+				return false;
+			}
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+		}
+		if ((submitted.incrementAndGet() % flushSize) == 0) {
+			// a whole batch is waiting
+			Thread thread = writerThread;
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void run() {
+		List<AccessLogRecord> batch = new ArrayList<AccessLogRecord>(flushSize);
+		long lastFlush = System.currentTimeMillis();
+		while (running) {
+			buffer.drainTo(batch, flushSize - batch.size());
+			long now = System.currentTimeMillis();
+			if ((batch.size() >= flushSize) || (!batch.isEmpty() && (now - lastFlush >= flushInterval))) {
+				flush(batch);
+				lastFlush = now;
+				continue;
+			}
+			if (batch.isEmpty()) {
+				lastFlush = now;
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(flushInterval - (now - lastFlush), 1)));
+		}
+		// write what is left on stop
+		buffer.drainTo(batch, flushSize - batch.size());
+		while (!batch.isEmpty()) {
+			flush(batch);
+			buffer.drainTo(batch, flushSize);
+		}
+	}
+
+	private void flush(List<AccessLogRecord> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			write(batch);
+			written.addAndGet(batch.size());
+		} catch (Exception e) {
+			failed.addAndGet(batch.size());
+			logger.error(String.format(RECORDS_FAILED, batch.size(), e.getMessage()), e);
+		} finally {
+			batch.clear();
+		}
+		long currentDropped = dropped.get();
+		if (currentDropped > droppedReported) {
+			droppedReported = currentDropped;
+			logger.warn(String.format(RECORDS_DROPPED, currentDropped));
+		}
+	}
+
+	protected void write(List<AccessLogRecord> batch) throws SQLException {
+		AccessLogRecordDAO.insert(batch);
+	}
+
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	public long getWrittenCount() {
+		return written.get();
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	public int getPendingCount() {
+		return buffer.size();
+	}
+
+}
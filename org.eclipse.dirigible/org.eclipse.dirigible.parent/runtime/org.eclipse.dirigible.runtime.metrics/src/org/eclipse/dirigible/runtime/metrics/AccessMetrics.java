@@ -0,0 +1,447 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.dirigible.repository.logging.Logger;
+import org.eclipse.dirigible.runtime.metrics.AccessMetricsSummaryDAO.Summary;
+import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
+
+/**
+ * The access log aggregated in memory per pattern, project and URI - a
+ * latency histogram per hour and a hit counter per minute for the last hour.
+ * The completed hours are compacted periodically to the summary table and
+ * kept in memory for the configured number of hours, so that the charts are
+ * built out of the buckets instead of grouping the raw records. Each instance
+ * writes the summaries of a node of its own, the charts merge the histograms
+ * of all the nodes.
+ */
+public class AccessMetrics {
+
+	private static final Logger logger = Logger.getLogger(AccessMetrics.class);
+
+	/**
+	 * System property for the number of hours kept in memory
+	 */
+	public static final String HOURS_PROPERTY = "dirigible.metrics.hours"; //$NON-NLS-1$
+
+	/**
+	 * System property for the maximum number of keys per dimension - the hits
+	 * of the keys above it are counted under {@link #OTHER_KEY}
+	 */
+	public static final String KEYS_PROPERTY = "dirigible.metrics.keys.max"; //$NON-NLS-1$
+
+	public static final int DEFAULT_HOURS = 24;
+
+	public static final int DEFAULT_KEYS = 1000;
+
+	public static final String OTHER_KEY = "(other)"; //$NON-NLS-1$
+
+	private static final int MAX_KEY_LENGTH = 256;
+
+	private static final long MINUTE = 60 * 1000L;
+
+	private static final long HOUR = 60 * MINUTE;
+
+	private static final int MINUTES = 60;
+
+	/**
+	 * The requests still running at the end of an hour are recorded a bit
+	 * later
+	 */
+	private static final long GRACE_PERIOD = MINUTE;
+
+	private static final String COMPACTION_FAILED = "Compaction of the access metrics failed: "; //$NON-NLS-1$
+
+	private static final String MIGRATION_FAILED = "Migration of the access log to the access metrics failed: "; //$NON-NLS-1$
+
+	private static final String MIGRATED_D_ACCESS_LOG_RECORDS = "Migrated %d access log records to the access metrics"; //$NON-NLS-1$
+
+	public enum Dimension {
+		PATTERN, PROJECT, URI
+	}
+
+	public enum Statistic {
+		COUNT, AVERAGE, P50, P95, P99
+	}
+
+	private static AccessMetrics instance;
+
+	private final Map<Dimension, ConcurrentMap<String, Series>> series = new EnumMap<Dimension, ConcurrentMap<String, Series>>(
+			Dimension.class);
+
+	private final int hours;
+
+	private final int maxKeys;
+
+	/**
+	 * Unique per instance, so that a restarted node does not overwrite the
+	 * summaries of the hours it recorded before
+	 */
+	private final String node = UUID.randomUUID().toString();
+
+	/**
+	 * The hours before the one of the creation are not in memory
+	 */
+	private final Date created = TimeUtils.roundCeilingHour(new Date());
+
+	private boolean migrated;
+
+	private AccessMetricsSummaryDAO summaryDAO;
+
+	public static synchronized AccessMetrics getInstance() {
+		if (instance == null) {
+			instance = new AccessMetrics(null);
+		}
+		return instance;
+	}
+
+	AccessMetrics(AccessMetricsSummaryDAO summaryDAO) {
+		this.summaryDAO = summaryDAO;
+		this.hours = Math.max(Integer.getInteger(HOURS_PROPERTY, DEFAULT_HOURS), 1);
+		this.maxKeys = Math.max(Integer.getInteger(KEYS_PROPERTY, DEFAULT_KEYS), 1);
+		for (Dimension dimension : Dimension.values()) {
+			series.put(dimension, new ConcurrentHashMap<String, Series>());
+		}
+	}
+
+	public void record(AccessLogRecord accessLogRecord) {
+		long timestamp = accessLogRecord.getTimestamp().getTime();
+		Date period = accessLogRecord.getPeriod();
+		long hour = (period != null) ? period.getTime() : TimeUtils.roundCeilingHour(
+				accessLogRecord.getTimestamp()).getTime();
+		if (hour <= System.currentTimeMillis() - hours * HOUR) {
+			// already evicted
+			return;
+		}
+		for (Dimension dimension : Dimension.values()) {
+			String key = getKey(dimension, accessLogRecord);
+			if (key != null) {
+				getSeries(dimension, key).record(hour, timestamp, accessLogRecord.getResponseTime());
+			}
+		}
+	}
+
+	/**
+	 * The statistic per key and hour for the last year - the hours in memory
+	 * and the compacted ones - in the format of
+	 * {@link AccessLogRecordDAO#prepareData(List)}
+	 * 
+	 * @param dimension
+	 * @param statistic
+	 * @return
+	 * @throws SQLException
+	 */
+	public String[][] getHourlySeries(Dimension dimension, Statistic statistic) throws SQLException {
+		GregorianCalendar since = new GregorianCalendar();
+		since.add(Calendar.YEAR, -1);
+
+		Map<String, Map<Long, LatencyHistogram>> histograms = new TreeMap<String, Map<Long, LatencyHistogram>>();
+		ConcurrentMap<String, Series> keys = series.get(dimension);
+		for (Summary summary : getSummaryDAO().read(dimension.name(), since.getTime())) {
+			Series keySeries = keys.get(summary.getKey());
+			if (node.equals(summary.getNode()) && (keySeries != null)
+					&& keySeries.hours.containsKey(summary.getPeriod())) {
+				// the hours in memory are up to date
+				continue;
+			}
+			getHistogram(histograms, summary.getKey(), summary.getPeriod()).add(summary.getHistogram());
+		}
+		for (Map.Entry<String, Series> entry : keys.entrySet()) {
+			for (Map.Entry<Long, HourBucket> hour : entry.getValue().hours.entrySet()) {
+				LatencyHistogram histogram = hour.getValue().histogram;
+				if (histogram.getCount() > 0) {
+					getHistogram(histograms, entry.getKey(), hour.getKey()).add(histogram);
+				}
+			}
+		}
+
+		List<List<Object>> allRecords = new ArrayList<List<Object>>();
+		for (Map.Entry<String, Map<Long, LatencyHistogram>> entry : histograms.entrySet()) {
+			for (Map.Entry<Long, LatencyHistogram> hour : entry.getValue().entrySet()) {
+				List<Object> record = new ArrayList<Object>();
+				record.add(entry.getKey());
+				record.add(new Date(hour.getKey()));
+				record.add(getValue(hour.getValue(), statistic));
+				allRecords.add(record);
+			}
+		}
+		return new AccessLogRecordDAO().prepareData(allRecords);
+	}
+
+	/**
+	 * The hits per key and minute for the last hour, in the format of
+	 * {@link AccessLogRecordDAO#prepareData(List)} with minute keys
+	 * 
+	 * @param dimension
+	 * @return
+	 */
+	public String[][] getMinuteSeries(Dimension dimension) {
+		long currentMinute = System.currentTimeMillis() / MINUTE;
+		List<String> keys = new ArrayList<String>();
+		List<Series> keySeries = new ArrayList<Series>();
+		for (Map.Entry<String, Series> entry : new TreeMap<String, Series>(series.get(dimension)).entrySet()) {
+			if (entry.getValue().lastMinute > currentMinute - MINUTES) {
+				keys.add(entry.getKey());
+				keySeries.add(entry.getValue());
+			}
+		}
+		if (keys.isEmpty()) {
+			return null;
+		}
+
+		SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmm"); //$NON-NLS-1$
+		String[][] result = new String[MINUTES + 1][keys.size() + 1];
+		result[0][0] = "date"; //$NON-NLS-1$
+		for (int j = 0; j < keys.size(); j++) {
+			result[0][j + 1] = keys.get(j);
+		}
+		for (int i = 1; i <= MINUTES; i++) {
+			long minute = currentMinute - MINUTES + i;
+			result[i][0] = format.format(new Date(minute * MINUTE));
+			for (int j = 0; j < keySeries.size(); j++) {
+				result[i][j + 1] = keySeries.get(j).getMinuteCount(minute) + ""; //$NON-NLS-1$
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the completed hours changed since the last compaction to the
+	 * summary table and evicts the ones older than the retention period
+	 */
+	public void compact() {
+		try {
+			compact(System.currentTimeMillis());
+		} catch (SQLException e) {
+			logger.error(COMPACTION_FAILED + e.getMessage(), e);
+		}
+	}
+
+	void compact(long now) throws SQLException {
+		List<Summary> summaries = new ArrayList<Summary>();
+		List<HourBucket> compacted = new ArrayList<HourBucket>();
+		for (Map.Entry<Dimension, ConcurrentMap<String, Series>> dimension : series.entrySet()) {
+			for (Map.Entry<String, Series> entry : dimension.getValue().entrySet()) {
+				for (Map.Entry<Long, HourBucket> hour : entry.getValue().hours.headMap(now - GRACE_PERIOD, true)
+						.entrySet()) {
+					HourBucket bucket = hour.getValue();
+					if (bucket.dirty.getAndSet(false)) {
+						summaries.add(new Summary(dimension.getKey().name(), entry.getKey(), hour.getKey(), node,
+								bucket.histogram));
+						compacted.add(bucket);
+					}
+				}
+			}
+		}
+		try {
+			getSummaryDAO().write(summaries);
+		} catch (SQLException e) {
+			for (HourBucket bucket : compacted) {
+				bucket.dirty.set(true);
+			}
+			throw e;
+		}
+		evict(now);
+	}
+
+	private void evict(long now) {
+		long minute = now / MINUTE;
+		for (ConcurrentMap<String, Series> keys : series.values()) {
+			for (Iterator<Map.Entry<String, Series>> iterator = keys.entrySet().iterator(); iterator.hasNext();) {
+				Series keySeries = iterator.next().getValue();
+				ConcurrentNavigableMap<Long, HourBucket> expired = keySeries.hours.headMap(now - hours * HOUR, true);
+				for (Iterator<HourBucket> buckets = expired.values().iterator(); buckets.hasNext();) {
+					if (!buckets.next().dirty.get()) {
+						buckets.remove();
+					}
+				}
+				if (keySeries.hours.isEmpty() && keySeries.lastMinute <= minute - MINUTES) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the compacted hours older than a year
+	 * 
+	 * @throws SQLException
+	 */
+	public void cleanupOlderSummaries() throws SQLException {
+		GregorianCalendar last = new GregorianCalendar();
+		last.add(Calendar.YEAR, -1);
+		getSummaryDAO().cleanupOlderRecords(last.getTime());
+	}
+
+	private Series getSeries(Dimension dimension, String key) {
+		ConcurrentMap<String, Series> keys = series.get(dimension);
+		Series keySeries = keys.get(key);
+		if (keySeries == null) {
+			String seriesKey = (keys.size() < maxKeys) ? key : OTHER_KEY;
+			keySeries = keys.get(seriesKey);
+			if (keySeries == null) {
+				Series created = new Series();
+				keySeries = keys.putIfAbsent(seriesKey, created);
+				if (keySeries == null) {
+					keySeries = created;
+				}
+			}
+		}
+		return keySeries;
+	}
+
+	private synchronized AccessMetricsSummaryDAO getSummaryDAO() {
+		if (summaryDAO == null) {
+			summaryDAO = new AccessMetricsSummaryDAO(RepositoryFacade.getInstance().getDataSource());
+		}
+		if (!migrated) {
+			// the charts keep the history recorded before the summaries
+			migrated = true;
+			try {
+				int records = summaryDAO.migrateAccessLog(created);
+				if (records > 0) {
+					logger.info(String.format(MIGRATED_D_ACCESS_LOG_RECORDS, records));
+				}
+			} catch (SQLException e) {
+				logger.error(MIGRATION_FAILED + e.getMessage(), e);
+			}
+		}
+		return summaryDAO;
+	}
+
+	static String getKey(Dimension dimension, AccessLogRecord accessLogRecord) {
+		String key;
+		switch (dimension) {
+		case PATTERN:
+			key = accessLogRecord.getPattern();
+			break;
+		case PROJECT:
+			key = accessLogRecord.getProjectName();
+			break;
+		default:
+			key = accessLogRecord.getRequestUri();
+		}
+		if ((key != null) && (key.length() > MAX_KEY_LENGTH)) {
+			key = key.substring(0, MAX_KEY_LENGTH);
+		}
+		return key;
+	}
+
+	private static int getValue(LatencyHistogram histogram, Statistic statistic) {
+		switch (statistic) {
+		case COUNT:
+			return (int) histogram.getCount();
+		case AVERAGE:
+			return (int) histogram.getAverage();
+		case P50:
+			return (int) histogram.getPercentile(50);
+		case P95:
+			return (int) histogram.getPercentile(95);
+		default:
+			return (int) histogram.getPercentile(99);
+		}
+	}
+
+	private static LatencyHistogram getHistogram(Map<String, Map<Long, LatencyHistogram>> histograms, String key,
+			long period) {
+		Map<Long, LatencyHistogram> periods = histograms.get(key);
+		if (periods == null) {
+			periods = new TreeMap<Long, LatencyHistogram>();
+			histograms.put(key, periods);
+		}
+		LatencyHistogram histogram = periods.get(period);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			periods.put(period, histogram);
+		}
+		return histogram;
+	}
+
+	private static class HourBucket {
+
+		private final LatencyHistogram histogram = new LatencyHistogram();
+
+		/**
+		 * Set on each record, cleared when written to the summary table
+		 */
+		private final AtomicBoolean dirty = new AtomicBoolean();
+
+	}
+
+	/**
+	 * The buckets of a single key. The minute counters are a ring of the last
+	 * hour - a slot is reset when reused for a newer minute, so a hit racing
+	 * with the reset may be lost.
+	 */
+	private static class Series {
+
+		private final ConcurrentNavigableMap<Long, HourBucket> hours = new ConcurrentSkipListMap<Long, HourBucket>();
+
+		private final AtomicLongArray minuteCounts = new AtomicLongArray(MINUTES);
+
+		private final AtomicLongArray minuteStamps = new AtomicLongArray(MINUTES);
+
+		private volatile long lastMinute;
+
+		void record(long hour, long timestamp, int responseTime) {
+			HourBucket bucket = hours.get(hour);
+			if (bucket == null) {
+				HourBucket created = new HourBucket();
+				bucket = hours.putIfAbsent(hour, created);
+				if (bucket == null) {
+					bucket = created;
+				}
+			}
+			bucket.histogram.record(responseTime);
+			bucket.dirty.set(true);
+
+			long minute = timestamp / MINUTE;
+			int slot = (int) (minute % MINUTES);
+			long stamp = minuteStamps.get(slot);
+			if ((stamp < minute) && minuteStamps.compareAndSet(slot, stamp, minute)) {
+				minuteCounts.set(slot, 0);
+			}
+			if (minuteStamps.get(slot) == minute) {
+				minuteCounts.incrementAndGet(slot);
+			}
+			if (minute > lastMinute) {
+				lastMinute = minute;
+			}
+		}
+
+		long getMinuteCount(long minute) {
+			int slot = (int) (minute % MINUTES);
+			return (minuteStamps.get(slot) == minute) ? minuteCounts.get(slot) : 0;
+		}
+
+	}
+
+}
@@ -9,33 +9,25 @@
  *   SAP - initial API and implementation
  *******************************************************************************/
 
-package org.eclipse.dirigible.runtime.search;
+package org.eclipse.dirigible.runtime.metrics;
 
-import org.eclipse.dirigible.repository.ext.lucene.RepositoryMemoryIndexer;
 import org.eclipse.dirigible.repository.logging.Logger;
-import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
 import org.eclipse.dirigible.runtime.task.IRunnableTask;
 
-public class RebuildSearchIndexTask implements IRunnableTask {
+public class AccessMetricsCompactionTask implements IRunnableTask {
 
-	private static final Logger logger = Logger.getLogger(RebuildSearchIndexTask.class);
+	private static final Logger logger = Logger.getLogger(AccessMetricsCompactionTask.class);
 
 	@Override
 	public String getName() {
-		return "Access Log Cleanup Task";
+		return "Access Metrics Compaction Task";
 	}
 
 	@Override
 	public void start() {
 		logger.debug("entering: " + this.getClass().getCanonicalName() + " -> " //$NON-NLS-1$ //$NON-NLS-2$
 				+ "start()"); //$NON-NLS-1$
-		try {
-			RepositoryMemoryIndexer.clearIndex();
-			RepositoryMemoryIndexer.indexRepository(RepositoryFacade.getInstance().getRepository(
-					null));
-		} catch (Exception e) {
-			logger.error(e.getMessage(), e);
-		}
+		AccessMetrics.getInstance().compact();
 		logger.debug("exiting: " + this.getClass().getCanonicalName() + " -> " //$NON-NLS-1$ //$NON-NLS-2$
 				+ "start()"); //$NON-NLS-1$
 	}
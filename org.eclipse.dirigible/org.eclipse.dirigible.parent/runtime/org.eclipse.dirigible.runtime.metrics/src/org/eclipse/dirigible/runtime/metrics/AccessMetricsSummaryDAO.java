@@ -0,0 +1,335 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.eclipse.dirigible.repository.ext.db.TableBootstrap;
+import org.eclipse.dirigible.runtime.metrics.AccessMetrics.Dimension;
+
+/**
+ * The hourly summaries of the access log, written by the compaction of
+ * {@link AccessMetrics} - one record per dimension, key, hour and node with
+ * the count, the total response time and the latency histogram. The nodes of a
+ * cluster write records of their own, which are merged on reading.
+ */
+public class AccessMetricsSummaryDAO {
+
+	/**
+	 * The node of the summaries migrated from the access log records
+	 */
+	public static final String HISTORY_NODE = "(history)"; //$NON-NLS-1$
+
+	private static final String DGB_ACCESS_LOG_SUMMARY = "DGB_ACCESS_LOG_SUMMARY"; //$NON-NLS-1$
+
+	private static final String CREATE_TABLE_DGB_ACCESS_LOG_SUMMARY = "CREATE TABLE " + DGB_ACCESS_LOG_SUMMARY + " (" //$NON-NLS-1$ //$NON-NLS-2$
+			+ " ACCSUM_DIMENSION VARCHAR(16) NOT NULL, " //$NON-NLS-1$
+			+ " ACCSUM_KEY VARCHAR(256) NOT NULL, " //$NON-NLS-1$
+			+ " ACCSUM_PERIOD TIMESTAMP NOT NULL, " //$NON-NLS-1$
+			+ " ACCSUM_NODE VARCHAR(36) NOT NULL, " //$NON-NLS-1$
+			+ " ACCSUM_COUNT BIGINT, " //$NON-NLS-1$
+			+ " ACCSUM_TOTAL_TIME BIGINT, " //$NON-NLS-1$
+			+ " ACCSUM_HISTOGRAM VARCHAR(4000), " //$NON-NLS-1$
+			+ " PRIMARY KEY (ACCSUM_DIMENSION, ACCSUM_KEY, ACCSUM_PERIOD, ACCSUM_NODE))"; //$NON-NLS-1$
+
+	private static final String UPDATE_DGB_ACCESS_LOG_SUMMARY = "UPDATE " + DGB_ACCESS_LOG_SUMMARY //$NON-NLS-1$
+			+ " SET ACCSUM_COUNT = ?, ACCSUM_TOTAL_TIME = ?, ACCSUM_HISTOGRAM = ?" //$NON-NLS-1$
+			+ " WHERE ACCSUM_DIMENSION = ? AND ACCSUM_KEY = ? AND ACCSUM_PERIOD = ? AND ACCSUM_NODE = ?"; //$NON-NLS-1$
+
+	private static final String INSERT_INTO_DGB_ACCESS_LOG_SUMMARY = "INSERT INTO " + DGB_ACCESS_LOG_SUMMARY //$NON-NLS-1$
+			+ " (ACCSUM_COUNT, ACCSUM_TOTAL_TIME, ACCSUM_HISTOGRAM, ACCSUM_DIMENSION, ACCSUM_KEY, ACCSUM_PERIOD, ACCSUM_NODE)" //$NON-NLS-1$
+			+ " VALUES (?,?,?,?,?,?,?)"; //$NON-NLS-1$
+
+	private static final String SELECT_DGB_ACCESS_LOG_SUMMARY = "SELECT * FROM " + DGB_ACCESS_LOG_SUMMARY //$NON-NLS-1$
+			+ " WHERE ACCSUM_DIMENSION = ? AND ACCSUM_PERIOD > ? ORDER BY ACCSUM_KEY, ACCSUM_PERIOD"; //$NON-NLS-1$
+
+	private static final String COUNT_DGB_ACCESS_LOG_SUMMARY = "SELECT COUNT(*) FROM " + DGB_ACCESS_LOG_SUMMARY; //$NON-NLS-1$
+
+	private static final String DELETE_FROM_DGB_ACCESS_LOG_SUMMARY = "DELETE FROM " + DGB_ACCESS_LOG_SUMMARY //$NON-NLS-1$
+			+ " WHERE ACCSUM_PERIOD < ?"; //$NON-NLS-1$
+
+	private static final String SELECT_DGB_ACCESS_LOG_BEFORE = "SELECT ACCLOG_REQUEST_URI, ACCLOG_PERIOD, ACCLOG_PATTERN, ACCLOG_PROJECT, ACCLOG_RESPONSE_TIME" //$NON-NLS-1$
+			+ " FROM " + AccessLogRecordDAO.DGB_ACCESS_LOG + " WHERE ACCLOG_PERIOD < ?"; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final DataSource dataSource;
+
+	public AccessMetricsSummaryDAO(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * Writes the summaries in a single transaction, replacing the existing
+	 * ones for the same dimension, key, hour and node
+	 * 
+	 * @param summaries
+	 * @throws SQLException
+	 */
+	public void write(List<Summary> summaries) throws SQLException {
+		if (summaries.isEmpty()) {
+			return;
+		}
+		Connection connection = getConnection();
+		boolean autoCommit = connection.getAutoCommit();
+		boolean committed = false;
+		try {
+			connection.setAutoCommit(false);
+			PreparedStatement updateStatement = connection.prepareStatement(UPDATE_DGB_ACCESS_LOG_SUMMARY);
+			try {
+				PreparedStatement insertStatement = connection.prepareStatement(INSERT_INTO_DGB_ACCESS_LOG_SUMMARY);
+				try {
+					for (Summary summary : summaries) {
+						setParameters(updateStatement, summary);
+						if (updateStatement.executeUpdate() == 0) {
+							setParameters(insertStatement, summary);
+							insertStatement.executeUpdate();
+						}
+					}
+				} finally {
+					insertStatement.close();
+				}
+			} finally {
+				updateStatement.close();
+			}
+			connection.commit();
+			committed = true;
+		} finally {
+			try {
+				if (!committed) {
+					connection.rollback();
+				}
+				connection.setAutoCommit(autoCommit);
+			} finally {
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * The summaries of all the nodes for the dimension and the hours after the
+	 * given date, ordered by key and hour
+	 * 
+	 * @param dimension
+	 * @param since
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<Summary> read(String dimension, Date since) throws SQLException {
+		List<Summary> summaries = new ArrayList<Summary>();
+		Connection connection = getConnection();
+		try {
+			PreparedStatement preparedStatement = connection.prepareStatement(SELECT_DGB_ACCESS_LOG_SUMMARY);
+			try {
+				preparedStatement.setString(1, dimension);
+				preparedStatement.setTimestamp(2, new Timestamp(since.getTime()));
+				ResultSet resultSet = preparedStatement.executeQuery();
+				while (resultSet.next()) {
+					LatencyHistogram histogram = new LatencyHistogram();
+					histogram.add(resultSet.getString("ACCSUM_HISTOGRAM"), //$NON-NLS-1$
+							resultSet.getLong("ACCSUM_TOTAL_TIME")); //$NON-NLS-1$
+					summaries.add(new Summary(resultSet.getString("ACCSUM_DIMENSION"), //$NON-NLS-1$
+							resultSet.getString("ACCSUM_KEY"), //$NON-NLS-1$
+							resultSet.getTimestamp("ACCSUM_PERIOD").getTime(), //$NON-NLS-1$
+							resultSet.getString("ACCSUM_NODE"), //$NON-NLS-1$
+							histogram));
+				}
+			} finally {
+				preparedStatement.close();
+			}
+		} finally {
+			connection.close();
+		}
+		return summaries;
+	}
+
+	/**
+	 * Summarizes the access log records of the hours before the given one, if
+	 * no summary has been written yet - e.g. the records written before the
+	 * summaries were introduced. The hours of the records in memory have to be
+	 * after the given one, so that they are not counted twice.
+	 * 
+	 * @param before
+	 * @return the number of the migrated records
+	 * @throws SQLException
+	 */
+	public int migrateAccessLog(Date before) throws SQLException {
+		Map<Dimension, Map<String, Map<Long, LatencyHistogram>>> histograms = new EnumMap<Dimension, Map<String, Map<Long, LatencyHistogram>>>(
+				Dimension.class);
+		for (Dimension dimension : Dimension.values()) {
+			histograms.put(dimension, new HashMap<String, Map<Long, LatencyHistogram>>());
+		}
+		int migrated = 0;
+		Connection connection = getConnection();
+		try {
+			TableBootstrap.ensureTable(dataSource, connection, AccessLogRecordDAO.DGB_ACCESS_LOG,
+					AccessLogRecordDAO.CREATE_TABLE_DGB_ACCESS_LOG);
+			if (count(connection) > 0) {
+				return 0;
+			}
+			PreparedStatement preparedStatement = connection.prepareStatement(SELECT_DGB_ACCESS_LOG_BEFORE);
+			try {
+				preparedStatement.setTimestamp(1, new Timestamp(before.getTime()));
+				ResultSet resultSet = preparedStatement.executeQuery();
+				while (resultSet.next()) {
+					Timestamp period = resultSet.getTimestamp("ACCLOG_PERIOD"); //$NON-NLS-1$
+					AccessLogRecord accessLogRecord = new AccessLogRecord(resultSet.getString("ACCLOG_REQUEST_URI"), //$NON-NLS-1$
+							null, null, null, null, null, 0, period, period, resultSet.getString("ACCLOG_PATTERN"), //$NON-NLS-1$
+							resultSet.getString("ACCLOG_PROJECT"), resultSet.getInt("ACCLOG_RESPONSE_TIME")); //$NON-NLS-1$ //$NON-NLS-2$
+					for (Dimension dimension : Dimension.values()) {
+						String key = AccessMetrics.getKey(dimension, accessLogRecord);
+						if (key != null) {
+							getHistogram(histograms.get(dimension), key, period.getTime()).record(
+									accessLogRecord.getResponseTime());
+						}
+					}
+					migrated++;
+				}
+			} finally {
+				preparedStatement.close();
+			}
+		} finally {
+			connection.close();
+		}
+
+		List<Summary> summaries = new ArrayList<Summary>();
+		for (Map.Entry<Dimension, Map<String, Map<Long, LatencyHistogram>>> dimension : histograms.entrySet()) {
+			for (Map.Entry<String, Map<Long, LatencyHistogram>> key : dimension.getValue().entrySet()) {
+				for (Map.Entry<Long, LatencyHistogram> hour : key.getValue().entrySet()) {
+					summaries.add(new Summary(dimension.getKey().name(), key.getKey(), hour.getKey(), HISTORY_NODE,
+							hour.getValue()));
+				}
+			}
+		}
+		// the same records give the same summaries, if migrated by another
+		// node meanwhile
+		write(summaries);
+		return migrated;
+	}
+
+	public void cleanupOlderRecords(Date before) throws SQLException {
+		Connection connection = getConnection();
+		try {
+			PreparedStatement preparedStatement = connection.prepareStatement(DELETE_FROM_DGB_ACCESS_LOG_SUMMARY);
+			try {
+				preparedStatement.setTimestamp(1, new Timestamp(before.getTime()));
+				preparedStatement.executeUpdate();
+			} finally {
+				preparedStatement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	private Connection getConnection() throws SQLException {
+		TableBootstrap.ensureTable(dataSource, DGB_ACCESS_LOG_SUMMARY, CREATE_TABLE_DGB_ACCESS_LOG_SUMMARY);
+		return dataSource.getConnection();
+	}
+
+	private static long count(Connection connection) throws SQLException {
+		PreparedStatement preparedStatement = connection.prepareStatement(COUNT_DGB_ACCESS_LOG_SUMMARY);
+		try {
+			ResultSet resultSet = preparedStatement.executeQuery();
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		} finally {
+			preparedStatement.close();
+		}
+	}
+
+	private static LatencyHistogram getHistogram(Map<String, Map<Long, LatencyHistogram>> keys, String key, long hour) {
+		Map<Long, LatencyHistogram> hours = keys.get(key);
+		if (hours == null) {
+			hours = new HashMap<Long, LatencyHistogram>();
+			keys.put(key, hours);
+		}
+		LatencyHistogram histogram = hours.get(hour);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			hours.put(hour, histogram);
+		}
+		return histogram;
+	}
+
+	private static void setParameters(PreparedStatement preparedStatement, Summary summary) throws SQLException {
+		LatencyHistogram histogram = summary.getHistogram();
+		int i = 0;
+		preparedStatement.setLong(++i, histogram.getCount());
+		preparedStatement.setLong(++i, histogram.getTotal());
+		preparedStatement.setString(++i, histogram.getBuckets());
+		preparedStatement.setString(++i, summary.getDimension());
+		preparedStatement.setString(++i, summary.getKey());
+		preparedStatement.setTimestamp(++i, new Timestamp(summary.getPeriod()));
+		preparedStatement.setString(++i, summary.getNode());
+	}
+
+	public static class Summary {
+
+		private final String dimension;
+
+		private final String key;
+
+		private final long period;
+
+		private final String node;
+
+		private final LatencyHistogram histogram;
+
+		public Summary(String dimension, String key, long period, String node, LatencyHistogram histogram) {
+			this.dimension = dimension;
+			this.key = key;
+			this.period = period;
+			this.node = node;
+			this.histogram = histogram;
+		}
+
+		public String getDimension() {
+			return dimension;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public long getPeriod() {
+			return period;
+		}
+
+		public String getNode() {
+			return node;
+		}
+
+		public LatencyHistogram getHistogram() {
+			return histogram;
+		}
+
+		public long getCount() {
+			return histogram.getCount();
+		}
+
+		public long getTotalTime() {
+			return histogram.getTotal();
+		}
+
+	}
+
+}
@@ -0,0 +1,171 @@
+/******************************************************************************* 
+ * Copyright (c) 2015 SAP and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0 
+ * which accompanies this distribution, and is available at 
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   SAP - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.dirigible.runtime.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Histogram of response times in the manner of HdrHistogram - the values below
+ * 8 have a bucket of their own, each next power of two is split into 8 equal
+ * buckets, so a percentile is within 12.5% of the exact one. The values are
+ * recorded without locking and the memory is fixed, whatever their number is.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Values above 2^25 milliseconds (more than 9 hours) go to the last bucket
+	 */
+	private static final int MAX_EXPONENT = 24;
+
+	private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private static final String BUCKET_SEPARATOR = ","; //$NON-NLS-1$
+
+	private static final char COUNT_DELIMITER = ':';
+
+	private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	public void record(long value) {
+		long positive = Math.max(value, 0);
+		counts.incrementAndGet(indexOf(positive));
+		count.incrementAndGet();
+		total.addAndGet(positive);
+	}
+
+	/**
+	 * Adds the values of the other histogram to this one
+	 * 
+	 * @param other
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			int otherCount = other.counts.get(i);
+			if (otherCount > 0) {
+				counts.addAndGet(i, otherCount);
+			}
+		}
+		count.addAndGet(other.count.get());
+		total.addAndGet(other.total.get());
+	}
+
+	/**
+	 * Adds the values of a histogram given by its buckets, as returned by
+	 * {@link #getBuckets()}, and the total of its values
+	 * 
+	 * @param buckets
+	 * @param otherTotal
+	 */
+	public void add(String buckets, long otherTotal) {
+		if ((buckets != null) && (buckets.length() > 0)) {
+			for (String bucket : buckets.split(BUCKET_SEPARATOR)) {
+				int delimiter = bucket.indexOf(COUNT_DELIMITER);
+				int index = Integer.parseInt(bucket.substring(0, delimiter));
+				int otherCount = Integer.parseInt(bucket.substring(delimiter + 1));
+				counts.addAndGet(Math.min(Math.max(index, 0), BUCKETS - 1), otherCount);
+				count.addAndGet(otherCount);
+			}
+		}
+		total.addAndGet(otherTotal);
+	}
+
+	/**
+	 * The counts of the non-empty buckets as index:count pairs separated by
+	 * commas, so that the histogram can be stored and merged with others
+	 * 
+	 * @return
+	 */
+	public String getBuckets() {
+		StringBuilder buckets = new StringBuilder();
+		for (int i = 0; i < BUCKETS; i++) {
+			int bucketCount = counts.get(i);
+			if (bucketCount > 0) {
+				if (buckets.length() > 0) {
+					buckets.append(BUCKET_SEPARATOR);
+				}
+				buckets.append(i).append(COUNT_DELIMITER).append(bucketCount);
+			}
+		}
+		return buckets.toString();
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getTotal() {
+		return total.get();
+	}
+
+	public long getAverage() {
+		long currentCount = count.get();
+		return (currentCount == 0) ? 0 : total.get() / currentCount;
+	}
+
+	/**
+	 * The value below or at which the given percentage of the recorded values
+	 * are, rounded up to the upper bound of its bucket
+	 * 
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return
+	 */
+	public long getPercentile(double percentile) {
+		long currentCount = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			currentCount += counts.get(i);
+		}
+		if (currentCount == 0) {
+			return 0;
+		}
+		long target = Math.max((long) Math.ceil(currentCount * Math.min(Math.max(percentile, 0), 100) / 100), 1);
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += counts.get(i);
+			if (cumulative >= target) {
+				return upperBoundOf(i);
+			}
+		}
+		return upperBoundOf(BUCKETS - 1);
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		int subBucket = (int) (value >> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+		return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBoundOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+		int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lowerBound = ((long) (SUB_BUCKETS + subBucket)) << (exponent - SUB_BUCKET_BITS);
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+}
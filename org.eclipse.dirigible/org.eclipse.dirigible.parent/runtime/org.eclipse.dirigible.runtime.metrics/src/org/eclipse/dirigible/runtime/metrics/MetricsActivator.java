@@ -35,6 +35,9 @@ public class MetricsActivator implements BundleActivator {
 		MemoryLogTask memoryLogTask = new MemoryLogTask();
 		TaskManagerMedium.getInstance().registerRunnableTask(memoryLogTask);
 		
+		AccessMetricsCompactionTask accessMetricsCompactionTask = new AccessMetricsCompactionTask();
+		TaskManagerMedium.getInstance().registerRunnableTask(accessMetricsCompactionTask);
+		
 		// long
 		AccessLogCleanupTask accessLogCleanupTask = new AccessLogCleanupTask();
 		TaskManagerLong.getInstance().registerRunnableTask(accessLogCleanupTask);
@@ -45,7 +48,7 @@ public class MetricsActivator implements BundleActivator {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
-		
+		AccessLogWriter.shutdown();
 
 	}
 
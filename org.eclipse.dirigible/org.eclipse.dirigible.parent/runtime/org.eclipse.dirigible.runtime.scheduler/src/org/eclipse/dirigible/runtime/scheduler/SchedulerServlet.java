@@ -19,9 +19,9 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 
 import org.eclipse.dirigible.repository.logging.Logger;
+import org.eclipse.dirigible.runtime.job.JobRegistry;
 import org.eclipse.dirigible.runtime.job.JobsSynchronizer;
 import org.eclipse.dirigible.runtime.repository.RepositoryHistoryCleanupTask;
-import org.eclipse.dirigible.runtime.search.RebuildSearchIndexTask;
 import org.eclipse.dirigible.runtime.search.UpdateSearchIndexTask;
 import org.eclipse.dirigible.runtime.security.SecuritySynchronizer;
 import org.eclipse.dirigible.runtime.task.TaskManagerLong;
@@ -92,6 +92,8 @@ public class SchedulerServlet extends HttpServlet {
 				logger.debug("entering: " + this.getClass().getCanonicalName() + " -> " //$NON-NLS-1$ //$NON-NLS-2$
 						+ "contextDestroyed"); //$NON-NLS-1$
 				securitySynchronizerScheduler.shutdownNow();
+				jobsSynchronizerScheduler.shutdownNow();
+				JobRegistry.getInstance().shutdown();
 				taskManagerShortScheduler.shutdownNow();
 				taskManagerMediumScheduler.shutdownNow();
 				taskManagerLongScheduler.shutdownNow();
@@ -115,8 +117,15 @@ public class SchedulerServlet extends HttpServlet {
 //		MemoryLogTask memoryLogTask = new MemoryLogTask();
 //		TaskManagerMedium.getInstance().registerRunnableTask(memoryLogTask);
 
-		UpdateSearchIndexTask updateSearchIndexTask = new UpdateSearchIndexTask();
+		final UpdateSearchIndexTask updateSearchIndexTask = new UpdateSearchIndexTask();
 		TaskManagerLong.getInstance().registerRunnableTask(updateSearchIndexTask);
+		// catch up with the changes made while stopped, the next ones are indexed as they come
+		taskManagerLongScheduler.execute(new Runnable() {
+			@Override
+			public void run() {
+				updateSearchIndexTask.start();
+			}
+		});
 
 //		// long
 //		AccessLogCleanupTask accessLogCleanupTask = new AccessLogCleanupTask();
@@ -128,9 +137,6 @@ public class SchedulerServlet extends HttpServlet {
 //		MemoryLogCleanupTask memoryLogCleanupTask = new MemoryLogCleanupTask();
 //		TaskManagerLong.getInstance().registerRunnableTask(memoryLogCleanupTask);
 
-		RebuildSearchIndexTask rebuildSearchIndexTask = new RebuildSearchIndexTask();
-		TaskManagerLong.getInstance().registerRunnableTask(rebuildSearchIndexTask);
-
 		logger.debug("exiting: " + this.getClass().getCanonicalName() + " -> " //$NON-NLS-1$ //$NON-NLS-2$
 				+ "registerRunnableTasks"); //$NON-NLS-1$
 	}
@@ -74,12 +74,7 @@ public abstract class AbstractRegistrySecureFilter implements Filter {
 	protected abstract String getSecuredMapping();
 
 	protected boolean isLocationSecured(String location) throws ServletException {
-		for (String securedLocation : SecuritySynchronizer.getSecuredLocations()) {
-			if (location.startsWith(securedLocation)) {
-				return true;
-			}
-		}
-		return false;
+		return SecuritySynchronizer.getSecuredLocations().isSecured(location);
 	}
 
 	@Override
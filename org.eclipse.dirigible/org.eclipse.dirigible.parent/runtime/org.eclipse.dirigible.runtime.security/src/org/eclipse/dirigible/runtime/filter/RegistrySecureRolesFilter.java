@@ -12,9 +12,6 @@
 package org.eclipse.dirigible.runtime.filter;
 
 import java.io.IOException;
-import java.security.Principal;
-import java.sql.SQLException;
-import java.util.Iterator;
 import java.util.List;
 
 import javax.servlet.FilterChain;
@@ -24,18 +21,15 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.eclipse.dirigible.repository.api.RepositoryException;
-import org.eclipse.dirigible.repository.ext.security.SecurityManager;
-import org.eclipse.dirigible.repository.logging.Logger;
+import org.eclipse.dirigible.repository.ext.security.SecuredLocations;
 import org.eclipse.dirigible.runtime.registry.Messages;
 import org.eclipse.dirigible.runtime.registry.PathUtils;
-import org.eclipse.dirigible.runtime.repository.RepositoryFacade;
+import org.eclipse.dirigible.runtime.security.SecuritySynchronizer;
 
 public class RegistrySecureRolesFilter extends AbstractRegistrySecureFilter {
 
 	private static final String YOU_DO_NOT_HAVE_REQUIRED_ROLE_S_TO_ACCESS_THIS_LOCATION = Messages
 			.getString("RegistrySecureRolesFilter.YOU_DO_NOT_HAVE_REQUIRED_ROLE_S_TO_ACCESS_THIS_LOCATION"); //$NON-NLS-1$
-	private static final Logger logger = Logger.getLogger(RegistrySecureRolesFilter.class);
 
 	@Override
 	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
@@ -44,40 +38,25 @@ public class RegistrySecureRolesFilter extends AbstractRegistrySecureFilter {
 		HttpServletRequest request = (HttpServletRequest) req;
 
 		String location = PathUtils.extractPath(request);
-		if (isLocationSecured(location)) {
-			if (!isUserInRole(req, location)) {
+		SecuredLocations securedLocations = SecuritySynchronizer.getSecuredLocations();
+		if (securedLocations.isSecured(location)) {
+			if (!isUserInRole(request, securedLocations.getRoles(location))) {
 				((HttpServletResponse) res).sendError(HttpServletResponse.SC_FORBIDDEN,
 						YOU_DO_NOT_HAVE_REQUIRED_ROLE_S_TO_ACCESS_THIS_LOCATION);
+				return;
 			}
 		}
 		chain.doFilter(req, res);
 
 	}
 
-	private boolean isUserInRole(ServletRequest req, String location) {
-		try {
-			if (req instanceof HttpServletRequest) {
-				HttpServletRequest request = (HttpServletRequest) req;
-				Principal principal = request.getUserPrincipal();
-				if (principal != null) {
-					SecurityManager securityManager = SecurityManager.getInstance(RepositoryFacade
-							.getInstance().getRepository(request), RepositoryFacade.getInstance()
-							.getDataSource());
-					List<String> roles = securityManager.getRolesForLocation(location);
-					for (Iterator<String> iterator = roles.iterator(); iterator.hasNext();) {
-						String role = iterator.next();
-						if (request.isUserInRole(role)) {
-							return true;
-						}
-					}
+	private boolean isUserInRole(HttpServletRequest request, List<String> roles) {
+		if (request.getUserPrincipal() != null) {
+			for (String role : roles) {
+				if (request.isUserInRole(role)) {
+					return true;
 				}
 			}
-		} catch (RepositoryException e) {
-			logger.error(e.getMessage(), e);
-		} catch (SQLException e) {
-			logger.error(e.getMessage(), e);
-		} catch (IOException e) {
-			logger.error(e.getMessage(), e);
 		}
 		return false;
 	}
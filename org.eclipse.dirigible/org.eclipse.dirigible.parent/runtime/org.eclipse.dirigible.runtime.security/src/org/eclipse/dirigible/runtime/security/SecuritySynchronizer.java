@@ -11,14 +11,11 @@
 
 package org.eclipse.dirigible.runtime.security;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 import javax.servlet.ServletException;
 import javax.sql.DataSource;
 
 import org.eclipse.dirigible.repository.api.IRepository;
+import org.eclipse.dirigible.repository.ext.security.SecuredLocations;
 import org.eclipse.dirigible.repository.ext.security.SecurityManager;
 import org.eclipse.dirigible.repository.logging.Logger;
 import org.eclipse.dirigible.runtime.registry.Messages;
@@ -31,8 +28,16 @@ public class SecuritySynchronizer implements Runnable {
 
 	private static final Logger logger = Logger.getLogger(SecuritySynchronizer.class);
 
-	private static List<String> securedLocations = Collections
-			.synchronizedList(new ArrayList<String>());
+	/**
+	 * Replaced as a whole on each change of the access list, the filters work
+	 * with the one taken at the beginning of the request
+	 */
+	private static volatile SecuredLocations securedLocations;
+
+	static {
+		// the changes made through the security manager are visible immediately
+		SecurityManager.addChangeListener(new SecuritySynchronizer());
+	}
 
 	@Override
 	public void run() {
@@ -52,11 +57,32 @@ public class SecuritySynchronizer implements Runnable {
 				+ "run"); //$NON-NLS-1$
 	}
 
-	public static List<String> getSecuredLocations() {
-		return securedLocations;
+	/**
+	 * The current secured locations with their roles, loaded on the first call
+	 * if the synchronizer has not run yet
+	 * 
+	 * @return
+	 */
+	public static SecuredLocations getSecuredLocations() {
+		SecuredLocations current = securedLocations;
+		if (current == null) {
+			synchronized (SecuritySynchronizer.class) {
+				if (securedLocations == null) {
+					try {
+						refreshSecuredLocations();
+					} catch (ServletException e) {
+						logger.error(REFRESHING_OF_SECURED_LOCATIONS_FAILED, e);
+						// retried by the next run of the synchronizer
+						securedLocations = SecuredLocations.EMPTY;
+					}
+				}
+				current = securedLocations;
+			}
+		}
+		return current;
 	}
 
-	private void refreshSecuredLocations() throws ServletException {
+	private static synchronized void refreshSecuredLocations() throws ServletException {
 
 		SecurityManager securityManager = null;
 		try {
@@ -64,7 +90,10 @@ public class SecuritySynchronizer implements Runnable {
 			IRepository repository = RepositoryFacade.getInstance().getRepository(null);
 			// TODO
 			securityManager = SecurityManager.getInstance(repository, dataSource);
-			securedLocations = securityManager.getSecuredLocations();
+			SecuredLocations refreshed = SecuredLocations.build(securityManager.getAccessList());
+			if (!refreshed.equals(securedLocations)) {
+				securedLocations = refreshed;
+			}
 		} catch (Exception e) {
 			throw new ServletException(e);
 		}
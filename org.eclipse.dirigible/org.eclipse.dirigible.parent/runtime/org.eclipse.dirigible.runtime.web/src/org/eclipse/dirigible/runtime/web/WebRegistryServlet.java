@@ -123,6 +123,17 @@ public class WebRegistryServlet extends RegistryServlet {
 		return rawContent;
 	}
 
+	@Override
+	protected String getContentKey(IResource resource, HttpServletRequest request) {
+		if ((request.getParameter(PARAMETER_NO_HEADER_AND_FOOTER) == null)
+				&& (request.getParameter(PARAMETER_LIST) == null) && checkExtensions(resource)
+				&& !INDEX_HTML.equals(resource.getName().toLowerCase())) {
+			// composed with the header and the footer, which may change on their own
+			return null;
+		}
+		return super.getContentKey(resource, request);
+	}
+
 	protected boolean checkExtensions(IEntity entity) {
 		return entity.getName().endsWith(HTML_EXTENSION);
 	}